@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Time-to-first-successful GET /api/books: regular build vs. the fast-startup build.
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# Needs the database from application.properties to be reachable. Prints one line
+# per run and a JSON summary (milliseconds, median of the runs).
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+OUT="$ROOT/target/startup-benchmark"
+JAR_NAME=demo-0.0.1-SNAPSHOT.jar
+
+mkdir -p "$OUT"
+cd "$ROOT"
+
+echo "Building regular jar..."
+./mvnw -q -B clean package -DskipTests
+cp "target/$JAR_NAME" "$OUT/regular.jar"
+
+echo "Building fast-startup jar (AOT + CDS)..."
+./mvnw -q -B -Pfast-startup clean package -DskipTests
+
+now_ms() { date +%s%3N; }
+
+# Start the app, poll until GET /api/books answers 200, record elapsed ms, stop it
+measure() {
+    local start pid elapsed
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > "$OUT/last-run.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/books"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited, see $OUT/last-run.log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+median() { sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }'; }
+
+regular=()
+fast=()
+for i in $(seq 1 "$RUNS"); do
+    r=$(measure java -jar "$OUT/regular.jar")
+    f=$(measure java -XX:SharedArchiveFile=target/app/application.jsa -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=fast -jar "target/app/$JAR_NAME")
+    echo "run $i: regular=${r}ms fast-startup=${f}ms"
+    regular+=("$r")
+    fast+=("$f")
+done
+
+regular_median=$(printf '%s\n' "${regular[@]}" | median)
+fast_median=$(printf '%s\n' "${fast[@]}" | median)
+echo "{\"runs\": $RUNS, \"regularMedianMs\": $regular_median, \"fastStartupMedianMs\": $fast_median}" \
+    | tee "$OUT/summary.json"
@@ -0,0 +1,371 @@
+package com.management.demo.catalog;
+
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.event.BookReturnedEvent;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationListener;
+import com.management.demo.model.Book;
+import com.management.demo.model.CatalogBrowseResult;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.ShardResolver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory copy of the default branch's catalogue, for reads that would otherwise scan books.
+// Warm start: the cache is written to a binary snapshot periodically and at shutdown; on
+// boot the snapshot is memory-mapped and only books changed (updated_at) or deleted
+// (book_deletions) since its watermark are fetched, so startup cost follows the churn since
+// the last snapshot rather than the catalogue size. Without a usable snapshot it falls back
+// to a keyset-paged full load.
+// Afterwards the same delta query runs every refresh interval (picking up other instances'
+// writes), and local writes and loans are applied as they commit. With the invalidation bus,
+// books other instances change are re-read as soon as they announce them. A FacetIndex over
+// the same books is kept in step for faceted browsing.
+// Cached Books are shared and must not be modified by callers.
+@Component
+public class CatalogCache implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${libraryhub.catalog.snapshot-path:snapshots/catalog.snap}")
+    private String snapshotPath;
+
+    // Changes are re-fetched from this far before the watermark, to cover clock skew between
+    // instances and transactions that commit after a later refresh has already run
+    @Value("${libraryhub.catalog.delta-overlap-seconds:15}")
+    private long deltaOverlapSeconds;
+
+    // Snapshots older than this are ignored: the tombstones they would need may be purged
+    @Value("${libraryhub.catalog.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    @Value("${libraryhub.catalog.full-load-page-size:5000}")
+    private int fullLoadPageSize;
+
+    private final Map<Long, Book> books = new ConcurrentHashMap<>();
+    private final FacetIndex facetIndex = new FacetIndex();
+    private final Object refreshLock = new Object();
+
+    // Bumped whenever a cached book is added, changed or removed
+    private final AtomicLong version = new AtomicLong();
+
+    // Every change with updated_at up to here has been applied
+    private volatile LocalDateTime watermark;
+    private volatile boolean ready;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("libraryhub.catalog.cache.size", books, Map::size)
+                .description("Books held by the catalog cache")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            String source = shardResolver.onDefaultBranch(this::loadFromSnapshotOrDatabase);
+            ready = true;
+            log.info("Catalog cache ready with {} books from {} in {} ms", books.size(), source,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Catalog cache could not be loaded; book lists are read from the database", e);
+        }
+    }
+
+    // Returns where the books came from, for the startup log
+    private String loadFromSnapshotOrDatabase() {
+        synchronized (refreshLock) {
+            CatalogSnapshot.Contents snapshot = readSnapshot();
+            if (snapshot == null) {
+                fullLoad();
+                return "a full load";
+            }
+            snapshot.books().forEach(this::apply);
+            watermark = snapshot.watermark();
+            int changes = applyChanges();
+            return "the snapshot (" + snapshot.books().size() + " books) and " + changes + " changes since";
+        }
+    }
+
+    private CatalogSnapshot.Contents readSnapshot() {
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            CatalogSnapshot.Contents snapshot = CatalogSnapshot.read(path);
+            if (snapshot.watermark() == null
+                    || snapshot.watermark().isBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays))) {
+                log.info("Catalog snapshot {} is too old to catch up from; doing a full load", path);
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    // Returns the IDs loaded
+    private Set<Long> fullLoad() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Set<Long> loaded = new HashSet<>();
+        long lastId = 0;
+        List<Book> page;
+        do {
+            page = bookRepository.findPageAfterId(lastId, fullLoadPageSize);
+            for (Book book : page) {
+                apply(book);
+                loaded.add(book.getId());
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == fullLoadPageSize);
+        // Rows changed while the pages were read are picked up by the next refresh
+        watermark = startedAt;
+        return loaded;
+    }
+
+    // Apply books changed and deleted since the watermark; returns how many
+    private int applyChanges() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = watermark.minusSeconds(deltaOverlapSeconds);
+        List<Book> changed = bookRepository.findUpdatedSince(since);
+        Collection<Long> deleted = bookRepository.findDeletedSince(since).keySet();
+        changed.forEach(this::apply);
+        deleted.forEach(this::evict);
+        watermark = startedAt;
+        return changed.size() + deleted.size();
+    }
+
+    @Scheduled(fixedDelayString = "${libraryhub.catalog.refresh-ms:5000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            shardResolver.onDefaultBranch(() -> {
+                synchronized (refreshLock) {
+                    return applyChanges();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Catalog cache refresh failed; retrying on the next run", e);
+        }
+    }
+
+    // The newer row version wins, so a late refresh never undoes a write applied at commit.
+    // Re-fetching an unchanged row (the refresh overlap) leaves the cache version alone.
+    // The facet index is updated inside compute(), so it sees each book's changes in map order.
+    private void apply(Book book) {
+        boolean[] changed = {false};
+        books.compute(book.getId(), (id, cached) -> {
+            long cachedVersion = cached == null ? -1 : Objects.requireNonNullElse(cached.getVersion(), 0L);
+            long freshVersion = Objects.requireNonNullElse(book.getVersion(), 0L);
+            if (freshVersion > cachedVersion || (freshVersion == cachedVersion && !book.equals(cached))) {
+                changed[0] = true;
+                facetIndex.put(book);
+                return book;
+            }
+            return cached;
+        });
+        if (changed[0]) {
+            version.incrementAndGet();
+        }
+    }
+
+    private void evict(Long id) {
+        boolean[] removed = {false};
+        books.computeIfPresent(id, (key, cached) -> {
+            removed[0] = true;
+            facetIndex.remove(key);
+            return null;
+        });
+        if (removed[0]) {
+            version.incrementAndGet();
+        }
+    }
+
+    // Write-through for books saved on this instance
+    public void put(Book book) {
+        if (ready && shardResolver.isDefaultBranch()) {
+            apply(book);
+        }
+    }
+
+    public void remove(Long id) {
+        if (ready && shardResolver.isDefaultBranch()) {
+            evict(id);
+        }
+    }
+
+    // Loans change available copies; re-read the book once the loan has committed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookIssued(BookIssuedEvent event) {
+        reload(event.bookId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookReturned(BookReturnedEvent event) {
+        reload(event.bookId());
+    }
+
+    private void reload(Long bookId) {
+        if (ready && shardResolver.isDefaultBranch()) {
+            bookRepository.findById(bookId).ifPresentOrElse(this::apply, () -> evict(bookId));
+        }
+    }
+
+    // Books another instance changed on the default branch
+    @Override
+    public void invalidate(List<EntityChange> changes) {
+        if (!ready) {
+            return;
+        }
+        List<Long> ids = changes.stream()
+                .filter(change -> change.kind() == EntityChange.Kind.BOOK
+                        && change.branch().equals(shardResolver.getDefaultBranch()))
+                .map(EntityChange::id)
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Book> found = shardResolver.onDefaultBranch(() -> bookRepository.findByIds(ids));
+        found.forEach(this::apply);
+        Set<Long> foundIds = new HashSet<>();
+        found.forEach(book -> foundIds.add(book.getId()));
+        ids.stream().filter(id -> !foundIds.contains(id)).forEach(this::evict);
+    }
+
+    // Invalidations were missed: reload every book and drop the ones no longer there.
+    // A book inserted after the load has passed its ID may be dropped too; the next
+    // refresh puts it back.
+    @Override
+    public void resync() {
+        if (!ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        int evicted = shardResolver.onDefaultBranch(() -> {
+            synchronized (refreshLock) {
+                Set<Long> loaded = fullLoad();
+                List<Long> gone = books.keySet().stream().filter(id -> !loaded.contains(id)).toList();
+                gone.forEach(this::evict);
+                return gone.size();
+            }
+        });
+        log.info("Catalog cache resynchronised: {} books, {} evicted, in {} ms", books.size(), evicted,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${libraryhub.catalog.snapshot-interval-ms:600000}",
+            initialDelayString = "${libraryhub.catalog.snapshot-interval-ms:600000}")
+    public void writeSnapshot() {
+        if (!ready) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        long start = System.nanoTime();
+        try {
+            synchronized (refreshLock) {
+                CatalogSnapshot.write(path, watermark, books.values());
+            }
+            log.debug("Wrote catalog snapshot of {} books to {} in {} ms", books.size(), path,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not write catalog snapshot {}", path, e);
+        }
+    }
+
+    // Tombstones live in every branch, whichever branch the book was deleted from
+    @Scheduled(fixedDelayString = "${libraryhub.catalog.tombstone-purge-ms:3600000}")
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        for (String branch : shardResolver.getBranches()) {
+            BranchContext.runIn(branch, () -> bookRepository.purgeDeletionsBefore(cutoff));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writeSnapshot();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Changes whenever the cached catalogue does; anything derived from it can be keyed by this
+    public long getVersion() {
+        return version.get();
+    }
+
+    // All cached books, ordered by title
+    public List<Book> getAllBooks() {
+        List<Book> all = new ArrayList<>(books.values());
+        all.sort(Comparator.comparing(Book::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return all;
+    }
+
+    // Faceted browse over the cached books
+    public CatalogBrowseResult browse(FacetIndex.Query query) {
+        return facetIndex.browse(query);
+    }
+
+    // Cached books among the IDs (order not guaranteed); missing IDs are skipped
+    public List<Book> findByIds(Collection<Long> ids) {
+        List<Book> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = books.get(id);
+            if (book != null) {
+                found.add(book);
+            }
+        }
+        return found;
+    }
+}
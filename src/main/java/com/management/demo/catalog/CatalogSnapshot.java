@@ -0,0 +1,177 @@
+package com.management.demo.catalog;
+
+import com.management.demo.model.Book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Binary image of the cached catalogue.
+// Header: int magic, int format version, long watermark, int count.
+// Book:   long id, long version, int publicationYear, int totalCopies, int availableCopies,
+//         long createdAt, long updatedAt, then isbn, title, author, category, branch as
+//         short length + UTF-8 (-1 for null). Timestamps are epoch microseconds of the local time.
+// Trailer: int CRC32C of everything before it.
+// Written to a temporary file and moved into place, so a crash never leaves half a snapshot.
+final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x4C484353;  // "LHCS"
+    private static final int FORMAT_VERSION = 1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // watermark: every change up to this updated_at is in the books
+    record Contents(LocalDateTime watermark, List<Book> books) {
+    }
+
+    private CatalogSnapshot() {
+    }
+
+    static void write(Path file, LocalDateTime watermark, Collection<Book> books) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(estimateSize(books));
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putLong(micros(watermark));
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+
+        int count = 0;
+        for (Book book : books) {
+            byte[][] strings = {utf8(book.getIsbn()), utf8(book.getTitle()), utf8(book.getAuthor()),
+                    utf8(book.getCategory()), utf8(book.getBranch())};
+            int size = 44;
+            for (byte[] string : strings) {
+                size += 2 + (string != null ? string.length : 0);
+            }
+            buffer = ensureCapacity(buffer, size);
+            buffer.putLong(book.getId());
+            buffer.putLong(book.getVersion() != null ? book.getVersion() : 0);
+            buffer.putInt(book.getPublicationYear() != null ? book.getPublicationYear() : 0);
+            buffer.putInt(book.getTotalCopies() != null ? book.getTotalCopies() : 0);
+            buffer.putInt(book.getAvailableCopies() != null ? book.getAvailableCopies() : 0);
+            buffer.putLong(micros(book.getCreatedAt()));
+            buffer.putLong(micros(book.getUpdatedAt()));
+            for (byte[] string : strings) {
+                putString(buffer, string);
+            }
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+        buffer = ensureCapacity(buffer, 4);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Contents of the snapshot, or throws if it is missing, from another format or corrupt
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 24 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            int crcPosition = buffer.limit() - 4;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, crcPosition));
+            if ((int) crc.getValue() != buffer.getInt(crcPosition)) {
+                throw new IOException("Catalog snapshot is corrupt: " + file);
+            }
+
+            LocalDateTime watermark = time(buffer.getLong());
+            int count = buffer.getInt();
+            List<Book> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Book book = new Book();
+                book.setId(buffer.getLong());
+                book.setVersion(buffer.getLong());
+                book.setPublicationYear(buffer.getInt());
+                book.setTotalCopies(buffer.getInt());
+                book.setAvailableCopies(buffer.getInt());
+                book.setCreatedAt(time(buffer.getLong()));
+                book.setUpdatedAt(time(buffer.getLong()));
+                book.setIsbn(getString(buffer));
+                book.setTitle(getString(buffer));
+                book.setAuthor(getString(buffer));
+                book.setCategory(getString(buffer));
+                book.setBranch(getString(buffer));
+                books.add(book);
+            }
+            return new Contents(watermark, books);
+        }
+    }
+
+    private static int estimateSize(Collection<Book> books) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, 64L + 160L * books.size());
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    // Column values are far below the 32 KB a short length allows
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= Short.MAX_VALUE ? bytes : Arrays.copyOf(bytes, Short.MAX_VALUE);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long micros(LocalDateTime time) {
+        return time == null ? NULL_TIME : ChronoUnit.MICROS.between(EPOCH, time);
+    }
+
+    private static LocalDateTime time(long micros) {
+        return micros == NULL_TIME ? null : EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
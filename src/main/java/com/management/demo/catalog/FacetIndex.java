@@ -0,0 +1,346 @@
+package com.management.demo.catalog;
+
+import com.management.demo.model.Book;
+import com.management.demo.model.CatalogBrowseResult;
+import com.management.demo.util.Bitmap;
+import com.management.demo.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Facet filters and counts over a set of books, answered from bitmaps instead of GROUP BY.
+// Every book gets a dense ordinal, and each facet keeps a column holding the value ID per
+// ordinal. Facets with few distinct values (category, decade, availability) also keep one
+// bitmap per value: a browse ANDs the selected facets' bitmaps (values within a facet are
+// ORed), and counts are popcounts of each value's bitmap against the matches. A selected
+// facet is counted against the other facets' filters only, so picking one category still
+// shows how many books the others have. Author has too many values for a bitmap each (one
+// is 125 KB at a million books), so it is filtered and counted by scanning its column over
+// the matching ordinals.
+// CatalogCache keeps one up to date for the default branch. Thread-safe.
+public class FacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String AUTHOR = "author";
+    public static final String DECADE = "decade";
+    public static final String AVAILABLE = "available";
+
+    // Same order as GET /api/books
+    private static final Comparator<Book> BY_TITLE = Comparator
+            .comparing(Book::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(Book::getId);
+
+    public record Query(Map<String, Set<String>> filters, String text, int page, int size, int facetLimit) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Book ID -> ordinal + 1 (0 means absent)
+    private final LongIntHashMap ordinals = new LongIntHashMap();
+    private Book[] books = new Book[1024];
+    // Lower-cased "title\nauthor", for the text filter
+    private String[] searchText = new String[1024];
+    private final Bitmap live = new Bitmap();
+    private int[] freeOrdinals = new int[64];
+    private int freeCount;
+    private int nextOrdinal;
+
+    private final Facet[] facets = {
+            new Facet(CATEGORY, Book::getCategory, true),
+            new Facet(AUTHOR, Book::getAuthor, false),
+            new Facet(DECADE, FacetIndex::decade, true),
+            new Facet(AVAILABLE, FacetIndex::available, true)
+    };
+
+    public static FacetIndex of(Collection<Book> books) {
+        FacetIndex index = new FacetIndex();
+        books.forEach(index::put);
+        return index;
+    }
+
+    // Add a book or replace the indexed copy with the same ID
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.get(book.getId()) - 1;
+            if (ordinal < 0) {
+                ordinal = allocateOrdinal();
+                ordinals.addTo(book.getId(), ordinal + 1);
+            }
+            books[ordinal] = book;
+            searchText[ordinal] = (Objects.toString(book.getTitle(), "") + "\n"
+                    + Objects.toString(book.getAuthor(), "")).toLowerCase(Locale.ROOT);
+            live.set(ordinal);
+            for (Facet facet : facets) {
+                facet.set(ordinal, facet.extractor.apply(book));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.remove(id) - 1;
+            if (ordinal < 0) {
+                return;
+            }
+            books[ordinal] = null;
+            searchText[ordinal] = null;
+            live.clear(ordinal);
+            for (Facet facet : facets) {
+                facet.set(ordinal, null);
+            }
+            if (freeCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+            }
+            freeOrdinals[freeCount++] = ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Books matching every filter (and the text, if any), one page of them by title,
+    // and the top facetLimit values of each facet
+    public CatalogBrowseResult browse(Query query) {
+        lock.readLock().lock();
+        try {
+            Bitmap base = live;
+            if (query.text() != null && !query.text().isBlank()) {
+                base = matchText(query.text().trim().toLowerCase(Locale.ROOT));
+            }
+
+            Bitmap[] selections = new Bitmap[facets.length];
+            Bitmap matches = base.copy();
+            for (int i = 0; i < facets.length; i++) {
+                Set<String> selected = query.filters().get(facets[i].name);
+                if (selected != null && !selected.isEmpty()) {
+                    selections[i] = facets[i].select(selected, base);
+                    matches.and(selections[i]);
+                }
+            }
+            int total = matches.cardinality();
+
+            Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+            for (int i = 0; i < facets.length; i++) {
+                Bitmap mask = matches;
+                int maskSize = total;
+                if (selections[i] != null) {
+                    mask = base.copy();
+                    for (int j = 0; j < facets.length; j++) {
+                        if (j != i && selections[j] != null) {
+                            mask.and(selections[j]);
+                        }
+                    }
+                    maskSize = mask.cardinality();
+                }
+                facetCounts.put(facets[i].name, top(facets[i], facets[i].count(mask, maskSize, words()), query.facetLimit()));
+            }
+
+            return new CatalogBrowseResult(total, query.page(), query.size(),
+                    page(matches, total, query.page(), query.size()), facetCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocateOrdinal() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        int ordinal = nextOrdinal++;
+        if (ordinal == books.length) {
+            books = Arrays.copyOf(books, books.length * 2);
+            searchText = Arrays.copyOf(searchText, searchText.length * 2);
+        }
+        return ordinal;
+    }
+
+    private int words() {
+        return (nextOrdinal + 63) >>> 6;
+    }
+
+    // Same match as the database search: the term anywhere in the title or author
+    private Bitmap matchText(String term) {
+        Bitmap matched = new Bitmap(nextOrdinal);
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            if (searchText[ordinal].contains(term)) {
+                matched.set(ordinal);
+            }
+        }
+        return matched;
+    }
+
+    // The requested page of matches by title, keeping only the books up to its end
+    private List<Book> page(Bitmap matches, int total, int page, int size) {
+        if ((long) page * size >= total) {
+            return List.of();
+        }
+        int keep = (page + 1) * size;
+        PriorityQueue<Book> firstByTitle = new PriorityQueue<>(keep + 1, BY_TITLE.reversed());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            Book book = books[ordinal];
+            if (firstByTitle.size() < keep) {
+                firstByTitle.add(book);
+            } else if (BY_TITLE.compare(book, firstByTitle.peek()) < 0) {
+                firstByTitle.poll();
+                firstByTitle.add(book);
+            }
+        }
+        List<Book> sorted = new ArrayList<>(firstByTitle);
+        sorted.sort(BY_TITLE);
+        return sorted.subList(Math.min(page * size, sorted.size()), sorted.size());
+    }
+
+    // The limit highest non-zero counts, highest first (ties by value). Kept in a small sorted
+    // array rather than sorting every value: author has hundreds of thousands.
+    private static Map<String, Integer> top(Facet facet, int[] counts, int limit) {
+        int[] best = new int[limit];
+        int size = 0;
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] == 0 || (size == limit && !ranksBefore(facet, counts, id, best[limit - 1]))) {
+                continue;
+            }
+            int slot = size < limit ? size++ : limit - 1;
+            while (slot > 0 && ranksBefore(facet, counts, id, best[slot - 1])) {
+                best[slot] = best[slot - 1];
+                slot--;
+            }
+            best[slot] = id;
+        }
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            top.put(facet.values.get(best[i]), counts[best[i]]);
+        }
+        return top;
+    }
+
+    private static boolean ranksBefore(Facet facet, int[] counts, int id, int other) {
+        return counts[id] != counts[other] ? counts[id] > counts[other]
+                : facet.values.get(id).compareTo(facet.values.get(other)) < 0;
+    }
+
+    private static String decade(Book book) {
+        Integer year = book.getPublicationYear();
+        return year == null ? null : (year / 10 * 10) + "s";
+    }
+
+    private static String available(Book book) {
+        return String.valueOf(book.getAvailableCopies() != null && book.getAvailableCopies() > 0);
+    }
+
+    private static final class Facet {
+
+        private final String name;
+        private final Function<Book, String> extractor;
+        private final boolean bitmapped;
+        private final Map<String, Integer> valueIds = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<Bitmap> bitmaps = new ArrayList<>();
+        // Value ID per ordinal, -1 for none
+        private int[] column = new int[0];
+
+        private Facet(String name, Function<Book, String> extractor, boolean bitmapped) {
+            this.name = name;
+            this.extractor = extractor;
+            this.bitmapped = bitmapped;
+        }
+
+        private void set(int ordinal, String value) {
+            if (ordinal >= column.length) {
+                int oldLength = column.length;
+                column = Arrays.copyOf(column, Math.max(1024, Math.max(ordinal + 1, oldLength * 2)));
+                Arrays.fill(column, oldLength, column.length, -1);
+            }
+            int id = value == null ? -1 : valueIds.computeIfAbsent(value, v -> {
+                values.add(v);
+                if (bitmapped) {
+                    bitmaps.add(new Bitmap(column.length));
+                }
+                return values.size() - 1;
+            });
+            int old = column[ordinal];
+            if (old == id) {
+                return;
+            }
+            if (bitmapped) {
+                if (old >= 0) {
+                    bitmaps.get(old).clear(ordinal);
+                }
+                if (id >= 0) {
+                    bitmaps.get(id).set(ordinal);
+                }
+            }
+            column[ordinal] = id;
+        }
+
+        // Ordinals having one of the selected values. Unbitmapped facets only look at candidates.
+        private Bitmap select(Set<String> selected, Bitmap candidates) {
+            Bitmap result = new Bitmap(column.length);
+            if (bitmapped) {
+                for (String value : selected) {
+                    Integer id = valueIds.get(value);
+                    if (id != null) {
+                        result.or(bitmaps.get(id));
+                    }
+                }
+                return result;
+            }
+            boolean[] chosen = new boolean[values.size()];
+            for (String value : selected) {
+                Integer id = valueIds.get(value);
+                if (id != null) {
+                    chosen[id] = true;
+                }
+            }
+            for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                int id = column[ordinal];
+                if (id >= 0 && chosen[id]) {
+                    result.set(ordinal);
+                }
+            }
+            return result;
+        }
+
+        // Books in mask per value ID. Popcounts read every word once per value; scanning the
+        // column reads each match once, which is cheaper for narrow results or many values.
+        private int[] count(Bitmap mask, int maskSize, int words) {
+            int[] counts = new int[values.size()];
+            if (bitmapped && (long) values.size() * words <= (long) words + maskSize) {
+                for (int id = 0; id < counts.length; id++) {
+                    counts[id] = bitmaps.get(id).andCardinality(mask);
+                }
+                return counts;
+            }
+            for (int ordinal = mask.nextSetBit(0); ordinal >= 0; ordinal = mask.nextSetBit(ordinal + 1)) {
+                int id = column[ordinal];
+                if (id >= 0) {
+                    counts[id]++;
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.management.demo.config;
+
+import com.management.demo.controller.BookController;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.service.BookService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+// Guard rails for spring.main.lazy-initialization (the "fast" profile).
+// Lazy beans are only created when first injected or looked up, which silently
+// breaks beans that nobody injects but that must run: @Scheduled jobs and event
+// listeners. Those stay eager, as does the path behind GET /api/books so the first
+// request after scale-out doesn't pay for wiring it.
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    private static final List<Class<?>> EAGER_TYPES = List.of(
+            DataSource.class,
+            JdbcTemplate.class,
+            BookRepository.class,
+            BookService.class,
+            BookController.class
+    );
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (EAGER_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                || hasBackgroundWork(beanType));
+    }
+
+    private static boolean hasBackgroundWork(Class<?> beanType) {
+        return Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(beanType))
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                        || AnnotatedElementUtils.hasAnnotation(method, EventListener.class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.management.demo.controller;
+
+import com.management.demo.exception.LibraryException;
+import com.management.demo.resilience.DatabaseUnavailableException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import java.net.URI;
+
+// The one place failures become responses: RFC 9457 problem details (application/problem+json)
+// with a "code" property clients can switch on. Spring MVC's own exceptions (bad JSON, failed
+// validation, missing parameters) come from the superclass in the same shape.
+// Expected failures are logged as one key/value event each on libraryhub.errors, which
+// logback-spring.xml writes asynchronously; only unexpected ones carry a stack trace.
+@RestControllerAdvice
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+    private static final Logger errors = LoggerFactory.getLogger("libraryhub.errors");
+
+    @ExceptionHandler(LibraryException.class)
+    public ResponseEntity<ProblemDetail> handleLibraryException(LibraryException e, HttpServletRequest request) {
+        return ResponseEntity.status(e.getStatus()).body(problem(e.getStatus(), e.getCode(), e.getMessage(), request));
+    }
+
+    // A stale If-Match, or an edit that lost the race to another one
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleStaleVersion(OptimisticLockingFailureException e, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(problem(HttpStatus.CONFLICT, "version-conflict", e.getMessage(), request));
+    }
+
+    // Reads with no last-known-good answer while the database is down
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleDatabaseUnavailable(DatabaseUnavailableException e, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(problem(HttpStatus.SERVICE_UNAVAILABLE, "database-unavailable", e.getMessage(), request));
+    }
+
+    // Anything else is a bug or an outage: keep the trace, but out of the response
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ProblemDetail> handleUnexpected(Exception e, HttpServletRequest request) {
+        log.error("Unhandled error on {} {}", request.getMethod(), request.getRequestURI(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(problem(HttpStatus.INTERNAL_SERVER_ERROR, "internal-error", "Unexpected error", request));
+    }
+
+    static ProblemDetail problem(HttpStatus status, String code, String detail, HttpServletRequest request) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(status, detail);
+        body.setInstance(URI.create(request.getRequestURI()));
+        body.setProperty("code", code);
+        errors.atInfo()
+                .addKeyValue("status", status.value())
+                .addKeyValue("code", code)
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("path", request.getRequestURI())
+                .log(detail);
+        return body;
+    }
+}
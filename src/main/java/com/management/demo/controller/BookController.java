@@ -1,15 +1,26 @@
 package com.management.demo.controller;
 
+import com.management.demo.catalog.FacetIndex;
 import com.management.demo.model.Book;
+import com.management.demo.model.BookRecommendation;
+import com.management.demo.model.CatalogBrowseResult;
+import com.management.demo.model.TrendingReport;
 import com.management.demo.service.BookService;
+import com.management.demo.service.RecommendationService;
+import com.management.demo.service.TrendingService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
@@ -19,18 +30,27 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
-    // GET /api/books - Get all books
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    // GET /api/books - Get all books (served from the response cache while the catalogue is unchanged)
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getAllBooks(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond("all", false, acceptEncoding, ifNoneMatch, bookService::getAllBooks);
     }
 
     // GET /api/books/{id} - Get book by ID
     @GetMapping("/{id}")
     public ResponseEntity<Book> getBookById(@PathVariable Long id) {
         Optional<Book> book = bookService.getBookById(id);
-        return book.map(ResponseEntity::ok)
+        return book.map(b -> ResponseEntity.ok().eTag(ETags.of(b.getVersion())).body(b))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -38,62 +58,83 @@ public class BookController {
     @GetMapping("/isbn/{isbn}")
     public ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn) {
         Optional<Book> book = bookService.getBookByIsbn(isbn);
-        return book.map(ResponseEntity::ok)
+        return book.map(b -> ResponseEntity.ok().eTag(ETags.of(b.getVersion())).body(b))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // POST /api/books - Add new book
-    // In BookController.java, update the addBook method
     @PostMapping
-    public ResponseEntity<?> addBook(@Valid @RequestBody Book book) {
-        try {
-            Book savedBook = bookService.addBook(book);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedBook);
-        } catch (RuntimeException e) {
-            // Log the actual error
-            System.err.println("Error adding book: " + e.getMessage());
-            e.printStackTrace();
-
-            // Return detailed error message
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            // Catch any other exceptions
-            System.err.println("Unexpected error: " + e.getMessage());
-            e.printStackTrace();
-
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Unexpected error: " + e.getMessage());
-        }
+    public ResponseEntity<Book> addBook(@Valid @RequestBody Book book) {
+        Book savedBook = bookService.addBook(book);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedBook);
     }
 
-
-    // PUT /api/books/{id} - Update book
+    // PUT /api/books/{id} - Update book (If-Match: the ETag from GET, to reject stale edits)
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@PathVariable Long id, @Valid @RequestBody Book bookDetails) {
-        try {
-            Book updatedBook = bookService.updateBook(id, bookDetails);
-            return ResponseEntity.ok(updatedBook);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Book> updateBook(@PathVariable Long id, @Valid @RequestBody Book bookDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book updatedBook = bookService.updateBook(id, bookDetails, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedBook.getVersion())).body(updatedBook);
     }
 
     // DELETE /api/books/{id} - Delete book
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
-        try {
-            bookService.deleteBook(id);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        bookService.deleteBook(id);
+        return ResponseEntity.noContent().build();
     }
 
-    // GET /api/books/search - Search books
+    // GET /api/books/search - Search books (cached per normalized term, like the full list)
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String query) {
-        List<Book> books = bookService.searchBooks(query);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> searchBooks(@RequestParam String query,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Search is case-insensitive, so "Java " and "java" share an entry
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        return responseCache.respond("search:" + term, true, acceptEncoding, ifNoneMatch,
+                () -> bookService.searchBooks(term));
+    }
+
+    // GET /api/books/browse - Faceted browse: repeat a facet parameter to match any of its values,
+    // e.g. ?category=Fiction&category=Poetry&decade=1990s&available=true&q=river&page=0&size=20
+    @GetMapping("/browse")
+    public ResponseEntity<CatalogBrowseResult> browseBooks(@RequestParam(required = false) List<String> category,
+                                                           @RequestParam(required = false) List<String> author,
+                                                           @RequestParam(required = false) List<String> decade,
+                                                           @RequestParam(required = false) Boolean available,
+                                                           @RequestParam(required = false) String q,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size,
+                                                           @RequestParam(defaultValue = "20") int facetLimit) {
+        Map<String, Set<String>> filters = new HashMap<>();
+        if (category != null) {
+            filters.put(FacetIndex.CATEGORY, Set.copyOf(category));
+        }
+        if (author != null) {
+            filters.put(FacetIndex.AUTHOR, Set.copyOf(author));
+        }
+        if (decade != null) {
+            filters.put(FacetIndex.DECADE, Set.copyOf(decade));
+        }
+        if (available != null) {
+            filters.put(FacetIndex.AVAILABLE, Set.of(available.toString()));
+        }
+        FacetIndex.Query query = new FacetIndex.Query(filters, q, Math.max(0, Math.min(page, 10_000)),
+                Math.max(1, Math.min(size, 100)), Math.max(1, Math.min(facetLimit, 100)));
+        return ResponseEntity.ok(bookService.browse(query));
+    }
+
+    // GET /api/books/trending - Most issued titles over the last day, week or month
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingReport> getTrending(@RequestParam(defaultValue = "week") String window,
+                                                      @RequestParam(defaultValue = "10") int limit) {
+        TrendingService.Window trendingWindow;
+        try {
+            trendingWindow = TrendingService.Window.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(trendingService.getTrending(trendingWindow, Math.max(1, Math.min(limit, 100))));
     }
 
     // GET /api/books/{id}/availability - Check if book is available
@@ -102,4 +143,12 @@ public class BookController {
         boolean available = bookService.isBookAvailable(id);
         return ResponseEntity.ok(available);
     }
+
+    // GET /api/books/{id}/also-borrowed - Books most often borrowed by the same members
+    @GetMapping("/{id}/also-borrowed")
+    public ResponseEntity<List<BookRecommendation>> getAlsoBorrowed(@PathVariable Long id,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        List<BookRecommendation> recommendations = recommendationService.getAlsoBorrowed(id, Math.max(1, Math.min(limit, 50)));
+        return ResponseEntity.ok(recommendations);
+    }
 }
@@ -0,0 +1,179 @@
+package com.management.demo.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.demo.catalog.CatalogCache;
+import com.management.demo.model.Book;
+import com.management.demo.resilience.DatabaseGuard;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized book-list responses, reused until the catalogue changes.
+// Each entry holds the JSON bytes and a gzip copy, rendered once per catalog version
+// (CatalogCache.getVersion(), bumped by every book write, loan and refresh that changes
+// a book). A hit is written as-is: no query, no row mapping, no Jackson.
+// Only requests the catalog cache covers are cached: the default branch, and for
+// searches only when there are no other branches to fan out to.
+@Component
+class CatalogResponseCache {
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.catalog.response-cache.enabled:true}")
+    private boolean enabled;
+
+    // Distinct queries kept (least recently used go first)
+    @Value("${libraryhub.catalog.response-cache.max-entries:256}")
+    private int maxEntries;
+
+    // Smaller bodies are not worth compressing
+    @Value("${libraryhub.catalog.response-cache.min-gzip-bytes:1024}")
+    private int minGzipBytes;
+
+    private record Entry(long version, String eTag, byte[] json, byte[] gzip) {
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // ETags must not repeat across restarts or instances, whose version counters start over
+    private final String eTagPrefix = "catalog-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    // A burst of misses for the same query renders it once
+    private final SingleFlight<String, Entry> renders = new SingleFlight<>("catalog.response");
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void registerMetrics() {
+        hits = meterRegistry.counter("libraryhub.catalog.response-cache", "result", "hit");
+        misses = meterRegistry.counter("libraryhub.catalog.response-cache", "result", "miss");
+        renders.bindTo(meterRegistry);
+    }
+
+    // Respond with the cached rendering of key, rendering books() if the catalogue changed since.
+    // fansOut: the query reads every branch, so it can only be cached when there is one.
+    ResponseEntity<?> respond(String key, boolean fansOut, String acceptEncoding, String ifNoneMatch,
+                              Supplier<List<Book>> books) {
+        if (!enabled || !catalogCache.isReady() || !shardResolver.isDefaultBranch()
+                || (fansOut && shardResolver.getBranches().size() > 1)) {
+            return ResponseEntity.ok(books.get());
+        }
+
+        long version = catalogCache.getVersion();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // The version is read before the books, so a change that races the render
+            // leaves the entry tagged as older and it is rendered again on the next request
+            entry = renders.execute(key + "@" + version, () -> render(version, books.get()));
+            if (DatabaseGuard.isServingStale()) {
+                // A last-known-good answer from an outage: not this version's, so neither kept nor tagged
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(entry.json());
+            }
+            synchronized (entries) {
+                Entry current = entries.get(key);
+                if (current == null || current.version() < entry.version()) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+
+        if (entry.eTag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.eTag()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entry.eTag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (entry.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip());
+        }
+        return response.body(entry.json());
+    }
+
+    private Entry render(long version, List<Book> books) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(books);
+            byte[] gzip = json.length >= minGzipBytes ? gzip(json) : null;
+            return new Entry(version, "\"" + eTagPrefix + version + "\"", json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize book list", e);
+        }
+    }
+
+    // Compressed once per catalog version, so spend the CPU on the best ratio
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    // "gzip" listed without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0{0,3})?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
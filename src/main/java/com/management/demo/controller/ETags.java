@@ -0,0 +1,34 @@
+package com.management.demo.controller;
+
+import com.management.demo.exception.InvalidInputException;
+
+// Entity tags for versioned resources: the ETag is the quoted row version
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Version named by an If-Match header; null when absent or "*" (any version).
+    // Throws InvalidInputException for anything that is not one of our tags.
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new InvalidInputException("If-Match must be a single entity tag such as \"3\"");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Unknown entity tag: " + ifMatch);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.management.demo.controller;
+
+import com.management.demo.model.Hold;
+import com.management.demo.service.HoldService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/holds")
+@CrossOrigin(origins = "*")
+public class HoldController {
+
+    @Autowired
+    private HoldService holdService;
+
+    // POST /api/holds - Join the queue for a book with no copies available
+    @PostMapping
+    public ResponseEntity<Hold> placeHold(@RequestParam Long bookId, @RequestParam Long memberId) {
+        Hold hold = holdService.placeHold(bookId, memberId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    // PUT /api/holds/{id}/cancel - Cancel a hold
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<Hold> cancelHold(@PathVariable Long id) {
+        Hold hold = holdService.cancelHold(id);
+        return ResponseEntity.ok(hold);
+    }
+
+    // GET /api/holds/{id} - Get hold by ID (with queue position while waiting)
+    @GetMapping("/{id}")
+    public ResponseEntity<Hold> getHoldById(@PathVariable Long id) {
+        Optional<Hold> hold = holdService.getHoldById(id);
+        return hold.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // GET /api/holds/member/{memberId} - Get member's holds
+    @GetMapping("/member/{memberId}")
+    public ResponseEntity<List<Hold>> getHoldsByMember(@PathVariable Long memberId) {
+        List<Hold> holds = holdService.getHoldsByMember(memberId);
+        return ResponseEntity.ok(holds);
+    }
+
+    // GET /api/holds/book/{bookId} - Get the hold queue for a book
+    @GetMapping("/book/{bookId}")
+    public ResponseEntity<List<Hold>> getQueueForBook(@PathVariable Long bookId) {
+        List<Hold> queue = holdService.getQueueForBook(bookId);
+        return ResponseEntity.ok(queue);
+    }
+}
@@ -1,13 +1,22 @@
 package com.management.demo.controller;
 
 import com.management.demo.model.Member;
+import com.management.demo.model.MemberImportReport;
+import com.management.demo.model.MemberSummary;
+import com.management.demo.model.MemberSweepStatus;
+import com.management.demo.service.MemberImportService;
+import com.management.demo.service.MemberLifecycleService;
 import com.management.demo.service.MemberService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +28,12 @@ public class MemberController {
     @Autowired
     private MemberService memberService;
 
+    @Autowired
+    private MemberImportService memberImportService;
+
+    @Autowired
+    private MemberLifecycleService memberLifecycleService;
+
     // GET /api/members - Get all members
     @GetMapping
     public ResponseEntity<List<Member>> getAllMembers() {
@@ -37,7 +52,17 @@ public class MemberController {
     @GetMapping("/{id}")
     public ResponseEntity<Member> getMemberById(@PathVariable Long id) {
         Optional<Member> member = memberService.getMemberById(id);
-        return member.map(ResponseEntity::ok)
+        return member.map(m -> ResponseEntity.ok().eTag(ETags.of(m.getVersion())).body(m))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // GET /api/members/{id}/summary - Member profile with loans and fines
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<MemberSummary> getMemberSummary(@PathVariable Long id,
+                                                          @RequestParam(defaultValue = "false") boolean history,
+                                                          @RequestParam(required = false) Integer limit) {
+        Optional<MemberSummary> summary = memberService.getMemberSummary(id, history, limit);
+        return summary.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -59,70 +84,63 @@ public class MemberController {
 
     // POST /api/members - Add new member
     @PostMapping
-    public ResponseEntity<?> addMember(@Valid @RequestBody Member member) {
-        try {
-            Member savedMember = memberService.addMember(member);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedMember);
-        } catch (RuntimeException e) {
-            System.err.println("Error adding member: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("Unexpected error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Unexpected error: " + e.getMessage());
-        }
+    public ResponseEntity<Member> addMember(@Valid @RequestBody Member member) {
+        Member savedMember = memberService.addMember(member);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedMember);
     }
 
-    // PUT /api/members/{id} - Update member
+    // POST /api/members/import - Bulk import members from a CSV upload
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MemberImportReport> importMembers(@RequestParam("file") MultipartFile file) throws IOException {
+        MemberImportReport report = memberImportService.importMembers(file.getInputStream());
+        return ResponseEntity.ok(report);
+    }
+
+    // PUT /api/members/{id} - Update member (If-Match: the ETag from GET, to reject stale edits)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateMember(@PathVariable Long id, @Valid @RequestBody Member memberDetails) {
-        try {
-            Member updatedMember = memberService.updateMember(id, memberDetails);
-            return ResponseEntity.ok(updatedMember);
-        } catch (RuntimeException e) {
-            System.err.println("Error updating member: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("Unexpected error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Unexpected error: " + e.getMessage());
-        }
+    public ResponseEntity<Member> updateMember(@PathVariable Long id, @Valid @RequestBody Member memberDetails,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Member updatedMember = memberService.updateMember(id, memberDetails, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedMember.getVersion())).body(updatedMember);
     }
 
     // DELETE /api/members/{id} - Delete member
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteMember(@PathVariable Long id) {
-        try {
-            memberService.deleteMember(id);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            System.err.println("Error deleting member: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<Void> deleteMember(@PathVariable Long id) {
+        memberService.deleteMember(id);
+        return ResponseEntity.noContent().build();
     }
 
     // PUT /api/members/{id}/deactivate - Deactivate member (soft delete)
     @PutMapping("/{id}/deactivate")
-    public ResponseEntity<?> deactivateMember(@PathVariable Long id) {
-        try {
-            Member deactivatedMember = memberService.deactivateMember(id);
-            return ResponseEntity.ok(deactivatedMember);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<Member> deactivateMember(@PathVariable Long id) {
+        Member deactivatedMember = memberService.deactivateMember(id);
+        return ResponseEntity.ok(deactivatedMember);
     }
 
     // PUT /api/members/{id}/activate - Activate member
     @PutMapping("/{id}/activate")
-    public ResponseEntity<?> activateMember(@PathVariable Long id) {
-        try {
-            Member activatedMember = memberService.activateMember(id);
-            return ResponseEntity.ok(activatedMember);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<Member> activateMember(@PathVariable Long id) {
+        Member activatedMember = memberService.activateMember(id);
+        return ResponseEntity.ok(activatedMember);
+    }
+
+    // POST /api/members/lifecycle-sweep - Deactivate lapsed members in the background (202; one sweep at a time)
+    @PostMapping("/lifecycle-sweep")
+    public ResponseEntity<MemberSweepStatus> startLifecycleSweep(@RequestParam(required = false) Integer inactiveDays,
+                                                                 @RequestParam(required = false) Integer minMembershipDays,
+                                                                 @RequestParam(required = false) String tier,
+                                                                 @RequestParam(defaultValue = "false") boolean dryRun) {
+        MemberSweepStatus status = memberLifecycleService.start(
+                memberLifecycleService.criteria(inactiveDays, minMembershipDays, tier, dryRun));
+        return ResponseEntity.accepted().body(status);
+    }
+
+    // GET /api/members/lifecycle-sweep - Progress of the running (or last) sweep
+    @GetMapping("/lifecycle-sweep")
+    public ResponseEntity<MemberSweepStatus> getLifecycleSweep() {
+        return memberLifecycleService.getStatus().map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // GET /api/members/search - Search members
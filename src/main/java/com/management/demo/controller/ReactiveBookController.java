@@ -0,0 +1,57 @@
+package com.management.demo.controller;
+
+import com.management.demo.model.Book;
+import com.management.demo.service.ReactiveBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reactive mirror of the read endpoints in BookController.
+// Spring MVC adapts Mono/Flux return values to async requests, so no servlet
+// thread is parked while the query is in flight.
+@RestController
+@RequestMapping("/api/reactive/books")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "libraryhub.reactive.enabled", havingValue = "true")
+public class ReactiveBookController {
+
+    @Autowired
+    private ReactiveBookService reactiveBookService;
+
+    // GET /api/reactive/books - Get all books
+    @GetMapping
+    public Flux<Book> getAllBooks() {
+        return reactiveBookService.getAllBooks();
+    }
+
+    // GET /api/reactive/books/{id} - Get book by ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Book>> getBookById(@PathVariable Long id) {
+        return reactiveBookService.getBookById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // GET /api/reactive/books/isbn/{isbn} - Get book by ISBN
+    @GetMapping("/isbn/{isbn}")
+    public Mono<ResponseEntity<Book>> getBookByIsbn(@PathVariable String isbn) {
+        return reactiveBookService.getBookByIsbn(isbn)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // GET /api/reactive/books/search - Search books
+    @GetMapping("/search")
+    public Flux<Book> searchBooks(@RequestParam String query) {
+        return reactiveBookService.searchBooks(query);
+    }
+
+    // GET /api/reactive/books/{id}/availability - Check if book is available
+    @GetMapping("/{id}/availability")
+    public Mono<Boolean> checkAvailability(@PathVariable Long id) {
+        return reactiveBookService.isBookAvailable(id);
+    }
+}
@@ -0,0 +1,72 @@
+package com.management.demo.controller;
+
+import com.management.demo.model.CirculationRollup;
+import com.management.demo.model.FineReport;
+import com.management.demo.service.CirculationReportService;
+import com.management.demo.service.FineReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "*")
+public class ReportController {
+
+    @Autowired
+    private CirculationReportService circulationReportService;
+
+    @Autowired
+    private FineReportService fineReportService;
+
+    // GET /api/reports/circulation - Issues, returns, overdues and fines per period, category and cohort
+    @GetMapping("/circulation")
+    public ResponseEntity<List<CirculationRollup>> getCirculation(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "month") String grain,
+            @RequestParam(required = false) String category) {
+        String normalizedGrain = grain.toUpperCase(Locale.ROOT);
+        if (!"DAY".equals(normalizedGrain) && !"MONTH".equals(normalizedGrain) || to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(circulationReportService.getCirculation(normalizedGrain, from, to, category));
+    }
+
+    // POST /api/reports/circulation/backfill - Rebuild the rollups from transactions
+    @PostMapping("/circulation/backfill")
+    public ResponseEntity<Map<String, Object>> startBackfill() {
+        boolean started = circulationReportService.startBackfill();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(backfillStatus());
+    }
+
+    // GET /api/reports/circulation/backfill - Backfill progress
+    @GetMapping("/circulation/backfill")
+    public ResponseEntity<Map<String, Object>> getBackfillStatus() {
+        return ResponseEntity.ok(backfillStatus());
+    }
+
+    // GET /api/reports/fines - Fines owed on overdue loans per category and member tier
+    @GetMapping("/fines")
+    public ResponseEntity<FineReport> getOutstandingFines(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(fineReportService.getOutstandingFines(asOf != null ? asOf : LocalDate.now()));
+    }
+
+    private Map<String, Object> backfillStatus() {
+        YearMonth lastMonth = circulationReportService.getLastBackfilledMonth();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", circulationReportService.isBackfillRunning());
+        status.put("lastMonth", lastMonth != null ? lastMonth.toString() : null);
+        return status;
+    }
+}
@@ -20,28 +20,18 @@ public class TransactionController {
 
     // POST /api/transactions/issue - Issue a book
     @PostMapping("/issue")
-    public ResponseEntity<?> issueBook(@RequestParam Long bookId,
-                                       @RequestParam Long memberId,
-                                       @RequestParam(defaultValue = "14") int loanPeriodDays) {
-        try {
-            Transaction transaction = transactionService.issueBook(bookId, memberId, loanPeriodDays);
-            return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
-        } catch (RuntimeException e) {
-            System.err.println("Error issuing book: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<Transaction> issueBook(@RequestParam Long bookId,
+                                                 @RequestParam Long memberId,
+                                                 @RequestParam(defaultValue = "14") int loanPeriodDays) {
+        Transaction transaction = transactionService.issueBook(bookId, memberId, loanPeriodDays);
+        return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
     }
 
     // PUT /api/transactions/{id}/return - Return a book
     @PutMapping("/{id}/return")
-    public ResponseEntity<?> returnBook(@PathVariable Long id) {
-        try {
-            Transaction transaction = transactionService.returnBook(id);
-            return ResponseEntity.ok(transaction);
-        } catch (RuntimeException e) {
-            System.err.println("Error returning book: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<Transaction> returnBook(@PathVariable Long id) {
+        Transaction transaction = transactionService.returnBook(id);
+        return ResponseEntity.ok(transaction);
     }
 
     // GET /api/transactions - Get all transactions
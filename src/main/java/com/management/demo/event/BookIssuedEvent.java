@@ -0,0 +1,7 @@
+package com.management.demo.event;
+
+import java.time.LocalDate;
+
+// A loan was created (published inside the issue transaction)
+public record BookIssuedEvent(Long transactionId, Long bookId, Long memberId, LocalDate issueDate) {
+}
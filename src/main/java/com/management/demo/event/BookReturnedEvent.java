@@ -0,0 +1,9 @@
+package com.management.demo.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// A loan was closed (published inside the return transaction)
+public record BookReturnedEvent(Long transactionId, Long bookId, Long memberId, LocalDate returnDate,
+                                boolean overdue, BigDecimal fineAmount) {
+}
@@ -0,0 +1,8 @@
+package com.management.demo.event;
+
+import java.time.LocalDateTime;
+
+// A returned copy was set aside for a waiting member (published inside the return transaction)
+public record HoldReadyEvent(Long holdId, Long bookId, String bookTitle, Long memberId, String memberName,
+                             String memberEmail, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,11 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 409: the request clashes with current state, e.g. a duplicate ISBN or no copies left
+public class ConflictException extends LibraryException {
+
+    public ConflictException(String code, String message) {
+        super(HttpStatus.CONFLICT, code, message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 400: the input itself is unusable, e.g. a member CSV without its header
+public class InvalidInputException extends LibraryException {
+
+    public InvalidInputException(String message) {
+        super(HttpStatus.BAD_REQUEST, "invalid-input", message);
+    }
+}
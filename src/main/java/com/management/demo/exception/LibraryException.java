@@ -0,0 +1,29 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Expected failures of the library's rules: unknown IDs, no copies left, duplicates and the
+// like. ApiExceptionHandler answers them as problem details with their status and code.
+// They are routine under load (a popular title running out fails every checkout after it),
+// so they skip stack-trace capture and suppression: the message says what went wrong, and a
+// trace would only point at the service method that threw.
+public abstract class LibraryException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final String code;
+
+    protected LibraryException(HttpStatus status, String code, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.code = code;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    // Stable, machine-readable name of the failure, e.g. "no-copies-available"
+    public String getCode() {
+        return code;
+    }
+}
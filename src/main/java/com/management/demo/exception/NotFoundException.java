@@ -0,0 +1,13 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+// 404: the book, member, loan or hold does not exist (code "book-not-found" etc.)
+public class NotFoundException extends LibraryException {
+
+    public NotFoundException(String entity, Object id) {
+        super(HttpStatus.NOT_FOUND, entity.toLowerCase(Locale.ROOT) + "-not-found", entity + " not found with id: " + id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 428: an update that names no version to check against, so it could silently undo a newer change
+public class PreconditionRequiredException extends LibraryException {
+
+    public PreconditionRequiredException(String code, String message) {
+        super(HttpStatus.PRECONDITION_REQUIRED, code, message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.management.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 422: well-formed, but a library rule forbids it, e.g. an inactive member borrowing
+public class RuleViolationException extends LibraryException {
+
+    public RuleViolationException(String code, String message) {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, code, message);
+    }
+}
@@ -0,0 +1,73 @@
+package com.management.demo.fine;
+
+// Reusable column buffers for evaluating many loans at once.
+// Fill rows with add(), call FinePolicy.evaluate(), read fineMinor(), then clear() and
+// refill: the arrays are allocated once, so a report over millions of rows allocates
+// nothing per row. A row can stand for several loans with the same inputs (loans).
+public final class FineBatch {
+
+    private final int[] categories;
+    private final int[] tiers;
+    private final long[] daysLate;
+    private final long[] loans;
+    private final long[] fines;
+    private int size;
+
+    public FineBatch(int capacity) {
+        categories = new int[capacity];
+        tiers = new int[capacity];
+        daysLate = new long[capacity];
+        loans = new long[capacity];
+        fines = new long[capacity];
+    }
+
+    // category and tier are indexes from FinePolicy.categoryIndex/tierIndex
+    public void add(int category, int tier, long rowDaysLate, long rowLoans) {
+        categories[size] = category;
+        tiers[size] = tier;
+        daysLate[size] = rowDaysLate;
+        loans[size] = rowLoans;
+        size++;
+    }
+
+    public boolean isFull() {
+        return size == categories.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Fine of row i for all its loans, in paise; valid after FinePolicy.evaluate
+    public long fineMinor(int row) {
+        return fines[row];
+    }
+
+    public long loans(int row) {
+        return loans[row];
+    }
+
+    int[] categories() {
+        return categories;
+    }
+
+    int[] tiers() {
+        return tiers;
+    }
+
+    long[] daysLate() {
+        return daysLate;
+    }
+
+    long[] loans() {
+        return loans;
+    }
+
+    long[] fines() {
+        return fines;
+    }
+}
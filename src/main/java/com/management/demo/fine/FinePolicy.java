@@ -0,0 +1,135 @@
+package com.management.demo.fine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+// Overdue fine rules compiled into flat arrays.
+// Categories and tiers are resolved to array indexes once; evaluation is then plain
+// long arithmetic in paise (1/100 rupee), with BigDecimal only when converting at the
+// edges. fineMinor() and evaluate() allocate nothing.
+//   fine = min(max(0, daysLate - graceDays) * ratePerDay, maxFine) - tier discount
+// The discount is rounded down, so fractions of a paisa are never given away.
+public final class FinePolicy {
+
+    public static final int MINOR_UNIT_SCALE = 2;
+    private static final long NO_CAP = Long.MAX_VALUE;
+
+    // Index 0 is the default rule (and the default tier: no discount)
+    private final Map<String, Integer> categoryIndexes;
+    private final Map<String, Integer> tierIndexes;
+    private final long[] ratePerDay;
+    private final long[] graceDays;
+    private final long[] cap;
+    private final long[] discountBasisPoints;
+
+    private FinePolicy(Map<String, Integer> categoryIndexes, Map<String, Integer> tierIndexes,
+                       long[] ratePerDay, long[] graceDays, long[] cap, long[] discountBasisPoints) {
+        this.categoryIndexes = categoryIndexes;
+        this.tierIndexes = tierIndexes;
+        this.ratePerDay = ratePerDay;
+        this.graceDays = graceDays;
+        this.cap = cap;
+        this.discountBasisPoints = discountBasisPoints;
+    }
+
+    public static FinePolicy compile(FinePolicyProperties properties) {
+        int categoryCount = properties.getCategories().size() + 1;
+        long[] ratePerDay = new long[categoryCount];
+        long[] graceDays = new long[categoryCount];
+        long[] cap = new long[categoryCount];
+        Map<String, Integer> categoryIndexes = new HashMap<>();
+
+        ratePerDay[0] = toMinor(properties.getRatePerDay(), "ratePerDay");
+        graceDays[0] = requireNonNegative(properties.getGraceDays(), "graceDays");
+        cap[0] = properties.getMaxFine() != null ? toMinor(properties.getMaxFine(), "maxFine") : NO_CAP;
+        int index = 1;
+        for (Map.Entry<String, FinePolicyProperties.Category> entry : properties.getCategories().entrySet()) {
+            FinePolicyProperties.Category rule = entry.getValue();
+            String name = "categories." + entry.getKey();
+            ratePerDay[index] = rule.getRatePerDay() != null ? toMinor(rule.getRatePerDay(), name + ".ratePerDay") : ratePerDay[0];
+            graceDays[index] = rule.getGraceDays() != null ? requireNonNegative(rule.getGraceDays(), name + ".graceDays") : graceDays[0];
+            cap[index] = rule.getMaxFine() != null ? toMinor(rule.getMaxFine(), name + ".maxFine") : cap[0];
+            categoryIndexes.put(entry.getKey(), index++);
+        }
+
+        long[] discountBasisPoints = new long[properties.getTiers().size() + 1];
+        Map<String, Integer> tierIndexes = new HashMap<>();
+        index = 1;
+        for (Map.Entry<String, FinePolicyProperties.Tier> entry : properties.getTiers().entrySet()) {
+            int percent = entry.getValue().getDiscountPercent();
+            if (percent < 0 || percent > 100) {
+                throw new IllegalStateException("libraryhub.fines.tiers." + entry.getKey()
+                        + ".discount-percent must be between 0 and 100");
+            }
+            discountBasisPoints[index] = percent * 100L;
+            tierIndexes.put(entry.getKey(), index++);
+        }
+        return new FinePolicy(categoryIndexes, tierIndexes, ratePerDay, graceDays, cap, discountBasisPoints);
+    }
+
+    // Rule index for a book category; unknown and null categories use the default rule
+    public int categoryIndex(String category) {
+        Integer index = category != null ? categoryIndexes.get(category) : null;
+        return index != null ? index : 0;
+    }
+
+    // Discount index for a member tier; unknown and null tiers get no discount
+    public int tierIndex(String tier) {
+        Integer index = tier != null ? tierIndexes.get(tier) : null;
+        return index != null ? index : 0;
+    }
+
+    // Fine for one loan, in paise
+    public long fineMinor(int category, int tier, long daysLate) {
+        long chargeable = daysLate - graceDays[category];
+        if (chargeable <= 0) {
+            return 0;
+        }
+        long rate = ratePerDay[category];
+        long limit = cap[category];
+        // Past limit / rate days the product would exceed the cap, so it is never computed (or overflows)
+        long fine = rate != 0 && chargeable > limit / rate ? limit : chargeable * rate;
+        return fine - fine * discountBasisPoints[tier] / 10_000;
+    }
+
+    // Fill batch.fineMinor(i) with the fine of every row times its loan count
+    public void evaluate(FineBatch batch) {
+        int[] categories = batch.categories();
+        int[] tiers = batch.tiers();
+        long[] daysLate = batch.daysLate();
+        long[] loans = batch.loans();
+        long[] fines = batch.fines();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            fines[i] = fineMinor(categories[i], tiers[i], daysLate[i]) * loans[i];
+        }
+    }
+
+    // Fine for one loan as an amount
+    public BigDecimal fine(String category, String tier, long daysLate) {
+        return toAmount(fineMinor(categoryIndex(category), tierIndex(tier), daysLate));
+    }
+
+    public static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_UNIT_SCALE);
+    }
+
+    private static long toMinor(BigDecimal amount, String property) {
+        if (amount.signum() < 0) {
+            throw new IllegalStateException("libraryhub.fines." + property + " must not be negative");
+        }
+        try {
+            return amount.setScale(MINOR_UNIT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("libraryhub.fines." + property + " must be a whole number of paise", e);
+        }
+    }
+
+    private static int requireNonNegative(int days, String property) {
+        if (days < 0) {
+            throw new IllegalStateException("libraryhub.fines." + property + " must not be negative");
+        }
+        return days;
+    }
+}
@@ -0,0 +1,16 @@
+package com.management.demo.fine;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(FinePolicyProperties.class)
+public class FinePolicyConfig {
+
+    // Compiled once at startup; a bad rule stops the application instead of mispricing fines
+    @Bean
+    public FinePolicy finePolicy(FinePolicyProperties properties) {
+        return FinePolicy.compile(properties);
+    }
+}
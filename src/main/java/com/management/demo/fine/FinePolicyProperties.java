@@ -0,0 +1,41 @@
+package com.management.demo.fine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Overdue fine rules. Amounts are in rupees; categories fall back to the top-level values
+// for anything they leave unset. The defaults are the original flat ₹5 per day.
+@Data
+@ConfigurationProperties(prefix = "libraryhub.fines")
+public class FinePolicyProperties {
+
+    private BigDecimal ratePerDay = BigDecimal.valueOf(5);
+
+    // Days after the due date that are not charged
+    private int graceDays = 0;
+
+    // Upper bound for one loan's fine; null for none
+    private BigDecimal maxFine;
+
+    // Rules by book category (matched exactly)
+    private Map<String, Category> categories = new LinkedHashMap<>();
+
+    // Discounts by member tier (members.tier)
+    private Map<String, Tier> tiers = new LinkedHashMap<>();
+
+    @Data
+    public static class Category {
+        private BigDecimal ratePerDay;
+        private Integer graceDays;
+        private BigDecimal maxFine;
+    }
+
+    @Data
+    public static class Tier {
+        private int discountPercent;
+    }
+}
@@ -0,0 +1,108 @@
+package com.management.demo.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// In-memory record of idempotent requests, in flight or completed.
+// Bounded by max-entries (oldest completed entry dropped first) and by the TTL; entries
+// are kept in insertion order, which with a fixed TTL is also expiry order, so expired
+// entries are always at the head and are trimmed on every access. An in-flight entry is
+// never dropped: its duplicates would run again and its waiters would never be answered.
+// When every slot is in flight, new keys are turned away (FULL) until one completes.
+@Component
+public class IdempotencyCache {
+
+    @Value("${libraryhub.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${libraryhub.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public enum State { OWNER, IN_FLIGHT, COMPLETED, MISMATCH, FULL }
+
+    public record Lookup(State state, StoredResponse response, CompletableFuture<StoredResponse> inFlight) {
+    }
+
+    // Claim the key, or report what is already there
+    public synchronized Lookup begin(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        trimExpired(now);
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries && !evictOldestCompleted()) {
+                return new Lookup(State.FULL, null, null);
+            }
+            entries.put(key, new Entry(fingerprint, new CompletableFuture<>(), now + ttlMinutes * 60_000));
+            return new Lookup(State.OWNER, null, null);
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return new Lookup(State.MISMATCH, null, null);
+        }
+        StoredResponse response = entry.result.getNow(null);
+        return response != null
+                ? new Lookup(State.COMPLETED, response, null)
+                : new Lookup(State.IN_FLIGHT, null, entry.result);
+    }
+
+    // Keep the owner's response and hand it to everyone waiting on the key
+    public void complete(String key, StoredResponse response) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            entry.result.complete(response);
+        }
+    }
+
+    // The owner failed without a response worth replaying: forget the key so a retry runs again
+    public void release(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+        }
+        if (entry != null) {
+            entry.result.completeExceptionally(new IllegalStateException("Original request did not complete"));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void trimExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAt > now) {
+                return;
+            }
+            if (entry.result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // In-flight entries are bounded by the number of request threads, so this passes few of them
+    private boolean evictOldestCompleted() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().result.isDone()) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<StoredResponse> result, long expiresAt) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.management.demo.idempotency;
+
+import com.management.demo.sharding.BranchFilter;
+import com.management.demo.sharding.ShardResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Idempotency-Key support for the loan endpoints (issue, return).
+// The first request with a key runs; its response is kept and replayed to every retry
+// with the same key, without reaching TransactionService again. A duplicate that
+// arrives while the first is still running waits for its response. Server errors
+// (5xx) are not kept, so a retry after one runs again. A new key that finds the cache
+// full of requests still in progress is answered 503 rather than displacing one.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyCache cache;
+    private final ObjectProvider<JdbcIdempotencyStore> sharedStore;
+    private final ShardResolver shardResolver;
+
+    @Value("${libraryhub.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyFilter(IdempotencyCache cache, ObjectProvider<JdbcIdempotencyStore> sharedStore,
+                             ShardResolver shardResolver) {
+        this.cache = cache;
+        this.sharedStore = sharedStore;
+        this.shardResolver = shardResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || "GET".equals(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/transactions/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        // No header means the default branch (as in BranchFilter), so both spellings share a key
+        String branch = request.getHeader(BranchFilter.BRANCH_HEADER);
+        if (branch == null || branch.isBlank()) {
+            branch = shardResolver.getDefaultBranch();
+        }
+        String key = branch + ":" + clientKey;
+        String fingerprint = fingerprint(request);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (true) {
+            IdempotencyCache.Lookup lookup = cache.begin(key, fingerprint);
+            switch (lookup.state()) {
+                case MISMATCH -> {
+                    rejectReuse(response);
+                    return;
+                }
+                case COMPLETED -> {
+                    replay(lookup.response(), response);
+                    return;
+                }
+                case IN_FLIGHT -> {
+                    try {
+                        StoredResponse stored = lookup.inFlight().get(remaining(deadline), TimeUnit.NANOSECONDS);
+                        replay(stored, response);
+                        return;
+                    } catch (ExecutionException e) {
+                        // The first attempt failed and let go of the key: try to take it over
+                        continue;
+                    } catch (TimeoutException e) {
+                        stillInProgress(response);
+                        return;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stillInProgress(response);
+                        return;
+                    }
+                }
+                case OWNER -> {
+                    execute(key, fingerprint, request, response, chain, deadline);
+                    return;
+                }
+                case FULL -> {
+                    response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                            "Too many requests with an Idempotency-Key are in progress; retry later");
+                    return;
+                }
+            }
+        }
+    }
+
+    // Method, path and parameters sorted by name, so a retry that sends the same parameters
+    // in another order or encoding is still recognised as the same request
+    static String fingerprint(HttpServletRequest request) {
+        StringBuilder fingerprint = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                fingerprint.append(separator)
+                        .append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8))
+                        .append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    // This instance owns the key locally; with a shared store it must also win it there
+    private void execute(String key, String fingerprint, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain chain, long deadline) throws ServletException, IOException {
+        JdbcIdempotencyStore store = sharedStore.getIfAvailable();
+        if (store != null) {
+            JdbcIdempotencyStore.Claim claim = store.claim(key, fingerprint);
+            while (claim instanceof JdbcIdempotencyStore.InFlightElsewhere && remaining(deadline) > 0
+                    && !Thread.currentThread().isInterrupted()) {
+                sleepQuietly(50);
+                claim = store.find(key).orElseGet(() -> store.claim(key, fingerprint));
+            }
+            if (claim instanceof JdbcIdempotencyStore.Completed completed) {
+                StoredResponse stored = completed.response();
+                if (!stored.fingerprint().equals(fingerprint)) {
+                    cache.release(key);
+                    rejectReuse(response);
+                    return;
+                }
+                cache.complete(key, stored);
+                replay(stored, response);
+                return;
+            }
+            if (claim instanceof JdbcIdempotencyStore.InFlightElsewhere inFlight) {
+                cache.release(key);
+                if (!inFlight.fingerprint().equals(fingerprint)) {
+                    rejectReuse(response);
+                } else {
+                    stillInProgress(response);
+                }
+                return;
+            }
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            release(store, key);
+            throw e;
+        }
+
+        if (wrapper.getStatus() >= 500) {
+            release(store, key);
+        } else {
+            StoredResponse stored = new StoredResponse(fingerprint, wrapper.getStatus(),
+                    wrapper.getContentType(), wrapper.getContentAsByteArray());
+            if (store != null) {
+                store.complete(key, stored);
+            }
+            cache.complete(key, stored);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void release(JdbcIdempotencyStore store, String key) {
+        if (store != null) {
+            store.release(key);
+        }
+        cache.release(key);
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void rejectReuse(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                "Idempotency-Key was already used for a different request");
+    }
+
+    private static void stillInProgress(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.CONFLICT.value(),
+                "A request with this Idempotency-Key is still in progress; retry later");
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
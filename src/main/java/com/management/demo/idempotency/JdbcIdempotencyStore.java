@@ -0,0 +1,103 @@
+package com.management.demo.idempotency;
+
+import com.management.demo.sharding.ShardResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Idempotency keys shared by every instance, so a retry that lands on another node is
+// still recognised. Claiming is a single INSERT ... ON CONFLICT: exactly one instance
+// wins a key. A claim that is never completed (its instance died) lapses after the
+// in-flight timeout and can be claimed again.
+@Component
+@ConditionalOnProperty(name = "libraryhub.idempotency.jdbc.enabled", havingValue = "true")
+public class JdbcIdempotencyStore {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Value("${libraryhub.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${libraryhub.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    public sealed interface Claim permits Claimed, InFlightElsewhere, Completed {
+    }
+
+    public record Claimed() implements Claim {
+    }
+
+    public record InFlightElsewhere(String fingerprint) implements Claim {
+    }
+
+    public record Completed(StoredResponse response) implements Claim {
+    }
+
+    public Claim claim(String key, String fingerprint) {
+        return shardResolver.onDefaultBranch(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            String sql = """
+                INSERT INTO idempotency_keys (idempotency_key, fingerprint, state, created_at, expires_at)
+                VALUES (?, ?, 'IN_FLIGHT', ?, ?)
+                ON CONFLICT (idempotency_key) DO UPDATE SET
+                    fingerprint = EXCLUDED.fingerprint, state = 'IN_FLIGHT', status = NULL, content_type = NULL,
+                    body = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+                WHERE idempotency_keys.expires_at < EXCLUDED.created_at
+                RETURNING idempotency_key
+                """;
+            List<String> claimed = jdbcTemplate.queryForList(sql, String.class,
+                    key, fingerprint, now, now.plusNanos(waitTimeoutMs * 2_000_000));
+            if (!claimed.isEmpty()) {
+                return new Claimed();
+            }
+            return find(key).orElseGet(Claimed::new);
+        });
+    }
+
+    // Current state of a key claimed by someone else
+    public Optional<Claim> find(String key) {
+        return shardResolver.onDefaultBranch(() -> {
+            String sql = "SELECT * FROM idempotency_keys WHERE idempotency_key = ? AND expires_at >= ?";
+            List<Claim> claims = jdbcTemplate.query(sql, (rs, rowNum) -> {
+                String fingerprint = rs.getString("fingerprint");
+                if ("COMPLETED".equals(rs.getString("state"))) {
+                    return new Completed(new StoredResponse(fingerprint, rs.getInt("status"),
+                            rs.getString("content_type"), rs.getBytes("body")));
+                }
+                return new InFlightElsewhere(fingerprint);
+            }, key, LocalDateTime.now());
+            return claims.isEmpty() ? Optional.empty() : Optional.of(claims.get(0));
+        });
+    }
+
+    public void complete(String key, StoredResponse response) {
+        shardResolver.onDefaultBranch(() -> jdbcTemplate.update("""
+                UPDATE idempotency_keys
+                SET state = 'COMPLETED', status = ?, content_type = ?, body = ?, expires_at = ?
+                WHERE idempotency_key = ?
+                """, response.status(), response.contentType(), response.body(),
+                LocalDateTime.now().plusMinutes(ttlMinutes), key));
+    }
+
+    public void release(String key) {
+        shardResolver.onDefaultBranch(() -> jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND state = 'IN_FLIGHT'", key));
+    }
+
+    @Scheduled(fixedDelayString = "${libraryhub.idempotency.jdbc.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        shardResolver.onDefaultBranch(() -> jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE expires_at < ?", LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,5 @@
+package com.management.demo.idempotency;
+
+// A response kept for replay to retries carrying the same Idempotency-Key
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
@@ -0,0 +1,25 @@
+package com.management.demo.invalidation;
+
+// A book or member row that changed on some branch; receivers re-read it
+public record EntityChange(Kind kind, String branch, long id) {
+
+    public enum Kind {
+        BOOK('B'),
+        MEMBER('M');
+
+        final char code;
+
+        Kind(char code) {
+            this.code = code;
+        }
+
+        static Kind of(char code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown entity kind " + code);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.management.demo.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Delivers batches to the subscribers in this JVM, on the sending thread. For tests and
+// single-instance runs; every bus sharing the transport sees every batch.
+@Component
+@ConditionalOnProperty(name = "libraryhub.invalidation.transport", havingValue = "memory")
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(InvalidationBatch batch) {
+        for (Receiver receiver : receivers) {
+            receiver.receive(batch);
+        }
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+}
@@ -0,0 +1,88 @@
+package com.management.demo.invalidation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Changes one instance committed since its previous batch. Sequences count data batches per
+// node, so a receiver that sees one skipped knows it missed changes. A batch without changes
+// is a heartbeat repeating the latest sequence, which exposes a lost final batch.
+// Wire form, grouped by kind and branch: node|sequence|B@main:1,2|M@north:7
+public record InvalidationBatch(String node, long sequence, List<EntityChange> changes) {
+
+    // PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD = 7900;
+
+    public boolean isHeartbeat() {
+        return changes.isEmpty();
+    }
+
+    String encode() {
+        Map<String, StringBuilder> groups = new LinkedHashMap<>();
+        for (EntityChange change : changes) {
+            StringBuilder ids = groups.computeIfAbsent(change.kind().code + "@" + change.branch() + ":",
+                    group -> new StringBuilder());
+            if (!ids.isEmpty()) {
+                ids.append(',');
+            }
+            ids.append(change.id());
+        }
+        StringBuilder payload = new StringBuilder(node).append('|').append(sequence);
+        groups.forEach((group, ids) -> payload.append('|').append(group).append(ids));
+        return payload.toString();
+    }
+
+    static InvalidationBatch decode(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed invalidation payload: " + payload);
+        }
+        List<EntityChange> changes = new ArrayList<>();
+        for (int i = 2; i < parts.length; i++) {
+            String group = parts[i];
+            int at = group.indexOf('@');
+            int colon = group.lastIndexOf(':');
+            if (at != 1 || colon < at) {
+                throw new IllegalArgumentException("Malformed invalidation group: " + group);
+            }
+            EntityChange.Kind kind = EntityChange.Kind.of(group.charAt(0));
+            String branch = group.substring(at + 1, colon);
+            for (String id : group.substring(colon + 1).split(",")) {
+                changes.add(new EntityChange(kind, branch, Long.parseLong(id)));
+            }
+        }
+        return new InvalidationBatch(parts[0], Long.parseLong(parts[1]), changes);
+    }
+
+    // Splits changes into lists of at most maxChanges whose batches encode within MAX_PAYLOAD
+    static List<List<EntityChange>> chunk(Collection<EntityChange> changes, int maxChanges) {
+        List<List<EntityChange>> chunks = new ArrayList<>();
+        List<EntityChange> current = new ArrayList<>();
+        Set<String> groups = new HashSet<>();
+        // Node UUID and sequence
+        int header = 36 + 1 + 20;
+        int length = header;
+        for (EntityChange change : changes) {
+            String group = change.kind().code + "@" + change.branch();
+            int added = Long.toString(change.id()).length() + 1 + (groups.contains(group) ? 0 : group.length() + 2);
+            if (!current.isEmpty() && (current.size() == maxChanges || length + added > MAX_PAYLOAD)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                groups.clear();
+                length = header;
+                added = Long.toString(change.id()).length() + 1 + group.length() + 2;
+            }
+            groups.add(group);
+            current.add(change);
+            length += added;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,188 @@
+package com.management.demo.invalidation;
+
+import com.management.demo.sharding.ShardResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tells other instances which books and members changed, so their caches re-read those
+// rows instead of waiting for the next periodic refresh.
+// Services publish a change as their transaction commits (rolled-back writes are never
+// announced). Changes are collected in a set, so repeated writes to one row between flushes
+// go out once, and every flush interval they are sent as numbered batches. Receivers track
+// each sender's last sequence: a skipped number, a heartbeat ahead of the last batch seen,
+// or the transport reporting it may have lost messages all make every listener resync in
+// full, since the missed changes are unknown.
+@Component
+public class InvalidationBus implements InvalidationTransport.Receiver {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @Autowired
+    private List<InvalidationListener> listeners;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.invalidation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${libraryhub.invalidation.max-batch-size:500}")
+    private int maxBatchSize;
+
+    private final String node = UUID.randomUUID().toString();
+    private final Set<EntityChange> pending = ConcurrentHashMap.newKeySet();
+    private final Object sendLock = new Object();
+    // Last data batch sent; guarded by sendLock
+    private long sequence;
+    // Last sequence received per sender; guarded by this
+    private final Map<String, Long> lastReceived = new HashMap<>();
+
+    private Counter sent;
+    private Counter received;
+    private Counter resyncs;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        sent = meterRegistry.counter("libraryhub.invalidation", "result", "sent");
+        received = meterRegistry.counter("libraryhub.invalidation", "result", "received");
+        resyncs = meterRegistry.counter("libraryhub.invalidation", "result", "resync");
+        transport.subscribe(this);
+        log.info("Invalidation bus started as node {} with {} listeners", node, listeners.size());
+    }
+
+    // Announce a changed row of the current branch. Inside a transaction it is queued once it commits.
+    public void publish(EntityChange.Kind kind, Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        EntityChange change = new EntityChange(kind, shardResolver.currentBranch(), id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.add(change);
+                }
+            });
+        } else {
+            pending.add(change);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${libraryhub.invalidation.flush-ms:100}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        synchronized (sendLock) {
+            // Changes added while draining go out now or in the next flush
+            List<EntityChange> changes = new ArrayList<>();
+            for (Iterator<EntityChange> it = pending.iterator(); it.hasNext(); ) {
+                changes.add(it.next());
+                it.remove();
+            }
+            for (List<EntityChange> chunk : InvalidationBatch.chunk(changes, maxBatchSize)) {
+                // The sequence advances even if the send fails, so receivers see the gap
+                send(new InvalidationBatch(node, ++sequence, chunk));
+            }
+        }
+    }
+
+    // Repeats the last sequence, so a receiver that missed the final batch of a burst still notices
+    @Scheduled(fixedDelayString = "${libraryhub.invalidation.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (sendLock) {
+            send(new InvalidationBatch(node, sequence, List.of()));
+        }
+    }
+
+    private void send(InvalidationBatch batch) {
+        try {
+            transport.send(batch);
+            sent.increment(batch.changes().size());
+        } catch (RuntimeException e) {
+            log.warn("Could not send invalidation batch {}; other instances will resync", batch.sequence(), e);
+        }
+    }
+
+    @Override
+    public void receive(InvalidationBatch batch) {
+        if (node.equals(batch.node())) {
+            return;
+        }
+        synchronized (this) {
+            Long last = lastReceived.get(batch.node());
+            if (last != null && batch.sequence() <= last) {
+                // Already seen, or a heartbeat with nothing new
+                return;
+            }
+            lastReceived.put(batch.node(), batch.sequence());
+            // A sender heard from for the first time changed nothing this instance loaded before
+            if (last != null && (batch.isHeartbeat() || batch.sequence() > last + 1)) {
+                log.warn("Missed invalidations from {} (last batch {}, now {}); resynchronising",
+                        batch.node(), last, batch.sequence());
+                resync();
+                return;
+            }
+            if (batch.isHeartbeat()) {
+                return;
+            }
+            received.increment(batch.changes().size());
+            for (InvalidationListener listener : listeners) {
+                try {
+                    listener.invalidate(batch.changes());
+                } catch (RuntimeException e) {
+                    log.warn("{} failed to apply invalidations; its periodic refresh will catch up",
+                            listener.getClass().getSimpleName(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void lost() {
+        synchronized (this) {
+            resync();
+        }
+    }
+
+    private void resync() {
+        resyncs.increment();
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.resync();
+            } catch (RuntimeException e) {
+                log.warn("{} failed to resync; its periodic refresh will catch up", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
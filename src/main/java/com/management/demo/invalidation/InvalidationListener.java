@@ -0,0 +1,13 @@
+package com.management.demo.invalidation;
+
+import java.util.List;
+
+// A local cache of book or member data kept in step with changes made on other instances
+public interface InvalidationListener {
+
+    // Rows changed elsewhere (any kind and branch; ignore the ones not cached)
+    void invalidate(List<EntityChange> changes);
+
+    // Notifications were lost: reload everything
+    void resync();
+}
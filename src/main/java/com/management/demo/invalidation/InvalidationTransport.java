@@ -0,0 +1,18 @@
+package com.management.demo.invalidation;
+
+// Carries invalidation batches between instances. Delivery may be lossy (the bus detects
+// gaps by sequence number) but must keep each sender's batches in order.
+public interface InvalidationTransport {
+
+    void send(InvalidationBatch batch);
+
+    void subscribe(Receiver receiver);
+
+    interface Receiver {
+
+        void receive(InvalidationBatch batch);
+
+        // The transport may have missed batches (e.g. it reconnected)
+        void lost();
+    }
+}
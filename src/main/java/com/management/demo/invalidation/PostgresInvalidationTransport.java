@@ -0,0 +1,136 @@
+package com.management.demo.invalidation;
+
+import com.management.demo.sharding.ShardResolver;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// LISTEN/NOTIFY on the default branch's database, which every instance shares.
+// Batches are sent with pg_notify on a pooled connection (outside any transaction, so they
+// go out at once). Receiving needs a connection of its own that stays open: a daemon
+// thread holds one, LISTENs and polls for notifications. PostgreSQL only delivers
+// notifications to sessions listening at the time, so after reconnecting the receivers are
+// told they may have missed some.
+@Component
+@ConditionalOnProperty(name = "libraryhub.invalidation.transport", havingValue = "postgres", matchIfMissing = true)
+public class PostgresInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${libraryhub.invalidation.channel:libraryhub_invalidation}")
+    private String channel;
+
+    @Value("${libraryhub.invalidation.poll-ms:500}")
+    private int pollMs;
+
+    @Value("${libraryhub.invalidation.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+    private Thread listenerThread;
+    private volatile boolean running;
+
+    @Override
+    public void send(InvalidationBatch batch) {
+        String payload = batch.encode();
+        shardResolver.onDefaultBranch(() ->
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)::text", String.class, channel, payload));
+    }
+
+    // The listening connection is opened with the first subscriber
+    @Override
+    public synchronized void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+        if (listenerThread == null) {
+            running = true;
+            listenerThread = new Thread(this::listenLoop, "invalidation-listener");
+            listenerThread.setDaemon(true);
+            listenerThread.start();
+        }
+    }
+
+    private void listenLoop() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    log.info("Invalidation listener reconnected; resynchronising");
+                    receivers.forEach(Receiver::lost);
+                }
+                connectedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Invalidation listener lost its connection; retrying in {} ms: {}", reconnectMs, e.getMessage());
+                    sleep(reconnectMs);
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        InvalidationBatch batch;
+        try {
+            batch = InvalidationBatch.decode(payload);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable invalidation payload; resynchronising", e);
+            receivers.forEach(Receiver::lost);
+            return;
+        }
+        for (Receiver receiver : receivers) {
+            receiver.receive(batch);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.join(pollMs + 1000L);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.management.demo.journal;
+
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.MpscRingBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Write-behind audit journal of catalogue, member and circulation changes.
+// Request threads only build a record and offer it to a lock-free ring; one writer
+// thread drains the ring into memory-mapped segment files and forces them to disk
+// every flush interval. Records are offered after the database commit, so the journal
+// never holds a change that was rolled back. If the writer falls so far behind that
+// the ring is full, the record is dropped and counted rather than slowing the request.
+@Component
+public class Journal {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private static final int DRAIN_BATCH = 1024;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${libraryhub.journal.dir:journal}")
+    private String directory;
+
+    @Value("${libraryhub.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${libraryhub.journal.ring-capacity:65536}")
+    private int ringCapacity;
+
+    @Value("${libraryhub.journal.retain-segments:0}")
+    private int retainSegments;
+
+    @Value("${libraryhub.journal.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private MpscRingBuffer<JournalRecord> ring;
+    private SegmentedJournalWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(directory);
+        long lastSequence = JournalReader.lastSequence(path);
+        ring = new MpscRingBuffer<>(ringCapacity);
+        writer = new SegmentedJournalWriter(path, segmentSizeMb * 1024 * 1024, retainSegments, lastSequence + 1);
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        FunctionCounter.builder("libraryhub.journal.dropped", dropped, AtomicLong::get)
+                .description("Records dropped because the journal ring was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("libraryhub.journal.write-failures", failures, AtomicLong::get)
+                .description("Records the journal writer could not write, and flushes that failed")
+                .register(meterRegistry);
+        Gauge.builder("libraryhub.journal.backlog", ring, MpscRingBuffer::size)
+                .description("Records waiting for the journal writer")
+                .register(meterRegistry);
+        log.info("Journal writing to {} from sequence {}", path.toAbsolutePath(), lastSequence + 1);
+    }
+
+    // Record a change. Inside a transaction the record is queued once it commits.
+    public void append(JournalOp op, long entityId, long bookId, long memberId, String detail) {
+        if (!enabled) {
+            return;
+        }
+        JournalRecord record = new JournalRecord(0, System.currentTimeMillis(), op, entityId, bookId, memberId,
+                shardResolver.currentBranch(), detail);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(record);
+                }
+            });
+        } else {
+            offer(record);
+        }
+    }
+
+    private void offer(JournalRecord record) {
+        if (!ring.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long lastFlush = System.nanoTime();
+        boolean dirty = false;
+        while (running) {
+            int written = drain();
+            dirty |= written > 0;
+            if (dirty && System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                try {
+                    writer.force();
+                    dirty = false;
+                } catch (RuntimeException e) {
+                    // e.g. UncheckedIOException; the records stay mapped and the next flush retries
+                    failures.incrementAndGet();
+                    log.error("Could not force the journal segment to disk", e);
+                }
+                lastFlush = System.nanoTime();
+            }
+            if (written == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private int drain() {
+        return ring.drain(record -> {
+            try {
+                writer.append(record);
+            } catch (IOException | RuntimeException e) {
+                // Anything escaping here would end the writer thread, and with it the journal
+                dropped.incrementAndGet();
+                failures.incrementAndGet();
+                log.error("Could not write journal record {} {}", record.op(), record.entityId(), e);
+            }
+        }, DRAIN_BATCH);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        if (writerThread.isAlive()) {
+            // Still inside a write: the ring and the segment are its alone, so leave both to it
+            writerThread.interrupt();
+            log.warn("Journal writer did not stop within 5s; {} queued records not written", ring.size());
+            return;
+        }
+        // The writer thread has stopped; write what is left and force it out
+        while (drain() > 0) {
+            // keep draining
+        }
+        writer.close();
+    }
+
+    // Tab-separated key=value pairs for the detail field; tabs and newlines in values become spaces
+    public static String fields(Object... keysAndValues) {
+        StringBuilder detail = new StringBuilder();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            if (!detail.isEmpty()) {
+                detail.append('\t');
+            }
+            String value = String.valueOf(keysAndValues[i + 1]).replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+            detail.append(keysAndValues[i]).append('=').append(value);
+        }
+        return detail.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.management.demo.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+// On-disk layout.
+// Segment: int magic, int version, then records until a zero length.
+// Record:  int length (of what follows), long sequence, long timestamp, byte op,
+//          long entityId, long bookId, long memberId, short+bytes branch,
+//          short+bytes detail, int CRC32C of everything after the length.
+// The length is written last, so a reader never sees a half-written record as valid.
+final class JournalFormat {
+
+    static final int MAGIC = 0x4C484A31;  // "LHJ1"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int MAX_STRING_BYTES = 4096;
+
+    private JournalFormat() {
+    }
+
+    static byte[] utf8(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[MAX_STRING_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_STRING_BYTES);
+        return truncated;
+    }
+
+    // Bytes the record takes, including its length prefix
+    static int encodedSize(byte[] branch, byte[] detail) {
+        return 4 + 8 + 8 + 1 + 8 + 8 + 8 + 2 + branch.length + 2 + detail.length + 4;
+    }
+
+    // Write at the buffer's position and advance past the record
+    static void write(ByteBuffer buffer, JournalRecord record, byte[] branch, byte[] detail) {
+        int start = buffer.position();
+        buffer.position(start + 4);
+        int bodyStart = buffer.position();
+        buffer.putLong(record.sequence());
+        buffer.putLong(record.timestampMillis());
+        buffer.put(record.op().code());
+        buffer.putLong(record.entityId());
+        buffer.putLong(record.bookId());
+        buffer.putLong(record.memberId());
+        buffer.putShort((short) branch.length);
+        buffer.put(branch);
+        buffer.putShort((short) detail.length);
+        buffer.put(detail);
+        int bodyEnd = buffer.position();
+
+        buffer.putInt(crc(buffer, bodyStart, bodyEnd));
+        buffer.putInt(start, buffer.position() - bodyStart);
+    }
+
+    // Record at the buffer's position, or null at the end of the written data
+    // (zero length, or a torn/corrupt tail)
+    static JournalRecord read(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - 4) {
+            return null;
+        }
+        int bodyStart = start + 4;
+        int bodyEnd = bodyStart + length - 4;
+        if (crc(buffer, bodyStart, bodyEnd) != buffer.getInt(bodyEnd)) {
+            return null;
+        }
+
+        buffer.position(bodyStart);
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        JournalOp op = JournalOp.fromCode(buffer.get());
+        long entityId = buffer.getLong();
+        long bookId = buffer.getLong();
+        long memberId = buffer.getLong();
+        String branch = string(buffer);
+        String detail = string(buffer);
+        buffer.position(bodyEnd + 4);
+        return new JournalRecord(sequence, timestamp, op, entityId, bookId, memberId, branch, detail);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(from, to - from));
+        return (int) crc.getValue();
+    }
+}
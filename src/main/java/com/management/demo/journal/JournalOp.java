@@ -0,0 +1,32 @@
+package com.management.demo.journal;
+
+// What a journal record describes; the code is what is stored on disk, so never reuse one
+public enum JournalOp {
+    BOOK_CREATED(1),
+    BOOK_UPDATED(2),
+    BOOK_DELETED(3),
+    MEMBER_CREATED(11),
+    MEMBER_UPDATED(12),
+    MEMBER_DELETED(13),
+    BOOK_ISSUED(21),
+    BOOK_RETURNED(22);
+
+    private final byte code;
+
+    JournalOp(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static JournalOp fromCode(byte code) {
+        for (JournalOp op : values()) {
+            if (op.code == code) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown journal op code: " + code);
+    }
+}
@@ -0,0 +1,98 @@
+package com.management.demo.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Streams journal records in sequence order, for audit or to rebuild derived state.
+// Safe to use while the application is writing: the newest segment is read up to the
+// last complete record.
+public final class JournalReader {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private JournalReader() {
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX);
+    }
+
+    // Segment files, oldest first (the zero-padded names sort by first sequence)
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Hand every record with sequence >= fromSequence to the consumer; returns how many
+    public static long read(Path directory, long fromSequence, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> segments = segments(directory);
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before the requested sequence
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            ByteBuffer buffer = map(segments.get(i));
+            JournalRecord record;
+            while ((record = JournalFormat.read(buffer)) != null) {
+                if (record.sequence() >= fromSequence) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Sequence of the last complete record, or 0 for an empty journal
+    public static long lastSequence(Path directory) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            ByteBuffer buffer = map(segments.get(i));
+            long last = 0;
+            JournalRecord record;
+            while ((record = JournalFormat.read(buffer)) != null) {
+                last = record.sequence();
+            }
+            if (last > 0) {
+                return last;
+            }
+        }
+        return 0;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static ByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < JournalFormat.SEGMENT_HEADER_BYTES
+                    || buffer.getInt() != JournalFormat.MAGIC
+                    || buffer.getInt() != JournalFormat.VERSION) {
+                throw new IOException("Not a journal segment: " + segment);
+            }
+            return buffer;
+        }
+    }
+}
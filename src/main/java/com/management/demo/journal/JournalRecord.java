@@ -0,0 +1,15 @@
+package com.management.demo.journal;
+
+// One mutation. IDs by op:
+//   BOOK_*       entityId = book ID
+//   MEMBER_*     entityId = member ID
+//   BOOK_ISSUED / BOOK_RETURNED   entityId = transaction ID, bookId, memberId
+// detail holds a few tab-separated key=value fields for the audit trail.
+// sequence is 0 until the record is written.
+public record JournalRecord(long sequence, long timestampMillis, JournalOp op, long entityId,
+                            long bookId, long memberId, String branch, String detail) {
+
+    public JournalRecord withSequence(long sequence) {
+        return new JournalRecord(sequence, timestampMillis, op, entityId, bookId, memberId, branch, detail);
+    }
+}
@@ -0,0 +1,46 @@
+package com.management.demo.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+// Prints journal records as tab-separated lines:
+//   sequence  timestamp  op  entityId  bookId  memberId  branch  detail...
+// Usage: java -cp target/classes com.management.demo.journal.JournalReplay <dir> [--from=seq] [--op=OP]
+public final class JournalReplay {
+
+    private JournalReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JournalReplay <dir> [--from=sequence] [--op=BOOK_ISSUED]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        long from = 1;
+        JournalOp op = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--from=")) {
+                from = Long.parseLong(args[i].substring("--from=".length()));
+            } else if (args[i].startsWith("--op=")) {
+                op = JournalOp.valueOf(args[i].substring("--op=".length()));
+            } else {
+                System.err.println("Unknown argument: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        PrintStream out = System.out;
+        JournalOp filter = op;
+        JournalReader.read(directory, from, record -> {
+            if (filter == null || record.op() == filter) {
+                out.println(record.sequence() + "\t" + Instant.ofEpochMilli(record.timestampMillis()) + "\t"
+                        + record.op() + "\t" + record.entityId() + "\t" + record.bookId() + "\t"
+                        + record.memberId() + "\t" + record.branch() + "\t" + record.detail());
+            }
+        });
+        out.flush();
+    }
+}
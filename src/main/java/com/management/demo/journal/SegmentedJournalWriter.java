@@ -0,0 +1,90 @@
+package com.management.demo.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends records to fixed-size memory-mapped segment files, named after the first
+// sequence they hold. A full segment is forced to disk and a new one started. Every
+// segment is kept unless retainSegments is positive, in which case only that many of the
+// newest are. Single-threaded: the journal writer thread.
+class SegmentedJournalWriter implements Closeable {
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int retainSegments;
+
+    private long nextSequence;
+    private MappedByteBuffer segment;
+
+    SegmentedJournalWriter(Path directory, int segmentBytes, int retainSegments, long nextSequence) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retainSegments = retainSegments;
+        this.nextSequence = nextSequence;
+        Files.createDirectories(directory);
+        openSegment();
+    }
+
+    // Returns the sequence given to the record
+    long append(JournalRecord record) throws IOException {
+        byte[] branch = JournalFormat.utf8(record.branch());
+        byte[] detail = JournalFormat.utf8(record.detail());
+        // Keep 4 bytes spare for the zero length that ends the segment
+        int size = JournalFormat.encodedSize(branch, detail) + 4;
+        if (size > segmentBytes - JournalFormat.SEGMENT_HEADER_BYTES) {
+            // Would not fit even in a fresh segment; rejected before anything is written
+            throw new IllegalArgumentException("Journal record of " + size + " bytes does not fit in a "
+                    + segmentBytes + "-byte segment");
+        }
+        if (segment.remaining() < size) {
+            segment.force();
+            openSegment();
+        }
+        long sequence = nextSequence++;
+        JournalFormat.write(segment, record.withSequence(sequence), branch, detail);
+        return sequence;
+    }
+
+    void force() {
+        segment.force();
+    }
+
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public void close() {
+        segment.force();
+    }
+
+    private void openSegment() throws IOException {
+        // A file already named for nextSequence can only be one a previous run opened and
+        // never wrote to (nextSequence is past every record on disk), so it is overwritten
+        Path file = directory.resolve(JournalReader.segmentName(nextSequence));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment.putInt(JournalFormat.MAGIC);
+        segment.putInt(JournalFormat.VERSION);
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        if (retainSegments <= 0) {
+            return;
+        }
+        List<Path> segments = JournalReader.segments(directory);
+        for (int i = 0; i < segments.size() - retainSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+}
@@ -42,6 +42,12 @@ public class Book {
     @Min(value = 0, message = "Available copies cannot be negative")
     private Integer availableCopies = 1;
 
+    // Library branch (shard) that holds this copy record; set on insert
+    private String branch;
+
+    // Bumped by every update; an update based on an older version is rejected
+    private Long version;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
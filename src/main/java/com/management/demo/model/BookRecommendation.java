@@ -0,0 +1,16 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookRecommendation {
+
+    private Book book;
+
+    // Number of members who borrowed both this book and the one asked about
+    private int borrowedTogether;
+}
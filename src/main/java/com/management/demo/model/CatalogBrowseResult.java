@@ -0,0 +1,22 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// One page of a faceted catalogue browse, with the facet counts for the whole result.
+// facets: facet name -> value -> matching books, most common values first
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogBrowseResult {
+
+    private long total;
+    private int page;
+    private int size;
+    private List<Book> books;
+    private Map<String, Map<String, Integer>> facets;
+}
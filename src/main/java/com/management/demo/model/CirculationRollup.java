@@ -0,0 +1,23 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationRollup {
+
+    private LocalDate periodStart;  // the day, or the first day of the month
+    private String category;
+    private int cohort;             // year the members joined, 0 when unknown
+
+    private int issues;
+    private int returns;
+    private int overdueReturns;     // returns made after the due date
+    private BigDecimal fines;
+}
@@ -0,0 +1,31 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fines owed on loans still out past their due date, as if they were returned on asOf
+@Data
+@NoArgsConstructor
+public class FineReport {
+
+    private LocalDate asOf;
+    private long overdueLoans;
+    private BigDecimal totalFines = BigDecimal.ZERO;
+    private List<Line> lines = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String category;
+        private String tier;
+        private long overdueLoans;
+        private BigDecimal fines;
+    }
+}
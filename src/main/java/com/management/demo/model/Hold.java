@@ -0,0 +1,38 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Table;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("holds")
+public class Hold {
+
+    @Id
+    private Long id;
+
+    @NotNull
+    private Long bookId;
+
+    @NotNull
+    private Long memberId;
+
+    private String status = "WAITING";  // WAITING | READY | FULFILLED | EXPIRED | CANCELLED
+
+    // Members ahead in the queue (WAITING holds only)
+    @Transient
+    private Integer queuePosition;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.management.demo.model;
+
+import java.time.LocalDate;
+
+// An open loan that is due soon or overdue, with what is needed to notify the member
+public record LoanReminder(Long transactionId, LocalDate dueDate, Long memberId, String memberName,
+                           String memberEmail, String bookTitle) {
+}
@@ -17,6 +17,8 @@ import java.time.LocalDateTime;
 @Table("members")
 public class Member {
 
+    public static final String DEFAULT_TIER = "STANDARD";
+
     @Id
     private Long id;
 
@@ -39,6 +41,15 @@ public class Member {
     private LocalDate membershipDate;
     private Boolean isActive = true;
 
+    // Membership tier; fine discounts are configured per tier (libraryhub.fines.tiers.*)
+    private String tier = DEFAULT_TIER;
+
+    // Home branch (shard) of the member; set on insert
+    private String branch;
+
+    // Bumped by every update; an update based on an older version is rejected
+    private Long version;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
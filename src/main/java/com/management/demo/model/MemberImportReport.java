@@ -0,0 +1,40 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class MemberImportReport {
+
+    private int totalRows;
+    private int imported;
+    private int duplicates;
+    private int invalid;
+
+    // Pre-filter effectiveness: keys the Bloom filters flagged, and how many of
+    // those turned out not to exist when checked against the database
+    private long probableDuplicates;
+    private long falsePositives;
+    private long databaseRoundTrips;
+
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    private List<RowResult> rows = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        private int line;
+        private String memberId;
+        private String email;
+        private String status;  // IMPORTED | DUPLICATE | INVALID
+        private String message;
+    }
+}
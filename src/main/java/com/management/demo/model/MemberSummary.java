@@ -0,0 +1,41 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class MemberSummary {
+
+    private Member member;
+
+    private int activeLoans;
+    private int overdueLoans;
+    private int totalLoans;
+    private BigDecimal totalFines = BigDecimal.ZERO;
+
+    // Current loans (or the whole history when requested), most urgent first.
+    // truncated is set when more loans exist than the requested limit.
+    private List<Loan> loans = new ArrayList<>();
+    private boolean truncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Loan {
+        private Long transactionId;
+        private Long bookId;
+        private String bookTitle;
+        private LocalDate issueDate;
+        private LocalDate dueDate;
+        private LocalDate returnDate;
+        private BigDecimal fineAmount;
+        private String status;
+    }
+}
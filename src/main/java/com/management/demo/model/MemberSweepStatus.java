@@ -0,0 +1,14 @@
+package com.management.demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of a member lifecycle sweep (MemberLifecycleService).
+// state is RUNNING, COMPLETED, CANCELLED or FAILED; branch, lastMemberId and maxMemberId are the
+// branch being swept and how far through its member IDs the sweep is. deactivated counts the
+// members deactivated so far, or for a dry run the members that would be.
+public record MemberSweepStatus(String state, boolean dryRun, LocalDate joinedBefore, LocalDate noLoansSince,
+                                String tier, String branch, int branchesDone, int branches, long lastMemberId,
+                                long maxMemberId, long deactivated, long chunks, LocalDateTime startedAt,
+                                LocalDateTime finishedAt, String error) {
+}
@@ -36,5 +36,6 @@ public class Transaction {
 
     private BigDecimal fineAmount = BigDecimal.ZERO;
     private String status = "ISSUED";  // ISSUED | RETURNED | OVERDUE
+    private String branch;              // issuing branch (shard)
     private LocalDateTime createdAt;
 }
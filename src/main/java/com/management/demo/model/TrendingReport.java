@@ -0,0 +1,31 @@
+package com.management.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class TrendingReport {
+
+    private String window;  // DAY | WEEK | MONTH
+    private long totalIssues;
+
+    // Each estimate is at least the true issue count and, with probability
+    // `confidence`, at most `maxOvercount` above it
+    private long maxOvercount;
+    private double confidence;
+
+    private List<TrendingTitle> titles = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrendingTitle {
+        private Book book;
+        private long estimatedIssues;
+    }
+}
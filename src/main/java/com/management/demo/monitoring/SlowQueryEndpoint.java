@@ -0,0 +1,31 @@
+package com.management.demo.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/slowqueries?limit=20 - slowest statements seen since startup
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries(@Nullable Integer limit) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("thresholdMillis", slowQueryLog.getThresholdMillis());
+        body.put("sampleRate", slowQueryLog.getSampleRate());
+        body.put("droppedEvents", slowQueryLog.getDropped());
+        body.put("statements", slowQueryLog.slowest(limit != null && limit > 0 ? limit : DEFAULT_LIMIT));
+        return body;
+    }
+}
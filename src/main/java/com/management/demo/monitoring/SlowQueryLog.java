@@ -0,0 +1,191 @@
+package com.management.demo.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Collects statements reported by TimingDataSource.
+// The JDBC thread only decides whether a statement is interesting and offers it to
+// a bounded queue (dropping it if the queue is full). A single background thread
+// writes the log lines and keeps per-statement stats for the actuator endpoint.
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger("libraryhub.slowquery");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    // Distinct statements we keep stats for; the least slow one is evicted beyond this
+    private static final int MAX_TRACKED_STATEMENTS = 1000;
+
+    @Value("${libraryhub.slow-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${libraryhub.slow-query.threshold-ms:200}")
+    private long thresholdMillis;
+
+    @Value("${libraryhub.slow-query.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${libraryhub.slow-query.buffer-size:4096}")
+    private int bufferSize;
+
+    private BlockingQueue<QueryEvent> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, StatementStats> statsBySql = new HashMap<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        writer = new Thread(this::drain, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    // Called on the JDBC thread after every statement; must stay cheap
+    void record(String sql, String parameterShape, long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        QueryEvent event = new QueryEvent(Instant.now(), sql, parameterShape, durationNanos, caller(), slow);
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    // First application frame outside the JDBC plumbing, e.g. BookRepository.findByIsbn:74
+    private static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.management.demo.")
+                        && !frame.getClassName().startsWith("com.management.demo.monitoring."))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    private void drain() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                QueryEvent event = buffer.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    write(event);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    buffer.forEach(this::write);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(QueryEvent event) {
+        log.info("kind={} durationMs={} caller={} params={} sql={}",
+                event.slow ? "slow" : "sample",
+                String.format("%.3f", event.durationNanos / 1_000_000.0),
+                event.caller,
+                event.parameterShape,
+                event.sql.replaceAll("\\s+", " ").trim());
+
+        if (event.slow) {
+            synchronized (statsBySql) {
+                StatementStats stats = statsBySql.get(event.sql);
+                if (stats == null) {
+                    evictIfFull();
+                    stats = new StatementStats(event.sql, event.parameterShape, event.caller, 0, 0, 0, event.timestamp);
+                    statsBySql.put(event.sql, stats);
+                }
+                double millis = event.durationNanos / 1_000_000.0;
+                stats.setCount(stats.getCount() + 1);
+                stats.setTotalMillis(stats.getTotalMillis() + millis);
+                stats.setLastSeen(event.timestamp);
+                stats.setLastCaller(event.caller);
+                if (millis > stats.getMaxMillis()) {
+                    stats.setMaxMillis(millis);
+                    stats.setParameterShape(event.parameterShape);
+                }
+            }
+        }
+    }
+
+    private void evictIfFull() {
+        if (statsBySql.size() < MAX_TRACKED_STATEMENTS) {
+            return;
+        }
+        statsBySql.values().stream()
+                .min(Comparator.comparingDouble(StatementStats::getMaxMillis))
+                .ifPresent(least -> statsBySql.remove(least.getSql()));
+    }
+
+    // Slowest statements first, by worst observed duration
+    public List<StatementStats> slowest(int limit) {
+        List<StatementStats> snapshot;
+        synchronized (statsBySql) {
+            snapshot = new ArrayList<>(statsBySql.size());
+            for (StatementStats stats : statsBySql.values()) {
+                snapshot.add(new StatementStats(stats.getSql(), stats.getParameterShape(), stats.getLastCaller(),
+                        stats.getCount(), stats.getMaxMillis(), stats.getTotalMillis(), stats.getLastSeen()));
+            }
+        }
+        snapshot.sort(Comparator.comparingDouble(StatementStats::getMaxMillis).reversed());
+        return snapshot.subList(0, Math.min(limit, snapshot.size()));
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private record QueryEvent(Instant timestamp, String sql, String parameterShape, long durationNanos,
+                              String caller, boolean slow) {
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class StatementStats {
+        private String sql;
+        private String parameterShape;
+        private String lastCaller;
+        private long count;
+        private double maxMillis;
+        private double totalMillis;
+        private Instant lastSeen;
+    }
+}
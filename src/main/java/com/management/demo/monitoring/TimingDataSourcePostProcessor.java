@@ -0,0 +1,176 @@
+package com.management.demo.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Wraps every DataSource so statements are timed at the JDBC boundary and reported
+// to SlowQueryLog. Plain JDK proxies: no extra dependency, and unwrap()/isWrapperFor()
+// still reach the pool so Hikari metrics and health checks keep working.
+@Component
+public class TimingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public TimingDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())) {
+            return proxy(DataSource.class, new DataSourceHandler(dataSource));
+        }
+        return bean;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TimingDataSourcePostProcessor.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    // Base handler: identity semantics for equals/hashCode (Spring compares pooled
+    // connections by identity) and unwrapped exceptions for everything else
+    private abstract static class DelegatingHandler implements InvocationHandler {
+        private final Object target;
+
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Timing[" + target + "]";
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private class DataSourceHandler extends DelegatingHandler {
+        DataSourceHandler(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            if (result instanceof Connection connection && method.getName().equals("getConnection")) {
+                return proxy(Connection.class, new ConnectionHandler(connection));
+            }
+            return result;
+        }
+    }
+
+    private class ConnectionHandler extends DelegatingHandler {
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            String name = method.getName();
+            if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                return proxy(CallableStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return proxy(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler extends DelegatingHandler {
+        private final String preparedSql;
+        // Java type of each bind parameter by index, e.g. (String, Long, null)
+        private final List<String> parameterTypes = new ArrayList<>();
+        private int batchSize;
+
+        StatementHandler(Statement target, String preparedSql) {
+            super(target);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordParameter(index, name.equals("setNull") ? "null"
+                        : args[1] == null ? "null" : args[1].getClass().getSimpleName());
+            } else if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+
+            if (!name.startsWith("execute")) {
+                return delegate(method, args);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return delegate(method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+                SlowQueryLog log = slowQueryLog.getIfAvailable();
+                if (log != null) {
+                    log.record(sql, describeParameters(name), elapsed);
+                }
+                if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        private void recordParameter(int index, String type) {
+            while (parameterTypes.size() < index) {
+                parameterTypes.add("?");
+            }
+            parameterTypes.set(index - 1, type);
+        }
+
+        private String describeParameters(String executeMethod) {
+            String shape = "(" + String.join(", ", parameterTypes) + ")";
+            if (executeMethod.equals("executeBatch") || executeMethod.equals("executeLargeBatch")) {
+                return "batch[" + batchSize + "] " + shape;
+            }
+            return shape;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.management.demo.notification;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Local stand-in that appends one tab-separated line per notification to a file,
+// for checking what a reminder run would have sent
+@Component
+@ConditionalOnProperty(name = "libraryhub.notifications.transport", havingValue = "file")
+public class FileNotifier implements Notifier {
+
+    // A lock rather than synchronized: senders run on virtual threads, which synchronized would pin
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Writer writer;
+
+    public FileNotifier(@Value("${libraryhub.notifications.file:logs/notifications.log}") String file) throws IOException {
+        Path path = Path.of(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void send(Notification notification) {
+        String line = String.join("\t", notification.type(), String.valueOf(notification.memberId()),
+                notification.recipientEmail(), notification.subject(), notification.body().replace('\n', ' ')) + "\n";
+        lock.lock();
+        try {
+            writer.write(line);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        writer.close();
+    }
+}
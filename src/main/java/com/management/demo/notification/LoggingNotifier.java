@@ -0,0 +1,21 @@
+package com.management.demo.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Local stand-in for a real delivery channel: writes each notification to the log
+@Component
+@ConditionalOnProperty(name = "libraryhub.notifications.transport", havingValue = "log", matchIfMissing = true)
+public class LoggingNotifier implements Notifier {
+
+    private static final Logger log = LoggerFactory.getLogger("libraryhub.notifications");
+
+    @Override
+    public void send(Notification notification) {
+        log.info("type={} member={} to={} subject=\"{}\" body=\"{}\"",
+                notification.type(), notification.memberId(), notification.recipientEmail(),
+                notification.subject(), notification.body());
+    }
+}
@@ -0,0 +1,6 @@
+package com.management.demo.notification;
+
+// A message for one member; delivery is up to the configured Notifier
+public record Notification(String type, Long memberId, String recipientName, String recipientEmail,
+                           String subject, String body) {
+}
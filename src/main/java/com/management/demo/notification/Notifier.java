@@ -0,0 +1,8 @@
+package com.management.demo.notification;
+
+// Delivery channel for member notifications (email, SMS, ...).
+// Implementations may block; callers decide which thread they run on.
+public interface Notifier {
+
+    void send(Notification notification);
+}
@@ -1,9 +1,13 @@
 package com.management.demo.repository;
 
 import com.management.demo.model.Book;
+import com.management.demo.sharding.ShardResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
@@ -11,7 +15,10 @@ import org.springframework.stereotype.Repository;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -20,6 +27,12 @@ public class BookRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
     // RowMapper to convert database rows to Book objects
     private final RowMapper<Book> bookRowMapper = (rs, rowNum) -> {
         Book book = new Book();
@@ -31,6 +44,8 @@ public class BookRepository {
         book.setPublicationYear(rs.getInt("publication_year"));
         book.setTotalCopies(rs.getInt("total_copies"));
         book.setAvailableCopies(rs.getInt("available_copies"));
+        book.setBranch(rs.getString("branch"));
+        book.setVersion(rs.getLong("version"));
 
         // Handle null timestamps gracefully
         if (rs.getTimestamp("created_at") != null) {
@@ -56,6 +71,50 @@ public class BookRepository {
         return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0));
     }
 
+    // Find book by ID and lock its row until the transaction ends. Placing a hold and
+    // allocating a returned copy both take this lock, so each sees the other's outcome.
+    // NO KEY UPDATE is the lock an UPDATE of the row takes; unlike FOR UPDATE it does not
+    // wait for checkouts whose new loan rows merely reference the book.
+    public Optional<Book> findByIdForUpdate(Long id) {
+        String sql = "SELECT * FROM books WHERE id = ? FOR NO KEY UPDATE";
+        List<Book> books = jdbcTemplate.query(sql, bookRowMapper, id);
+        return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0));
+    }
+
+    // Find several books by ID in one query (order not guaranteed)
+    public List<Book> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM books WHERE id IN (:ids)";
+        return namedParameterJdbcTemplate.query(sql, Map.of("ids", ids), bookRowMapper);
+    }
+
+    // One page of books in ID order, after the given ID (keyset paging for full loads)
+    public List<Book> findPageAfterId(long afterId, int limit) {
+        String sql = "SELECT * FROM books WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, bookRowMapper, afterId, limit);
+    }
+
+    // Books created or changed after the given time
+    public List<Book> findUpdatedSince(LocalDateTime since) {
+        String sql = "SELECT * FROM books WHERE updated_at > ?";
+        return jdbcTemplate.query(sql, bookRowMapper, since);
+    }
+
+    // Tombstones of books deleted after the given time, as book ID to deletion time
+    public Map<Long, LocalDateTime> findDeletedSince(LocalDateTime since) {
+        String sql = "SELECT book_id, deleted_at FROM book_deletions WHERE deleted_at > ?";
+        Map<Long, LocalDateTime> deleted = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                deleted.put(rs.getLong("book_id"), rs.getTimestamp("deleted_at").toLocalDateTime()), since);
+        return deleted;
+    }
+
+    public int purgeDeletionsBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM book_deletions WHERE deleted_at < ?", cutoff);
+    }
+
     // Find book by ISBN
     public Optional<Book> findByIsbn(String isbn) {
         String sql = "SELECT * FROM books WHERE isbn = ?";
@@ -76,10 +135,11 @@ public class BookRepository {
     // In BookRepository.java, update the insert method
     // In BookRepository.java, update the insert method
     private Book insert(Book book) {
-        String sql = "INSERT INTO books (isbn, title, author, category, publication_year, total_copies, available_copies, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO books (isbn, title, author, category, publication_year, total_copies, available_copies, created_at, updated_at, branch) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
         LocalDateTime now = LocalDateTime.now();
+        String branch = shardResolver.currentBranch();
 
         jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
@@ -92,6 +152,7 @@ public class BookRepository {
             ps.setInt(7, book.getAvailableCopies());
             ps.setObject(8, now);
             ps.setObject(9, now);
+            ps.setString(10, branch);
             return ps;
         }, keyHolder);
 
@@ -102,17 +163,19 @@ public class BookRepository {
         book.setId(generatedId);
         book.setCreatedAt(now);
         book.setUpdatedAt(now);
+        book.setBranch(branch);
+        book.setVersion(0L);
 
         return book;
     }
 
 
-    // Update existing book
+    // Update existing book, only if nobody changed it since book.getVersion() was read
     private Book update(Book book) {
-        String sql = "UPDATE books SET isbn = ?, title = ?, author = ?, category = ?, publication_year = ?, total_copies = ?, available_copies = ?, updated_at = ? WHERE id = ?";
+        String sql = "UPDATE books SET isbn = ?, title = ?, author = ?, category = ?, publication_year = ?, total_copies = ?, available_copies = ?, updated_at = ?, version = version + 1 WHERE id = ? AND version = ?";
 
         LocalDateTime now = LocalDateTime.now();
-        jdbcTemplate.update(sql,
+        int updated = jdbcTemplate.update(sql,
                 book.getIsbn(),
                 book.getTitle(),
                 book.getAuthor(),
@@ -121,17 +184,39 @@ public class BookRepository {
                 book.getTotalCopies(),
                 book.getAvailableCopies(),
                 now,
-                book.getId()
+                book.getId(),
+                book.getVersion()
         );
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Book " + book.getId() + " was changed by someone else (version " + book.getVersion() + " is stale)");
+        }
 
         book.setUpdatedAt(now);
+        book.setVersion(book.getVersion() + 1);
         return book;
     }
 
-    // Delete book
+    // Take one copy off the shelf; false when none is left. A single statement, so
+    // concurrent checkouts never overwrite each other's count.
+    public boolean decrementAvailableCopies(Long id) {
+        String sql = "UPDATE books SET available_copies = available_copies - 1, updated_at = ?, version = version + 1 WHERE id = ? AND available_copies > 0";
+        return jdbcTemplate.update(sql, LocalDateTime.now(), id) == 1;
+    }
+
+    // Put one copy back on the shelf; false when the book does not exist
+    public boolean incrementAvailableCopies(Long id) {
+        String sql = "UPDATE books SET available_copies = available_copies + 1, updated_at = ?, version = version + 1 WHERE id = ?";
+        return jdbcTemplate.update(sql, LocalDateTime.now(), id) == 1;
+    }
+
+    // Delete book, leaving a tombstone in the same statement so caches that only
+    // fetch recent changes (see CatalogCache) also learn about the delete
     public void deleteById(Long id) {
-        String sql = "DELETE FROM books WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+        String sql = """
+            WITH deleted AS (DELETE FROM books WHERE id = ? RETURNING id)
+            INSERT INTO book_deletions (book_id, deleted_at) SELECT id, ? FROM deleted
+            """;
+        jdbcTemplate.update(sql, id, LocalDateTime.now());
     }
 
     // Search books by title or author
@@ -0,0 +1,132 @@
+package com.management.demo.repository;
+
+import com.management.demo.model.CirculationRollup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class CirculationRollupRepository {
+
+    // First key of the transaction-level advisory locks on a month's rows (the second is the month)
+    private static final int MONTH_LOCK_CLASS = 0x524f4c4c;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<CirculationRollup> rollupRowMapper = (rs, rowNum) -> new CirculationRollup(
+            rs.getDate("period_start").toLocalDate(),
+            rs.getString("category"),
+            rs.getInt("cohort"),
+            rs.getInt("issues"),
+            rs.getInt("returns"),
+            rs.getInt("overdue_returns"),
+            rs.getBigDecimal("fines")
+    );
+
+    // Add one loan's activity to its day and month rows.
+    // A shared lock on the month lets live writers run side by side while holding off a
+    // rebuild of that month (rebuildMonth) until they commit.
+    // Rows are upserted DAY before MONTH so concurrent writers lock them in the same order.
+    public void addActivity(LocalDate day, Long bookId, Long memberId,
+                            int issues, int returns, int overdueReturns, BigDecimal fines) {
+        String sql = """
+            INSERT INTO circulation_rollups (grain, period_start, category, cohort, issues, returns, overdue_returns, fines)
+            WITH month_lock AS (SELECT pg_advisory_xact_lock_shared(?, ?))
+            SELECT g.grain,
+                   CASE g.grain WHEN 'DAY' THEN ?::date ELSE date_trunc('month', ?::date)::date END,
+                   COALESCE(b.category, 'Uncategorized'),
+                   COALESCE(EXTRACT(YEAR FROM m.membership_date)::int, 0),
+                   ?, ?, ?, ?
+            FROM month_lock, books b, members m, (VALUES ('DAY'), ('MONTH')) AS g (grain)
+            WHERE b.id = ? AND m.id = ?
+            ORDER BY g.grain
+            ON CONFLICT (grain, period_start, category, cohort) DO UPDATE SET
+                issues = circulation_rollups.issues + EXCLUDED.issues,
+                returns = circulation_rollups.returns + EXCLUDED.returns,
+                overdue_returns = circulation_rollups.overdue_returns + EXCLUDED.overdue_returns,
+                fines = circulation_rollups.fines + EXCLUDED.fines
+            """;
+        jdbcTemplate.update(sql, MONTH_LOCK_CLASS, monthKey(YearMonth.from(day)), Date.valueOf(day), Date.valueOf(day),
+                issues, returns, overdueReturns, fines, bookId, memberId);
+    }
+
+    // Recompute one month's day and month rows from transactions; call it in a transaction.
+    // The exclusive lock on the month waits for that month's in-flight upserts to commit and
+    // holds new ones back until the month is rewritten, so no live activity is lost or counted
+    // twice. Writers to other months, normally all of them, are not held up.
+    public int rebuildMonth(YearMonth month) {
+        Date start = Date.valueOf(month.atDay(1));
+        Date end = Date.valueOf(month.plusMonths(1).atDay(1));
+
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, ?)", rs -> {
+        }, MONTH_LOCK_CLASS, monthKey(month));
+        jdbcTemplate.update("DELETE FROM circulation_rollups WHERE period_start >= ? AND period_start < ?", start, end);
+
+        String sql = """
+            INSERT INTO circulation_rollups (grain, period_start, category, cohort, issues, returns, overdue_returns, fines)
+            WITH activity AS (
+                SELECT issue_date AS day, book_id, member_id,
+                       1 AS issues, 0 AS returns, 0 AS overdue_returns, 0::numeric AS fines
+                FROM transactions
+                WHERE issue_date >= ? AND issue_date < ?
+                UNION ALL
+                SELECT return_date, book_id, member_id,
+                       0, 1, CASE WHEN return_date > due_date THEN 1 ELSE 0 END, COALESCE(fine_amount, 0)
+                FROM transactions
+                WHERE return_date >= ? AND return_date < ?
+            ), daily AS (
+                SELECT a.day,
+                       COALESCE(b.category, 'Uncategorized') AS category,
+                       COALESCE(EXTRACT(YEAR FROM m.membership_date)::int, 0) AS cohort,
+                       SUM(a.issues) AS issues, SUM(a.returns) AS returns,
+                       SUM(a.overdue_returns) AS overdue_returns, SUM(a.fines) AS fines
+                FROM activity a
+                JOIN books b ON b.id = a.book_id
+                JOIN members m ON m.id = a.member_id
+                GROUP BY 1, 2, 3
+            )
+            SELECT 'DAY', day, category, cohort, issues, returns, overdue_returns, fines FROM daily
+            UNION ALL
+            SELECT 'MONTH', ?, category, cohort, SUM(issues), SUM(returns), SUM(overdue_returns), SUM(fines)
+            FROM daily
+            GROUP BY category, cohort
+            """;
+        return jdbcTemplate.update(sql, start, end, start, end, start);
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    // Month of the oldest issue on record, if any
+    public Optional<YearMonth> findFirstActivityMonth() {
+        Date first = jdbcTemplate.queryForObject("SELECT MIN(issue_date) FROM transactions", Date.class);
+        return Optional.ofNullable(first).map(date -> YearMonth.from(date.toLocalDate()));
+    }
+
+    // Stored rows of one grain for a period, optionally for one category
+    public List<CirculationRollup> findRollups(String grain, LocalDate from, LocalDate to, String category) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT period_start, category, cohort, issues, returns, overdue_returns, fines
+            FROM circulation_rollups
+            WHERE grain = ? AND period_start >= ? AND period_start <= ?
+            """);
+        List<Object> params = new ArrayList<>(List.of(grain, Date.valueOf(from), Date.valueOf(to)));
+        if (category != null) {
+            sql.append(" AND category = ?");
+            params.add(category);
+        }
+        sql.append(" ORDER BY period_start, category, cohort");
+        return jdbcTemplate.query(sql.toString(), rollupRowMapper, params.toArray());
+    }
+}
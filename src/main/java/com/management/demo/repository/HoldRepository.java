@@ -0,0 +1,148 @@
+package com.management.demo.repository;
+
+import com.management.demo.event.HoldReadyEvent;
+import com.management.demo.model.Hold;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class HoldRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<Hold> holdRowMapper = (rs, rowNum) -> {
+        Hold hold = new Hold();
+        hold.setId(rs.getLong("id"));
+        hold.setBookId(rs.getLong("book_id"));
+        hold.setMemberId(rs.getLong("member_id"));
+        hold.setStatus(rs.getString("status"));
+        hold.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        hold.setReadyAt(toLocalDateTime(rs.getTimestamp("ready_at")));
+        hold.setExpiresAt(toLocalDateTime(rs.getTimestamp("expires_at")));
+        hold.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return hold;
+    };
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    // Find hold by ID
+    public Optional<Hold> findById(Long id) {
+        String sql = "SELECT * FROM holds WHERE id = ?";
+        List<Hold> holds = jdbcTemplate.query(sql, holdRowMapper, id);
+        return holds.isEmpty() ? Optional.empty() : Optional.of(holds.get(0));
+    }
+
+    // Find holds by member, newest first
+    public List<Hold> findByMemberId(Long memberId) {
+        String sql = "SELECT * FROM holds WHERE member_id = ? ORDER BY created_at DESC";
+        return jdbcTemplate.query(sql, holdRowMapper, memberId);
+    }
+
+    // Open holds for a book in queue order (READY first, then WAITING by arrival)
+    public List<Hold> findOpenByBookId(Long bookId) {
+        String sql = "SELECT * FROM holds WHERE book_id = ? AND status IN ('WAITING', 'READY') ORDER BY status = 'WAITING', created_at, id";
+        return jdbcTemplate.query(sql, holdRowMapper, bookId);
+    }
+
+    // Open (WAITING or READY) hold of a member on a book, if any
+    public Optional<Hold> findOpenHold(Long bookId, Long memberId) {
+        String sql = "SELECT * FROM holds WHERE book_id = ? AND member_id = ? AND status IN ('WAITING', 'READY')";
+        List<Hold> holds = jdbcTemplate.query(sql, holdRowMapper, bookId, memberId);
+        return holds.isEmpty() ? Optional.empty() : Optional.of(holds.get(0));
+    }
+
+    // Lock the member's READY hold on a book so the reserved copy can be handed over
+    public Optional<Hold> lockReadyHold(Long bookId, Long memberId) {
+        String sql = "SELECT * FROM holds WHERE book_id = ? AND member_id = ? AND status = 'READY' FOR UPDATE";
+        List<Hold> holds = jdbcTemplate.query(sql, holdRowMapper, bookId, memberId);
+        return holds.isEmpty() ? Optional.empty() : Optional.of(holds.get(0));
+    }
+
+    // Number of WAITING holds queued ahead of the given one
+    public int countAhead(Hold hold) {
+        String sql = "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status = 'WAITING' AND (created_at, id) < (?, ?)";
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, hold.getBookId(), hold.getCreatedAt(), hold.getId());
+        return count != null ? count : 0;
+    }
+
+    // Insert new hold
+    public Hold insert(Hold hold) {
+        String sql = "INSERT INTO holds (book_id, member_id, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?) RETURNING id";
+
+        LocalDateTime now = LocalDateTime.now();
+        Long generatedId = jdbcTemplate.queryForObject(sql, Long.class,
+                hold.getBookId(), hold.getMemberId(), hold.getStatus(), now, now);
+
+        hold.setId(generatedId);
+        hold.setCreatedAt(now);
+        hold.setUpdatedAt(now);
+        return hold;
+    }
+
+    // Move a hold to a new status
+    public void updateStatus(Long id, String status) {
+        String sql = "UPDATE holds SET status = ?, updated_at = ? WHERE id = ?";
+        jdbcTemplate.update(sql, status, LocalDateTime.now(), id);
+    }
+
+    // Give the copy to the first active member waiting for the book. Callers hold the book's
+    // row lock, so copies of one title are allocated one at a time; SKIP LOCKED passes over a
+    // hold another transaction is changing (a cancel, say) rather than waiting for it.
+    public Optional<HoldReadyEvent> allocateToNextWaiting(Long bookId, LocalDateTime expiresAt) {
+        String sql = """
+            WITH next_hold AS (
+                SELECT h.id
+                FROM holds h
+                JOIN members m ON m.id = h.member_id
+                WHERE h.book_id = ? AND h.status = 'WAITING' AND m.is_active
+                ORDER BY h.created_at, h.id
+                LIMIT 1
+                FOR UPDATE OF h SKIP LOCKED
+            )
+            UPDATE holds h
+            SET status = 'READY', ready_at = ?, expires_at = ?, updated_at = ?
+            FROM next_hold, members m, books b
+            WHERE h.id = next_hold.id AND m.id = h.member_id AND b.id = h.book_id
+            RETURNING h.id, h.book_id, b.title, h.member_id, m.first_name, m.last_name, m.email, h.expires_at
+            """;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<HoldReadyEvent> allocated = jdbcTemplate.query(sql, (rs, rowNum) -> new HoldReadyEvent(
+                rs.getLong("id"),
+                rs.getLong("book_id"),
+                rs.getString("title"),
+                rs.getLong("member_id"),
+                rs.getString("first_name") + " " + rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getTimestamp("expires_at").toLocalDateTime()
+        ), bookId, now, expiresAt, now);
+        return allocated.isEmpty() ? Optional.empty() : Optional.of(allocated.get(0));
+    }
+
+    // Expire up to batchSize READY holds whose pickup window has passed; returns their book IDs
+    public List<Long> expireReadyHolds(LocalDateTime now, int batchSize) {
+        String sql = """
+            UPDATE holds
+            SET status = 'EXPIRED', updated_at = ?
+            WHERE id IN (
+                SELECT id FROM holds
+                WHERE status = 'READY' AND expires_at < ?
+                ORDER BY expires_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING book_id
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, now, now, batchSize);
+    }
+}
@@ -1,15 +1,30 @@
 package com.management.demo.repository;
 
 import com.management.demo.model.Member;
+import com.management.demo.sharding.ShardResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 @Repository
 public class MemberRepository {
@@ -17,8 +32,15 @@ public class MemberRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
     // RowMapper to convert database rows to Member objects
-    private final RowMapper<Member> memberRowMapper = (rs, rowNum) -> {
+    // Package-private: TransactionRepository maps the m.* columns of its member summary with it
+    static final RowMapper<Member> MEMBER_ROW_MAPPER = (rs, rowNum) -> {
         Member member = new Member();
         member.setId(rs.getLong("id"));
         member.setMemberId(rs.getString("member_id"));
@@ -33,6 +55,9 @@ public class MemberRepository {
             member.setMembershipDate(rs.getDate("membership_date").toLocalDate());
         }
         member.setIsActive(rs.getBoolean("is_active"));
+        member.setTier(rs.getString("tier"));
+        member.setBranch(rs.getString("branch"));
+        member.setVersion(rs.getLong("version"));
 
         // Handle timestamps
         if (rs.getTimestamp("created_at") != null) {
@@ -48,27 +73,35 @@ public class MemberRepository {
     // Find all members
     public List<Member> findAll() {
         String sql = "SELECT * FROM members ORDER BY first_name, last_name";
-        return jdbcTemplate.query(sql, memberRowMapper);
+        return jdbcTemplate.query(sql, MEMBER_ROW_MAPPER);
     }
 
     // Find member by ID
     public Optional<Member> findById(Long id) {
         String sql = "SELECT * FROM members WHERE id = ?";
-        List<Member> members = jdbcTemplate.query(sql, memberRowMapper, id);
+        List<Member> members = jdbcTemplate.query(sql, MEMBER_ROW_MAPPER, id);
+        return members.isEmpty() ? Optional.empty() : Optional.of(members.get(0));
+    }
+
+    // Find member by ID and share-lock the row until the transaction ends. Checkouts read their
+    // member this way, so a lapsed-member sweep (deactivateLapsed) skips the member meanwhile.
+    public Optional<Member> findByIdForShare(Long id) {
+        String sql = "SELECT * FROM members WHERE id = ? FOR SHARE";
+        List<Member> members = jdbcTemplate.query(sql, MEMBER_ROW_MAPPER, id);
         return members.isEmpty() ? Optional.empty() : Optional.of(members.get(0));
     }
 
     // Find member by member ID
     public Optional<Member> findByMemberId(String memberId) {
         String sql = "SELECT * FROM members WHERE member_id = ?";
-        List<Member> members = jdbcTemplate.query(sql, memberRowMapper, memberId);
+        List<Member> members = jdbcTemplate.query(sql, MEMBER_ROW_MAPPER, memberId);
         return members.isEmpty() ? Optional.empty() : Optional.of(members.get(0));
     }
 
     // Find member by email
     public Optional<Member> findByEmail(String email) {
         String sql = "SELECT * FROM members WHERE email = ?";
-        List<Member> members = jdbcTemplate.query(sql, memberRowMapper, email);
+        List<Member> members = jdbcTemplate.query(sql, MEMBER_ROW_MAPPER, email);
         return members.isEmpty() ? Optional.empty() : Optional.of(members.get(0));
     }
 
@@ -83,11 +116,13 @@ public class MemberRepository {
 
     // Insert new member using PostgreSQL RETURNING clause
     private Member insert(Member member) {
-        String sql = "INSERT INTO members (member_id, first_name, last_name, email, phone, address, membership_date, is_active, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
+        String sql = "INSERT INTO members (member_id, first_name, last_name, email, phone, address, membership_date, is_active, tier, created_at, updated_at, branch) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
 
         LocalDateTime now = LocalDateTime.now();
+        String branch = shardResolver.currentBranch();
         LocalDate membershipDate = member.getMembershipDate() != null ?
                 member.getMembershipDate() : LocalDate.now();
+        String tier = member.getTier() != null ? member.getTier() : Member.DEFAULT_TIER;
 
         Integer generatedId = jdbcTemplate.queryForObject(sql, Integer.class,
                 member.getMemberId(),
@@ -98,24 +133,29 @@ public class MemberRepository {
                 member.getAddress(),
                 membershipDate,
                 member.getIsActive(),
+                tier,
+                now,
                 now,
-                now
+                branch
         );
 
         member.setId(generatedId.longValue());
         member.setMembershipDate(membershipDate);
+        member.setTier(tier);
         member.setCreatedAt(now);
         member.setUpdatedAt(now);
+        member.setBranch(branch);
+        member.setVersion(0L);
 
         return member;
     }
 
-    // Update existing member
+    // Update existing member, only if nobody changed it since member.getVersion() was read
     private Member update(Member member) {
-        String sql = "UPDATE members SET member_id = ?, first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, membership_date = ?, is_active = ?, updated_at = ? WHERE id = ?";
+        String sql = "UPDATE members SET member_id = ?, first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, membership_date = ?, is_active = ?, tier = ?, updated_at = ?, version = version + 1 WHERE id = ? AND version = ?";
 
         LocalDateTime now = LocalDateTime.now();
-        jdbcTemplate.update(sql,
+        int updated = jdbcTemplate.update(sql,
                 member.getMemberId(),
                 member.getFirstName(),
                 member.getLastName(),
@@ -124,11 +164,17 @@ public class MemberRepository {
                 member.getAddress(),
                 member.getMembershipDate(),
                 member.getIsActive(),
+                member.getTier() != null ? member.getTier() : Member.DEFAULT_TIER,
                 now,
-                member.getId()
+                member.getId(),
+                member.getVersion()
         );
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Member " + member.getId() + " was changed by someone else (version " + member.getVersion() + " is stale)");
+        }
 
         member.setUpdatedAt(now);
+        member.setVersion(member.getVersion() + 1);
         return member;
     }
 
@@ -142,6 +188,147 @@ public class MemberRepository {
     public List<Member> searchMembers(String searchTerm) {
         String sql = "SELECT * FROM members WHERE LOWER(first_name) LIKE LOWER(?) OR LOWER(last_name) LIKE LOWER(?) OR LOWER(email) LIKE LOWER(?) ORDER BY first_name, last_name";
         String searchPattern = "%" + searchTerm + "%";
-        return jdbcTemplate.query(sql, memberRowMapper, searchPattern, searchPattern, searchPattern);
+        return jdbcTemplate.query(sql, MEMBER_ROW_MAPPER, searchPattern, searchPattern, searchPattern);
+    }
+
+    // Count all members
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM members", Long.class);
+        return count != null ? count : 0;
+    }
+
+    // Stream (member_id, email) of every member without materializing rows.
+    // Postgres only honours the fetch size inside a transaction, so call this from one.
+    public void forEachMemberKey(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT member_id, email FROM members");
+            ps.setFetchSize(5000);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString("member_id"), rs.getString("email")));
+    }
+
+    // Which of the given member IDs are already taken (one round trip)
+    public Set<String> findExistingMemberIds(Collection<String> memberIds) {
+        if (memberIds.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT member_id FROM members WHERE member_id IN (:keys)";
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(sql, Map.of("keys", memberIds), String.class));
+    }
+
+    // Which of the given emails are already taken (one round trip)
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT email FROM members WHERE email IN (:keys)";
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(sql, Map.of("keys", emails), String.class));
+    }
+
+    // Members with any of the given member IDs (one round trip)
+    public List<Member> findByMemberIds(Collection<String> memberIds) {
+        if (memberIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM members WHERE member_id IN (:keys)";
+        return namedParameterJdbcTemplate.query(sql, Map.of("keys", memberIds), MEMBER_ROW_MAPPER);
+    }
+
+    // Insert many members in one JDBC batch.
+    // Rows that hit a unique constraint are skipped rather than failing the batch;
+    // the returned array holds 0 for those (or Statement.SUCCESS_NO_INFO when the
+    // driver rewrites the batch and cannot tell).
+    public int[] batchInsert(List<Member> members) {
+        String sql = "INSERT INTO members (member_id, first_name, last_name, email, phone, address, membership_date, is_active, tier, created_at, updated_at, branch) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+        LocalDateTime now = LocalDateTime.now();
+        String branch = shardResolver.currentBranch();
+        int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Member member = members.get(i);
+                ps.setString(1, member.getMemberId());
+                ps.setString(2, member.getFirstName());
+                ps.setString(3, member.getLastName());
+                ps.setString(4, member.getEmail());
+                ps.setString(5, member.getPhone());
+                ps.setString(6, member.getAddress());
+                ps.setObject(7, member.getMembershipDate());
+                ps.setBoolean(8, member.getIsActive());
+                ps.setString(9, member.getTier() != null ? member.getTier() : Member.DEFAULT_TIER);
+                ps.setObject(10, now);
+                ps.setObject(11, now);
+                ps.setString(12, branch);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return members.size();
+            }
+        });
+
+        for (Member member : members) {
+            member.setCreatedAt(now);
+            member.setUpdatedAt(now);
+            member.setBranch(branch);
+            member.setVersion(0L);
+        }
+        return counts;
+    }
+
+    // Highest member ID, the end of a lifecycle sweep's ID range
+    public long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM members", Long.class);
+        return max != null ? max : 0;
+    }
+
+    // IDs in (afterId, throughId] that deactivateLapsed would deactivate (a dry run)
+    public List<Long> findLapsedIds(LocalDate joinedBefore, LocalDate noLoansSince, String tier, long afterId, long throughId) {
+        return namedParameterJdbcTemplate.queryForList(lapsedMembers(tier) + " ORDER BY c.id",
+                lapsedParams(joinedBefore, noLoansSince, tier, afterId, throughId), Long.class);
+    }
+
+    // Deactivate, in one statement, the active members in (afterId, throughId] who joined before
+    // joinedBefore (and have the tier, if given), have no open loan or hold and have borrowed
+    // nothing since noLoansSince. Rows locked by another request, such as a checkout in progress
+    // (findByIdForShare), are skipped, not waited for; a later sweep picks them up. Returns the
+    // deactivated members.
+    public List<Member> deactivateLapsed(LocalDate joinedBefore, LocalDate noLoansSince, String tier,
+                                         long afterId, long throughId, LocalDateTime now) {
+        String sql = """
+            UPDATE members m SET is_active = FALSE, updated_at = :now, version = m.version + 1
+            WHERE m.is_active AND m.id IN (%s FOR UPDATE OF c SKIP LOCKED)
+            RETURNING m.*
+            """.formatted(lapsedMembers(tier));
+        MapSqlParameterSource params = lapsedParams(joinedBefore, noLoansSince, tier, afterId, throughId)
+                .addValue("now", Timestamp.valueOf(now));
+        return namedParameterJdbcTemplate.query(sql, params, MEMBER_ROW_MAPPER);
+    }
+
+    // Anti-joins rather than NOT IN: they stop at the first matching loan or hold per member
+    private static String lapsedMembers(String tier) {
+        return """
+            SELECT c.id FROM members c
+            WHERE c.id > :afterId AND c.id <= :throughId
+              AND c.is_active
+              AND c.membership_date < :joinedBefore
+            """ + (tier != null ? "  AND c.tier = :tier\n" : "") + """
+              AND NOT EXISTS (
+                  SELECT 1 FROM transactions t
+                  WHERE t.member_id = c.id AND (t.status = 'ISSUED' OR t.issue_date >= :noLoansSince))
+              AND NOT EXISTS (
+                  SELECT 1 FROM holds h
+                  WHERE h.member_id = c.id AND h.status IN ('WAITING', 'READY'))
+            """;
+    }
+
+    private static MapSqlParameterSource lapsedParams(LocalDate joinedBefore, LocalDate noLoansSince, String tier,
+                                                      long afterId, long throughId) {
+        return new MapSqlParameterSource()
+                .addValue("joinedBefore", Date.valueOf(joinedBefore))
+                .addValue("noLoansSince", Date.valueOf(noLoansSince))
+                .addValue("tier", tier)
+                .addValue("afterId", afterId)
+                .addValue("throughId", throughId);
     }
 }
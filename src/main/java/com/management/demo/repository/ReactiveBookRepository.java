@@ -0,0 +1,129 @@
+package com.management.demo.repository;
+
+import com.management.demo.model.Book;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.function.ToDoubleFunction;
+
+// Non-blocking twin of the read half of BookRepository.
+// The pool is owned here (and not exposed as a ConnectionFactory bean) so that
+// Spring Boot keeps auto-configuring the JDBC DataSource used by every write path.
+@Repository
+@ConditionalOnProperty(name = "libraryhub.reactive.enabled", havingValue = "true")
+public class ReactiveBookRepository implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveBookRepository(@Value("${libraryhub.reactive.url}") String url,
+                                  @Value("${spring.datasource.username}") String username,
+                                  @Value("${spring.datasource.password}") String password,
+                                  @Value("${libraryhub.reactive.pool.initial-size:5}") int initialSize,
+                                  @Value("${libraryhub.reactive.pool.max-size:20}") int maxSize,
+                                  MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+
+        ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .name("libraryhub-r2dbc")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .build();
+
+        this.connectionPool = new ConnectionPool(poolConfiguration);
+        this.databaseClient = DatabaseClient.create(connectionPool);
+
+        // Same shape as the hikaricp.connections.* gauges so both stacks can be compared side by side
+        registerPoolGauge(meterRegistry, "libraryhub.r2dbc.connections.acquired", PoolMetrics::acquiredSize);
+        registerPoolGauge(meterRegistry, "libraryhub.r2dbc.connections.idle", PoolMetrics::idleSize);
+        registerPoolGauge(meterRegistry, "libraryhub.r2dbc.connections.pending", PoolMetrics::pendingAcquireSize);
+    }
+
+    // Map an R2DBC row to the same Book model the JDBC path uses
+    private Book mapRow(Row row) {
+        Book book = new Book();
+        book.setId(row.get("id", Long.class));
+        book.setIsbn(row.get("isbn", String.class));
+        book.setTitle(row.get("title", String.class));
+        book.setAuthor(row.get("author", String.class));
+        book.setCategory(row.get("category", String.class));
+        book.setPublicationYear(row.get("publication_year", Integer.class));
+        book.setTotalCopies(row.get("total_copies", Integer.class));
+        book.setAvailableCopies(row.get("available_copies", Integer.class));
+        book.setBranch(row.get("branch", String.class));
+        book.setVersion(row.get("version", Long.class));
+        book.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        book.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return book;
+    }
+
+    // Find all books
+    public Flux<Book> findAll() {
+        return databaseClient.sql("SELECT * FROM books ORDER BY title")
+                .map((row, metadata) -> mapRow(row))
+                .all();
+    }
+
+    // Find book by ID
+    public Mono<Book> findById(Long id) {
+        return databaseClient.sql("SELECT * FROM books WHERE id = $1")
+                .bind(0, id)
+                .map((row, metadata) -> mapRow(row))
+                .one();
+    }
+
+    // Find book by ISBN
+    public Mono<Book> findByIsbn(String isbn) {
+        return databaseClient.sql("SELECT * FROM books WHERE isbn = $1")
+                .bind(0, isbn)
+                .map((row, metadata) -> mapRow(row))
+                .one();
+    }
+
+    // Search books by title or author
+    public Flux<Book> searchBooks(String searchTerm) {
+        String searchPattern = "%" + searchTerm + "%";
+        return databaseClient.sql("SELECT * FROM books WHERE LOWER(title) LIKE LOWER($1) OR LOWER(author) LIKE LOWER($2) ORDER BY title")
+                .bind(0, searchPattern)
+                .bind(1, searchPattern)
+                .map((row, metadata) -> mapRow(row))
+                .all();
+    }
+
+    // Available copies only, so the availability check doesn't ship the whole row
+    public Mono<Integer> findAvailableCopies(Long id) {
+        return databaseClient.sql("SELECT available_copies FROM books WHERE id = $1")
+                .bind(0, id)
+                .map((row, metadata) -> row.get("available_copies", Integer.class))
+                .one();
+    }
+
+    private void registerPoolGauge(MeterRegistry registry, String name, ToDoubleFunction<PoolMetrics> metric) {
+        Gauge.builder(name, connectionPool,
+                        pool -> pool.getMetrics().map(metric::applyAsDouble).orElse(0.0))
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
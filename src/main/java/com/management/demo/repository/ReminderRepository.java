@@ -0,0 +1,108 @@
+package com.management.demo.repository;
+
+import com.management.demo.model.LoanReminder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public class ReminderRepository {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final RowMapper<LoanReminder> reminderRowMapper = (rs, rowNum) -> new LoanReminder(
+            rs.getLong("id"),
+            rs.getDate("due_date").toLocalDate(),
+            rs.getLong("member_id"),
+            rs.getString("first_name") + " " + rs.getString("last_name"),
+            rs.getString("email"),
+            rs.getString("title")
+    );
+
+    // Next page of open loans due in [fromDue, toDue] that still need a reminder of this kind,
+    // after the (due_date, id) cursor. Contact details and the title come in the same query;
+    // loans already reminded, or claimed by a dispatch still running, are skipped.
+    public List<LoanReminder> findPage(String kind, LocalDate fromDue, LocalDate toDue,
+                                       LocalDate afterDue, long afterId, LocalDateTime staleClaimsBefore, int limit) {
+        String sql = """
+            SELECT t.id, t.due_date, t.member_id, m.first_name, m.last_name, m.email, b.title
+            FROM transactions t
+            JOIN members m ON m.id = t.member_id
+            JOIN books b ON b.id = t.book_id
+            WHERE t.status = 'ISSUED'
+              AND t.due_date >= :fromDue AND t.due_date <= :toDue
+              AND (t.due_date, t.id) > (:afterDue, :afterId)
+              AND m.is_active
+              AND NOT EXISTS (
+                  SELECT 1 FROM reminder_log r
+                  WHERE r.transaction_id = t.id AND r.kind = :kind
+                    AND (r.status = 'SENT' OR r.claimed_at >= :staleBefore))
+            ORDER BY t.due_date, t.id
+            LIMIT :limit
+            """;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("kind", kind)
+                .addValue("fromDue", Date.valueOf(fromDue))
+                .addValue("toDue", Date.valueOf(toDue))
+                .addValue("afterDue", Date.valueOf(afterDue))
+                .addValue("afterId", afterId)
+                .addValue("staleBefore", Timestamp.valueOf(staleClaimsBefore))
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(sql, params, reminderRowMapper);
+    }
+
+    // Claim reminders for sending; returns the transaction IDs this caller won. A claim
+    // left PENDING by a dispatch that died is taken over once it is older than staleBefore.
+    public Set<Long> claim(String kind, Collection<Long> transactionIds, LocalDateTime now, LocalDateTime staleBefore) {
+        if (transactionIds.isEmpty()) {
+            return Set.of();
+        }
+        String sql = """
+            INSERT INTO reminder_log (transaction_id, kind, status, claimed_at)
+            SELECT t.id, :kind, 'PENDING', :now FROM transactions t WHERE t.id IN (:ids)
+            ON CONFLICT (transaction_id, kind) DO UPDATE SET claimed_at = EXCLUDED.claimed_at
+                WHERE reminder_log.status = 'PENDING' AND reminder_log.claimed_at < :staleBefore
+            RETURNING transaction_id
+            """;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("kind", kind)
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("staleBefore", Timestamp.valueOf(staleBefore))
+                .addValue("ids", transactionIds);
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(sql, params, Long.class));
+    }
+
+    public void markSent(String kind, Collection<Long> transactionIds, LocalDateTime sentAt) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE reminder_log SET status = 'SENT', sent_at = :sentAt WHERE kind = :kind AND transaction_id IN (:ids)";
+        namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("kind", kind)
+                .addValue("sentAt", Timestamp.valueOf(sentAt))
+                .addValue("ids", transactionIds));
+    }
+
+    // Give up claims whose send failed, so the next run tries again
+    public void release(String kind, Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM reminder_log WHERE kind = :kind AND status = 'PENDING' AND transaction_id IN (:ids)";
+        namedParameterJdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("kind", kind)
+                .addValue("ids", transactionIds));
+    }
+}
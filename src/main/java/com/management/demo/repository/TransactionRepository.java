@@ -1,11 +1,20 @@
 package com.management.demo.repository;
 
+import com.management.demo.model.MemberSummary;
 import com.management.demo.model.Transaction;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.ScannedIds;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +25,9 @@ public class TransactionRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ShardResolver shardResolver;
+
     private final RowMapper<Transaction> transactionRowMapper = (rs, rowNum) -> {
         Transaction transaction = new Transaction();
         transaction.setId(rs.getLong("id"));
@@ -30,6 +42,7 @@ public class TransactionRepository {
 
         transaction.setFineAmount(rs.getBigDecimal("fine_amount"));
         transaction.setStatus(rs.getString("status"));
+        transaction.setBranch(rs.getString("branch"));
         transaction.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
 
         return transaction;
@@ -64,12 +77,13 @@ public class TransactionRepository {
     public Transaction insert(Transaction transaction) {
         String sql = """
             INSERT INTO transactions 
-            (book_id, member_id, issue_date, due_date, return_date, fine_amount, status, created_at) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?) 
+            (book_id, member_id, issue_date, due_date, return_date, fine_amount, status, created_at, branch) 
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) 
             RETURNING id
             """;
 
         LocalDateTime now = LocalDateTime.now();
+        String branch = shardResolver.currentBranch();
 
         Integer generatedId = jdbcTemplate.queryForObject(sql, Integer.class,
                 transaction.getBookId(),
@@ -79,31 +93,31 @@ public class TransactionRepository {
                 transaction.getReturnDate(),
                 transaction.getFineAmount(),
                 transaction.getStatus(),
-                now
+                now,
+                branch
         );
 
         transaction.setId(generatedId.longValue());
         transaction.setCreatedAt(now);
+        transaction.setBranch(branch);
 
         return transaction;
     }
 
-    // Update transaction (for returns)
-    public Transaction updateReturn(Transaction transaction) {
+    // Complete a return; false when the loan was no longer open (a concurrent return won)
+    public boolean updateReturn(Transaction transaction) {
         String sql = """
             UPDATE transactions 
             SET return_date = ?, fine_amount = ?, status = ? 
-            WHERE id = ?
+            WHERE id = ? AND status = 'ISSUED'
             """;
 
-        jdbcTemplate.update(sql,
+        return jdbcTemplate.update(sql,
                 transaction.getReturnDate(),
                 transaction.getFineAmount(),
                 transaction.getStatus(),
                 transaction.getId()
-        );
-
-        return transaction;
+        ) == 1;
     }
 
     // Find active transactions (not returned)
@@ -117,4 +131,152 @@ public class TransactionRepository {
         String sql = "SELECT * FROM transactions WHERE status = 'ISSUED' AND due_date < CURRENT_DATE ORDER BY due_date";
         return jdbcTemplate.query(sql, transactionRowMapper);
     }
+
+    // Member profile, loan counters, fines and (bounded) loans with book titles in one round trip.
+    // Returns one row per loan, or a single row with NULL loan columns when there are none.
+    // Fetches limit + 1 loans so the caller can tell whether the list was cut short.
+    public Optional<MemberSummary> findMemberSummary(Long memberId, boolean includeHistory, int limit) {
+        String sql = """
+            WITH totals AS (
+                SELECT COUNT(*) FILTER (WHERE status = 'ISSUED') AS active_loans,
+                       COUNT(*) FILTER (WHERE status = 'ISSUED' AND due_date < CURRENT_DATE) AS overdue_loans,
+                       COUNT(*) AS total_loans,
+                       COALESCE(SUM(fine_amount), 0) AS total_fines
+                FROM transactions
+                WHERE member_id = ?
+            ),
+            loans AS (
+                SELECT t.id, t.book_id, b.title, t.issue_date, t.due_date, t.return_date, t.fine_amount, t.status,
+                       ROW_NUMBER() OVER (ORDER BY CASE WHEN t.status = 'ISSUED' THEN 0 ELSE 1 END,
+                                                   CASE WHEN t.status = 'ISSUED' THEN t.due_date END,
+                                                   t.issue_date DESC, t.id DESC) AS loan_rank
+                FROM transactions t
+                JOIN books b ON b.id = t.book_id
+                WHERE t.member_id = ? AND (? OR t.status = 'ISSUED')
+                ORDER BY loan_rank
+                LIMIT ?
+            )
+            SELECT m.*, totals.*,
+                   loans.id AS loan_id, loans.book_id AS loan_book_id, loans.title AS loan_book_title,
+                   loans.issue_date AS loan_issue_date, loans.due_date AS loan_due_date,
+                   loans.return_date AS loan_return_date, loans.fine_amount AS loan_fine_amount,
+                   loans.status AS loan_status
+            FROM members m
+            CROSS JOIN totals
+            LEFT JOIN loans ON TRUE
+            WHERE m.id = ?
+            ORDER BY loans.loan_rank
+            """;
+
+        ResultSetExtractor<MemberSummary> extractor = rs -> {
+            MemberSummary summary = null;
+            while (rs.next()) {
+                if (summary == null) {
+                    summary = new MemberSummary();
+                    // Member columns come through m.* under their own names; loan columns are prefixed
+                    summary.setMember(MemberRepository.MEMBER_ROW_MAPPER.mapRow(rs, 0));
+                    summary.setActiveLoans(rs.getInt("active_loans"));
+                    summary.setOverdueLoans(rs.getInt("overdue_loans"));
+                    summary.setTotalLoans(rs.getInt("total_loans"));
+                    summary.setTotalFines(rs.getBigDecimal("total_fines"));
+                }
+                if (rs.getObject("loan_id") == null) {
+                    continue;
+                }
+                if (summary.getLoans().size() == limit) {
+                    summary.setTruncated(true);
+                    continue;
+                }
+                Date returnDate = rs.getDate("loan_return_date");
+                summary.getLoans().add(new MemberSummary.Loan(
+                        rs.getLong("loan_id"),
+                        rs.getLong("loan_book_id"),
+                        rs.getString("loan_book_title"),
+                        rs.getDate("loan_issue_date").toLocalDate(),
+                        rs.getDate("loan_due_date").toLocalDate(),
+                        returnDate != null ? returnDate.toLocalDate() : null,
+                        rs.getBigDecimal("loan_fine_amount"),
+                        rs.getString("loan_status")
+                ));
+            }
+            return summary;
+        };
+
+        return Optional.ofNullable(jdbcTemplate.query(sql, extractor,
+                memberId, memberId, includeHistory, limit + 1, memberId));
+    }
+
+    // Highest transaction ID so far (0 when empty)
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transactions", Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    // The highest transaction ID this transaction can see, and the IDs below it that it cannot.
+    // Call it in the same REPEATABLE READ transaction as the scan it describes, so both read
+    // one snapshot; one pass over the primary key index.
+    public ScannedIds findScannedIds() {
+        long maxId = findMaxId();
+        List<long[]> gaps = jdbcTemplate.query("""
+                SELECT previous_id + 1 AS gap_start, id - 1 AS gap_end
+                FROM (SELECT id, LAG(id, 1, 0) OVER (ORDER BY id) AS previous_id FROM transactions WHERE id <= ?) ids
+                WHERE id > previous_id + 1
+                ORDER BY id
+                """, (rs, rowNum) -> new long[]{rs.getLong("gap_start"), rs.getLong("gap_end")}, maxId);
+        return new ScannedIds(maxId, gaps);
+    }
+
+    // Stream distinct (member_id, book_id) pairs up to a transaction ID, grouped by member and
+    // most recently borrowed first within each member.
+    // Postgres only honours the fetch size inside a transaction, so call this from one.
+    public void forEachMemberBookPair(long maxTransactionId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT member_id, book_id FROM transactions WHERE id <= ? GROUP BY member_id, book_id ORDER BY member_id, MAX(id) DESC");
+            ps.setLong(1, maxTransactionId);
+            ps.setFetchSize(10_000);
+            return ps;
+        }, handler);
+    }
+
+    // Distinct books a member borrowed in loans created before the given transaction,
+    // most recently borrowed first
+    public List<Long> findBookIdsBorrowedBefore(Long memberId, Long transactionId) {
+        String sql = "SELECT book_id FROM transactions WHERE member_id = ? AND id < ? GROUP BY book_id ORDER BY MAX(id) DESC";
+        return jdbcTemplate.queryForList(sql, Long.class, memberId, transactionId);
+    }
+
+    // Stream (book_id, created_at) of loans created since a point in time, up to a transaction ID.
+    // Call from inside a transaction so the fetch size is honoured.
+    public void forEachIssueSince(LocalDateTime since, long maxTransactionId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT book_id, created_at FROM transactions WHERE created_at >= ? AND id <= ?");
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            ps.setLong(2, maxTransactionId);
+            ps.setFetchSize(10_000);
+            return ps;
+        }, handler);
+    }
+
+    // Stream open loans past due on asOf as (category, tier, days_late, loans) groups.
+    // Loans that share all three have the same fine, so millions of loans come back as a
+    // few thousand rows. Call from inside a transaction so the fetch size is honoured.
+    public void forEachOverdueGroup(LocalDate asOf, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                SELECT COALESCE(b.category, 'Uncategorized') AS category, m.tier,
+                       ?::date - t.due_date AS days_late, COUNT(*) AS loans
+                FROM transactions t
+                JOIN books b ON b.id = t.book_id
+                JOIN members m ON m.id = t.member_id
+                WHERE t.status = 'ISSUED' AND t.due_date < ?
+                GROUP BY 1, 2, 3
+                """);
+            ps.setDate(1, Date.valueOf(asOf));
+            ps.setDate(2, Date.valueOf(asOf));
+            ps.setFetchSize(10_000);
+            return ps;
+        }, handler);
+    }
 }
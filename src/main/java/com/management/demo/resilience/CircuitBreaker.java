@@ -0,0 +1,146 @@
+package com.management.demo.resilience;
+
+// Count-based circuit breaker. The outcomes of the last windowSize calls are kept in a ring;
+// once at least minCalls are in it, the breaker opens when the share that failed, or the
+// share slower than slowCallNanos, reaches its threshold. While open nothing is let through
+// until openNanos have passed; then a single trial call is allowed (half-open), which closes
+// the breaker if it succeeds quickly and reopens it otherwise.
+// Thread-safe; calls are cheap next to the database work they guard.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte OK = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILED = 2;
+
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final int slowRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final byte[] window;
+    private int position;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int windowSize, int minCalls, int failureRatePercent, int slowRatePercent,
+                          long slowCallNanos, long openNanos) {
+        if (windowSize < 1 || minCalls < 1 || minCalls > windowSize) {
+            throw new IllegalArgumentException("Need 1 <= minCalls <= windowSize");
+        }
+        this.window = new byte[windowSize];
+        this.minCalls = minCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.slowRatePercent = slowRatePercent;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+    }
+
+    // Whether a call may go to the database now. A true in the half-open state makes the
+    // caller the trial call: it must report its outcome.
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                yield true;
+            }
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess(long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (slow) {
+                open();
+            } else {
+                state = State.CLOSED;
+                reset();
+            }
+            return;
+        }
+        record(slow ? SLOW : OK);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            open();
+            return;
+        }
+        record(FAILED);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // Seconds until a trial call will be let through, at least 1 while not closed
+    public synchronized long retryAfterSeconds() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        long remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAt) : 0;
+        return Math.max(1, (remaining + 999_999_999) / 1_000_000_000);
+    }
+
+    private void record(byte outcome) {
+        if (state == State.OPEN) {
+            // A call let through before the breaker opened
+            return;
+        }
+        if (calls == window.length) {
+            byte evicted = window[position];
+            if (evicted == FAILED) {
+                failures--;
+            } else if (evicted == SLOW) {
+                slowCalls--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        if (outcome == FAILED) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+        if (calls >= minCalls && (failures * 100 >= failureRatePercent * calls
+                || slowCalls * 100 >= slowRatePercent * calls)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        reset();
+    }
+
+    private void reset() {
+        position = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,359 @@
+package com.management.demo.resilience;
+
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.ShardResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Keeps catalogue and member reads answering while the database is failing or crawling.
+// Reads go through their branch's CircuitBreaker, which opens on too many connection/timeout
+// errors or too many slow calls; each branch has its own database, so one failing branch
+// does not short-circuit the others. Cross-branch reads (readEveryBranch, readFirst) put each
+// branch's query through that branch's breaker. Each successful read's result is kept as the last known
+// good answer for its key (bounded LRU). When the breaker is open, or a read fails on an
+// outage, that answer is returned instead, and the response is marked with X-Data-Stale: true
+// and an Age header. Stale answers are refreshed in the background; the first refresh after
+// the open period is the breaker's trial call, so user requests are not the ones that find
+// out whether the database is back. WriteGateFilter turns writes to a branch away while that
+// branch's breaker is not closed. Other errors (e.g. a bad query) pass through and count as
+// the database answering.
+@Component
+public class DatabaseGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseGuard.class);
+
+    public static final String STALE_HEADER = "X-Data-Stale";
+    private static final String STALE_ATTRIBUTE = DatabaseGuard.class.getName() + ".stale";
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${libraryhub.resilience.window-size:50}")
+    private int windowSize;
+
+    @Value("${libraryhub.resilience.min-calls:10}")
+    private int minCalls;
+
+    @Value("${libraryhub.resilience.failure-rate-percent:50}")
+    private int failureRatePercent;
+
+    @Value("${libraryhub.resilience.slow-call-ms:2000}")
+    private long slowCallMs;
+
+    @Value("${libraryhub.resilience.slow-call-rate-percent:80}")
+    private int slowCallRatePercent;
+
+    @Value("${libraryhub.resilience.open-ms:10000}")
+    private long openMs;
+
+    @Value("${libraryhub.resilience.last-known-good.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${libraryhub.resilience.revalidate-batch:100}")
+    private int revalidateBatch;
+
+    private final Map<String, Entry> lastKnownGood = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Per branch; filled at startup, read-only after
+    private final Map<String, CircuitBreaker> breakers = new HashMap<>();
+    private Counter staleReads;
+    private Counter rejectedReads;
+    private Counter revalidated;
+
+    @PostConstruct
+    void start() {
+        for (String branch : shardResolver.getBranches()) {
+            breakers.put(branch, new CircuitBreaker(windowSize, minCalls, failureRatePercent, slowCallRatePercent,
+                    TimeUnit.MILLISECONDS.toNanos(slowCallMs), TimeUnit.MILLISECONDS.toNanos(openMs)));
+            Gauge.builder("libraryhub.resilience.circuit.open", this, guard -> guard.acceptsWrites(branch) ? 0 : 1)
+                    .description("1 while database calls are short-circuited")
+                    .tag("branch", branch)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("libraryhub.resilience.last-known-good.size", this, DatabaseGuard::size)
+                .register(meterRegistry);
+        staleReads = meterRegistry.counter("libraryhub.resilience.reads", "result", "stale");
+        rejectedReads = meterRegistry.counter("libraryhub.resilience.reads", "result", "rejected");
+        revalidated = meterRegistry.counter("libraryhub.resilience.reads", "result", "revalidated");
+    }
+
+    // Read through the breaker. key identifies the answer within the current branch.
+    public <T> T read(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        StaleSince staleSince = new StaleSince();
+        T value = read(shardResolver.currentBranch(), key, loader, staleSince);
+        staleSince.mark();
+        return value;
+    }
+
+    // The same read on every branch in parallel, each through its own branch's breaker, so a
+    // failing branch is answered from its own last known good and does not count against the
+    // caller's branch. Results are concatenated in branch order.
+    public <T> List<T> readEveryBranch(String key, Supplier<List<T>> loader) {
+        if (!enabled) {
+            return shardResolver.fanOut(branch -> loader.get());
+        }
+        StaleSince staleSince = new StaleSince();
+        List<T> merged = acrossBranches(() -> shardResolver.fanOut(branch -> read(branch, key, loader, staleSince)));
+        staleSince.mark();
+        return merged;
+    }
+
+    // First hit on any branch (ShardResolver.findFirst), each branch through its own breaker
+    public <T> Optional<T> readFirst(String key, Supplier<Optional<T>> lookup) {
+        if (!enabled) {
+            return shardResolver.findFirst(branch -> lookup.get());
+        }
+        StaleSince staleSince = new StaleSince();
+        Optional<T> found = acrossBranches(() -> shardResolver.findFirst(branch -> read(branch, key, lookup, staleSince)));
+        staleSince.mark();
+        return found;
+    }
+
+    // A branch that misses the fan-out deadline has its query interrupted, and its own read
+    // counts that (or the slow call) against its breaker; with no complete answer, it is a 503
+    private <T> T acrossBranches(Supplier<T> fanOut) {
+        try {
+            return fanOut.get();
+        } catch (QueryTimeoutException e) {
+            rejectedReads.increment();
+            log.warn("Cross-branch read timed out: {}", e.getMessage());
+            throw new DatabaseUnavailableException(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(openMs)));
+        }
+    }
+
+    // Runs on the branch's thread, which for a fan-out is not the request thread: stale answers
+    // are noted in staleSince and marked on the response by the caller
+    private <T> T read(String branch, String key, Supplier<T> loader, StaleSince staleSince) {
+        String branchKey = branch + "/" + key;
+        CircuitBreaker breaker = breakers.get(branch);
+        if (!breaker.tryAcquire()) {
+            return fallback(branchKey, breaker, null, staleSince);
+        }
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException e) {
+            if (!isOutage(e)) {
+                breaker.onSuccess(System.nanoTime() - start);
+                throw e;
+            }
+            breaker.onFailure();
+            return fallback(branchKey, breaker, e, staleSince);
+        }
+        breaker.onSuccess(System.nanoTime() - start);
+        Entry entry = new Entry(value, branch, () -> BranchContext.callIn(branch, loader));
+        synchronized (lastKnownGood) {
+            lastKnownGood.put(branchKey, entry);
+        }
+        return value;
+    }
+
+    // False while the current branch's breaker is open or waiting on its trial call
+    public boolean acceptsWrites() {
+        return acceptsWrites(shardResolver.currentBranch());
+    }
+
+    public boolean acceptsWrites(String branch) {
+        return !enabled || breakers.get(branch).getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    public long retryAfterSeconds(String branch) {
+        return breakers.get(branch).retryAfterSeconds();
+    }
+
+    public CircuitBreaker.State getState() {
+        return getState(shardResolver.currentBranch());
+    }
+
+    public CircuitBreaker.State getState(String branch) {
+        return breakers.get(branch).getState();
+    }
+
+    // Whether this request was answered from the last-known-good store
+    public static boolean isServingStale() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(STALE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fallback(String key, CircuitBreaker breaker, RuntimeException failure, StaleSince staleSince) {
+        Entry entry;
+        synchronized (lastKnownGood) {
+            entry = lastKnownGood.get(key);
+        }
+        if (entry == null) {
+            if (failure != null) {
+                throw failure;
+            }
+            rejectedReads.increment();
+            throw new DatabaseUnavailableException(breaker.retryAfterSeconds());
+        }
+        entry.stale = true;
+        staleReads.increment();
+        staleSince.add(entry.loadedAtMillis);
+        return (T) entry.value;
+    }
+
+    // Re-read answers that were served stale. A branch is left for the next run at its first
+    // outage (or when its breaker turns calls away); the other branches carry on.
+    @Scheduled(fixedDelayString = "${libraryhub.resilience.revalidate-ms:1000}")
+    public void revalidate() {
+        if (!enabled) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> stale = new ArrayList<>();
+        synchronized (lastKnownGood) {
+            for (Map.Entry<String, Entry> entry : lastKnownGood.entrySet()) {
+                if (entry.getValue().stale) {
+                    stale.add(Map.entry(entry.getKey(), entry.getValue()));
+                    if (stale.size() == revalidateBatch) {
+                        break;
+                    }
+                }
+            }
+        }
+        Set<String> skipped = new HashSet<>();
+        for (Map.Entry<String, Entry> entry : stale) {
+            String branch = entry.getValue().branch;
+            CircuitBreaker breaker = breakers.get(branch);
+            if (skipped.contains(branch) || !breaker.tryAcquire()) {
+                skipped.add(branch);
+                continue;
+            }
+            Supplier<?> loader = entry.getValue().loader;
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = loader.get();
+            } catch (RuntimeException e) {
+                if (isOutage(e)) {
+                    breaker.onFailure();
+                    skipped.add(branch);
+                    continue;
+                }
+                breaker.onSuccess(System.nanoTime() - start);
+                log.debug("Could not revalidate {}; keeping the stale answer", entry.getKey(), e);
+                continue;
+            }
+            breaker.onSuccess(System.nanoTime() - start);
+            synchronized (lastKnownGood) {
+                // Unless a request stored a newer answer meanwhile
+                if (lastKnownGood.get(entry.getKey()) == entry.getValue()) {
+                    lastKnownGood.put(entry.getKey(), new Entry(value, branch, loader));
+                }
+            }
+            revalidated.increment();
+        }
+    }
+
+    private int size() {
+        synchronized (lastKnownGood) {
+            return lastKnownGood.size();
+        }
+    }
+
+    // Connection failures, timeouts and the like, anywhere in the cause chain (fan-out wraps them)
+    static boolean isOutage(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // Load time of the oldest stale answer a read used, if any; shared by a fan-out's branches
+    private static final class StaleSince {
+
+        private long loadedAtMillis = Long.MAX_VALUE;
+
+        private synchronized void add(long loadedAtMillis) {
+            this.loadedAtMillis = Math.min(this.loadedAtMillis, loadedAtMillis);
+        }
+
+        // On the request thread: X-Data-Stale and the age of the oldest answer
+        private synchronized void mark() {
+            if (loadedAtMillis == Long.MAX_VALUE
+                    || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+                return;
+            }
+            attributes.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(STALE_HEADER, "true");
+                response.setHeader(HttpHeaders.AGE,
+                        String.valueOf(Math.max(0, (System.currentTimeMillis() - loadedAtMillis) / 1000)));
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final String branch;
+        private final Supplier<?> loader;
+        private final long loadedAtMillis;
+        private volatile boolean stale;
+
+        private Entry(Object value, String branch, Supplier<?> loader) {
+            this.value = value;
+            this.branch = branch;
+            this.loader = loader;
+            this.loadedAtMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.management.demo.resilience;
+
+// The database is considered down (circuit open) and there is no last-known-good answer to
+// fall back on. Answered with 503 and a Retry-After of retryAfterSeconds.
+public class DatabaseUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public DatabaseUnavailableException(long retryAfterSeconds) {
+        super("The database is unavailable; retry in " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
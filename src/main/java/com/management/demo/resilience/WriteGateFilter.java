@@ -0,0 +1,52 @@
+package com.management.demo.resilience;
+
+import com.management.demo.sharding.BranchFilter;
+import com.management.demo.sharding.ShardResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// While DatabaseGuard's breaker for the request's branch (X-Library-Branch, else the default
+// branch) is not closed, API writes are answered 503 with Retry-After at once, instead of each
+// one waiting for a pool connection that is not coming. Writes to other branches go through.
+// Reads the header itself rather than relying on BranchFilter having run first.
+@Component
+public class WriteGateFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String branch = request.getHeader(BranchFilter.BRANCH_HEADER);
+        if (branch == null || branch.isBlank()) {
+            branch = shardResolver.getDefaultBranch();
+        }
+        // Unknown branches are BranchFilter's to reject
+        if (!shardResolver.isKnownBranch(branch) || databaseGuard.acceptsWrites(branch)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(databaseGuard.retryAfterSeconds(branch)));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The database is unavailable; changes cannot be saved right now");
+    }
+}
@@ -1,10 +1,26 @@
 package com.management.demo.service;
 
+import com.management.demo.catalog.CatalogCache;
+import com.management.demo.catalog.FacetIndex;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.NotFoundException;
+import com.management.demo.exception.PreconditionRequiredException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
 import com.management.demo.model.Book;
+import com.management.demo.model.CatalogBrowseResult;
 import com.management.demo.repository.BookRepository;
+import com.management.demo.resilience.DatabaseGuard;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,26 +30,70 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
-    // Get all books
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    // Identical concurrent lookups share one query. The shared Book is only
+    // handed to read-only callers; anything that mutates goes to the repository.
+    // Keys are "branch/key": IDs and ISBNs are only unique within a branch.
+    private final SingleFlight<String, Optional<Book>> bookByIdLookups = new SingleFlight<>("book.id");
+    private final SingleFlight<String, Optional<Book>> bookByIsbnLookups = new SingleFlight<>("book.isbn");
+
+    @PostConstruct
+    void registerMetrics() {
+        bookByIdLookups.bindTo(meterRegistry);
+        bookByIsbnLookups.bindTo(meterRegistry);
+    }
+
+    // Get all books; the default branch's list comes from the catalog cache once it is loaded
     public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+        if (catalogCache.isReady() && shardResolver.isDefaultBranch()) {
+            return catalogCache.getAllBooks();
+        }
+        return databaseGuard.read("books", bookRepository::findAll);
     }
 
-    // Get book by ID
+    // Faceted browse. Other branches (or the default one before the cache is loaded) are
+    // indexed on the fly, which costs a full read of their books per request.
+    public CatalogBrowseResult browse(FacetIndex.Query query) {
+        if (catalogCache.isReady() && shardResolver.isDefaultBranch()) {
+            return catalogCache.browse(query);
+        }
+        return FacetIndex.of(databaseGuard.read("books", bookRepository::findAll)).browse(query);
+    }
+
+    // Get book by ID (the last known copy while the database is down)
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        return databaseGuard.read("book/" + id, () ->
+                bookByIdLookups.execute(shardResolver.currentBranch() + "/" + id, () -> bookRepository.findById(id)));
     }
 
     // Get book by ISBN
     public Optional<Book> getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn);
+        return databaseGuard.read("book-isbn/" + isbn, () ->
+                bookByIsbnLookups.execute(shardResolver.currentBranch() + "/" + isbn, () -> bookRepository.findByIsbn(isbn)));
     }
 
     // Add new book
     public Book addBook(Book book) {
         // Check if ISBN already exists
         if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
-            throw new RuntimeException("Book with ISBN " + book.getIsbn() + " already exists");
+            throw new ConflictException("duplicate-isbn", "Book with ISBN " + book.getIsbn() + " already exists");
         }
 
         // Set default values if not provided
@@ -44,17 +104,30 @@ public class BookService {
             book.setAvailableCopies(book.getTotalCopies());
         }
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        catalogCache.put(saved);
+        invalidationBus.publish(EntityChange.Kind.BOOK, saved.getId());
+        journal.append(JournalOp.BOOK_CREATED, saved.getId(), saved.getId(), 0,
+                Journal.fields("isbn", saved.getIsbn(), "title", saved.getTitle(), "copies", saved.getTotalCopies()));
+        return saved;
     }
 
-    // Update book
-    public Book updateBook(Long id, Book bookDetails) {
+    // Update book. expectedVersion (from If-Match, else the body's version) is the version
+    // the caller edited. One is required: the body carries availableCopies, so an edit of an
+    // unknown version could quietly undo the checkouts and returns made since it was read.
+    public Book updateBook(Long id, Book bookDetails, Long expectedVersion) {
         Optional<Book> existingBook = bookRepository.findById(id);
         if (existingBook.isEmpty()) {
-            throw new RuntimeException("Book not found with id: " + id);
+            throw new NotFoundException("Book", id);
         }
 
         Book book = existingBook.get();
+        Long editedVersion = expectedVersion != null ? expectedVersion : bookDetails.getVersion();
+        if (editedVersion == null) {
+            throw new PreconditionRequiredException("version-required",
+                    "Send the version being edited, as If-Match or the version field");
+        }
+        book.setVersion(editedVersion);
         book.setIsbn(bookDetails.getIsbn());
         book.setTitle(bookDetails.getTitle());
         book.setAuthor(bookDetails.getAuthor());
@@ -63,28 +136,42 @@ public class BookService {
         book.setTotalCopies(bookDetails.getTotalCopies());
         book.setAvailableCopies(bookDetails.getAvailableCopies());
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        catalogCache.put(saved);
+        invalidationBus.publish(EntityChange.Kind.BOOK, id);
+        journal.append(JournalOp.BOOK_UPDATED, id, id, 0,
+                Journal.fields("isbn", saved.getIsbn(), "title", saved.getTitle(),
+                        "copies", saved.getTotalCopies(), "available", saved.getAvailableCopies(), "version", saved.getVersion()));
+        return saved;
     }
 
     // Delete book
     public void deleteBook(Long id) {
         if (bookRepository.findById(id).isEmpty()) {
-            throw new RuntimeException("Book not found with id: " + id);
+            throw new NotFoundException("Book", id);
         }
         bookRepository.deleteById(id);
+        catalogCache.remove(id);
+        invalidationBus.publish(EntityChange.Kind.BOOK, id);
+        journal.append(JournalOp.BOOK_DELETED, id, id, 0, "");
     }
 
-    // Search books
+    // Search books across every branch (in parallel), merged by title
     public List<Book> searchBooks(String searchTerm) {
+        List<Book> books;
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return getAllBooks();
+            books = databaseGuard.readEveryBranch("books", bookRepository::findAll);
+        } else {
+            String term = searchTerm.trim();
+            books = databaseGuard.readEveryBranch("book-search/" + term, () -> bookRepository.searchBooks(term));
         }
-        return bookRepository.searchBooks(searchTerm.trim());
+        books.sort(Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER));
+        return books;
     }
 
     // Check if book is available for borrowing
     public boolean isBookAvailable(Long bookId) {
-        Optional<Book> book = bookRepository.findById(bookId);
+        Optional<Book> book = getBookById(bookId);
         return book.isPresent() && book.get().getAvailableCopies() > 0;
     }
 }
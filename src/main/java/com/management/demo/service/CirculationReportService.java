@@ -0,0 +1,114 @@
+package com.management.demo.service;
+
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.event.BookReturnedEvent;
+import com.management.demo.exception.InvalidInputException;
+import com.management.demo.model.CirculationRollup;
+import com.management.demo.repository.CirculationRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Issues, returns, overdue returns and fines per period, category and member cohort.
+// Reports read the pre-aggregated circulation_rollups rows: a multi-year monthly report
+// is one row per month, category and cohort however many loans lie behind it.
+// Every issue and return updates its rows in the same database transaction, so the
+// rollups never disagree with transactions.
+@Service
+public class CirculationReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationReportService.class);
+
+    // A quarter of daily rows; longer ranges are for the MONTH grain
+    static final int MAX_DAY_RANGE_DAYS = 92;
+
+    @Autowired
+    private CirculationRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "circulation-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+    private volatile YearMonth lastBackfilledMonth;
+
+    // BEFORE_COMMIT: the rollup rows are written last, so their locks are held only for the commit
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookIssued(BookIssuedEvent event) {
+        rollupRepository.addActivity(event.issueDate(), event.bookId(), event.memberId(), 1, 0, 0, BigDecimal.ZERO);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookReturned(BookReturnedEvent event) {
+        rollupRepository.addActivity(event.returnDate(), event.bookId(), event.memberId(),
+                0, 1, event.overdue() ? 1 : 0, event.fineAmount());
+    }
+
+    // grain DAY returns one row per day, MONTH one per month (from is rounded down to its month)
+    public List<CirculationRollup> getCirculation(String grain, LocalDate from, LocalDate to, String category) {
+        if ("DAY".equals(grain) && ChronoUnit.DAYS.between(from, to) >= MAX_DAY_RANGE_DAYS) {
+            throw new InvalidInputException("grain=day covers at most " + MAX_DAY_RANGE_DAYS
+                    + " days; use grain=month for longer ranges");
+        }
+        LocalDate start = "MONTH".equals(grain) ? from.withDayOfMonth(1) : from;
+        return rollupRepository.findRollups(grain, start, to, category);
+    }
+
+    // Rebuild every month from the first loan up to the current one, one month per
+    // transaction so no lock is held for long. Returns false if a backfill is already running.
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        backfillExecutor.execute(() -> {
+            try {
+                YearMonth current = YearMonth.now();
+                YearMonth month = rollupRepository.findFirstActivityMonth().orElse(current);
+                long start = System.nanoTime();
+                for (; !month.isAfter(current); month = month.plusMonths(1)) {
+                    YearMonth target = month;
+                    Integer rows = transactionTemplate.execute(status -> rollupRepository.rebuildMonth(target));
+                    lastBackfilledMonth = target;
+                    log.debug("Rebuilt circulation rollups for {} ({} rows)", target, rows);
+                }
+                log.info("Circulation rollup backfill finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Circulation rollup backfill stopped after {}", lastBackfilledMonth, e);
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isBackfillRunning() {
+        return backfillRunning.get();
+    }
+
+    public YearMonth getLastBackfilledMonth() {
+        return lastBackfilledMonth;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+}
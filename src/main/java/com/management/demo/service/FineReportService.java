@@ -0,0 +1,78 @@
+package com.management.demo.service;
+
+import com.management.demo.fine.FineBatch;
+import com.management.demo.fine.FinePolicy;
+import com.management.demo.model.FineReport;
+import com.management.demo.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Outstanding fines across all overdue loans of the current branch.
+// Rows are streamed into a reused FineBatch and priced a batch at a time; totals are kept
+// in one long[] per (category, tier), created the first time that pair is seen.
+@Service
+public class FineReportService {
+
+    private static final int BATCH_SIZE = 4096;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FinePolicy finePolicy;
+
+    @Transactional(readOnly = true)
+    public FineReport getOutstandingFines(LocalDate asOf) {
+        // category -> tier -> {loans, fines in paise}
+        Map<String, Map<String, long[]>> totals = new HashMap<>();
+        FineBatch batch = new FineBatch(BATCH_SIZE);
+        long[][] targets = new long[BATCH_SIZE][];
+
+        transactionRepository.forEachOverdueGroup(asOf, rs -> {
+            String category = rs.getString("category");
+            String tier = rs.getString("tier");
+            targets[batch.size()] = totals.computeIfAbsent(category, key -> new HashMap<>())
+                    .computeIfAbsent(tier, key -> new long[2]);
+            batch.add(finePolicy.categoryIndex(category), finePolicy.tierIndex(tier),
+                    rs.getLong("days_late"), rs.getLong("loans"));
+            if (batch.isFull()) {
+                flush(batch, targets);
+            }
+        });
+        flush(batch, targets);
+
+        FineReport report = new FineReport();
+        report.setAsOf(asOf);
+        long totalLoans = 0;
+        long totalFines = 0;
+        for (Map.Entry<String, Map<String, long[]>> category : totals.entrySet()) {
+            for (Map.Entry<String, long[]> tier : category.getValue().entrySet()) {
+                long[] line = tier.getValue();
+                report.getLines().add(new FineReport.Line(category.getKey(), tier.getKey(), line[0],
+                        FinePolicy.toAmount(line[1])));
+                totalLoans += line[0];
+                totalFines += line[1];
+            }
+        }
+        report.getLines().sort(Comparator.comparing(FineReport.Line::getCategory)
+                .thenComparing(FineReport.Line::getTier));
+        report.setOverdueLoans(totalLoans);
+        report.setTotalFines(FinePolicy.toAmount(totalFines));
+        return report;
+    }
+
+    private void flush(FineBatch batch, long[][] targets) {
+        finePolicy.evaluate(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            targets[i][0] += batch.loans(i);
+            targets[i][1] += batch.fineMinor(i);
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,217 @@
+package com.management.demo.service;
+
+import com.management.demo.event.HoldReadyEvent;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.NotFoundException;
+import com.management.demo.exception.RuleViolationException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.model.Book;
+import com.management.demo.model.Hold;
+import com.management.demo.model.Member;
+import com.management.demo.notification.Notification;
+import com.management.demo.notification.Notifier;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.HoldRepository;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.ShardResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Per-title reservation queue.
+// A returned copy goes straight to the next waiting active member instead of back
+// on the shelf, and that member is notified once the return has committed.
+@Service
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Notifier notifier;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Value("${libraryhub.holds.pickup-days:3}")
+    private int pickupDays;
+
+    @Value("${libraryhub.holds.expiry-batch-size:500}")
+    private int expiryBatchSize;
+
+    // Place a hold on a book that has no copies available
+    @Transactional
+    public Hold placeHold(Long bookId, Long memberId) {
+        // Locked until the hold commits: a copy returned meanwhile waits and then goes to this
+        // hold, instead of going back on the shelf while the hold is queued behind it
+        Book book = bookRepository.findByIdForUpdate(bookId)
+                .orElseThrow(() -> new NotFoundException("Book", bookId));
+
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new NotFoundException("Member", memberId));
+
+        if (!member.getIsActive()) {
+            throw new RuleViolationException("member-inactive", "Member account is inactive: " + member.getFirstName() + " " + member.getLastName());
+        }
+
+        if (book.getAvailableCopies() > 0) {
+            throw new ConflictException("copies-available", "Copies of " + book.getTitle() + " are available; issue the book instead");
+        }
+
+        if (holdRepository.findOpenHold(bookId, memberId).isPresent()) {
+            throw new ConflictException("duplicate-hold", "Member already has a hold on book: " + book.getTitle());
+        }
+
+        Hold hold = new Hold();
+        hold.setBookId(bookId);
+        hold.setMemberId(memberId);
+        hold.setStatus("WAITING");
+        Hold savedHold = holdRepository.insert(hold);
+        savedHold.setQueuePosition(holdRepository.countAhead(savedHold) + 1);
+        return savedHold;
+    }
+
+    // Cancel a hold; a copy already set aside moves on to the next member
+    @Transactional
+    public Hold cancelHold(Long holdId) {
+        Hold hold = holdRepository.findById(holdId)
+                .orElseThrow(() -> new NotFoundException("Hold", holdId));
+
+        if (!"WAITING".equals(hold.getStatus()) && !"READY".equals(hold.getStatus())) {
+            throw new ConflictException("hold-closed", "Hold is already " + hold.getStatus().toLowerCase());
+        }
+
+        holdRepository.updateStatus(holdId, "CANCELLED");
+        if ("READY".equals(hold.getStatus())) {
+            releaseCopy(hold.getBookId());
+        }
+        hold.setStatus("CANCELLED");
+        return hold;
+    }
+
+    // Get hold by ID, with its queue position while waiting
+    public Optional<Hold> getHoldById(Long id) {
+        Optional<Hold> hold = holdRepository.findById(id);
+        hold.filter(h -> "WAITING".equals(h.getStatus()))
+                .ifPresent(h -> h.setQueuePosition(holdRepository.countAhead(h) + 1));
+        return hold;
+    }
+
+    // Get holds by member
+    public List<Hold> getHoldsByMember(Long memberId) {
+        return holdRepository.findByMemberId(memberId);
+    }
+
+    // Get the open queue for a book
+    public List<Hold> getQueueForBook(Long bookId) {
+        List<Hold> queue = holdRepository.findOpenByBookId(bookId);
+        int position = 1;
+        for (Hold hold : queue) {
+            if ("WAITING".equals(hold.getStatus())) {
+                hold.setQueuePosition(position++);
+            }
+        }
+        return queue;
+    }
+
+    // Called by TransactionService inside the return transaction.
+    // Returns true when the copy was set aside for a waiting member (so it must not
+    // go back on the shelf). The book stays locked until the caller commits, so a hold
+    // being placed is either seen here or sees the copy on the shelf.
+    public boolean allocateReturnedCopy(Long bookId) {
+        bookRepository.findByIdForUpdate(bookId);
+        Optional<HoldReadyEvent> allocated = holdRepository.allocateToNextWaiting(bookId,
+                LocalDateTime.now().plusDays(pickupDays));
+        allocated.ifPresent(eventPublisher::publishEvent);
+        return allocated.isPresent();
+    }
+
+    // Called by TransactionService inside the issue transaction.
+    // Returns true when the member is collecting a copy that was set aside for them.
+    public boolean fulfillReadyHold(Long bookId, Long memberId) {
+        Optional<Hold> readyHold = holdRepository.lockReadyHold(bookId, memberId);
+        readyHold.ifPresent(hold -> holdRepository.updateStatus(hold.getId(), "FULFILLED"));
+        return readyHold.isPresent();
+    }
+
+    // Expire holds whose pickup window passed, on every branch
+    @Scheduled(fixedDelayString = "${libraryhub.holds.expiry-sweep-ms:60000}")
+    public void expireUncollectedHolds() {
+        for (String branch : shardResolver.getBranches()) {
+            BranchContext.runIn(branch, this::expireUncollectedHoldsOnCurrentBranch);
+        }
+    }
+
+    // One short transaction per batch
+    private void expireUncollectedHoldsOnCurrentBranch() {
+        int expired;
+        int total = 0;
+        do {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<Long> bookIds = holdRepository.expireReadyHolds(LocalDateTime.now(), expiryBatchSize);
+                bookIds.forEach(this::releaseCopy);
+                return bookIds.size();
+            });
+            expired = batch != null ? batch : 0;
+            total += expired;
+        } while (expired == expiryBatchSize);
+
+        if (total > 0) {
+            log.info("Expired {} uncollected holds on branch {}", total, shardResolver.currentBranch());
+        }
+    }
+
+    // A set-aside copy is free again: next in the queue, otherwise back on the shelf
+    private void releaseCopy(Long bookId) {
+        if (allocateReturnedCopy(bookId)) {
+            return;
+        }
+        bookRepository.incrementAvailableCopies(bookId);
+        invalidationBus.publish(EntityChange.Kind.BOOK, bookId);
+    }
+
+    // One notification per allocation, sent only once the allocation is committed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onHoldReady(HoldReadyEvent event) {
+        notifier.send(new Notification(
+                "HOLD_READY",
+                event.memberId(),
+                event.memberName(),
+                event.memberEmail(),
+                "Your hold is ready: " + event.bookTitle(),
+                "A copy of \"" + event.bookTitle() + "\" is waiting for you. Please collect it by "
+                        + event.expiresAt().toLocalDate() + "."
+        ));
+    }
+}
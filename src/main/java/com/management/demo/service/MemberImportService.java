@@ -0,0 +1,332 @@
+package com.management.demo.service;
+
+import com.management.demo.exception.InvalidInputException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
+import com.management.demo.model.Member;
+import com.management.demo.model.MemberImportReport;
+import com.management.demo.model.MemberImportReport.RowResult;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.BloomFilter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk onboarding from CSV.
+// The file is read in chunks; each chunk costs at most three round trips
+// (confirm member IDs, confirm emails, batch insert) instead of three per member.
+// Bloom filters over the existing member_id/email values decide which keys are
+// worth confirming at all, so a clean import never queries for duplicates.
+// Member IDs and emails are unique across the library, so the filters cover every
+// branch and probable hits are confirmed on every branch; members land on the current one.
+@Service
+public class MemberImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Room for the rows this import adds to the filters as it goes
+    private static final long IMPORT_HEADROOM = 100_000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    // Expected header: memberId,firstName,lastName,email[,phone][,address][,membershipDate]
+    public MemberImportReport importMembers(InputStream csv) throws IOException {
+        long start = System.nanoTime();
+        MemberImportReport report = new MemberImportReport();
+
+        int branches = shardResolver.getBranches().size();
+        long expected = shardResolver.fanOut(branch -> List.of(memberRepository.count())).stream()
+                .mapToLong(Long::longValue).sum() + IMPORT_HEADROOM;
+        BloomFilter memberIdFilter = BloomFilter.create(expected, FALSE_POSITIVE_RATE);
+        BloomFilter emailFilter = BloomFilter.create(expected, FALSE_POSITIVE_RATE);
+        // Branches stream their keys in parallel; the filters are not thread-safe
+        shardResolver.fanOut(branch -> {
+            transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.forEachMemberKey((memberId, email) -> {
+                        synchronized (memberIdFilter) {
+                            memberIdFilter.put(memberId);
+                            emailFilter.put(email);
+                        }
+                    }));
+            return List.of();
+        });
+        report.setDatabaseRoundTrips(2L * branches);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new InvalidInputException("CSV file is empty");
+            }
+            Map<String, Integer> columns = parseHeader(headerLine);
+
+            List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parseRow(lineNumber, line, columns));
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(chunk, memberIdFilter, emailFilter, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, memberIdFilter, emailFilter, report);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        report.setElapsedMillis(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getTotalRows() * 1_000_000_000.0 / elapsedNanos);
+        return report;
+    }
+
+    private void processChunk(List<PendingRow> chunk, BloomFilter memberIdFilter, BloomFilter emailFilter,
+                              MemberImportReport report) {
+        // Duplicates inside the chunk itself, then Bloom filter candidates
+        Set<String> chunkMemberIds = new HashSet<>();
+        Set<String> chunkEmails = new HashSet<>();
+        Set<String> probableMemberIds = new HashSet<>();
+        Set<String> probableEmails = new HashSet<>();
+
+        for (PendingRow row : chunk) {
+            if (row.result.getStatus() != null) {
+                continue;
+            }
+            Member member = row.member;
+            if (!chunkMemberIds.add(member.getMemberId())) {
+                row.reject("DUPLICATE", "Member ID " + member.getMemberId() + " appears earlier in the file");
+                continue;
+            }
+            if (!chunkEmails.add(member.getEmail())) {
+                row.reject("DUPLICATE", "Email " + member.getEmail() + " appears earlier in the file");
+                continue;
+            }
+            if (memberIdFilter.mightContain(member.getMemberId())) {
+                probableMemberIds.add(member.getMemberId());
+            }
+            if (emailFilter.mightContain(member.getEmail())) {
+                probableEmails.add(member.getEmail());
+            }
+        }
+
+        // Only the probable hits are confirmed, on every branch
+        Set<String> existingMemberIds = probableMemberIds.isEmpty() ? Set.of() : new HashSet<>(shardResolver.fanOut(
+                branch -> List.copyOf(memberRepository.findExistingMemberIds(probableMemberIds))));
+        Set<String> existingEmails = probableEmails.isEmpty() ? Set.of() : new HashSet<>(shardResolver.fanOut(
+                branch -> List.copyOf(memberRepository.findExistingEmails(probableEmails))));
+        int branches = shardResolver.getBranches().size();
+        report.setDatabaseRoundTrips(report.getDatabaseRoundTrips()
+                + (probableMemberIds.isEmpty() ? 0 : branches) + (probableEmails.isEmpty() ? 0 : branches));
+        report.setProbableDuplicates(report.getProbableDuplicates() + probableMemberIds.size() + probableEmails.size());
+        report.setFalsePositives(report.getFalsePositives()
+                + (probableMemberIds.size() - existingMemberIds.size())
+                + (probableEmails.size() - existingEmails.size()));
+
+        List<PendingRow> toInsert = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk) {
+            if (row.result.getStatus() != null) {
+                continue;
+            }
+            if (existingMemberIds.contains(row.member.getMemberId())) {
+                row.reject("DUPLICATE", "Member with ID " + row.member.getMemberId() + " already exists");
+            } else if (existingEmails.contains(row.member.getEmail())) {
+                row.reject("DUPLICATE", "Member with email " + row.member.getEmail() + " already exists");
+            } else {
+                toInsert.add(row);
+            }
+        }
+
+        if (!toInsert.isEmpty()) {
+            int[] counts = memberRepository.batchInsert(toInsert.stream().map(row -> row.member).toList());
+            report.setDatabaseRoundTrips(report.getDatabaseRoundTrips() + 1);
+            List<PendingRow> inserted = new ArrayList<>(toInsert.size());
+            for (int i = 0; i < toInsert.size(); i++) {
+                PendingRow row = toInsert.get(i);
+                if (counts[i] == 0) {
+                    // Lost a race with a concurrent insert of the same key
+                    row.reject("DUPLICATE", "Member ID or email was registered concurrently");
+                } else {
+                    // 1, or Statement.SUCCESS_NO_INFO when the driver rewrote the batch
+                    row.result.setStatus("IMPORTED");
+                    inserted.add(row);
+                }
+                memberIdFilter.put(row.member.getMemberId());
+                emailFilter.put(row.member.getEmail());
+            }
+            announceCreated(inserted, report);
+        }
+
+        for (PendingRow row : chunk) {
+            report.getRows().add(row.result);
+            report.setTotalRows(report.getTotalRows() + 1);
+            switch (row.result.getStatus()) {
+                case "IMPORTED" -> report.setImported(report.getImported() + 1);
+                case "DUPLICATE" -> report.setDuplicates(report.getDuplicates() + 1);
+                default -> report.setInvalid(report.getInvalid() + 1);
+            }
+        }
+    }
+
+    // The batch insert returns no IDs, so the new rows are read back (one round trip), then
+    // published to other instances' caches and journalled like members created one at a time
+    private void announceCreated(List<PendingRow> inserted, MemberImportReport report) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        Map<String, Member> stored = new HashMap<>();
+        for (Member member : memberRepository.findByMemberIds(inserted.stream().map(row -> row.member.getMemberId()).toList())) {
+            stored.put(member.getMemberId(), member);
+        }
+        report.setDatabaseRoundTrips(report.getDatabaseRoundTrips() + 1);
+        for (PendingRow row : inserted) {
+            Member member = stored.get(row.member.getMemberId());
+            // Not ours if the email differs: a rewritten batch hid a conflict
+            if (member != null && member.getEmail().equals(row.member.getEmail())) {
+                invalidationBus.publish(EntityChange.Kind.MEMBER, member.getId());
+                journal.append(JournalOp.MEMBER_CREATED, member.getId(), 0, member.getId(),
+                        Journal.fields("memberId", member.getMemberId(), "email", member.getEmail(), "source", "import"));
+            }
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String headerLine) {
+        List<String> names = splitCsvLine(headerLine);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            // Accept both memberId and member_id style headers
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("memberid", "firstname", "lastname", "email")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidInputException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private PendingRow parseRow(int lineNumber, String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+
+        Member member = new Member();
+        member.setMemberId(column(values, columns, "memberid"));
+        member.setFirstName(column(values, columns, "firstname"));
+        member.setLastName(column(values, columns, "lastname"));
+        member.setEmail(column(values, columns, "email"));
+        member.setPhone(column(values, columns, "phone"));
+        member.setAddress(column(values, columns, "address"));
+        member.setIsActive(true);
+
+        PendingRow row = new PendingRow(member, new RowResult(lineNumber, member.getMemberId(), member.getEmail(), null, null));
+
+        String membershipDate = column(values, columns, "membershipdate");
+        try {
+            member.setMembershipDate(membershipDate != null ? LocalDate.parse(membershipDate) : LocalDate.now());
+        } catch (DateTimeParseException e) {
+            row.reject("INVALID", "membershipDate must be an ISO date (yyyy-MM-dd)");
+            return row;
+        }
+
+        Set<ConstraintViolation<Member>> violations = validator.validate(member);
+        if (!violations.isEmpty()) {
+            row.reject("INVALID", violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return row;
+    }
+
+    private String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Split one CSV record, honouring "quoted, fields" and doubled "" quotes
+    private List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static final class PendingRow {
+        private final Member member;
+        private final RowResult result;
+
+        private PendingRow(Member member, RowResult result) {
+            this.member = member;
+            this.result = result;
+        }
+
+        private void reject(String status, String message) {
+            result.setStatus(status);
+            result.setMessage(message);
+        }
+    }
+}
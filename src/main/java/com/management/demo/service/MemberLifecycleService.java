@@ -0,0 +1,245 @@
+package com.management.demo.service;
+
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.InvalidInputException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
+import com.management.demo.model.Member;
+import com.management.demo.model.MemberSweepStatus;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.ShardResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Term-end deactivation of lapsed members: active accounts that joined over min-membership-days
+// ago, have borrowed nothing for inactive-days and have no open loan or hold.
+// Instead of a findById and a full-row save per member, each branch's member IDs are walked in
+// ranges of chunk-size, and each range is one UPDATE that picks, locks and deactivates its
+// lapsed members (MemberRepository.deactivateLapsed). Every chunk commits on its own, so row
+// locks last one statement; rows locked by a concurrent edit are skipped and left for the next
+// sweep, which also makes sweeps overlapping from several instances harmless. Only one chunk's
+// deactivated rows are ever in memory; they are journalled and published to other caches.
+// Checkouts share-lock their member's row (TransactionService.issueBook), so a member in the
+// middle of one is skipped, and a checkout that waits on a member being swept finds them inactive.
+// Sweeps run in the background, nightly (cron) when enabled or from POST
+// /api/members/lifecycle-sweep, one at a time per instance.
+@Service
+public class MemberLifecycleService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLifecycleService.class);
+
+    // Who a sweep deactivates; tier null for every tier. A dry run only counts them.
+    public record Criteria(LocalDate joinedBefore, LocalDate noLoansSince, String tier, boolean dryRun) {
+    }
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.member-sweep.enabled:false}")
+    private boolean enabled;
+
+    @Value("${libraryhub.member-sweep.inactive-days:365}")
+    private int inactiveDays;
+
+    @Value("${libraryhub.member-sweep.min-membership-days:365}")
+    private int minMembershipDays;
+
+    // Only this tier (e.g. STUDENT at term end); empty for every tier
+    @Value("${libraryhub.member-sweep.tier:}")
+    private String tier;
+
+    @Value("${libraryhub.member-sweep.chunk-size:1000}")
+    private int chunkSize;
+
+    // Pause between chunks, leaving the database to foreground requests
+    @Value("${libraryhub.member-sweep.pause-ms:20}")
+    private long pauseMs;
+
+    private final AtomicReference<Sweep> latest = new AtomicReference<>();
+
+    @Scheduled(cron = "${libraryhub.member-sweep.cron:0 30 2 * * *}")
+    public void scheduledSweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            start(criteria(null, null, null, false));
+        } catch (ConflictException e) {
+            log.info("Previous member sweep still running; skipping this one");
+        }
+    }
+
+    // Criteria from the configured ones, with any of them overridden
+    public Criteria criteria(Integer inactiveDays, Integer minMembershipDays, String tier, boolean dryRun) {
+        int inactive = inactiveDays != null ? inactiveDays : this.inactiveDays;
+        int membership = minMembershipDays != null ? minMembershipDays : this.minMembershipDays;
+        if (inactive < 1 || membership < 0) {
+            throw new InvalidInputException("inactiveDays must be at least 1 and minMembershipDays must not be negative");
+        }
+        String sweptTier = tier != null ? tier : this.tier;
+        LocalDate today = LocalDate.now();
+        return new Criteria(today.minusDays(membership), today.minusDays(inactive),
+                sweptTier == null || sweptTier.isBlank() ? null : sweptTier.trim().toUpperCase(Locale.ROOT), dryRun);
+    }
+
+    // Start a sweep in the background; its progress is in getStatus()
+    public MemberSweepStatus start(Criteria criteria) {
+        Sweep sweep = new Sweep(criteria, shardResolver.getBranches().size());
+        Sweep previous = latest.get();
+        if ((previous != null && previous.running()) || !latest.compareAndSet(previous, sweep)) {
+            throw new ConflictException("sweep-running", "A member sweep is already running");
+        }
+        Thread.ofVirtual().name("member-sweep").start(() -> run(sweep));
+        return sweep.status();
+    }
+
+    // The running sweep, or else the last one since startup
+    public Optional<MemberSweepStatus> getStatus() {
+        return Optional.ofNullable(latest.get()).map(Sweep::status);
+    }
+
+    // Stop between chunks at shutdown; what is left goes to the next sweep
+    @PreDestroy
+    void stop() {
+        Sweep sweep = latest.get();
+        if (sweep != null) {
+            sweep.cancelled = true;
+        }
+    }
+
+    private void run(Sweep sweep) {
+        try {
+            for (String branch : shardResolver.getBranches()) {
+                BranchContext.runIn(branch, () -> sweepCurrentBranch(sweep));
+                if (sweep.cancelled) {
+                    break;
+                }
+                sweep.branchesDone++;
+            }
+            sweep.finish(sweep.cancelled ? "CANCELLED" : "COMPLETED", null);
+            log.info("Member sweep {}: {} members {} in {} chunks", sweep.state, sweep.deactivated,
+                    sweep.criteria.dryRun() ? "lapsed (dry run)" : "deactivated", sweep.chunks);
+        } catch (RuntimeException e) {
+            sweep.finish("FAILED", e.getMessage());
+            log.warn("Member sweep failed on branch {}; members not reached are left for the next sweep", sweep.branch, e);
+        }
+    }
+
+    private void sweepCurrentBranch(Sweep sweep) {
+        Criteria criteria = sweep.criteria;
+        long maxId = memberRepository.maxId();
+        sweep.startBranch(shardResolver.currentBranch(), maxId);
+        for (long afterId = 0; afterId < maxId && !sweep.cancelled; afterId += chunkSize) {
+            long throughId = Math.min(afterId + chunkSize, maxId);
+            int count;
+            if (criteria.dryRun()) {
+                count = memberRepository.findLapsedIds(criteria.joinedBefore(), criteria.noLoansSince(),
+                        criteria.tier(), afterId, throughId).size();
+            } else {
+                List<Member> deactivated = memberRepository.deactivateLapsed(criteria.joinedBefore(),
+                        criteria.noLoansSince(), criteria.tier(), afterId, throughId, LocalDateTime.now());
+                for (Member member : deactivated) {
+                    invalidationBus.publish(EntityChange.Kind.MEMBER, member.getId());
+                    journal.append(JournalOp.MEMBER_UPDATED, member.getId(), 0, member.getId(),
+                            Journal.fields("memberId", member.getMemberId(), "email", member.getEmail(),
+                                    "active", false, "version", member.getVersion(), "reason", "lapsed"));
+                }
+                count = deactivated.size();
+                meterRegistry.counter("libraryhub.member-sweep", "result", "deactivated").increment(count);
+            }
+            sweep.chunkDone(throughId, count);
+            pause(sweep);
+        }
+    }
+
+    private void pause(Sweep sweep) {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sweep.cancelled = true;
+        }
+    }
+
+    // Written by the sweep thread only, read by getStatus()
+    private static final class Sweep {
+
+        private final Criteria criteria;
+        private final int branches;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile String state = "RUNNING";
+        private volatile String branch;
+        private volatile int branchesDone;
+        private volatile long lastMemberId;
+        private volatile long maxMemberId;
+        private volatile long deactivated;
+        private volatile long chunks;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile boolean cancelled;
+
+        private Sweep(Criteria criteria, int branches) {
+            this.criteria = criteria;
+            this.branches = branches;
+        }
+
+        private boolean running() {
+            return "RUNNING".equals(state);
+        }
+
+        private void startBranch(String branch, long maxMemberId) {
+            this.branch = branch;
+            this.maxMemberId = maxMemberId;
+            this.lastMemberId = 0;
+        }
+
+        private void chunkDone(long throughId, int count) {
+            lastMemberId = throughId;
+            deactivated += count;
+            chunks++;
+        }
+
+        private void finish(String state, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.state = state;
+        }
+
+        private MemberSweepStatus status() {
+            return new MemberSweepStatus(state, criteria.dryRun(), criteria.joinedBefore(), criteria.noLoansSince(),
+                    criteria.tier(), branch, branchesDone, branches, lastMemberId, maxMemberId, deactivated, chunks,
+                    startedAt, finishedAt, error);
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package com.management.demo.service;
 
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.NotFoundException;
+import com.management.demo.exception.PreconditionRequiredException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
 import com.management.demo.model.Member;
+import com.management.demo.model.MemberSummary;
 import com.management.demo.repository.MemberRepository;
+import com.management.demo.repository.TransactionRepository;
+import com.management.demo.resilience.DatabaseGuard;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -15,36 +31,74 @@ public class MemberService {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    // Bounds for the loan list on the account summary
+    private static final int DEFAULT_SUMMARY_LOANS = 25;
+    private static final int MAX_SUMMARY_LOANS = 200;
+
+    // Identical concurrent lookups share one query (see BookService)
+    // Database IDs are per branch ("branch/id"); member IDs and emails are looked up in every branch
+    private final SingleFlight<String, Optional<Member>> memberByIdLookups = new SingleFlight<>("member.id");
+    private final SingleFlight<String, Optional<Member>> memberByMemberIdLookups = new SingleFlight<>("member.member-id");
+    private final SingleFlight<String, Optional<Member>> memberByEmailLookups = new SingleFlight<>("member.email");
+
+    @PostConstruct
+    void registerMetrics() {
+        memberByIdLookups.bindTo(meterRegistry);
+        memberByMemberIdLookups.bindTo(meterRegistry);
+        memberByEmailLookups.bindTo(meterRegistry);
+    }
+
     // Get all members
     public List<Member> getAllMembers() {
-        return memberRepository.findAll();
+        return databaseGuard.read("members", memberRepository::findAll);
     }
 
     // Get member by ID
     public Optional<Member> getMemberById(Long id) {
-        return memberRepository.findById(id);
+        return databaseGuard.read("member/" + id, () ->
+                memberByIdLookups.execute(shardResolver.currentBranch() + "/" + id, () -> memberRepository.findById(id)));
     }
 
-    // Get member by member ID
+    // Get member by member ID (current branch first, then the others)
     public Optional<Member> getMemberByMemberId(String memberId) {
-        return memberRepository.findByMemberId(memberId);
+        return databaseGuard.readFirst("member-id/" + memberId, () -> memberByMemberIdLookups.execute(
+                shardResolver.currentBranch() + "/" + memberId, () -> memberRepository.findByMemberId(memberId)));
     }
 
-    // Get member by email
+    // Get member by email (current branch first, then the others)
     public Optional<Member> getMemberByEmail(String email) {
-        return memberRepository.findByEmail(email);
+        return databaseGuard.readFirst("member-email/" + email, () -> memberByEmailLookups.execute(
+                shardResolver.currentBranch() + "/" + email, () -> memberRepository.findByEmail(email)));
     }
 
     // Add new member
     public Member addMember(Member member) {
-        // Check if member ID already exists
-        if (memberRepository.findByMemberId(member.getMemberId()).isPresent()) {
-            throw new RuntimeException("Member with ID " + member.getMemberId() + " already exists");
+        // Check if member ID already exists on any branch
+        if (findOnAnyBranchByMemberId(member.getMemberId()).isPresent()) {
+            throw new ConflictException("duplicate-member-id", "Member with ID " + member.getMemberId() + " already exists");
         }
 
-        // Check if email already exists
-        if (memberRepository.findByEmail(member.getEmail()).isPresent()) {
-            throw new RuntimeException("Member with email " + member.getEmail() + " already exists");
+        // Check if email already exists on any branch
+        if (findOnAnyBranchByEmail(member.getEmail()).isPresent()) {
+            throw new ConflictException("duplicate-email", "Member with email " + member.getEmail() + " already exists");
         }
 
         // Set default values if not provided
@@ -55,28 +109,39 @@ public class MemberService {
             member.setIsActive(true);
         }
 
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        invalidationBus.publish(EntityChange.Kind.MEMBER, saved.getId());
+        journal.append(JournalOp.MEMBER_CREATED, saved.getId(), 0, saved.getId(),
+                Journal.fields("memberId", saved.getMemberId(), "email", saved.getEmail()));
+        return saved;
     }
 
-    // Update member
-    public Member updateMember(Long id, Member memberDetails) {
+    // Update member. expectedVersion works as in BookService.updateBook, and is required too:
+    // without it a stale edit could quietly reactivate or deactivate the member.
+    public Member updateMember(Long id, Member memberDetails, Long expectedVersion) {
         Optional<Member> existingMember = memberRepository.findById(id);
         if (existingMember.isEmpty()) {
-            throw new RuntimeException("Member not found with id: " + id);
+            throw new NotFoundException("Member", id);
         }
 
         Member member = existingMember.get();
+        Long editedVersion = expectedVersion != null ? expectedVersion : memberDetails.getVersion();
+        if (editedVersion == null) {
+            throw new PreconditionRequiredException("version-required",
+                    "Send the version being edited, as If-Match or the version field");
+        }
+        member.setVersion(editedVersion);
 
-        // Check if new member ID conflicts with existing member (excluding current member)
-        Optional<Member> memberWithSameId = memberRepository.findByMemberId(memberDetails.getMemberId());
-        if (memberWithSameId.isPresent() && !memberWithSameId.get().getId().equals(id)) {
-            throw new RuntimeException("Member ID " + memberDetails.getMemberId() + " is already taken");
+        // Check if new member ID conflicts with existing member on any branch (excluding current member)
+        Optional<Member> memberWithSameId = findOnAnyBranchByMemberId(memberDetails.getMemberId());
+        if (memberWithSameId.isPresent() && !isSameMember(memberWithSameId.get(), member)) {
+            throw new ConflictException("duplicate-member-id", "Member ID " + memberDetails.getMemberId() + " is already taken");
         }
 
-        // Check if new email conflicts with existing member (excluding current member)
-        Optional<Member> memberWithSameEmail = memberRepository.findByEmail(memberDetails.getEmail());
-        if (memberWithSameEmail.isPresent() && !memberWithSameEmail.get().getId().equals(id)) {
-            throw new RuntimeException("Email " + memberDetails.getEmail() + " is already taken");
+        // Check if new email conflicts with existing member on any branch (excluding current member)
+        Optional<Member> memberWithSameEmail = findOnAnyBranchByEmail(memberDetails.getEmail());
+        if (memberWithSameEmail.isPresent() && !isSameMember(memberWithSameEmail.get(), member)) {
+            throw new ConflictException("duplicate-email", "Email " + memberDetails.getEmail() + " is already taken");
         }
 
         // Update member details
@@ -88,48 +153,84 @@ public class MemberService {
         member.setAddress(memberDetails.getAddress());
         member.setMembershipDate(memberDetails.getMembershipDate());
         member.setIsActive(memberDetails.getIsActive());
+        if (memberDetails.getTier() != null) {
+            member.setTier(memberDetails.getTier());
+        }
+
+        return saveAndJournal(member);
+    }
+
+    // Member IDs and emails are unique across the library, but each branch database only
+    // enforces that for its own members, so new values are checked on every branch
+    // (current branch first)
+    private Optional<Member> findOnAnyBranchByMemberId(String memberId) {
+        return shardResolver.findFirst(branch -> memberRepository.findByMemberId(memberId));
+    }
 
-        return memberRepository.save(member);
+    private Optional<Member> findOnAnyBranchByEmail(String email) {
+        return shardResolver.findFirst(branch -> memberRepository.findByEmail(email));
+    }
+
+    // Database IDs repeat across branches
+    private static boolean isSameMember(Member found, Member member) {
+        return found.getId().equals(member.getId()) && Objects.equals(found.getBranch(), member.getBranch());
     }
 
     // Delete member
     public void deleteMember(Long id) {
         if (memberRepository.findById(id).isEmpty()) {
-            throw new RuntimeException("Member not found with id: " + id);
+            throw new NotFoundException("Member", id);
         }
         memberRepository.deleteById(id);
+        invalidationBus.publish(EntityChange.Kind.MEMBER, id);
+        journal.append(JournalOp.MEMBER_DELETED, id, 0, id, "");
     }
 
-    // Search members
+    // Search members across every branch (in parallel), merged by name
     public List<Member> searchMembers(String searchTerm) {
+        List<Member> members;
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return getAllMembers();
+            members = databaseGuard.readEveryBranch("members", memberRepository::findAll);
+        } else {
+            String term = searchTerm.trim();
+            members = databaseGuard.readEveryBranch("member-search/" + term, () -> memberRepository.searchMembers(term));
         }
-        return memberRepository.searchMembers(searchTerm.trim());
+        members.sort(Comparator.comparing(Member::getFirstName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Member::getLastName, String.CASE_INSENSITIVE_ORDER));
+        return members;
     }
 
     // Deactivate member (soft delete)
     public Member deactivateMember(Long id) {
         Optional<Member> existingMember = memberRepository.findById(id);
         if (existingMember.isEmpty()) {
-            throw new RuntimeException("Member not found with id: " + id);
+            throw new NotFoundException("Member", id);
         }
 
         Member member = existingMember.get();
         member.setIsActive(false);
-        return memberRepository.save(member);
+        return saveAndJournal(member);
     }
 
     // Activate member
     public Member activateMember(Long id) {
         Optional<Member> existingMember = memberRepository.findById(id);
         if (existingMember.isEmpty()) {
-            throw new RuntimeException("Member not found with id: " + id);
+            throw new NotFoundException("Member", id);
         }
 
         Member member = existingMember.get();
         member.setIsActive(true);
-        return memberRepository.save(member);
+        return saveAndJournal(member);
+    }
+
+    private Member saveAndJournal(Member member) {
+        Member saved = memberRepository.save(member);
+        invalidationBus.publish(EntityChange.Kind.MEMBER, saved.getId());
+        journal.append(JournalOp.MEMBER_UPDATED, saved.getId(), 0, saved.getId(),
+                Journal.fields("memberId", saved.getMemberId(), "email", saved.getEmail(),
+                        "active", saved.getIsActive(), "version", saved.getVersion()));
+        return saved;
     }
 
     // Get active members only
@@ -138,4 +239,11 @@ public class MemberService {
                 .filter(Member::getIsActive)
                 .toList();
     }
+
+    // Get member account summary (profile, loans with titles, fines) in one query
+    public Optional<MemberSummary> getMemberSummary(Long id, boolean includeHistory, Integer limit) {
+        int loanLimit = limit == null ? DEFAULT_SUMMARY_LOANS : Math.max(1, Math.min(limit, MAX_SUMMARY_LOANS));
+        return databaseGuard.read("member-summary/" + id + "/" + includeHistory + "/" + loanLimit,
+                () -> transactionRepository.findMemberSummary(id, includeHistory, loanLimit));
+    }
 }
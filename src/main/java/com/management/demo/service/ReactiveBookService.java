@@ -0,0 +1,48 @@
+package com.management.demo.service;
+
+import com.management.demo.model.Book;
+import com.management.demo.repository.ReactiveBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read-only catalog operations on the R2DBC driver; all writes stay in BookService
+@Service
+@ConditionalOnProperty(name = "libraryhub.reactive.enabled", havingValue = "true")
+public class ReactiveBookService {
+
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    // Get all books
+    public Flux<Book> getAllBooks() {
+        return reactiveBookRepository.findAll();
+    }
+
+    // Get book by ID
+    public Mono<Book> getBookById(Long id) {
+        return reactiveBookRepository.findById(id);
+    }
+
+    // Get book by ISBN
+    public Mono<Book> getBookByIsbn(String isbn) {
+        return reactiveBookRepository.findByIsbn(isbn);
+    }
+
+    // Search books
+    public Flux<Book> searchBooks(String searchTerm) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return getAllBooks();
+        }
+        return reactiveBookRepository.searchBooks(searchTerm.trim());
+    }
+
+    // Check if book is available for borrowing
+    public Mono<Boolean> isBookAvailable(Long bookId) {
+        return reactiveBookRepository.findAvailableCopies(bookId)
+                .map(availableCopies -> availableCopies > 0)
+                .defaultIfEmpty(false);
+    }
+}
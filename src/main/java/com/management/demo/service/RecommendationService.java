@@ -0,0 +1,199 @@
+package com.management.demo.service;
+
+import com.management.demo.catalog.CatalogCache;
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.model.Book;
+import com.management.demo.model.BookRecommendation;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.TransactionRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.CoOccurrenceMatrix;
+import com.management.demo.util.ScannedIds;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// "Patrons who borrowed this also borrowed".
+// Keeps an in-memory book-to-book co-occurrence matrix: two books co-occur once for
+// every member who borrowed both. Built by one streaming pass over transactions at
+// startup, then kept current from every committed issue.
+//
+// Loans are always counted against the member's *earlier* loans (id < this one), so
+// the bootstrap and the incremental updates never count the same pair twice and
+// incremental updates can be applied in any order. A live loan is skipped only if the
+// bootstrap snapshot saw it: one that committed after the snapshot is applied even when
+// its ID is below the snapshot's highest.
+// Book IDs are per branch, so the matrix covers the default branch only.
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Value("${libraryhub.recommendations.enabled:true}")
+    private boolean enabled;
+
+    // Members with very long histories add O(n^2) pairs; only the books they borrowed most
+    // recently count, in the bootstrap pass and in live updates alike
+    @Value("${libraryhub.recommendations.history-cap:200}")
+    private int historyCap;
+
+    private final CoOccurrenceMatrix matrix = new CoOccurrenceMatrix();
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recommendation-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Loans issued while the bootstrap pass is still running, replayed once it ends
+    private final Queue<BookIssuedEvent> deferred = new ConcurrentLinkedQueue<>();
+    private volatile boolean ready;
+    private volatile ScannedIds bootstrapScanned = ScannedIds.NONE;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (enabled) {
+            updater.execute(this::loadFromHistory);
+        }
+    }
+
+    private void loadFromHistory() {
+        long start = System.nanoTime();
+        long[] basket = new long[historyCap];
+        int[] basketSize = {0};
+        long[] currentMember = {-1};
+        long[] members = {0};
+
+        // The IDs and the pairs come from one snapshot, so the IDs say exactly which loans were counted
+        TransactionTemplate snapshot = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setReadOnly(true);
+        ScannedIds scanned = snapshot.execute(status -> {
+            ScannedIds ids = transactionRepository.findScannedIds();
+            transactionRepository.forEachMemberBookPair(ids.highWaterMark(), rs -> {
+                long memberId = rs.getLong("member_id");
+                if (memberId != currentMember[0]) {
+                    matrix.addBasket(basket, basketSize[0]);
+                    basketSize[0] = 0;
+                    currentMember[0] = memberId;
+                    members[0]++;
+                }
+                if (basketSize[0] < historyCap) {
+                    basket[basketSize[0]++] = rs.getLong("book_id");
+                }
+            });
+            return ids;
+        });
+        matrix.addBasket(basket, basketSize[0]);
+
+        bootstrapScanned = scanned;
+        ready = true;
+        for (BookIssuedEvent event; (event = deferred.poll()) != null; ) {
+            if (!scanned.contains(event.transactionId())) {
+                applyLoan(event);
+            }
+        }
+
+        log.info("Co-occurrence matrix built from {} members in {} ms: {} books, {} pairs, ~{} MB",
+                members[0], (System.nanoTime() - start) / 1_000_000, matrix.rowCount(), matrix.cellCount(),
+                matrix.estimatedBytes() / (1024 * 1024));
+    }
+
+    // Update off the request thread, and only for committed loans
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookIssued(BookIssuedEvent event) {
+        if (!enabled || !shardResolver.isDefaultBranch()) {
+            return;
+        }
+        updater.execute(() -> {
+            if (!ready) {
+                deferred.add(event);
+            } else if (!bootstrapScanned.contains(event.transactionId())) {
+                applyLoan(event);
+            }
+        });
+    }
+
+    private void applyLoan(BookIssuedEvent event) {
+        List<Long> earlier = transactionRepository.findBookIdsBorrowedBefore(event.memberId(), event.transactionId());
+        if (earlier.contains(event.bookId())) {
+            // Re-borrowing a book this member already had adds no new pairs
+            return;
+        }
+        int count = Math.min(earlier.size(), historyCap);
+        long[] others = new long[count];
+        for (int i = 0; i < count; i++) {
+            others[i] = earlier.get(i);
+        }
+        matrix.addPairs(event.bookId(), others, count);
+    }
+
+    // Top-K books most often borrowed by the same members as bookId, best first
+    public List<BookRecommendation> getAlsoBorrowed(Long bookId, int limit) {
+        if (!ready) {
+            return List.of();
+        }
+        List<CoOccurrenceMatrix.Scored> top = matrix.topK(bookId, limit);
+        if (top.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = top.stream().map(CoOccurrenceMatrix.Scored::id).toList();
+        Map<Long, Book> books = (catalogCache.isReady()
+                ? catalogCache.findByIds(ids)
+                : shardResolver.onDefaultBranch(() -> bookRepository.findByIds(ids)))
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<BookRecommendation> recommendations = new ArrayList<>(top.size());
+        for (CoOccurrenceMatrix.Scored scored : top) {
+            Book book = books.get(scored.id());
+            if (book != null) {
+                recommendations.add(new BookRecommendation(book, scored.count()));
+            }
+        }
+        return recommendations;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        updater.shutdownNow();
+    }
+}
@@ -0,0 +1,201 @@
+package com.management.demo.service;
+
+import com.management.demo.model.LoanReminder;
+import com.management.demo.notification.Notification;
+import com.management.demo.notification.Notifier;
+import com.management.demo.repository.ReminderRepository;
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.ShardResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Due-soon and overdue reminders for open loans, sent in scheduled runs on every branch.
+// Loans are paged by (due_date, id) with the member's contact details in the same query, and
+// each page is claimed in reminder_log before anything is sent, so a reminder goes out once
+// per loan and kind even with several instances. Sends run on virtual threads; at most
+// max-in-flight are outstanding, and paging waits for a free slot, so a slow notifier holds
+// back the query rather than piling up work. An interrupted run resumes where it stopped:
+// sent reminders are skipped, failed ones are released for the next run, and claims left
+// by a run that died are taken over after claim-timeout-minutes.
+// The scheduled trigger only starts a run on its own virtual thread, one run at a time per
+// instance, so a long run does not hold up the other scheduled tasks.
+@Service
+public class ReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderService.class);
+
+    static final String DUE_SOON = "DUE_SOON";
+    static final String OVERDUE = "OVERDUE";
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Autowired
+    private Notifier notifier;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${libraryhub.reminders.enabled:false}")
+    private boolean enabled;
+
+    // Remind this many days before the due date
+    @Value("${libraryhub.reminders.due-in-days:2}")
+    private int dueInDays;
+
+    // Loans overdue for longer are left alone, so the first run does not remind every old loan at once
+    @Value("${libraryhub.reminders.overdue-lookback-days:30}")
+    private int overdueLookbackDays;
+
+    @Value("${libraryhub.reminders.page-size:500}")
+    private int pageSize;
+
+    @Value("${libraryhub.reminders.max-in-flight:64}")
+    private int maxInFlight;
+
+    @Value("${libraryhub.reminders.claim-timeout-minutes:15}")
+    private int claimTimeoutMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${libraryhub.reminders.cron:0 0 8 * * *}")
+    public void sendReminders() {
+        if (!enabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Previous reminder run still going; skipping this one");
+            return;
+        }
+        Thread.ofVirtual().name("reminders").start(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    // One run over every branch, on the calling thread
+    void run() {
+        for (String branch : shardResolver.getBranches()) {
+            try {
+                BranchContext.runIn(branch, this::sendRemindersOnCurrentBranch);
+            } catch (RuntimeException e) {
+                log.warn("Reminder run failed on branch {}; unsent reminders go out on the next run", branch, e);
+            }
+        }
+    }
+
+    private void sendRemindersOnCurrentBranch() {
+        LocalDate today = LocalDate.now();
+        dispatch(DUE_SOON, today, today.plusDays(dueInDays));
+        dispatch(OVERDUE, today.minusDays(overdueLookbackDays), today.minusDays(1));
+    }
+
+    // Send every outstanding reminder of one kind for loans due in [fromDue, toDue]
+    private void dispatch(String kind, LocalDate fromDue, LocalDate toDue) {
+        Semaphore slots = new Semaphore(maxInFlight);
+        Queue<Long> sent = new ConcurrentLinkedQueue<>();
+        Queue<Long> failed = new ConcurrentLinkedQueue<>();
+        int[] totals = new int[2];
+
+        LocalDate afterDue = fromDue.minusDays(1);
+        long afterId = 0;
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<LoanReminder> page;
+            do {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime staleBefore = now.minusMinutes(claimTimeoutMinutes);
+                page = reminderRepository.findPage(kind, fromDue, toDue, afterDue, afterId, staleBefore, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                LoanReminder last = page.get(page.size() - 1);
+                afterDue = last.dueDate();
+                afterId = last.transactionId();
+
+                Set<Long> claimed = reminderRepository.claim(kind,
+                        page.stream().map(LoanReminder::transactionId).toList(), now, staleBefore);
+                for (LoanReminder reminder : page) {
+                    if (!claimed.contains(reminder.transactionId())) {
+                        continue;
+                    }
+                    slots.acquireUninterruptibly();
+                    senders.execute(() -> {
+                        try {
+                            notifier.send(notification(kind, reminder));
+                            sent.add(reminder.transactionId());
+                        } catch (RuntimeException e) {
+                            log.debug("Reminder for loan {} failed", reminder.transactionId(), e);
+                            failed.add(reminder.transactionId());
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+                record(kind, sent, failed, totals);
+            } while (page.size() == pageSize);
+        }
+        // Closing the executor waited for the sends still in flight
+        record(kind, sent, failed, totals);
+
+        if (totals[0] + totals[1] > 0) {
+            log.info("Sent {} {} reminders on branch {} ({} failed, retried on the next run)",
+                    totals[0], kind, shardResolver.currentBranch(), totals[1]);
+        }
+    }
+
+    // Write finished sends back to reminder_log in batches rather than one statement per send
+    private void record(String kind, Queue<Long> sent, Queue<Long> failed, int[] totals) {
+        List<Long> sentIds = drain(sent);
+        List<Long> failedIds = drain(failed);
+        reminderRepository.markSent(kind, sentIds, LocalDateTime.now());
+        reminderRepository.release(kind, failedIds);
+        meterRegistry.counter("libraryhub.reminders", "kind", kind, "result", "sent").increment(sentIds.size());
+        meterRegistry.counter("libraryhub.reminders", "kind", kind, "result", "failed").increment(failedIds.size());
+        totals[0] += sentIds.size();
+        totals[1] += failedIds.size();
+    }
+
+    private static List<Long> drain(Queue<Long> queue) {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = queue.poll()) != null) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static Notification notification(String kind, LoanReminder reminder) {
+        if (DUE_SOON.equals(kind)) {
+            return new Notification("DUE_SOON", reminder.memberId(), reminder.memberName(), reminder.memberEmail(),
+                    "Due soon: " + reminder.bookTitle(),
+                    "\"" + reminder.bookTitle() + "\" is due back on " + reminder.dueDate() + ".");
+        }
+        return new Notification("OVERDUE", reminder.memberId(), reminder.memberName(), reminder.memberEmail(),
+                "Overdue: " + reminder.bookTitle(),
+                "\"" + reminder.bookTitle() + "\" was due back on " + reminder.dueDate()
+                        + ". Please return it; fines apply for every day it is late.");
+    }
+}
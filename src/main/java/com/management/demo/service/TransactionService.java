@@ -1,5 +1,15 @@
 package com.management.demo.service;
 
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.event.BookReturnedEvent;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.NotFoundException;
+import com.management.demo.exception.RuleViolationException;
+import com.management.demo.fine.FinePolicy;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
 import com.management.demo.model.Book;
 import com.management.demo.model.Member;
 import com.management.demo.model.Transaction;
@@ -7,7 +17,9 @@ import com.management.demo.repository.BookRepository;
 import com.management.demo.repository.MemberRepository;
 import com.management.demo.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -27,22 +39,42 @@ public class TransactionService {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Journal journal;
+
+    @Autowired
+    private FinePolicy finePolicy;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     // Issue a book to a member
+    @Transactional
     public Transaction issueBook(Long bookId, Long memberId, int loanPeriodDays) {
         // Validate book exists and is available
         Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
+                .orElseThrow(() -> new NotFoundException("Book", bookId));
 
-        if (book.getAvailableCopies() <= 0) {
-            throw new RuntimeException("No copies available for book: " + book.getTitle());
+        // A copy set aside for this member's hold is already off the shelf count
+        boolean collectingHold = holdService.fulfillReadyHold(bookId, memberId);
+
+        if (!collectingHold && book.getAvailableCopies() <= 0) {
+            throw new ConflictException("no-copies-available", "No copies available for book: " + book.getTitle());
         }
 
-        // Validate member exists and is active
-        Member member = memberRepository.findById(memberId)
-                .orElseThrow(() -> new RuntimeException("Member not found with id: " + memberId));
+        // Validate member exists and is active. The share lock lasts until the loan commits, so a
+        // lapsed-member sweep skips this member meanwhile; one already swept is seen inactive.
+        Member member = memberRepository.findByIdForShare(memberId)
+                .orElseThrow(() -> new NotFoundException("Member", memberId));
 
         if (!member.getIsActive()) {
-            throw new RuntimeException("Member account is inactive: " + member.getFirstName() + " " + member.getLastName());
+            throw new RuleViolationException("member-inactive", "Member account is inactive: " + member.getFirstName() + " " + member.getLastName());
         }
 
         // Create transaction
@@ -61,45 +93,62 @@ public class TransactionService {
         // Save transaction
         Transaction savedTransaction = transactionRepository.insert(transaction);
 
-        // Update book available copies
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+        // Take the copy off the shelf atomically; losing the race for the last copy rolls the loan back
+        if (!collectingHold && !bookRepository.decrementAvailableCopies(bookId)) {
+            throw new ConflictException("no-copies-available", "No copies available for book: " + book.getTitle());
+        }
+
+        eventPublisher.publishEvent(new BookIssuedEvent(savedTransaction.getId(), bookId, memberId, today));
+        invalidationBus.publish(EntityChange.Kind.BOOK, bookId);
+        journal.append(JournalOp.BOOK_ISSUED, savedTransaction.getId(), bookId, memberId,
+                Journal.fields("due", dueDate, "hold", collectingHold));
 
         return savedTransaction;
     }
 
     // Return a book
+    @Transactional
     public Transaction returnBook(Long transactionId) {
         Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId));
+                .orElseThrow(() -> new NotFoundException("Transaction", transactionId));
 
         if (!"ISSUED".equals(transaction.getStatus())) {
-            throw new RuntimeException("Book has already been returned");
+            throw new ConflictException("already-returned", "Book has already been returned");
         }
 
         LocalDate today = LocalDate.now();
         transaction.setReturnDate(today);
 
-        // Calculate fine if overdue (₹5 per day)
+        // Calculate fine if overdue (rules in libraryhub.fines.*, by book category and member tier)
         long daysLate = ChronoUnit.DAYS.between(transaction.getDueDate(), today);
         if (daysLate > 0) {
-            BigDecimal fine = BigDecimal.valueOf(daysLate * 5);
-            transaction.setFineAmount(fine);
+            String category = bookRepository.findById(transaction.getBookId()).map(Book::getCategory).orElse(null);
+            String tier = memberRepository.findById(transaction.getMemberId()).map(Member::getTier).orElse(null);
+            transaction.setFineAmount(finePolicy.fine(category, tier, daysLate));
             transaction.setStatus("OVERDUE");
         } else {
             transaction.setStatus("RETURNED");
         }
 
-        // Update transaction
-        Transaction updatedTransaction = transactionRepository.updateReturn(transaction);
+        // Only the return that closes the loan goes on; a concurrent duplicate must not
+        // shelve the copy (or hand it to a hold) a second time
+        if (!transactionRepository.updateReturn(transaction)) {
+            throw new ConflictException("already-returned", "Book has already been returned");
+        }
+
+        // Hand the copy to the next member in the hold queue, or put it back on the shelf
+        if (!holdService.allocateReturnedCopy(transaction.getBookId())
+                && !bookRepository.incrementAvailableCopies(transaction.getBookId())) {
+            throw new NotFoundException("Book", transaction.getBookId());
+        }
 
-        // Increase available book copies
-        Book book = bookRepository.findById(transaction.getBookId())
-                .orElseThrow(() -> new RuntimeException("Book not found"));
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+        eventPublisher.publishEvent(new BookReturnedEvent(transactionId, transaction.getBookId(),
+                transaction.getMemberId(), today, daysLate > 0, transaction.getFineAmount()));
+        invalidationBus.publish(EntityChange.Kind.BOOK, transaction.getBookId());
+        journal.append(JournalOp.BOOK_RETURNED, transactionId, transaction.getBookId(), transaction.getMemberId(),
+                Journal.fields("status", transaction.getStatus(), "fine", transaction.getFineAmount()));
 
-        return updatedTransaction;
+        return transaction;
     }
 
     // Get all transactions
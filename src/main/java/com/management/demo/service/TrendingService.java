@@ -0,0 +1,264 @@
+package com.management.demo.service;
+
+import com.management.demo.catalog.CatalogCache;
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.model.Book;
+import com.management.demo.model.TrendingReport;
+import com.management.demo.model.TrendingReport.TrendingTitle;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.TransactionRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.util.ScannedIds;
+import com.management.demo.util.WindowedCountMinSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Most-issued titles over the last day, week and month, answered from memory.
+// Per-book counts live in count-min sketches over time buckets (hourly for the day
+// window, daily for week and month), so memory does not grow with the catalogue.
+// A sketch cannot list its items, so each window also keeps a bounded set of
+// candidate heavy hitters; a query re-estimates the candidates and ranks them.
+// Book IDs are per branch, so the counts cover the default branch only.
+@Service
+public class TrendingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    public enum Window {
+        DAY(24), WEEK(7), MONTH(30);
+
+        private final int buckets;
+
+        Window(int buckets) {
+            this.buckets = buckets;
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Value("${libraryhub.trending.enabled:true}")
+    private boolean enabled;
+
+    // Titles tracked per window; must comfortably exceed the largest limit asked for
+    @Value("${libraryhub.trending.candidates:1000}")
+    private int candidateCapacity;
+
+    // epsilon = e / width (~0.00017 at 16384), delta = e^-depth (~0.018 at 4)
+    @Value("${libraryhub.trending.sketch-width:16384}")
+    private int sketchWidth;
+
+    @Value("${libraryhub.trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    private WindowedCountMinSketch hourly;
+    private WindowedCountMinSketch daily;
+    private final Map<Window, Map<Long, Long>> candidates = new HashMap<>();
+
+    // Runs the bootstrap scan, so startup does not wait on a month of transactions
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trending-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Loans the bootstrap snapshot saw; every other committed loan is counted from its event.
+    // Null until the bootstrap has run.
+    private volatile ScannedIds bootstrapScanned;
+
+    @PostConstruct
+    void createSketches() {
+        hourly = new WindowedCountMinSketch(sketchDepth, sketchWidth, Window.DAY.buckets, HOUR_MILLIS);
+        daily = new WindowedCountMinSketch(sketchDepth, sketchWidth, Window.MONTH.buckets, DAY_MILLIS);
+        for (Window window : Window.values()) {
+            candidates.put(window, new HashMap<>());
+        }
+    }
+
+    // Seed the windows from the last month of transactions in the background. Loans that commit
+    // meanwhile queue behind the scan on the same thread and are counted if it did not see them.
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (!enabled) {
+            return;
+        }
+        loader.execute(this::loadFromHistory);
+    }
+
+    private void loadFromHistory() {
+        long start = System.nanoTime();
+        long[] loaded = {0};
+        LocalDateTime since = LocalDateTime.now().minusDays(Window.MONTH.buckets);
+        // The IDs and the issues come from one snapshot, so the IDs say exactly which loans were counted
+        TransactionTemplate snapshot = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshot.setReadOnly(true);
+        try {
+            bootstrapScanned = snapshot.execute(status -> {
+                ScannedIds ids = transactionRepository.findScannedIds();
+                transactionRepository.forEachIssueSince(since, ids.highWaterMark(), rs -> {
+                    long issuedAt = rs.getTimestamp("created_at").getTime();
+                    record(rs.getLong("book_id"), issuedAt, System.currentTimeMillis());
+                    loaded[0]++;
+                });
+                return ids;
+            });
+        } finally {
+            if (bootstrapScanned == null) {
+                // The scan failed; count events from here on all the same
+                bootstrapScanned = ScannedIds.NONE;
+            }
+        }
+
+        log.info("Trending sketches loaded {} issues in {} ms (~{} MB)", loaded[0],
+                (System.nanoTime() - start) / 1_000_000,
+                (hourly.estimatedBytes() + daily.estimatedBytes()) / (1024 * 1024));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    // In-memory only, so it runs inline once the loan has committed (on the bootstrap
+    // thread, after the scan, while that is still running)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookIssued(BookIssuedEvent event) {
+        if (!enabled || !shardResolver.isDefaultBranch()) {
+            return;
+        }
+        long issuedAt = System.currentTimeMillis();
+        if (bootstrapScanned != null) {
+            countIfNotScanned(event, issuedAt);
+        } else if (!loader.isShutdown()) {
+            loader.execute(() -> countIfNotScanned(event, issuedAt));
+        }
+    }
+
+    private void countIfNotScanned(BookIssuedEvent event, long issuedAt) {
+        ScannedIds scanned = bootstrapScanned;
+        // Still null here means this ran ahead of the bootstrap: the loan committed before the
+        // scan's snapshot was taken, so the scan counts it
+        if (scanned != null && !scanned.contains(event.transactionId())) {
+            record(event.bookId(), issuedAt, System.currentTimeMillis());
+        }
+    }
+
+    private void record(long bookId, long issuedAtMillis, long nowMillis) {
+        hourly.add(bookId, issuedAtMillis, nowMillis);
+        daily.add(bookId, issuedAtMillis, nowMillis);
+        for (Window window : Window.values()) {
+            Map<Long, Long> windowCandidates = candidates.get(window);
+            synchronized (windowCandidates) {
+                windowCandidates.put(bookId, estimate(window, bookId, nowMillis));
+                if (windowCandidates.size() > 2 * candidateCapacity) {
+                    prune(window, windowCandidates, nowMillis);
+                }
+            }
+        }
+    }
+
+    // Keep the candidateCapacity titles with the highest current estimates
+    private void prune(Window window, Map<Long, Long> windowCandidates, long nowMillis) {
+        List<Map.Entry<Long, Long>> ranked = rank(window, windowCandidates, nowMillis);
+        windowCandidates.clear();
+        for (Map.Entry<Long, Long> entry : ranked.subList(0, Math.min(candidateCapacity, ranked.size()))) {
+            windowCandidates.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private List<Map.Entry<Long, Long>> rank(Window window, Map<Long, Long> windowCandidates, long nowMillis) {
+        List<Map.Entry<Long, Long>> ranked = new ArrayList<>(windowCandidates.size());
+        for (Long bookId : windowCandidates.keySet()) {
+            long estimate = estimate(window, bookId, nowMillis);
+            if (estimate > 0) {
+                ranked.add(Map.entry(bookId, estimate));
+            }
+        }
+        ranked.sort(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry::getKey));
+        return ranked;
+    }
+
+    private long estimate(Window window, long bookId, long nowMillis) {
+        return window == Window.DAY
+                ? hourly.estimate(bookId, nowMillis, window.buckets)
+                : daily.estimate(bookId, nowMillis, window.buckets);
+    }
+
+    // Top titles by estimated issues in the window, with the error bound that applies
+    public TrendingReport getTrending(Window window, int limit) {
+        TrendingReport report = new TrendingReport();
+        report.setWindow(window.name());
+        if (!enabled) {
+            return report;
+        }
+
+        long now = System.currentTimeMillis();
+        WindowedCountMinSketch sketch = window == Window.DAY ? hourly : daily;
+        long totalIssues = sketch.total(now, window.buckets);
+        report.setTotalIssues(totalIssues);
+        report.setMaxOvercount((long) Math.ceil(sketch.epsilon() * totalIssues));
+        report.setConfidence(1 - sketch.delta());
+
+        Map<Long, Long> windowCandidates = candidates.get(window);
+        List<Map.Entry<Long, Long>> top;
+        synchronized (windowCandidates) {
+            List<Map.Entry<Long, Long>> ranked = rank(window, windowCandidates, now);
+            top = new ArrayList<>(ranked.subList(0, Math.min(limit, ranked.size())));
+        }
+        if (top.isEmpty()) {
+            return report;
+        }
+
+        List<Long> ids = top.stream().map(Map.Entry::getKey).toList();
+        Map<Long, Book> books = (catalogCache.isReady()
+                ? catalogCache.findByIds(ids)
+                : shardResolver.onDefaultBranch(() -> bookRepository.findByIds(ids)))
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        for (Map.Entry<Long, Long> entry : top) {
+            Book book = books.get(entry.getKey());
+            if (book != null) {
+                report.getTitles().add(new TrendingTitle(book, entry.getValue()));
+            }
+        }
+        return report;
+    }
+}
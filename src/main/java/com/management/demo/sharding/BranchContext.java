@@ -0,0 +1,47 @@
+package com.management.demo.sharding;
+
+import java.util.function.Supplier;
+
+// The library branch the current thread works against. Set per request by BranchFilter
+// and per task by ShardResolver; unset means the default branch.
+public final class BranchContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String branch) {
+        CURRENT.set(branch);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // Run work against a branch, restoring whatever was set before
+    public static <T> T callIn(String branch, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(branch);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void runIn(String branch, Runnable work) {
+        callIn(branch, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.management.demo.sharding;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Binds each request to the branch named in the X-Library-Branch header (default branch
+// when absent), before any transaction starts.
+@Component
+public class BranchFilter extends OncePerRequestFilter {
+
+    public static final String BRANCH_HEADER = "X-Library-Branch";
+
+    @Autowired
+    private ShardResolver shardResolver;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String branch = request.getHeader(BRANCH_HEADER);
+        if (branch == null || branch.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!shardResolver.isKnownBranch(branch)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown library branch: " + branch);
+            return;
+        }
+        BranchContext.set(branch);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            BranchContext.clear();
+        }
+    }
+}
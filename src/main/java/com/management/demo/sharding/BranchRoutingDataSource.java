@@ -0,0 +1,14 @@
+package com.management.demo.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Hands out connections from the shard of the branch bound to the current thread.
+// A transaction keeps the connection it started with, so the branch must be set
+// before the transaction begins.
+public class BranchRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BranchContext.current();
+    }
+}
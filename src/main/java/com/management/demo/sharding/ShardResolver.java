@@ -0,0 +1,127 @@
+package com.management.demo.sharding;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Knows the branches and runs queries against one of them or all of them.
+// Cross-branch reads run on one virtual thread per branch, so a fan-out costs
+// about as much as the slowest shard rather than the sum of all of them.
+@Component
+public class ShardResolver {
+
+    private final String defaultBranch;
+    private final List<String> branches;
+    private final long fanOutTimeoutMs;
+
+    public ShardResolver(ShardingProperties properties) {
+        this.defaultBranch = properties.getDefaultBranch();
+        this.fanOutTimeoutMs = properties.getFanOutTimeoutMs();
+        List<String> names = new ArrayList<>();
+        names.add(defaultBranch);
+        if (properties.isEnabled()) {
+            properties.getBranches().keySet().stream()
+                    .filter(name -> !name.equals(defaultBranch))
+                    .forEach(names::add);
+        }
+        this.branches = List.copyOf(names);
+    }
+
+    public String getDefaultBranch() {
+        return defaultBranch;
+    }
+
+    public List<String> getBranches() {
+        return branches;
+    }
+
+    public boolean isKnownBranch(String branch) {
+        return branches.contains(branch);
+    }
+
+    // The branch the current thread is bound to
+    public String currentBranch() {
+        String branch = BranchContext.current();
+        return branch != null ? branch : defaultBranch;
+    }
+
+    public boolean isDefaultBranch() {
+        return defaultBranch.equals(currentBranch());
+    }
+
+    public <T> T onDefaultBranch(Supplier<T> work) {
+        return BranchContext.callIn(defaultBranch, work);
+    }
+
+    // Run a query on every branch in parallel and concatenate the results in branch order
+    public <T> List<T> fanOut(Function<String, List<T>> query) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> result : onEveryBranch(query)) {
+            merged.addAll(result);
+        }
+        return merged;
+    }
+
+    // First hit, preferring the current branch, then the others in configured order
+    public <T> Optional<T> findFirst(Function<String, Optional<T>> lookup) {
+        String current = currentBranch();
+        Optional<T> local = BranchContext.callIn(current, () -> lookup.apply(current));
+        if (local.isPresent() || branches.size() == 1) {
+            return local;
+        }
+        for (Optional<T> result : onEveryBranch(branch -> branch.equals(current) ? Optional.<T>empty() : lookup.apply(branch))) {
+            if (result.isPresent()) {
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private <R> List<R> onEveryBranch(Function<String, R> query) {
+        if (branches.size() == 1) {
+            String branch = branches.get(0);
+            return List.of(BranchContext.callIn(branch, () -> query.apply(branch)));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<R>> futures = new ArrayList<>(branches.size());
+            for (String branch : branches) {
+                futures.add(executor.submit(() -> BranchContext.callIn(branch, () -> query.apply(branch))));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fanOutTimeoutMs);
+            List<R> results = new ArrayList<>(branches.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    if (e.getCause() instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw new RuntimeException("Query failed on branch " + branches.get(i), e.getCause());
+                } catch (TimeoutException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    // An outage like any other to DatabaseGuard, not a bug
+                    throw new QueryTimeoutException("Branch " + branches.get(i) + " did not answer within " + fanOutTimeoutMs + " ms");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(future -> future.cancel(true));
+                    throw new RuntimeException("Interrupted while querying branches", e);
+                }
+            }
+            return results;
+        }
+    }
+}
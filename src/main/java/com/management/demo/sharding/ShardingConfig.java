@@ -0,0 +1,63 @@
+package com.management.demo.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// With libraryhub.sharding.enabled, the one DataSource everything uses (JdbcTemplate,
+// transactions) routes to the current branch's database. The per-branch pools are not
+// beans themselves, so they are not wrapped a second time by the slow-query timing.
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "libraryhub.sharding.enabled", havingValue = "true")
+    BranchDataSources branchDataSources(ShardingProperties properties, DataSourceProperties defaultDataSource) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        HikariDataSource main = defaultDataSource.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        main.setPoolName("branch-" + properties.getDefaultBranch());
+        pools.put(properties.getDefaultBranch(), main);
+
+        properties.getBranches().forEach((name, branch) -> {
+            if (!pools.containsKey(name)) {
+                HikariDataSource pool = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(branch.getUrl())
+                        .username(branch.getUsername())
+                        .password(branch.getPassword())
+                        .build();
+                pool.setPoolName("branch-" + name);
+                pools.put(name, pool);
+            }
+        });
+        return new BranchDataSources(pools);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "libraryhub.sharding.enabled", havingValue = "true")
+    DataSource branchRoutingDataSource(ShardingProperties properties, BranchDataSources branchDataSources) {
+        BranchRoutingDataSource routing = new BranchRoutingDataSource();
+        routing.setTargetDataSources(new LinkedHashMap<>(branchDataSources.pools()));
+        routing.setDefaultTargetDataSource(branchDataSources.pools().get(properties.getDefaultBranch()));
+        // An unknown branch is an error, never a silent fallback to the default shard
+        routing.setLenientFallback(false);
+        return routing;
+    }
+
+    public record BranchDataSources(Map<String, HikariDataSource> pools) {
+        public void close() {
+            pools.values().forEach(HikariDataSource::close);
+        }
+    }
+}
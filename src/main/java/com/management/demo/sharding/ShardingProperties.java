@@ -0,0 +1,30 @@
+package com.management.demo.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "libraryhub.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Served by spring.datasource.*; also where requests without a branch header go
+    private String defaultBranch = "main";
+
+    // Upper bound for one cross-branch read
+    private long fanOutTimeoutMs = 5000;
+
+    // Every other branch and its database
+    private Map<String, Branch> branches = new LinkedHashMap<>();
+
+    @Data
+    public static class Branch {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
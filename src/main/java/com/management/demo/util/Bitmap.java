@@ -0,0 +1,107 @@
+package com.management.demo.util;
+
+import java.util.Arrays;
+
+// Growable bitmap over int positions, packed 64 to a long word.
+// Intersections and counts work a word at a time (Long.bitCount compiles to POPCNT), and
+// andCardinality() counts an intersection without building it.
+// Not thread-safe.
+public class Bitmap {
+
+    private long[] words;
+
+    public Bitmap() {
+        this(64);
+    }
+
+    public Bitmap(int expectedBits) {
+        words = new long[Math.max(1, (expectedBits + 63) >>> 6)];
+    }
+
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    public void set(int bit) {
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << bit;
+    }
+
+    public void clear(int bit) {
+        int word = bit >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << bit);
+        }
+    }
+
+    public boolean get(int bit) {
+        int word = bit >>> 6;
+        return word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Size of the intersection with other
+    public int andCardinality(Bitmap other) {
+        int length = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    // Keep only the bits also set in other
+    public void and(Bitmap other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, length, words.length, 0L);
+    }
+
+    public void or(Bitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    // First set bit at or after from, or -1
+    public int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    public Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+
+    // Backing array footprint, excluding the object header
+    public long estimatedBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
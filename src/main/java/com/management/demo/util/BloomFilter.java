@@ -0,0 +1,72 @@
+package com.management.demo.util;
+
+import java.nio.charset.StandardCharsets;
+
+// Fixed-size Bloom filter over strings.
+// mightContain() never returns false for a value that was put(); it returns true
+// for an absent value with roughly the false-positive probability it was sized for.
+// Not thread-safe: build and query it from a single thread.
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+
+    private BloomFilter(long numBits, int numHashes) {
+        this.bits = new long[(int) ((numBits + 63) >>> 6)];
+        this.numBits = (long) bits.length << 6;
+        this.numHashes = numHashes;
+    }
+
+    // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 hash functions
+    public static BloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveProbability, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(Math.max(64, m), k);
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    // FNV-1a over the UTF-8 bytes followed by the murmur3 finalizer, split into two
+    // 32-bit halves for double hashing (Kirsch-Mitzenmacher)
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,188 @@
+package com.management.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Sparse symmetric item-to-item co-occurrence counts ("borrowed together").
+// Rows are primitive LongIntHashMaps kept in lock-striped shards, so an update
+// only blocks readers of the rows it touches.
+public class CoOccurrenceMatrix {
+
+    private static final int SHARDS = 64;
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    public CoOccurrenceMatrix() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    // Count item together with each of the others (both directions)
+    public void addPairs(long item, long[] others, int count) {
+        for (int i = 0; i < count; i++) {
+            if (others[i] != item) {
+                increment(item, others[i]);
+                increment(others[i], item);
+            }
+        }
+    }
+
+    // Count every pair within one basket (a member's distinct borrowed books)
+    public void addBasket(long[] items, int count) {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (items[i] != items[j]) {
+                    increment(items[i], items[j]);
+                    increment(items[j], items[i]);
+                }
+            }
+        }
+    }
+
+    private void increment(long row, long column) {
+        Shard shard = shardFor(row);
+        synchronized (shard) {
+            shard.rows.computeIfAbsent(row, key -> new LongIntHashMap()).addTo(column, 1);
+        }
+    }
+
+    public int count(long row, long column) {
+        Shard shard = shardFor(row);
+        synchronized (shard) {
+            LongIntHashMap cells = shard.rows.get(row);
+            return cells == null ? 0 : cells.get(column);
+        }
+    }
+
+    // The k items most often seen with item, highest count first (ties: lower ID first)
+    public List<Scored> topK(long item, int k) {
+        long[] heapIds = new long[k];
+        int[] heapCounts = new int[k];
+        int[] heapSize = {0};
+
+        Shard shard = shardFor(item);
+        synchronized (shard) {
+            LongIntHashMap cells = shard.rows.get(item);
+            if (cells == null || k <= 0) {
+                return List.of();
+            }
+            // Min-heap on (count, -id) holding the best k seen so far
+            cells.forEach((id, count) -> {
+                if (heapSize[0] < k) {
+                    heapIds[heapSize[0]] = id;
+                    heapCounts[heapSize[0]] = count;
+                    siftUp(heapIds, heapCounts, heapSize[0]++);
+                } else if (better(count, id, heapCounts[0], heapIds[0])) {
+                    heapIds[0] = id;
+                    heapCounts[0] = count;
+                    siftDown(heapIds, heapCounts, heapSize[0]);
+                }
+            });
+        }
+
+        List<Scored> result = new ArrayList<>(heapSize[0]);
+        for (int size = heapSize[0]; size > 0; size--) {
+            result.add(new Scored(heapIds[0], heapCounts[0]));
+            heapIds[0] = heapIds[size - 1];
+            heapCounts[0] = heapCounts[size - 1];
+            siftDown(heapIds, heapCounts, size - 1);
+        }
+        return result.reversed();
+    }
+
+    private static boolean better(int count, long id, int otherCount, long otherId) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+
+    private static void siftUp(long[] ids, int[] counts, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(counts[parent], ids[parent], counts[index], ids[index])) {
+                return;
+            }
+            swap(ids, counts, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] ids, int[] counts, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && better(counts[smallest], ids[smallest], counts[right], ids[right])) {
+                smallest = right;
+            }
+            if (!better(counts[index], ids[index], counts[smallest], ids[smallest])) {
+                return;
+            }
+            swap(ids, counts, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(long[] ids, int[] counts, int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                rows += shard.rows.size();
+            }
+        }
+        return rows;
+    }
+
+    public long cellCount() {
+        long[] cells = {0};
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.rows.forEachValue(row -> cells[0] += row.size());
+            }
+        }
+        return cells[0];
+    }
+
+    // Approximate retained size of the matrix (array payloads plus per-row object overhead)
+    public long estimatedBytes() {
+        long[] bytes = {0};
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                bytes[0] += shard.rows.estimatedBytes();
+                shard.rows.forEachValue(row -> bytes[0] += row.estimatedBytes() + 64);
+            }
+        }
+        return bytes[0];
+    }
+
+    public void clear() {
+        for (int i = 0; i < SHARDS; i++) {
+            synchronized (shards[i]) {
+                shards[i].rows = new LongObjectHashMap<>();
+            }
+        }
+    }
+
+    private Shard shardFor(long row) {
+        return shards[LongIntHashMap.mix(row) & (SHARDS - 1)];
+    }
+
+    private static final class Shard {
+        private LongObjectHashMap<LongIntHashMap> rows = new LongObjectHashMap<>();
+    }
+
+    public record Scored(long id, int count) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.management.demo.util;
+
+import java.util.List;
+
+// The transaction IDs a snapshot read could see: everything up to its high-water mark
+// except the gaps. A gap is an ID that was rolled back, or that belonged to a transaction
+// still uncommitted when the snapshot was taken; the latter commit later with an ID below
+// the mark, so "id <= mark" alone would take them for rows the snapshot already read.
+// Immutable; gaps are inclusive [start, end] ranges in ascending order.
+public final class ScannedIds {
+
+    // Nothing scanned: every ID is new
+    public static final ScannedIds NONE = new ScannedIds(0, List.of());
+
+    private final long highWaterMark;
+    private final long[] gapStarts;
+    private final long[] gapEnds;
+
+    public ScannedIds(long highWaterMark, List<long[]> gaps) {
+        this.highWaterMark = highWaterMark;
+        gapStarts = new long[gaps.size()];
+        gapEnds = new long[gaps.size()];
+        for (int i = 0; i < gaps.size(); i++) {
+            gapStarts[i] = gaps.get(i)[0];
+            gapEnds[i] = gaps.get(i)[1];
+        }
+    }
+
+    public long highWaterMark() {
+        return highWaterMark;
+    }
+
+    public int gapCount() {
+        return gapStarts.length;
+    }
+
+    public boolean contains(long id) {
+        if (id > highWaterMark) {
+            return false;
+        }
+        // Last gap starting at or before id
+        int low = 0;
+        int high = gapStarts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (gapStarts[mid] <= id) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high < 0 || id > gapEnds[high];
+    }
+}
@@ -0,0 +1,92 @@
+package com.management.demo.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Collapses concurrent calls for the same key into a single execution.
+// The first caller for a key runs the loader; everyone who arrives while it is
+// still running waits for and shares that result. Nothing is cached afterwards,
+// so the next burst triggers a fresh load.
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        // Counted only once the caller has joined a flight, so calls == n means all n are attached
+        calls.increment();
+        if (existing != null) {
+            return await(existing);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    // Rethrow the leader's failure as-is instead of wrapped in a CompletionException
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    // Share of calls that were answered by somebody else's query
+    public double getCoalescingRatio() {
+        long total = getCalls();
+        return total == 0 ? 0.0 : 1.0 - (double) getExecutions() / total;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("libraryhub.singleflight.calls", this, SingleFlight::getCalls)
+                .tag("lookup", name)
+                .description("Lookups requested")
+                .register(registry);
+        FunctionCounter.builder("libraryhub.singleflight.executions", this, SingleFlight::getExecutions)
+                .tag("lookup", name)
+                .description("Lookups that actually reached the database")
+                .register(registry);
+        Gauge.builder("libraryhub.singleflight.coalescing.ratio", this, SingleFlight::getCoalescingRatio)
+                .tag("lookup", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,119 @@
+package com.management.demo.util;
+
+import java.util.Arrays;
+
+// Count-min sketch over a ring of time buckets, for approximate per-item counts over
+// a sliding window in fixed memory (depth x width counters per bucket).
+//
+// Error bounds, for a window that saw N events in total:
+//   - estimate(item) is never below the true count;
+//   - with probability at least 1 - delta, it is at most true count + epsilon * N,
+//     where epsilon = e / width and delta = e^-depth.
+// Window counts are summed per row across buckets before taking the row minimum,
+// so a multi-bucket window has the same bounds as one sketch over the whole window.
+// Buckets are reused as time moves on; anything older than the ring is forgotten.
+public class WindowedCountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[] seeds;
+    private final long bucketMillis;
+    private final int[][] counters;
+    private final long[] bucketSlots;
+    private final long[] bucketTotals;
+
+    // width is rounded up to a power of two
+    public WindowedCountMinSketch(int depth, int width, int buckets, long bucketMillis) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.bucketMillis = bucketMillis;
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = 0x9E3779B97F4A7C15L * (row + 1);
+        }
+        this.counters = new int[buckets][depth * this.width];
+        this.bucketSlots = new long[buckets];
+        this.bucketTotals = new long[buckets];
+        Arrays.fill(bucketSlots, Long.MIN_VALUE);
+    }
+
+    // Count one occurrence of item at the given time; too-old events are dropped
+    public synchronized void add(long item, long timeMillis, long nowMillis) {
+        long slot = Math.floorDiv(timeMillis, bucketMillis);
+        if (slot <= Math.floorDiv(nowMillis, bucketMillis) - counters.length) {
+            return;
+        }
+        int bucket = bucketIndex(slot);
+        if (bucketSlots[bucket] != slot) {
+            if (bucketSlots[bucket] > slot) {
+                return;
+            }
+            Arrays.fill(counters[bucket], 0);
+            bucketSlots[bucket] = slot;
+            bucketTotals[bucket] = 0;
+        }
+        int[] cells = counters[bucket];
+        for (int row = 0; row < depth; row++) {
+            cells[row * width + column(row, item)]++;
+        }
+        bucketTotals[bucket]++;
+    }
+
+    // Estimated count of item over the latest windowBuckets buckets (including the current one)
+    public synchronized long estimate(long item, long nowMillis, int windowBuckets) {
+        long nowSlot = Math.floorDiv(nowMillis, bucketMillis);
+        int span = Math.min(windowBuckets, counters.length);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + column(row, item);
+            long sum = 0;
+            for (int back = 0; back < span; back++) {
+                int bucket = bucketIndex(nowSlot - back);
+                if (bucketSlots[bucket] == nowSlot - back) {
+                    sum += counters[bucket][cell];
+                }
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    // Exact number of events over the latest windowBuckets buckets
+    public synchronized long total(long nowMillis, int windowBuckets) {
+        long nowSlot = Math.floorDiv(nowMillis, bucketMillis);
+        int span = Math.min(windowBuckets, counters.length);
+        long total = 0;
+        for (int back = 0; back < span; back++) {
+            int bucket = bucketIndex(nowSlot - back);
+            if (bucketSlots[bucket] == nowSlot - back) {
+                total += bucketTotals[bucket];
+            }
+        }
+        return total;
+    }
+
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    public double delta() {
+        return Math.exp(-depth);
+    }
+
+    public long estimatedBytes() {
+        return (long) counters.length * depth * width * Integer.BYTES;
+    }
+
+    private int bucketIndex(long slot) {
+        return (int) Math.floorMod(slot, (long) counters.length);
+    }
+
+    // Independent-enough hash per row: seeded splitmix64 finalizer
+    private int column(int row, long item) {
+        long h = item ^ seeds[row];
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) h & (width - 1);
+    }
+}
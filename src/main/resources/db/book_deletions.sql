@@ -0,0 +1,11 @@
+-- Tombstones of deleted books, so the catalog cache can apply deletes from a delta
+-- query instead of rescanning every book. Rows older than
+-- libraryhub.catalog.tombstone-retention-days are purged.
+CREATE TABLE IF NOT EXISTS book_deletions (
+    book_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_book_deletions_deleted_at ON book_deletions (deleted_at);
+
+-- Delta fetch of changed books at startup and on every refresh
+CREATE INDEX IF NOT EXISTS idx_books_updated_at ON books (updated_at);
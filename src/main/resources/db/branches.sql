@@ -0,0 +1,5 @@
+-- Branch key for multi-branch sharding (ShardResolver). Run on every branch database,
+-- replacing 'main' with that branch's name from libraryhub.sharding.*.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS branch VARCHAR(50) NOT NULL DEFAULT 'main';
+ALTER TABLE members ADD COLUMN IF NOT EXISTS branch VARCHAR(50) NOT NULL DEFAULT 'main';
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS branch VARCHAR(50) NOT NULL DEFAULT 'main';
@@ -0,0 +1,18 @@
+-- Pre-aggregated circulation per day and per month, by book category and member cohort
+-- (the year the member joined). Kept current by CirculationReportService; rebuild with
+-- POST /api/reports/circulation/backfill.
+CREATE TABLE IF NOT EXISTS circulation_rollups (
+    grain            VARCHAR(5)    NOT NULL,  -- DAY | MONTH
+    period_start     DATE          NOT NULL,  -- the day, or the first day of the month
+    category         VARCHAR(100)  NOT NULL,
+    cohort           INTEGER       NOT NULL,  -- membership year, 0 when unknown
+    issues           INTEGER       NOT NULL DEFAULT 0,
+    returns          INTEGER       NOT NULL DEFAULT 0,
+    overdue_returns  INTEGER       NOT NULL DEFAULT 0,
+    fines            NUMERIC(12,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (grain, period_start, category, cohort)
+);
+
+-- Month-by-month backfill scans
+CREATE INDEX IF NOT EXISTS idx_transactions_issue_date ON transactions (issue_date);
+CREATE INDEX IF NOT EXISTS idx_transactions_return_date ON transactions (return_date) WHERE return_date IS NOT NULL;
@@ -0,0 +1,5 @@
+-- Membership tier for fine discounts (libraryhub.fines.tiers.<tier>.discount-percent)
+ALTER TABLE members ADD COLUMN IF NOT EXISTS tier VARCHAR(20) NOT NULL DEFAULT 'STANDARD';
+
+-- Fine report: open loans past their due date
+CREATE INDEX IF NOT EXISTS idx_transactions_open_due ON transactions (due_date) WHERE status = 'ISSUED';
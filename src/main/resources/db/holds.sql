@@ -0,0 +1,16 @@
+-- Reservation queue for titles with no copies on the shelf (HoldService)
+CREATE TABLE IF NOT EXISTS holds (
+    id          BIGSERIAL PRIMARY KEY,
+    book_id     BIGINT      NOT NULL REFERENCES books (id) ON DELETE CASCADE,
+    member_id   BIGINT      NOT NULL REFERENCES members (id) ON DELETE CASCADE,
+    status      VARCHAR(20) NOT NULL DEFAULT 'WAITING',  -- WAITING | READY | FULFILLED | EXPIRED | CANCELLED
+    created_at  TIMESTAMP   NOT NULL DEFAULT now(),
+    ready_at    TIMESTAMP,
+    expires_at  TIMESTAMP,
+    updated_at  TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+-- Queue order per title, and one open hold per member and title
+CREATE INDEX IF NOT EXISTS idx_holds_book_waiting ON holds (book_id, created_at, id) WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS idx_holds_ready_expiry ON holds (expires_at) WHERE status = 'READY';
+CREATE UNIQUE INDEX IF NOT EXISTS uq_holds_open_per_member ON holds (book_id, member_id) WHERE status IN ('WAITING', 'READY');
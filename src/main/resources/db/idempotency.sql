@@ -0,0 +1,14 @@
+-- Shared Idempotency-Key store for multi-instance deployments
+-- (libraryhub.idempotency.jdbc.enabled=true; lives in the default branch database)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key  VARCHAR(255) PRIMARY KEY,
+    fingerprint      TEXT         NOT NULL,
+    state            VARCHAR(10)  NOT NULL,  -- IN_FLIGHT | COMPLETED
+    status           INTEGER,
+    content_type     VARCHAR(255),
+    body             BYTEA,
+    created_at       TIMESTAMP    NOT NULL,
+    expires_at       TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,6 @@
+-- Lapsed-member sweeps (MemberLifecycleService). The "no open or recent loan" anti-join is
+-- answered from this index alone, without reading each member's loan rows.
+CREATE INDEX IF NOT EXISTS idx_transactions_member_issue ON transactions (member_id, issue_date) INCLUDE (status);
+
+-- Open holds per member
+CREATE INDEX IF NOT EXISTS idx_holds_member_open ON holds (member_id) WHERE status IN ('WAITING', 'READY');
@@ -0,0 +1,3 @@
+-- Row versions for optimistic locking of books and members (ETag / If-Match on PUT)
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE members ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Due-date reminders already sent (or being sent) per loan (ReminderService).
+-- A PENDING row is a claim by a running dispatch; one older than the claim timeout is
+-- treated as abandoned and sent again.
+CREATE TABLE IF NOT EXISTS reminder_log (
+    transaction_id  BIGINT      NOT NULL REFERENCES transactions (id) ON DELETE CASCADE,
+    kind            VARCHAR(20) NOT NULL,  -- DUE_SOON | OVERDUE
+    status          VARCHAR(10) NOT NULL,  -- PENDING | SENT
+    claimed_at      TIMESTAMP   NOT NULL,
+    sent_at         TIMESTAMP,
+    PRIMARY KEY (transaction_id, kind)
+);
+
+-- Keyset paging of open loans by due date
+CREATE INDEX IF NOT EXISTS idx_transactions_open_due_id ON transactions (due_date, id) WHERE status = 'ISSUED';
@@ -0,0 +1,50 @@
+-- Core tables, with every column added since by the scripts next to this one (branches.sql,
+-- optimistic_locking.sql, fine_policy.sql), so a new database needs only this file plus the
+-- feature tables it uses (holds.sql, reminders.sql, book_deletions.sql, ...).
+CREATE TABLE IF NOT EXISTS books (
+    id                BIGSERIAL PRIMARY KEY,
+    isbn              VARCHAR(20)  NOT NULL UNIQUE,
+    title             VARCHAR(255) NOT NULL,
+    author            VARCHAR(255) NOT NULL,
+    category          VARCHAR(100),
+    publication_year  INT,
+    total_copies      INT          NOT NULL DEFAULT 1 CHECK (total_copies >= 1),
+    available_copies  INT          NOT NULL DEFAULT 1 CHECK (available_copies >= 0),
+    branch            VARCHAR(50)  NOT NULL DEFAULT 'main',
+    version           BIGINT       NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS members (
+    id                BIGSERIAL PRIMARY KEY,
+    member_id         VARCHAR(20)  NOT NULL UNIQUE,
+    first_name        VARCHAR(100) NOT NULL,
+    last_name         VARCHAR(100) NOT NULL,
+    email             VARCHAR(255) NOT NULL UNIQUE,
+    phone             VARCHAR(20),
+    address           VARCHAR(255),
+    membership_date   DATE         NOT NULL DEFAULT CURRENT_DATE,
+    is_active         BOOLEAN      NOT NULL DEFAULT TRUE,
+    tier              VARCHAR(20)  NOT NULL DEFAULT 'STANDARD',
+    branch            VARCHAR(50)  NOT NULL DEFAULT 'main',
+    version           BIGINT       NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id                BIGSERIAL PRIMARY KEY,
+    book_id           BIGINT        NOT NULL REFERENCES books (id) ON DELETE CASCADE,
+    member_id         BIGINT        NOT NULL REFERENCES members (id) ON DELETE CASCADE,
+    issue_date        DATE          NOT NULL,
+    due_date          DATE          NOT NULL,
+    return_date       DATE,
+    fine_amount       NUMERIC(10, 2) NOT NULL DEFAULT 0,
+    status            VARCHAR(20)   NOT NULL DEFAULT 'ISSUED',  -- ISSUED | RETURNED | OVERDUE
+    branch            VARCHAR(50)   NOT NULL DEFAULT 'main',
+    created_at        TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_book ON transactions (book_id);
+CREATE INDEX IF NOT EXISTS idx_transactions_member ON transactions (member_id);
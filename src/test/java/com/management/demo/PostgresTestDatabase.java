@@ -0,0 +1,47 @@
+package com.management.demo;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+// PostgreSQL for tests of SQL that H2 cannot run (row locks, SKIP LOCKED, RETURNING, UPDATE ... FROM).
+// One container per test run, started on first use; every create() is a new database with the
+// tables of src/main/resources/db. Test classes using it are annotated
+// @Testcontainers(disabledWithoutDocker = true), so they are skipped where Docker is missing.
+public final class PostgresTestDatabase {
+
+    private static final String[] SCRIPTS = {"schema.sql", "holds.sql", "reminders.sql", "circulation_rollups.sql",
+            "member_lifecycle.sql", "book_deletions.sql", "idempotency.sql"};
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    public static synchronized DataSource create() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        String name = "test_" + UUID.randomUUID().toString().replace("-", "");
+        new JdbcTemplate(dataSource(container.getJdbcUrl())).execute("CREATE DATABASE " + name);
+
+        DataSource dataSource = dataSource("jdbc:postgresql://" + container.getHost() + ":"
+                + container.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + name);
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        for (String script : SCRIPTS) {
+            populator.addScript(new ClassPathResource("db/" + script));
+        }
+        populator.execute(dataSource);
+        return dataSource;
+    }
+
+    private static DataSource dataSource(String url) {
+        return new DriverManagerDataSource(url, container.getUsername(), container.getPassword());
+    }
+}
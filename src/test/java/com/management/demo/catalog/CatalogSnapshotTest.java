@@ -0,0 +1,58 @@
+package com.management.demo.catalog;
+
+import com.management.demo.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void booksAndWatermarkSurviveTheRoundTrip() throws IOException {
+        LocalDateTime watermark = LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000);
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            books.add(book(id, "Title " + id));
+        }
+        books.get(7).setCategory(null);
+        books.get(8).setTitle("Cien años de soledad");
+        Path file = directory.resolve("catalog.snap");
+
+        CatalogSnapshot.write(file, watermark, books);
+        CatalogSnapshot.Contents contents = CatalogSnapshot.read(file);
+
+        assertThat(contents.watermark()).isEqualTo(watermark);
+        assertThat(contents.books()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(books);
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        Path file = directory.resolve("catalog.snap");
+        CatalogSnapshot.write(file, LocalDateTime.now(), List.of(book(1, "Dune"), book(2, "Emma")));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x01}), 40);
+        }
+
+        assertThatThrownBy(() -> CatalogSnapshot.read(file)).isInstanceOf(IOException.class);
+    }
+
+    private static Book book(long id, String title) {
+        LocalDateTime created = LocalDateTime.of(2025, 1, 1, 9, 30);
+        return new Book(id, "978-" + id, title, "Author " + id, "Fiction", 1990, 3, 2, "main", id % 5,
+                created, created.plusDays(id));
+    }
+}
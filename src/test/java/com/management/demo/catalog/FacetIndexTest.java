@@ -0,0 +1,146 @@
+package com.management.demo.catalog;
+
+import com.management.demo.datagen.DataGenSettings;
+import com.management.demo.datagen.SyntheticLibrary;
+import com.management.demo.model.Book;
+import com.management.demo.model.CatalogBrowseResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.put(book(1, "Dune", "Herbert", "Fiction", 1965, 2));
+        index.put(book(2, "Emma", "Austen", "Fiction", 1815, 0));
+        index.put(book(3, "Cosmos", "Sagan", "Science", 1980, 1));
+        index.put(book(4, "Contact", "Sagan", "Fiction", 1985, 1));
+        index.put(book(5, "Brief History of Time", "Hawking", "Science", 1988, 0));
+    }
+
+    @Test
+    void filtersIntersectAcrossFacetsAndUnionWithinOne() {
+        CatalogBrowseResult result = browse(Map.of(
+                FacetIndex.CATEGORY, Set.of("Fiction", "Science"),
+                FacetIndex.DECADE, Set.of("1980s"),
+                FacetIndex.AVAILABLE, Set.of("true")), null);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getBooks()).extracting(Book::getTitle).containsExactly("Contact", "Cosmos");
+    }
+
+    @Test
+    void selectedFacetIsCountedAgainstTheOtherFiltersOnly() {
+        CatalogBrowseResult result = browse(Map.of(FacetIndex.CATEGORY, Set.of("Science")), null);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getFacets().get(FacetIndex.CATEGORY))
+                .containsExactly(entry("Fiction", 3), entry("Science", 2));
+        assertThat(result.getFacets().get(FacetIndex.AUTHOR))
+                .containsExactly(entry("Hawking", 1), entry("Sagan", 1));
+        assertThat(result.getFacets().get(FacetIndex.AVAILABLE))
+                .containsOnly(entry("false", 1), entry("true", 1));
+    }
+
+    @Test
+    void textNarrowsTheResultLikeTheDatabaseSearch() {
+        CatalogBrowseResult result = browse(Map.of(), "SAGAN");
+
+        assertThat(result.getBooks()).extracting(Book::getId).containsExactly(4L, 3L);
+        assertThat(result.getFacets().get(FacetIndex.DECADE)).containsExactly(entry("1980s", 2));
+    }
+
+    @Test
+    void updatesAndRemovalsMoveBooksBetweenValues() {
+        index.put(book(2, "Emma", "Austen", "Fiction", 1815, 1));
+        index.remove(3L);
+        index.put(book(6, "Persuasion", "Austen", "Fiction", 1817, 1));
+
+        CatalogBrowseResult result = browse(Map.of(FacetIndex.AVAILABLE, Set.of("true")), null);
+
+        assertThat(result.getBooks()).extracting(Book::getTitle).containsExactly("Contact", "Dune", "Emma", "Persuasion");
+        assertThat(result.getFacets().get(FacetIndex.AUTHOR)).containsEntry("Austen", 2).doesNotContainKey("Sagan");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void pagesFollowTitleOrder() {
+        CatalogBrowseResult second = index.browse(new FacetIndex.Query(Map.of(), null, 1, 2, 10));
+
+        assertThat(second.getTotal()).isEqualTo(5);
+        assertThat(second.getBooks()).extracting(Book::getTitle).containsExactly("Cosmos", "Dune");
+        assertThat(index.browse(new FacetIndex.Query(Map.of(), null, 3, 2, 10)).getBooks()).isEmpty();
+    }
+
+    // Browse latency on a million-title catalogue from the synthetic data generator:
+    //   ./mvnw test -Dtest=FacetIndexTest -Dbenchmark=true -DargLine=-Xmx4g (-Dbenchmark.books=1000000)
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAtCatalogueScale() {
+        int books = Integer.getInteger("benchmark.books", 1_000_000);
+        int queries = Integer.getInteger("benchmark.queries", 2_000);
+        SyntheticLibrary library = new SyntheticLibrary(DataGenSettings.fromSystemProperties().withScale(books, 1, 0, 42));
+
+        long start = System.nanoTime();
+        FacetIndex large = new FacetIndex();
+        for (int i = 0; i < books; i++) {
+            large.put(library.book(i));
+        }
+        System.out.printf("Indexed %,d books in %d ms%n", books, (System.nanoTime() - start) / 1_000_000);
+
+        Map<String, Map<String, Set<String>>> shapes = Map.of(
+                "no filter", Map.of(),
+                "one category", Map.of(FacetIndex.CATEGORY, Set.of("Fiction")),
+                "category + decade + available", Map.of(
+                        FacetIndex.CATEGORY, Set.of("Science", "History"),
+                        FacetIndex.DECADE, Set.of("1990s"),
+                        FacetIndex.AVAILABLE, Set.of("true")),
+                "one author", Map.of(FacetIndex.AUTHOR, Set.of("Donald Knuth")));
+        for (Map.Entry<String, Map<String, Set<String>>> shape : shapes.entrySet()) {
+            FacetIndex.Query query = new FacetIndex.Query(shape.getValue(), null, 0, 20, 20);
+            for (int i = 0; i < queries / 10; i++) {
+                large.browse(query);
+            }
+            long[] nanos = new long[queries];
+            long total = 0;
+            for (int i = 0; i < queries; i++) {
+                long t0 = System.nanoTime();
+                total += large.browse(query).getTotal();
+                nanos[i] = System.nanoTime() - t0;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-30s matches=%,d p50=%.2f ms p99=%.2f ms%n", shape.getKey(), total / queries,
+                    nanos[queries / 2] / 1e6, nanos[queries * 99 / 100] / 1e6);
+        }
+    }
+
+    private CatalogBrowseResult browse(Map<String, Set<String>> filters, String text) {
+        return index.browse(new FacetIndex.Query(new HashMap<>(filters), text, 0, 20, 20));
+    }
+
+    private static Book book(long id, String title, String author, String category, int year, int available) {
+        Book book = new Book();
+        book.setId(id);
+        book.setIsbn("978-" + id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setPublicationYear(year);
+        book.setTotalCopies(Math.max(1, available));
+        book.setAvailableCopies(available);
+        book.setVersion(0L);
+        return book;
+    }
+}
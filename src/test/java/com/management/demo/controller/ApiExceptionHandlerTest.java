@@ -0,0 +1,195 @@
+package com.management.demo.controller;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.LibraryException;
+import com.management.demo.exception.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiExceptionHandlerTest {
+
+    // Roughly how deep a service call sits below the servlet container and Spring MVC
+    private static final int CALL_DEPTH = 120;
+
+    private final ApiExceptionHandler handler = new ApiExceptionHandler();
+
+    @Test
+    void domainExceptionsBecomeProblemDetailsWithoutStackTraces() {
+        NotFoundException notFound = new NotFoundException("Book", 7L);
+        assertThat(notFound.getStackTrace()).isEmpty();
+
+        ResponseEntity<ProblemDetail> response = handler.handleLibraryException(notFound,
+                new MockHttpServletRequest("PUT", "/api/books/7"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        ProblemDetail problem = response.getBody();
+        assertThat(problem.getDetail()).isEqualTo("Book not found with id: 7");
+        assertThat(problem.getInstance()).isEqualTo(URI.create("/api/books/7"));
+        assertThat(problem.getProperties()).containsEntry("code", "book-not-found");
+    }
+
+    @Test
+    void staleVersionIsAConflict() {
+        ResponseEntity<ProblemDetail> response = handler.handleStaleVersion(
+                new OptimisticLockingFailureException("Book 7 was changed by someone else (version 2 is stale)"),
+                new MockHttpServletRequest("PUT", "/api/books/7"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getProperties()).containsEntry("code", "version-conflict");
+        assertThat(response.getBody().getDetail()).contains("version 2 is stale");
+    }
+
+    @Test
+    void unexpectedErrorsDoNotLeakTheirMessage() {
+        ResponseEntity<ProblemDetail> response = handler.handleUnexpected(
+                new IllegalStateException("connection string with password"), new MockHttpServletRequest("GET", "/api/books"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().getDetail()).isEqualTo("Unexpected error");
+        assertThat(response.getBody().getProperties()).containsEntry("code", "internal-error");
+    }
+
+    // Failed checkouts per second, with every thread hitting a title that has run out:
+    // before (RuntimeException with a stack trace, printed by the controller) and after
+    // (stackless ConflictException, problem detail, asynchronous log event). Both write to a
+    // discarding stream, so the difference is the exception and logging cost alone.
+    //   ./mvnw test -Dtest=ApiExceptionHandlerTest -Dbenchmark=true (-Dbenchmark.threads=8 -Dbenchmark.seconds=5)
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkErrorPath() throws InterruptedException {
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+        int seconds = Integer.getInteger("benchmark.seconds", 5);
+
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        LongFunction<ResponseEntity<?>> before = bookId -> {
+            try {
+                issue(bookId, CALL_DEPTH, false);
+                return ResponseEntity.ok().build();
+            } catch (RuntimeException e) {
+                discard.println("Error issuing book: " + e.getMessage());
+                e.printStackTrace(discard);
+                return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+            }
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transactions/issue");
+        LongFunction<ResponseEntity<?>> after = bookId -> {
+            try {
+                issue(bookId, CALL_DEPTH, true);
+                return ResponseEntity.ok().build();
+            } catch (LibraryException e) {
+                return handler.handleLibraryException(e, request);
+            }
+        };
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger errors = context.getLogger("libraryhub.errors");
+        AsyncAppender async = asyncDiscardingAppender(context);
+        errors.addAppender(async);
+        errors.setAdditive(false);
+        errors.setLevel(Level.INFO);
+        try {
+            // Warm-up
+            run(before, threads, 1);
+            run(after, threads, 1);
+            double beforeRate = run(before, threads, seconds);
+            double afterRate = run(after, threads, seconds);
+            System.out.printf("threads=%d  before: %,.0f errors/s  after: %,.0f errors/s  (%.1fx)%n",
+                    threads, beforeRate, afterRate, afterRate / beforeRate);
+        } finally {
+            errors.detachAppender(async);
+            errors.setAdditive(true);
+            errors.setLevel(null);
+            async.stop();
+        }
+    }
+
+    // Checkout of a title with no copies left, thrown from depth frames down
+    private static void issue(long bookId, int depth, boolean typed) {
+        if (depth > 0) {
+            issue(bookId, depth - 1, typed);
+            return;
+        }
+        if (typed) {
+            throw new ConflictException("no-copies-available", "No copies available for book: " + bookId);
+        }
+        throw new RuntimeException("No copies available for book: " + bookId);
+    }
+
+    private static double run(LongFunction<ResponseEntity<?>> path, int threads, int seconds) throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long bookId = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 100; i++) {
+                        if (!path.apply(++bookId).getStatusCode().is4xxClientError()) {
+                            throw new AssertionError("Checkout " + bookId + " did not fail");
+                        }
+                    }
+                    calls.add(100);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return calls.sum() * 1e9 / (System.nanoTime() - began);
+    }
+
+    // The production shape (logback-spring.xml) minus the disk
+    private static AsyncAppender asyncDiscardingAppender(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %kvp %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(sink);
+        async.start();
+        return async;
+    }
+}
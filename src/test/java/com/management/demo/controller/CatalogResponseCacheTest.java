@@ -0,0 +1,115 @@
+package com.management.demo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.management.demo.catalog.CatalogCache;
+import com.management.demo.model.Book;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponseCacheTest {
+
+    private CatalogCache catalogCache;
+    private CatalogResponseCache responseCache;
+    private final List<Book> books = new ArrayList<>();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ShardResolver shardResolver = new ShardResolver(new ShardingProperties());
+        catalogCache = new CatalogCache();
+        ReflectionTestUtils.setField(catalogCache, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(catalogCache, "ready", true);
+
+        responseCache = new CatalogResponseCache();
+        ReflectionTestUtils.setField(responseCache, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(responseCache, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(responseCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(responseCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(responseCache, "maxEntries", 16);
+        ReflectionTestUtils.setField(responseCache, "minGzipBytes", 64);
+        responseCache.registerMetrics();
+
+        for (long id = 1; id <= 50; id++) {
+            addBook(id, "Title " + id);
+        }
+    }
+
+    @Test
+    void unchangedCatalogIsServedWithoutRendering() {
+        ResponseEntity<?> first = get(null, null);
+        ResponseEntity<?> second = get(null, null);
+
+        assertThat(renders).hasValue(1);
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(new String((byte[]) second.getBody())).contains("\"title\":\"Title 7\"");
+    }
+
+    @Test
+    void bookChangeInvalidatesTheEntry() {
+        String before = new String((byte[]) get(null, null).getBody());
+        addBook(51, "Brand New");
+        String after = new String((byte[]) get(null, null).getBody());
+
+        assertThat(renders).hasValue(2);
+        assertThat(before).doesNotContain("Brand New");
+        assertThat(after).contains("Brand New");
+    }
+
+    @Test
+    void gzipVariantIsServedWhenAccepted() throws IOException {
+        byte[] json = (byte[]) get(null, null).getBody();
+        ResponseEntity<?> compressed = get("br, gzip;q=0.8", null);
+
+        assertThat(compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        byte[] gzip = (byte[]) compressed.getBody();
+        assertThat(gzip.length).isLessThan(json.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertThat(in.readAllBytes()).isEqualTo(json);
+        }
+        assertThat(get("gzip;q=0", null).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void matchingEntityTagGetsNotModified() {
+        String eTag = get(null, null).getHeaders().getETag();
+
+        assertThat(get(null, eTag).getStatusCode().value()).isEqualTo(304);
+        addBook(52, "Another");
+        assertThat(get(null, eTag).getStatusCode().value()).isEqualTo(200);
+    }
+
+    private ResponseEntity<?> get(String acceptEncoding, String ifNoneMatch) {
+        return responseCache.respond("all", false, acceptEncoding, ifNoneMatch, () -> {
+            renders.incrementAndGet();
+            return List.copyOf(books);
+        });
+    }
+
+    private void addBook(long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setIsbn("978-" + id);
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setVersion(0L);
+        books.add(book);
+        catalogCache.put(book);
+    }
+}
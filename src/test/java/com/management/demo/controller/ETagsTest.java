@@ -0,0 +1,33 @@
+package com.management.demo.controller;
+
+import com.management.demo.exception.InvalidInputException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagsTest {
+
+    @Test
+    void ifMatchNamesTheVersionOfTheTagWeSent() {
+        assertThat(ETags.parseIfMatch(ETags.of(3L))).isEqualTo(3L);
+        assertThat(ETags.parseIfMatch(" \"12\" ")).isEqualTo(12L);
+        // Proxies may weaken a tag on the way back
+        assertThat(ETags.parseIfMatch("W/\"7\"")).isEqualTo(7L);
+    }
+
+    @Test
+    void missingOrWildcardIfMatchAcceptsAnyVersion() {
+        assertThat(ETags.parseIfMatch(null)).isNull();
+        assertThat(ETags.parseIfMatch("  ")).isNull();
+        assertThat(ETags.parseIfMatch("*")).isNull();
+    }
+
+    @Test
+    void tagsThatAreNotOursAreRejected() {
+        assertThatThrownBy(() -> ETags.parseIfMatch("3")).isInstanceOf(InvalidInputException.class);
+        assertThatThrownBy(() -> ETags.parseIfMatch("\"\"")).isInstanceOf(InvalidInputException.class);
+        assertThatThrownBy(() -> ETags.parseIfMatch("\"abc\"")).isInstanceOf(InvalidInputException.class);
+        assertThatThrownBy(() -> ETags.parseIfMatch("\"1\", \"2\"")).isInstanceOf(InvalidInputException.class);
+    }
+}
@@ -0,0 +1,207 @@
+package com.management.demo.datagen;
+
+import com.management.demo.model.Book;
+import com.management.demo.model.Member;
+import com.management.demo.model.Transaction;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.function.Consumer;
+
+// Streams a SyntheticLibrary into PostgreSQL with COPY (text format), generating rows as it
+// sends them, so memory stays flat at any scale. Runs in one transaction: a failed load leaves
+// nothing behind. Generated IDs are shifted past the rows already in each table, and the ID
+// sequences are moved past the new rows afterwards.
+// A database that already has generated rows (GEN- ISBNs and member IDs) of the same scale is
+// left as it is, so repeated runs reuse one load.
+public class CopyLoader {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final DataSource dataSource;
+
+    public CopyLoader(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Returns false when generated data was already there
+    public boolean load(SyntheticLibrary library) throws SQLException {
+        DataGenSettings settings = library.settings();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long existingBooks = queryLong(connection, "SELECT COUNT(*) FROM books WHERE isbn LIKE '" + SyntheticLibrary.PREFIX + "%'");
+            long existingMembers = queryLong(connection, "SELECT COUNT(*) FROM members WHERE member_id LIKE '" + SyntheticLibrary.PREFIX + "%'");
+            if (existingBooks == settings.books() && existingMembers == settings.members()) {
+                connection.rollback();
+                System.out.println("Generated data already present; reusing it");
+                return false;
+            }
+            if (existingBooks > 0 || existingMembers > 0) {
+                throw new IllegalStateException("The database holds generated data of another scale (" + existingBooks
+                        + " books, " + existingMembers + " members); delete the " + SyntheticLibrary.PREFIX + " rows first");
+            }
+            long bookBase = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM books");
+            long memberBase = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM members");
+            long transactionBase = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM transactions");
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+
+            try {
+                long start = System.nanoTime();
+                copy(copyManager, "COPY books (id, isbn, title, author, category, publication_year, total_copies, "
+                        + "available_copies, created_at, updated_at) FROM STDIN", rows -> {
+                    for (int i = 0; i < settings.books(); i++) {
+                        Book book = library.book(i);
+                        rows.value(bookBase + book.getId()).value(book.getIsbn()).value(book.getTitle())
+                                .value(book.getAuthor()).value(book.getCategory()).value(book.getPublicationYear())
+                                .value(book.getTotalCopies()).value(book.getAvailableCopies())
+                                .value(book.getCreatedAt()).value(book.getUpdatedAt()).endRow();
+                    }
+                });
+                report("books", settings.books(), start);
+
+                start = System.nanoTime();
+                copy(copyManager, "COPY members (id, member_id, first_name, last_name, email, phone, address, "
+                        + "membership_date, is_active, tier, created_at, updated_at) FROM STDIN", rows -> {
+                    for (int i = 0; i < settings.members(); i++) {
+                        Member member = library.member(i);
+                        rows.value(memberBase + member.getId()).value(member.getMemberId()).value(member.getFirstName())
+                                .value(member.getLastName()).value(member.getEmail()).value(member.getPhone())
+                                .value(member.getAddress()).value(member.getMembershipDate()).value(member.getIsActive())
+                                .value(member.getTier()).value(member.getCreatedAt()).value(member.getUpdatedAt()).endRow();
+                    }
+                });
+                report("members", settings.members(), start);
+
+                start = System.nanoTime();
+                copy(copyManager, "COPY transactions (id, book_id, member_id, issue_date, due_date, return_date, "
+                        + "fine_amount, status, created_at) FROM STDIN", rows -> library.forEachTransaction(
+                        (Transaction loan) -> rows.value(transactionBase + loan.getId()).value(bookBase + loan.getBookId())
+                                .value(memberBase + loan.getMemberId()).value(loan.getIssueDate()).value(loan.getDueDate())
+                                .value(loan.getReturnDate()).value(loan.getFineAmount().toPlainString())
+                                .value(loan.getStatus()).value(loan.getCreatedAt()).endRow()));
+                report("transactions", settings.transactions(), start);
+
+                try (Statement statement = connection.createStatement()) {
+                    // Copies out on open loans are not on the shelf
+                    statement.execute("""
+                        UPDATE books b SET available_copies = b.total_copies - o.open_loans
+                        FROM (SELECT book_id, COUNT(*) AS open_loans FROM transactions
+                              WHERE status = 'ISSUED' AND id > %d GROUP BY book_id) o
+                        WHERE b.id = o.book_id
+                        """.formatted(transactionBase));
+                    for (String table : new String[]{"books", "members", "transactions"}) {
+                        statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                                + "(SELECT MAX(id) FROM " + table + "))");
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE books, members, transactions");
+            }
+            return true;
+        }
+    }
+
+    private static void copy(CopyManager copyManager, String sql, Consumer<RowWriter> producer) throws SQLException {
+        CopyIn copyIn = copyManager.copyIn(sql);
+        try {
+            RowWriter rows = new RowWriter(copyIn);
+            producer.accept(rows);
+            rows.flush();
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void report(String table, long rows, long startNanos) {
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("Copied %,d %s in %,d ms (%,d rows/s)%n", rows, table, millis, rows * 1000 / millis);
+    }
+
+    // Builds COPY text rows (tab-separated, \N for null) and sends them in 1 MB chunks
+    static final class RowWriter {
+
+        private final CopyIn copyIn;
+        private final StringBuilder row = new StringBuilder(256);
+        private final StringBuilder chunk = new StringBuilder(FLUSH_BYTES + 4096);
+        private boolean firstColumn = true;
+
+        RowWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        RowWriter value(Object value) {
+            if (!firstColumn) {
+                row.append('\t');
+            }
+            firstColumn = false;
+            if (value == null) {
+                row.append("\\N");
+            } else if (value instanceof Number || value instanceof Boolean || value instanceof Temporal) {
+                row.append(value);
+            } else {
+                escape(value.toString());
+            }
+            return this;
+        }
+
+        void endRow() {
+            chunk.append(row).append('\n');
+            row.setLength(0);
+            firstColumn = true;
+            if (chunk.length() >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IllegalStateException("COPY failed", e);
+            }
+            chunk.setLength(0);
+        }
+
+        private void escape(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\' -> row.append("\\\\");
+                    case '\t' -> row.append("\\t");
+                    case '\n' -> row.append("\\n");
+                    case '\r' -> row.append("\\r");
+                    default -> row.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.management.demo.datagen;
+
+import java.time.LocalDate;
+
+// Scale and shape of a SyntheticLibrary, all overridable with -Ddatagen.* system properties.
+// The same settings (including asOf) always produce the same rows.
+public record DataGenSettings(int books,
+                              int members,
+                              long transactions,
+                              long seed,
+                              LocalDate asOf,
+                              int historyDays,
+                              int loanDays,
+                              double overdueRate,
+                              double bookSkew,
+                              double memberSkew,
+                              int finePerDay) {
+
+    public static DataGenSettings fromSystemProperties() {
+        return new DataGenSettings(
+                Integer.parseInt(System.getProperty("datagen.books", "1000000")),
+                Integer.parseInt(System.getProperty("datagen.members", "500000")),
+                Long.parseLong(System.getProperty("datagen.transactions", "50000000")),
+                Long.parseLong(System.getProperty("datagen.seed", "42")),
+                LocalDate.parse(System.getProperty("datagen.as-of", LocalDate.now().toString())),
+                Integer.parseInt(System.getProperty("datagen.history-days", "1095")),
+                Integer.parseInt(System.getProperty("datagen.loan-days", "14")),
+                Double.parseDouble(System.getProperty("datagen.overdue-rate", "0.12")),
+                Double.parseDouble(System.getProperty("datagen.book-skew", "1.05")),
+                Double.parseDouble(System.getProperty("datagen.member-skew", "0.8")),
+                Integer.parseInt(System.getProperty("datagen.fine-per-day", "5")));
+    }
+
+    // Same shape at another scale
+    public DataGenSettings withScale(int books, int members, long transactions, long seed) {
+        return new DataGenSettings(books, members, transactions, seed, asOf, historyDays, loanDays,
+                overdueRate, bookSkew, memberSkew, finePerDay);
+    }
+}
@@ -0,0 +1,218 @@
+package com.management.demo.datagen;
+
+import com.management.demo.model.Book;
+import com.management.demo.model.Member;
+import com.management.demo.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// Deterministic, production-shaped library data: the same settings give the same rows.
+// - Loans pick titles by Zipf popularity (a few titles account for much of the circulation)
+//   and members by a flatter Zipf (some members borrow far more than others). Popularity
+//   ranks are scattered over the IDs, so popular books are not simply the lowest IDs.
+// - Issue dates run evenly through the history window, so transaction IDs follow time.
+//   overdueRate of loans come back late (fined finePerDay per day); loans not yet due back
+//   by asOf are still open, never more per title than it has copies, and those past their
+//   due date are the open overdue loans.
+// - Books and members are generated from their index alone, so they can be produced in
+//   any order or looked up individually.
+// IDs start at 1 per entity; CopyLoader shifts them past rows already in the database.
+// Generated ISBNs and member IDs start with GEN-.
+public class SyntheticLibrary {
+
+    public static final String PREFIX = "GEN-";
+
+    // Shared with the load test's search terms
+    static final String[] WORDS = {"Silent", "River", "Garden", "Empire", "Shadow", "Letters", "Winter",
+            "Algorithm", "History", "Ocean", "Quantum", "Stone", "Journey", "Midnight", "Atlas", "Harvest",
+            "Machine", "Northern", "Paper", "Lantern", "Crown", "Signal", "Orchard", "Glass"};
+    // The most prolific authors; the long tail is built from the name lists below
+    static final String[] AUTHORS = {"R. K. Narayan", "Ursula Le Guin", "Donald Knuth", "Toni Morrison",
+            "Haruki Murakami", "Chimamanda Adichie", "Amitav Ghosh", "Mary Beard", "Ted Chiang", "Zadie Smith"};
+    private static final String[] FIRST_NAMES = {"Aarav", "Priya", "James", "Mei", "Olivia", "Kwame", "Sofia",
+            "Arjun", "Fatima", "Lucas", "Ananya", "Noah", "Yuki", "Elena", "Rohan", "Amara", "Daniel", "Leila",
+            "Vikram", "Grace", "Mateo", "Isha", "Samuel", "Nadia"};
+    private static final String[] LAST_NAMES = {"Sharma", "Okafor", "Chen", "Garcia", "Iyer", "Smith", "Haddad",
+            "Kowalski", "Nakamura", "Patel", "Fernandes", "Mensah", "Rossi", "Khan", "Novak", "Silva", "Das",
+            "Moreau", "Reddy", "Brown", "Ivanova", "Mehta", "Owusu", "Tanaka"};
+    // Repeats weight the draw
+    private static final String[] CATEGORIES = {"Fiction", "Fiction", "Fiction", "Fiction", "Science", "History",
+            "History", "Technology", "Children", "Children", "Biography", "Poetry", "Reference", "Travel"};
+    private static final String[] TIERS = {"STANDARD", "STANDARD", "STANDARD", "STANDARD", "STANDARD",
+            "STANDARD", "STANDARD", "STANDARD", "STUDENT", "SENIOR"};
+
+    private static final long BOOK = 1;
+    private static final long COPIES = 2;
+    private static final long MEMBER = 3;
+    private static final long LOANS = 4;
+
+    private final DataGenSettings settings;
+    private final ZipfSampler bookPopularity;
+    private final ZipfSampler memberActivity;
+    private final ZipfSampler authorOutput;
+    private final RankPermutation bookRanks;
+    private final RankPermutation memberRanks;
+
+    public SyntheticLibrary(DataGenSettings settings) {
+        this.settings = settings;
+        this.bookPopularity = new ZipfSampler(settings.books(), settings.bookSkew());
+        this.memberActivity = new ZipfSampler(settings.members(), settings.memberSkew());
+        this.authorOutput = new ZipfSampler(Math.max(AUTHORS.length, settings.books() / 8), 0.9);
+        this.bookRanks = new RankPermutation(settings.books());
+        this.memberRanks = new RankPermutation(settings.members());
+    }
+
+    public DataGenSettings settings() {
+        return settings;
+    }
+
+    // Book index (0-based) of a loan drawn by popularity; ID is index + 1
+    public int popularBook(SplittableRandom random) {
+        return bookRanks.index(bookPopularity.sample(random));
+    }
+
+    public Book book(int index) {
+        SplittableRandom random = random(BOOK, index);
+        Book book = new Book();
+        book.setId(index + 1L);
+        book.setIsbn(String.format("%s%09d", PREFIX, index));
+        book.setTitle(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + index);
+        book.setAuthor(author(authorOutput.sample(random)));
+        book.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        // Most of a catalogue is recent: ages are exponential with a mean of 18 years
+        int age = (int) Math.min(120, -18 * Math.log(1 - random.nextDouble()));
+        book.setPublicationYear(settings.asOf().getYear() - age);
+        book.setTotalCopies(copies(index));
+        book.setAvailableCopies(book.getTotalCopies());
+        LocalDateTime added = settings.asOf().minusDays(settings.historyDays() + random.nextInt(3650)).atStartOfDay();
+        book.setCreatedAt(added);
+        book.setUpdatedAt(added);
+        return book;
+    }
+
+    // Popular titles are stocked deeper: the top 1% get 3-6 copies, the rest 1-3
+    public int copies(int index) {
+        SplittableRandom random = random(COPIES, index);
+        return bookRanks.rank(index) <= Math.max(1, settings.books() / 100) ? 3 + random.nextInt(4) : 1 + random.nextInt(3);
+    }
+
+    public Member member(int index) {
+        SplittableRandom random = random(MEMBER, index);
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        Member member = new Member();
+        member.setId(index + 1L);
+        member.setMemberId(String.format("%s%08d", PREFIX, index));
+        member.setFirstName(firstName);
+        member.setLastName(lastName);
+        member.setEmail((firstName + "." + lastName + "." + index + "@example.org").toLowerCase(Locale.ROOT));
+        member.setPhone(String.format("+91-9%09d", random.nextInt(1_000_000_000)));
+        member.setAddress((1 + random.nextInt(400)) + " " + WORDS[random.nextInt(WORDS.length)] + " Road");
+        LocalDate joined = settings.asOf().minusDays(random.nextInt(3650));
+        member.setMembershipDate(joined);
+        member.setIsActive(random.nextInt(100) < 95);
+        member.setTier(TIERS[random.nextInt(TIERS.length)]);
+        member.setCreatedAt(joined.atStartOfDay());
+        member.setUpdatedAt(joined.atStartOfDay());
+        return member;
+    }
+
+    // Every loan in issue order
+    public void forEachTransaction(Consumer<Transaction> consumer) {
+        SplittableRandom random = random(LOANS, 0);
+        long count = settings.transactions();
+        LocalDate start = settings.asOf().minusDays(settings.historyDays());
+        byte[] copies = new byte[settings.books()];
+        for (int book = 0; book < copies.length; book++) {
+            copies[book] = (byte) copies(book);
+        }
+        byte[] openLoans = new byte[settings.books()];
+        for (long i = 0; i < count; i++) {
+            LocalDate issued = start.plusDays(i * settings.historyDays() / Math.max(1, count));
+            int book = popularBook(random);
+            int member = memberRanks.index(memberActivity.sample(random));
+            LocalDate due = issued.plusDays(settings.loanDays());
+
+            int keptDays;
+            if (random.nextDouble() < settings.overdueRate()) {
+                // Late returns: geometric number of extra days, mean about a week
+                keptDays = settings.loanDays() + 1 + (int) (-7 * Math.log(1 - random.nextDouble()));
+            } else {
+                keptDays = 1 + random.nextInt(settings.loanDays());
+            }
+            LocalDate returned = issued.plusDays(keptDays);
+
+            Transaction transaction = new Transaction();
+            transaction.setId(i + 1);
+            transaction.setBookId(book + 1L);
+            transaction.setMemberId(member + 1L);
+            transaction.setIssueDate(issued);
+            transaction.setDueDate(due);
+            transaction.setCreatedAt(issued.atTime(9, 0).plusSeconds(random.nextInt(11 * 3600)));
+            if (returned.isAfter(settings.asOf()) && openLoans[book] < copies[book]) {
+                openLoans[book]++;
+                transaction.setStatus("ISSUED");
+                transaction.setFineAmount(BigDecimal.ZERO);
+            } else {
+                // Every copy already out: this loan must have been returned, at the latest by asOf
+                if (returned.isAfter(settings.asOf())) {
+                    returned = settings.asOf();
+                }
+                long daysLate = Math.max(0, returned.toEpochDay() - due.toEpochDay());
+                transaction.setReturnDate(returned);
+                transaction.setStatus("RETURNED");
+                transaction.setFineAmount(BigDecimal.valueOf(daysLate * settings.finePerDay()));
+            }
+            consumer.accept(transaction);
+        }
+    }
+
+    private static String author(int rank) {
+        if (rank <= AUTHORS.length) {
+            return AUTHORS[rank - 1];
+        }
+        int name = rank - AUTHORS.length - 1;
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        String author = FIRST_NAMES[name % FIRST_NAMES.length] + " " + LAST_NAMES[(name / FIRST_NAMES.length) % LAST_NAMES.length];
+        return name < combinations ? author : author + " " + (char) ('A' + (name / combinations) % 26) + ".";
+    }
+
+    // Independent stream per entity, so one book's attributes do not depend on how many were generated before it
+    private SplittableRandom random(long kind, long index) {
+        long key = settings.seed() * 0x9E3779B97F4A7C15L + kind * 0xC2B2AE3D27D4EB4FL + index;
+        return new SplittableRandom(key);
+    }
+
+    // Popularity rank (1..n) <-> index (0..n-1): multiplying by a step coprime with n spreads
+    // consecutive ranks across the whole ID range
+    private static final class RankPermutation {
+
+        private final long n;
+        private final long step;
+        private final long inverse;
+
+        private RankPermutation(int n) {
+            this.n = n;
+            long candidate = Math.max(1, (long) (n * 0.6180339887));
+            while (BigInteger.valueOf(candidate).gcd(BigInteger.valueOf(n)).intValue() != 1) {
+                candidate++;
+            }
+            this.step = candidate % Math.max(1, n);
+            this.inverse = n == 1 ? 0 : BigInteger.valueOf(step).modInverse(BigInteger.valueOf(n)).longValue();
+        }
+
+        private int index(int rank) {
+            return (int) ((rank - 1) * step % n);
+        }
+
+        private int rank(int index) {
+            return (int) (index * inverse % n) + 1;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.management.demo.datagen;
+
+import com.management.demo.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticLibraryTest {
+
+    private static final DataGenSettings SMALL = new DataGenSettings(2_000, 1_000, 50_000, 7,
+            LocalDate.of(2025, 6, 30), 365, 14, 0.12, 1.05, 0.8, 5);
+
+    @Test
+    void sameSettingsGiveTheSameRows() {
+        SyntheticLibrary first = new SyntheticLibrary(SMALL);
+        SyntheticLibrary second = new SyntheticLibrary(SMALL);
+
+        assertThat(first.book(1234)).isEqualTo(second.book(1234));
+        assertThat(first.member(567)).isEqualTo(second.member(567));
+        assertThat(loans(first)).isEqualTo(loans(second));
+        assertThat(new SyntheticLibrary(SMALL.withScale(2_000, 1_000, 50_000, 8)).book(1234))
+                .isNotEqualTo(first.book(1234));
+    }
+
+    @Test
+    void loansAreSkewedAndNeverExceedCopies() {
+        SyntheticLibrary library = new SyntheticLibrary(SMALL);
+        List<Transaction> loans = loans(library);
+
+        Map<Long, Integer> loansPerBook = new HashMap<>();
+        Map<Long, Integer> openPerBook = new HashMap<>();
+        long late = 0;
+        for (Transaction loan : loans) {
+            loansPerBook.merge(loan.getBookId(), 1, Integer::sum);
+            if ("ISSUED".equals(loan.getStatus())) {
+                openPerBook.merge(loan.getBookId(), 1, Integer::sum);
+                assertThat(loan.getReturnDate()).isNull();
+            } else {
+                assertThat(loan.getReturnDate()).isBetween(loan.getIssueDate(), SMALL.asOf());
+                if (loan.getReturnDate().isAfter(loan.getDueDate())) {
+                    late++;
+                    assertThat(loan.getFineAmount()).isPositive();
+                }
+            }
+        }
+
+        // Zipf: the top 1% of titles take a large share of loans
+        List<Integer> counts = new ArrayList<>(loansPerBook.values());
+        counts.sort((a, b) -> b - a);
+        int top = counts.subList(0, SMALL.books() / 100).stream().mapToInt(Integer::intValue).sum();
+        assertThat((double) top / loans.size()).isGreaterThan(0.2);
+
+        assertThat((double) late / loans.size()).isBetween(0.08, 0.16);
+        assertThat(openPerBook).isNotEmpty();
+        openPerBook.forEach((bookId, open) ->
+                assertThat(open).isLessThanOrEqualTo(library.copies((int) (bookId - 1))));
+        assertThat(loans).extracting(Transaction::getIssueDate).isSorted();
+    }
+
+    @Test
+    void popularityRanksAreSpreadOverTheIds() {
+        SyntheticLibrary library = new SyntheticLibrary(SMALL);
+        SplittableRandom random = new SplittableRandom(1);
+        int lowIds = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (library.popularBook(random) < SMALL.books() / 10) {
+                lowIds++;
+            }
+        }
+        // Without the permutation nearly every draw would land in the lowest 10% of IDs
+        assertThat(lowIds).isLessThan(5_000);
+    }
+
+    // Loads a production-sized library into the configured database (schema.sql applied first):
+    //   ./mvnw test -Dtest=SyntheticLibraryTest -Ddatagen=true -Ddatagen.url=jdbc:postgresql://localhost:5432/library_db
+    //     -Ddatagen.username=postgres -Ddatagen.password=... (-Ddatagen.books=1000000 -Ddatagen.members=500000
+    //     -Ddatagen.transactions=50000000 -Ddatagen.seed=42 -Ddatagen.as-of=2025-06-30)
+    @Test
+    @EnabledIfSystemProperty(named = "datagen", matches = "true")
+    void loadIntoDatabase() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("datagen.url", "jdbc:postgresql://localhost:5432/library_db"),
+                System.getProperty("datagen.username", "postgres"),
+                System.getProperty("datagen.password", ""));
+        SyntheticLibrary library = new SyntheticLibrary(DataGenSettings.fromSystemProperties());
+
+        new CopyLoader(dataSource).load(library);
+    }
+
+    private static List<Transaction> loans(SyntheticLibrary library) {
+        List<Transaction> loans = new ArrayList<>();
+        library.forEachTransaction(loans::add);
+        return loans;
+    }
+}
@@ -0,0 +1,187 @@
+package com.management.demo.fine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FinePolicyTest {
+
+    @Test
+    void defaultsMatchTheFlatRate() {
+        FinePolicy policy = FinePolicy.compile(new FinePolicyProperties());
+
+        for (long daysLate = -3; daysLate <= 400; daysLate++) {
+            BigDecimal legacy = daysLate > 0 ? BigDecimal.valueOf(daysLate * 5) : BigDecimal.ZERO;
+            assertThat(policy.fine("Fiction", null, daysLate)).isEqualByComparingTo(legacy);
+        }
+    }
+
+    @Test
+    void categoryRulesAndTierDiscountsApply() {
+        FinePolicy policy = FinePolicy.compile(properties());
+
+        // Reference: ₹10/day after 2 grace days, capped at ₹150
+        assertThat(policy.fine("Reference", "STANDARD", 2)).isEqualByComparingTo("0");
+        assertThat(policy.fine("Reference", "STANDARD", 5)).isEqualByComparingTo("30.00");
+        assertThat(policy.fine("Reference", "STANDARD", 10_000)).isEqualByComparingTo("150.00");
+        // Children: only the rate is set, the grace days and cap come from the defaults
+        assertThat(policy.fine("Children", null, 3)).isEqualByComparingTo("4.50");
+        // 33% off ₹4.50 is ₹1.485 off; the discount rounds down to ₹1.48
+        assertThat(policy.fine("Children", "SENIOR", 3)).isEqualByComparingTo("3.02");
+        assertThat(policy.fine("Unknown", "UNKNOWN", 4)).isEqualByComparingTo("20.00");
+        assertThat(policy.fine("Reference", "STAFF", 30)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void batchMatchesSingleEvaluation() {
+        FinePolicy policy = FinePolicy.compile(properties());
+        String[] categories = {"Reference", "Children", "Fiction", null};
+        String[] tiers = {"STANDARD", "SENIOR", "STAFF", null};
+        FineBatch batch = new FineBatch(64);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] expected = new long[64];
+        for (int i = 0; i < 64; i++) {
+            String category = categories[random.nextInt(categories.length)];
+            String tier = tiers[random.nextInt(tiers.length)];
+            long daysLate = random.nextInt(-5, 90);
+            long loans = 1 + random.nextInt(20);
+            int c = policy.categoryIndex(category);
+            int t = policy.tierIndex(tier);
+            batch.add(c, t, daysLate, loans);
+            expected[i] = policy.fineMinor(c, t, daysLate) * loans;
+        }
+
+        policy.evaluate(batch);
+
+        assertThat(batch.isFull()).isTrue();
+        for (int i = 0; i < 64; i++) {
+            assertThat(batch.fineMinor(i)).isEqualTo(expected[i]);
+        }
+    }
+
+    @Test
+    void invalidRulesAreRejectedAtStartup() {
+        FinePolicyProperties fractionOfPaisa = new FinePolicyProperties();
+        fractionOfPaisa.setRatePerDay(new BigDecimal("0.005"));
+        assertThatThrownBy(() -> FinePolicy.compile(fractionOfPaisa)).isInstanceOf(IllegalStateException.class);
+
+        FinePolicyProperties tooGenerous = properties();
+        tooGenerous.getTiers().get("STAFF").setDiscountPercent(120);
+        assertThatThrownBy(() -> FinePolicy.compile(tooGenerous)).isInstanceOf(IllegalStateException.class);
+    }
+
+    // Compares the old per-return BigDecimal computation with the compiled policy, one loan
+    // at a time and in batches. Run with:
+    //   ./mvnw test -Dtest=FinePolicyTest -Dbenchmark=true (-Dbenchmark.loans=10000000)
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAgainstPerReturnBigDecimal() {
+        int loans = Integer.getInteger("benchmark.loans", 10_000_000);
+        FinePolicy policy = FinePolicy.compile(properties());
+        String[] categoryNames = {"Reference", "Children", "Fiction", "Science", "History", "Poetry"};
+        String[] tierNames = {"STANDARD", "SENIOR", "STAFF"};
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] categories = new int[loans];
+        int[] tiers = new int[loans];
+        long[] daysLate = new long[loans];
+        for (int i = 0; i < loans; i++) {
+            categories[i] = policy.categoryIndex(categoryNames[random.nextInt(categoryNames.length)]);
+            tiers[i] = policy.tierIndex(tierNames[random.nextInt(tierNames.length)]);
+            daysLate[i] = random.nextInt(1, 120);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long[] allocated = {0};
+            long legacyNanos = measure(allocated, () -> {
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < loans; i++) {
+                    total = total.add(BigDecimal.valueOf(daysLate[i] * 5));
+                }
+                return total.longValue();
+            });
+            long legacyBytes = allocated[0];
+
+            long singleNanos = measure(allocated, () -> {
+                long total = 0;
+                for (int i = 0; i < loans; i++) {
+                    total += policy.fineMinor(categories[i], tiers[i], daysLate[i]);
+                }
+                return total;
+            });
+            long singleBytes = allocated[0];
+
+            FineBatch batch = new FineBatch(4096);
+            long batchNanos = measure(allocated, () -> {
+                long total = 0;
+                for (int i = 0; i < loans; i++) {
+                    batch.add(categories[i], tiers[i], daysLate[i], 1);
+                    if (batch.isFull() || i == loans - 1) {
+                        policy.evaluate(batch);
+                        for (int row = 0; row < batch.size(); row++) {
+                            total += batch.fineMinor(row);
+                        }
+                        batch.clear();
+                    }
+                }
+                return total;
+            });
+            long batchBytes = allocated[0];
+
+            System.out.printf("Fine benchmark round %d, %,d loans%n", round + 1, loans);
+            System.out.printf("  per-return BigDecimal (flat rate only): %6.1f ns/loan, %6.1f bytes/loan%n",
+                    (double) legacyNanos / loans, (double) legacyBytes / loans);
+            System.out.printf("  compiled policy, one loan at a time:    %6.1f ns/loan, %6.1f bytes/loan%n",
+                    (double) singleNanos / loans, (double) singleBytes / loans);
+            System.out.printf("  compiled policy, batches of 4096:       %6.1f ns/loan, %6.1f bytes/loan%n",
+                    (double) batchNanos / loans, (double) batchBytes / loans);
+        }
+    }
+
+    private interface Work {
+        long run();
+    }
+
+    private static long sink;
+
+    // Wall time of one run; allocated[0] receives the bytes this thread allocated during it
+    private static long measure(long[] allocated, Work work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        sink += work.run();
+        long elapsed = System.nanoTime() - start;
+        allocated[0] = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return elapsed;
+    }
+
+    private static FinePolicyProperties properties() {
+        FinePolicyProperties properties = new FinePolicyProperties();
+        FinePolicyProperties.Category reference = new FinePolicyProperties.Category();
+        reference.setRatePerDay(BigDecimal.TEN);
+        reference.setGraceDays(2);
+        reference.setMaxFine(new BigDecimal("150"));
+        properties.getCategories().put("Reference", reference);
+        FinePolicyProperties.Category children = new FinePolicyProperties.Category();
+        children.setRatePerDay(new BigDecimal("1.50"));
+        properties.getCategories().put("Children", children);
+
+        properties.getTiers().put("STANDARD", tier(0));
+        properties.getTiers().put("SENIOR", tier(33));
+        properties.getTiers().put("STAFF", tier(100));
+        return properties;
+    }
+
+    private static FinePolicyProperties.Tier tier(int discountPercent) {
+        FinePolicyProperties.Tier tier = new FinePolicyProperties.Tier();
+        tier.setDiscountPercent(discountPercent);
+        return tier;
+    }
+}
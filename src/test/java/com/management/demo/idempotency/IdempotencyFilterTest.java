@@ -0,0 +1,187 @@
+package com.management.demo.idempotency;
+
+import com.management.demo.sharding.BranchFilter;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyFilter filter;
+    private final AtomicInteger loansCreated = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyCache cache = new IdempotencyCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+
+        filter = new IdempotencyFilter(cache, new DefaultListableBeanFactory().getBeanProvider(JdbcIdempotencyStore.class),
+                new ShardResolver(new ShardingProperties()));
+        ReflectionTestUtils.setField(filter, "waitTimeoutMs", 5000L);
+    }
+
+    @Test
+    void retryIsAnsweredFromTheStore() throws Exception {
+        MockHttpServletResponse first = issue("key-1", "bookId=1&memberId=2", issuingChain(null));
+        MockHttpServletResponse retry = issue("key-1", "bookId=1&memberId=2", issuingChain(null));
+
+        assertThat(loansCreated).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                responses.add(executor.submit(() -> issue("key-2", "bookId=1&memberId=2", issuingChain(release))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            }
+        }
+        assertThat(loansCreated).hasValue(1);
+    }
+
+    @Test
+    void inFlightRequestsAreNeverEvicted() throws Exception {
+        ReflectionTestUtils.setField(ReflectionTestUtils.getField(filter, "cache"), "maxEntries", 2);
+        issue("done", "bookId=1&memberId=2", issuingChain(null));
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> running = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            running.add(executor.submit(() -> issue("slow-1", "bookId=1&memberId=3", issuingChain(release))));
+            Thread.sleep(100);
+            // Takes the completed entry's slot
+            running.add(executor.submit(() -> issue("slow-2", "bookId=1&memberId=4", issuingChain(release))));
+            Thread.sleep(100);
+
+            MockHttpServletResponse turnedAway = issue("new", "bookId=1&memberId=5", issuingChain(null));
+            assertThat(turnedAway.getStatus()).isEqualTo(503);
+            assertThat(turnedAway.getHeader("Retry-After")).isEqualTo("1");
+            // A duplicate of an in-flight request still waits for it rather than running again
+            Future<MockHttpServletResponse> duplicate =
+                    executor.submit(() -> issue("slow-1", "bookId=1&memberId=3", issuingChain(null)));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(duplicate.get(5, TimeUnit.SECONDS).getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+            for (Future<MockHttpServletResponse> response : running) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            }
+        }
+        assertThat(loansCreated).hasValue(3);
+        assertThat(issue("new", "bookId=1&memberId=5", issuingChain(null)).getStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void missingBranchHeaderIsTheDefaultBranch() throws Exception {
+        issue("key-6", "bookId=1&memberId=2", issuingChain(null));
+        MockHttpServletResponse retry = issue("key-6", "bookId=1&memberId=2", issuingChain(null), "main");
+
+        assertThat(loansCreated).hasValue(1);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void serverErrorsAreNotKept() throws Exception {
+        FilterChain failing = (request, response) -> ((HttpServletResponse) response).setStatus(503);
+
+        assertThat(issue("key-3", "bookId=1&memberId=2", failing).getStatus()).isEqualTo(503);
+        assertThat(issue("key-3", "bookId=1&memberId=2", issuingChain(null)).getStatus()).isEqualTo(201);
+        assertThat(loansCreated).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() throws Exception {
+        issue("key-4", "bookId=1&memberId=2", issuingChain(null));
+
+        assertThat(issue("key-4", "bookId=9&memberId=2", issuingChain(null)).getStatus()).isEqualTo(422);
+        assertThat(loansCreated).hasValue(1);
+    }
+
+    @Test
+    void retryWithParametersInAnotherOrderIsTheSameRequest() throws Exception {
+        MockHttpServletResponse first = issue("key-5", "bookId=1&memberId=2", issuingChain(null));
+        MockHttpServletResponse retry = issue("key-5", "memberId=2&bookId=1", issuingChain(null));
+
+        assertThat(loansCreated).hasValue(1);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    void fingerprintKeepsParameterValuesApart() {
+        MockHttpServletRequest joined = new MockHttpServletRequest("POST", "/api/transactions/issue");
+        joined.addParameter("bookId", "1&memberId=2");
+        MockHttpServletRequest separate = new MockHttpServletRequest("POST", "/api/transactions/issue");
+        separate.addParameter("bookId", "1");
+        separate.addParameter("memberId", "2");
+
+        assertThat(IdempotencyFilter.fingerprint(separate)).isEqualTo("POST /api/transactions/issue?bookId=1&memberId=2");
+        assertThat(IdempotencyFilter.fingerprint(joined)).isNotEqualTo(IdempotencyFilter.fingerprint(separate));
+    }
+
+    private FilterChain issuingChain(CountDownLatch release) {
+        return (request, response) -> {
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int loanId = loansCreated.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setContentType("application/json");
+            http.getWriter().write("{\"id\":" + loanId + "}");
+        };
+    }
+
+    private MockHttpServletResponse issue(String key, String query, FilterChain chain) throws Exception {
+        return issue(key, query, chain, null);
+    }
+
+    private MockHttpServletResponse issue(String key, String query, FilterChain chain, String branch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transactions/issue");
+        // As a servlet container would: the query string, and its parameters
+        request.setQueryString(query);
+        for (String parameter : query.split("&")) {
+            String[] nameAndValue = parameter.split("=", 2);
+            request.addParameter(nameAndValue[0], nameAndValue[1]);
+        }
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        if (branch != null) {
+            request.addHeader(BranchFilter.BRANCH_HEADER, branch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
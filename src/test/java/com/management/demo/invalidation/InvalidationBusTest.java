@@ -0,0 +1,136 @@
+package com.management.demo.invalidation;
+
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvalidationBusTest {
+
+    private final LossyTransport transport = new LossyTransport();
+    private final RecordingListener remote = new RecordingListener();
+    private InvalidationBus sender;
+
+    @BeforeEach
+    void setUp() {
+        sender = bus(new RecordingListener());
+        bus(remote);
+    }
+
+    @Test
+    void repeatedChangesAreSentOnceAndNotEchoedBack() {
+        sender.publish(EntityChange.Kind.BOOK, 1L);
+        sender.publish(EntityChange.Kind.BOOK, 1L);
+        sender.publish(EntityChange.Kind.MEMBER, 1L);
+        sender.flush();
+        sender.flush();
+
+        assertThat(remote.invalidated).containsExactlyInAnyOrder(
+                new EntityChange(EntityChange.Kind.BOOK, "main", 1),
+                new EntityChange(EntityChange.Kind.MEMBER, "main", 1));
+        assertThat(transport.sent).hasSize(1);
+        assertThat(remote.resyncs).isZero();
+    }
+
+    @Test
+    void skippedBatchTriggersResync() {
+        sender.publish(EntityChange.Kind.BOOK, 1L);
+        sender.flush();
+        transport.dropNext = true;
+        sender.publish(EntityChange.Kind.BOOK, 2L);
+        sender.flush();
+        sender.publish(EntityChange.Kind.BOOK, 3L);
+        sender.flush();
+
+        assertThat(remote.invalidated).extracting(EntityChange::id).containsExactly(1L);
+        assertThat(remote.resyncs).isEqualTo(1);
+    }
+
+    @Test
+    void heartbeatExposesLostLastBatch() {
+        sender.publish(EntityChange.Kind.BOOK, 1L);
+        sender.flush();
+        sender.heartbeat();
+        assertThat(remote.resyncs).isZero();
+
+        transport.dropNext = true;
+        sender.publish(EntityChange.Kind.BOOK, 2L);
+        sender.flush();
+        sender.heartbeat();
+        sender.heartbeat();
+
+        assertThat(remote.resyncs).isEqualTo(1);
+    }
+
+    @Test
+    void largeFlushesAreSplitIntoPayloadSizedBatches() {
+        List<EntityChange> changes = Stream.iterate(Long.MAX_VALUE - 10_000, id -> id + 1).limit(2_000)
+                .map(id -> new EntityChange(EntityChange.Kind.BOOK, "main", id))
+                .toList();
+
+        List<List<EntityChange>> chunks = InvalidationBatch.chunk(changes, 500);
+
+        assertThat(chunks).hasSizeGreaterThan(4);
+        assertThat(chunks.stream().mapToInt(List::size).sum()).isEqualTo(2_000);
+        for (List<EntityChange> chunk : chunks) {
+            String payload = new InvalidationBatch("5f0c6f0e-8d7e-4c39-9b3a-1d2e3f4a5b6c", Long.MAX_VALUE, chunk).encode();
+            assertThat(payload.length()).isLessThanOrEqualTo(InvalidationBatch.MAX_PAYLOAD);
+            assertThat(InvalidationBatch.decode(payload).changes()).isEqualTo(chunk);
+        }
+    }
+
+    private InvalidationBus bus(InvalidationListener listener) {
+        InvalidationBus bus = new InvalidationBus();
+        ReflectionTestUtils.setField(bus, "transport", transport);
+        ReflectionTestUtils.setField(bus, "listeners", List.of(listener));
+        ReflectionTestUtils.setField(bus, "shardResolver", new ShardResolver(new ShardingProperties()));
+        ReflectionTestUtils.setField(bus, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "maxBatchSize", 500);
+        ReflectionTestUtils.invokeMethod(bus, "start");
+        return bus;
+    }
+
+    // Goes through the wire format, and can lose a batch
+    private static class LossyTransport extends InMemoryInvalidationTransport {
+
+        private final List<InvalidationBatch> sent = new ArrayList<>();
+        private boolean dropNext;
+
+        @Override
+        public void send(InvalidationBatch batch) {
+            if (!batch.isHeartbeat()) {
+                sent.add(batch);
+            }
+            if (dropNext) {
+                dropNext = false;
+                return;
+            }
+            super.send(InvalidationBatch.decode(batch.encode()));
+        }
+    }
+
+    private static class RecordingListener implements InvalidationListener {
+
+        private final List<EntityChange> invalidated = new ArrayList<>();
+        private int resyncs;
+
+        @Override
+        public void invalidate(List<EntityChange> changes) {
+            invalidated.addAll(changes);
+        }
+
+        @Override
+        public void resync() {
+            resyncs++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.management.demo.journal;
+
+import com.management.demo.util.MpscRingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentedJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveRotationAndReadBackInOrder() throws IOException {
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 4096, 100, 1)) {
+            for (int i = 0; i < 500; i++) {
+                writer.append(record(JournalOp.BOOK_ISSUED, i, Journal.fields("due", "2026-01-01", "n", i)));
+            }
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.read(directory, 1, records::add);
+
+        assertThat(JournalReader.segments(directory)).hasSizeGreaterThan(1);
+        assertThat(records).hasSize(500);
+        assertThat(records.get(0).sequence()).isEqualTo(1);
+        assertThat(records.get(499).sequence()).isEqualTo(500);
+        assertThat(records.get(42).detail()).isEqualTo("due=2026-01-01\tn=42");
+        assertThat(JournalReader.lastSequence(directory)).isEqualTo(500);
+
+        List<JournalRecord> tail = new ArrayList<>();
+        JournalReader.read(directory, 450, tail::add);
+        assertThat(tail).extracting(JournalRecord::entityId).first().isEqualTo(449L);
+        assertThat(tail).hasSize(51);
+    }
+
+    @Test
+    void oldSegmentsAreDeletedAndRestartContinuesTheSequence() throws IOException {
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 1024, 2, 1)) {
+            for (int i = 0; i < 200; i++) {
+                writer.append(record(JournalOp.BOOK_UPDATED, i, ""));
+            }
+        }
+        assertThat(JournalReader.segments(directory)).hasSize(2);
+
+        long last = JournalReader.lastSequence(directory);
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 1024, 2, last + 1)) {
+            assertThat(writer.append(record(JournalOp.BOOK_DELETED, 7, ""))).isEqualTo(201);
+        }
+    }
+
+    @Test
+    void recordTooLargeForASegmentIsRejectedAndTheNextOneStillFits() throws IOException {
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 1024, 10, 1)) {
+            assertThatThrownBy(() -> writer.append(record(JournalOp.BOOK_UPDATED, 1, "x".repeat(2000))))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(writer.append(record(JournalOp.BOOK_UPDATED, 2, ""))).isEqualTo(1);
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.read(directory, 1, records::add);
+        assertThat(records).extracting(JournalRecord::entityId).containsExactly(2L);
+        assertThat(JournalReader.segments(directory)).hasSize(1);
+    }
+
+    @Test
+    void everySegmentIsKeptUnlessRetentionIsSet() throws IOException {
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 1024, 0, 1)) {
+            for (int i = 0; i < 200; i++) {
+                writer.append(record(JournalOp.BOOK_UPDATED, i, ""));
+            }
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.read(directory, 1, records::add);
+        assertThat(JournalReader.segments(directory)).hasSizeGreaterThan(2);
+        assertThat(records).hasSize(200);
+    }
+
+    @Test
+    void tornRecordEndsTheSegment() throws IOException {
+        try (SegmentedJournalWriter writer = new SegmentedJournalWriter(directory, 4096, 10, 1)) {
+            writer.append(record(JournalOp.MEMBER_CREATED, 1, "memberId=M-1"));
+            writer.append(record(JournalOp.MEMBER_CREATED, 2, "memberId=M-2"));
+        }
+        // Flip a byte inside the second record's body, as a crash mid-write would leave it
+        Path segment = JournalReader.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int firstRecord = JournalFormat.encodedSize(JournalFormat.utf8("main"), JournalFormat.utf8("memberId=M-1"));
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}),
+                    JournalFormat.SEGMENT_HEADER_BYTES + firstRecord + 20);
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        JournalReader.read(directory, 1, records::add);
+        assertThat(records).extracting(JournalRecord::entityId).containsExactly(1L);
+    }
+
+    @Test
+    void ringHandsEveryElementToTheConsumerOnce() throws Exception {
+        MpscRingBuffer<Long> ring = new MpscRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        List<Long> consumed = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * perProducer;
+                executor.execute(() -> {
+                    for (long i = 0; i < perProducer; i++) {
+                        while (!ring.offer(base + i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+            while (consumed.size() < producers * perProducer) {
+                ring.drain(consumed::add, 256);
+            }
+        }
+        assertThat(consumed).doesNotHaveDuplicates().hasSize(producers * perProducer);
+        assertThat(ring.poll()).isNull();
+    }
+
+    private static JournalRecord record(JournalOp op, long entityId, String detail) {
+        return new JournalRecord(0, System.currentTimeMillis(), op, entityId, 10, 20, "main", detail);
+    }
+}
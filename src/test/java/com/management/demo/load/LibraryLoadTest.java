@@ -0,0 +1,205 @@
+package com.management.demo.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.management.demo.datagen.CopyLoader;
+import com.management.demo.datagen.DataGenSettings;
+import com.management.demo.datagen.SyntheticLibrary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Full-stack load test: boots the application on a random port against the
+// configured database, loads a SyntheticLibrary of loadtest.books / members /
+// transactions (reused while the scale stays the same, so runs with one seed see
+// the same data), drives an open-model request mix and writes a JSON report
+// (default target/load-test-report.json).
+//
+//   ./mvnw test -Dtest=LibraryLoadTest -Dloadtest=true -Dloadtest.rate=500 -Dloadtest.duration-seconds=120
+//
+// Skipped unless -Dloadtest=true, so the normal build never needs a database under load.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LibraryLoadTest {
+
+    private static final String[] SEARCH_TERMS = {"river", "silent", "garden", "quantum", "ghosh", "knuth",
+            "winter", "atlas", "machine", "le guin"};
+
+    // Pool gauges sampled during the run; missing ones (e.g. R2DBC when disabled) are skipped
+    private static final List<String> POOL_GAUGES = List.of("hikaricp.connections.active",
+            "hikaricp.connections.pending", "libraryhub.r2dbc.connections.acquired",
+            "libraryhub.r2dbc.connections.pending");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpClient httpClient;
+    private List<Long> bookIds;
+    private List<String> isbns;
+    private List<Long> memberIds;
+
+    @Test
+    void runWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        DataGenSettings dataSettings = DataGenSettings.fromSystemProperties()
+                .withScale(settings.books(), settings.members(), settings.transactions(), settings.seed());
+        new CopyLoader(dataSource).load(new SyntheticLibrary(dataSettings));
+        bookIds = jdbcTemplate.queryForList("SELECT id FROM books WHERE isbn LIKE 'GEN-%'", Long.class);
+        isbns = jdbcTemplate.queryForList("SELECT isbn FROM books WHERE isbn LIKE 'GEN-%'", String.class);
+        memberIds = jdbcTemplate.queryForList("SELECT id FROM members WHERE member_id LIKE 'GEN-%' AND is_active", Long.class);
+
+        httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Map<String, LoadGenerator.Operation> operations = new LinkedHashMap<>();
+        operations.put("listBooks", random -> get("/api/books"));
+        operations.put("search", random -> get("/api/books/search?query=" + searchTerm(random)));
+        operations.put("getBook", random -> get("/api/books/" + pick(bookIds, random)));
+        operations.put("getBookByIsbn", random -> get("/api/books/isbn/" + pick(isbns, random)));
+        operations.put("availability", random -> get("/api/books/" + pick(bookIds, random) + "/availability"));
+        operations.put("getMember", random -> get("/api/members/" + pick(memberIds, random)));
+        operations.put("memberSummary", random -> get("/api/members/" + pick(memberIds, random) + "/summary"));
+        operations.put("checkout", this::checkoutAndReturn);
+        // Reactive twins, only meaningful with libraryhub.reactive.enabled=true
+        operations.put("reactiveSearch", random -> get("/api/reactive/books/search?query=" + searchTerm(random)));
+        operations.put("reactiveGetBook", random -> get("/api/reactive/books/" + pick(bookIds, random)));
+
+        PoolSampler poolSampler = new PoolSampler();
+        LoadGenerator generator = new LoadGenerator(operations, settings.mix());
+        Map<String, Object> results;
+        try {
+            results = generator.run(settings.ratePerSecond(), settings.warmup().toNanos(),
+                    settings.duration().toNanos(), settings.maxInFlight(), settings.seed());
+        } finally {
+            poolSampler.stop();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", Map.of(
+                "rate", settings.ratePerSecond(),
+                "warmupSeconds", settings.warmup().toSeconds(),
+                "durationSeconds", settings.duration().toSeconds(),
+                "mix", settings.mix(),
+                "books", settings.books(),
+                "members", settings.members(),
+                "transactions", settings.transactions(),
+                "seed", settings.seed()));
+        report.put("results", results);
+        report.put("connectionPools", poolSampler.summary());
+
+        Files.createDirectories(settings.reportPath().toAbsolutePath().getParent());
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.reportPath().toFile(), report);
+        System.out.println("Load test report written to " + settings.reportPath().toAbsolutePath());
+
+        assertThat(results).containsKey("operations");
+    }
+
+    // Issue a random book and, when that succeeds, return it straight away so copies don't run out
+    private int checkoutAndReturn(SplittableRandom random) throws Exception {
+        HttpResponse<String> issued = send(HttpRequest.newBuilder(uri("/api/transactions/issue?bookId="
+                + pick(bookIds, random) + "&memberId=" + pick(memberIds, random)))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        if (issued.statusCode() != 201) {
+            return issued.statusCode();
+        }
+        JsonNode transaction = objectMapper.readTree(issued.body());
+        return send(HttpRequest.newBuilder(uri("/api/transactions/" + transaction.get("id").asLong() + "/return"))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode();
+    }
+
+    private int get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET()).statusCode();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static <T> T pick(List<T> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String searchTerm(SplittableRandom random) {
+        return URLEncoder.encode(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], StandardCharsets.UTF_8);
+    }
+
+    // Samples connection pool gauges every 100ms to show connection usage under load
+    private final class PoolSampler {
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        private final Map<String, double[]> stats = new LinkedHashMap<>();  // name -> {max, sum, samples}
+
+        PoolSampler() {
+            sampler.scheduleAtFixedRate(this::sample, 0, 100, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void sample() {
+            for (String name : POOL_GAUGES) {
+                Gauge gauge = meterRegistry.find(name).gauge();
+                if (gauge != null) {
+                    double[] values = stats.computeIfAbsent(name, key -> new double[3]);
+                    values[0] = Math.max(values[0], gauge.value());
+                    values[1] += gauge.value();
+                    values[2]++;
+                }
+            }
+        }
+
+        void stop() throws InterruptedException {
+            sampler.shutdown();
+            sampler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            stats.forEach((name, values) -> summary.put(name, Map.of(
+                    "max", values[0],
+                    "mean", values[2] == 0 ? 0 : values[1] / values[2])));
+            return summary;
+        }
+    }
+}
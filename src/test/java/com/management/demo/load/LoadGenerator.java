@@ -0,0 +1,144 @@
+package com.management.demo.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load generator.
+// Requests are scheduled at a constant arrival rate regardless of how fast the
+// server answers, and each one runs on its own virtual thread. Latency is measured
+// from the *intended* start time, so queueing caused by a slow server shows up in
+// the percentiles instead of silently lowering the offered load (coordinated omission).
+class LoadGenerator {
+
+    // One logical operation; returns the HTTP status of its (last) request
+    interface Operation {
+        int run(SplittableRandom random) throws Exception;
+    }
+
+    private final Map<String, Operation> operations;
+    private final String[] schedule;
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadGenerator(Map<String, Operation> operations, Map<String, Integer> mix) {
+        this.operations = operations;
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.schedule = new String[totalWeight];
+        int slot = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            if (!operations.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + entry.getKey());
+            }
+            for (int i = 0; i < entry.getValue(); i++) {
+                schedule[slot++] = entry.getKey();
+            }
+        }
+    }
+
+    // Drive load for the given time; only requests scheduled after warmup are recorded
+    Map<String, Object> run(double ratePerSecond, long warmupNanos, long durationNanos,
+                            int maxInFlight, long seed) throws InterruptedException {
+        SplittableRandom scheduler = new SplittableRandom(seed);
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                boolean measured = intendedStart >= measureFrom;
+                if (inFlight.get() >= maxInFlight) {
+                    // The client itself is saturated; count it rather than block the schedule
+                    if (measured) {
+                        dropped.increment();
+                    }
+                    continue;
+                }
+
+                String name = schedule[scheduler.nextInt(schedule.length)];
+                SplittableRandom random = scheduler.split();
+                inFlight.incrementAndGet();
+                executor.execute(() -> execute(name, random, intendedStart, measured));
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        double measuredSeconds = durationNanos / 1_000_000_000.0;
+        long completed = stats.values().stream().mapToLong(s -> s.responseTime.count()).sum();
+        report.put("offeredRatePerSecond", ratePerSecond);
+        report.put("achievedThroughputPerSecond", completed / measuredSeconds);
+        report.put("droppedByClient", dropped.sum());
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> byOperation.put(entry.getKey(), entry.getValue().toReport(measuredSeconds)));
+        report.put("operations", byOperation);
+        return report;
+    }
+
+    private void execute(String name, SplittableRandom random, long intendedStart, boolean measured) {
+        long actualStart = System.nanoTime();
+        int status;
+        try {
+            status = operations.get(name).run(random);
+        } catch (Exception e) {
+            status = -1;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        long finished = System.nanoTime();
+        if (measured) {
+            OperationStats operationStats = stats.computeIfAbsent(name, key -> new OperationStats());
+            operationStats.responseTime.recordNanos(finished - intendedStart);
+            operationStats.serviceTime.recordNanos(finished - actualStart);
+            if (status >= 200 && status < 300) {
+                operationStats.succeeded.increment();
+            } else if (status >= 400 && status < 500) {
+                operationStats.rejected.increment();
+            } else {
+                operationStats.failed.increment();
+            }
+        }
+    }
+
+    private static final class OperationStats {
+        // Corrected for coordinated omission: measured from the intended start
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        // Raw time on the wire, for comparison
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        Map<String, Object> toReport(double seconds) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("throughputPerSecond", responseTime.count() / seconds);
+            report.put("succeeded", succeeded.sum());
+            report.put("rejected4xx", rejected.sum());
+            report.put("failed", failed.sum());
+            report.put("responseTime", responseTime.summary());
+            report.put("serviceTime", serviceTime.summary());
+            return report;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.management.demo.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Knobs for LibraryLoadTest, all overridable with -Dloadtest.* system properties
+record LoadTestSettings(double ratePerSecond,
+                        Duration warmup,
+                        Duration duration,
+                        Map<String, Integer> mix,
+                        int books,
+                        int members,
+                        long transactions,
+                        int maxInFlight,
+                        long seed,
+                        Path reportPath) {
+
+    static final String DEFAULT_MIX = "search=35,getBook=20,getBookByIsbn=10,availability=5,getMember=10,memberSummary=5,checkout=15";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.warmup-seconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.duration-seconds", "60"))),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Integer.parseInt(System.getProperty("loadtest.books", "10000")),
+                Integer.parseInt(System.getProperty("loadtest.members", "5000")),
+                Long.parseLong(System.getProperty("loadtest.transactions", "200000")),
+                Integer.parseInt(System.getProperty("loadtest.max-in-flight", "10000")),
+                Long.parseLong(System.getProperty("loadtest.seed", "42")),
+                Path.of(System.getProperty("loadtest.report", "target/load-test-report.json")));
+    }
+
+    // "search=35,getBook=20" -> ordered operation weights
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad loadtest.mix entry: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,230 @@
+package com.management.demo.monitoring;
+
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.BranchRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SlowQueryLogTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private SlowQueryLog running;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (running != null) {
+            running.stop();
+        }
+    }
+
+    @Test
+    void onlyStatementsOverTheThresholdAreQueued() {
+        SlowQueryLog slowQueryLog = queueOnly(200, 0.0, 16);
+
+        slowQueryLog.record("SELECT 1", "()", 199 * MILLIS);
+        slowQueryLog.record("SELECT 2", "()", 200 * MILLIS);
+        slowQueryLog.record("SELECT 3", "()", 900 * MILLIS);
+
+        assertThat(queued(slowQueryLog)).hasSize(2);
+    }
+
+    @Test
+    void fastStatementsAreSampledAtTheSampleRate() {
+        SlowQueryLog all = queueOnly(200, 1.0, 16);
+        all.record("SELECT 1", "()", MILLIS);
+        assertThat(queued(all)).hasSize(1);
+
+        SlowQueryLog half = queueOnly(200, 0.5, 10_000);
+        for (int i = 0; i < 10_000; i++) {
+            half.record("SELECT 1", "()", MILLIS);
+        }
+        assertThat(queued(half).size()).isBetween(4_500, 5_500);
+    }
+
+    @Test
+    void disabledOrFullLogRecordsNothing() {
+        SlowQueryLog disabled = queueOnly(0, 1.0, 16);
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.record("SELECT 1", "()", 900 * MILLIS);
+        assertThat(queued(disabled)).isEmpty();
+
+        SlowQueryLog full = queueOnly(0, 0.0, 2);
+        for (int i = 0; i < 5; i++) {
+            full.record("SELECT 1", "()", 900 * MILLIS);
+        }
+        assertThat(queued(full)).hasSize(2);
+        assertThat(full.getDropped()).isEqualTo(3);
+    }
+
+    @Test
+    void slowestKeepsTheWorstRunOfEachStatement() throws InterruptedException {
+        SlowQueryLog slowQueryLog = started(200, 1.0);
+        slowQueryLog.record("SELECT * FROM books WHERE id = ?", "(Long)", 300 * MILLIS);
+        slowQueryLog.record("SELECT * FROM books WHERE id = ?", "(null)", 700 * MILLIS);
+        slowQueryLog.record("SELECT * FROM members", "()", 500 * MILLIS);
+        // Sampled, but under the threshold: logged, not counted
+        slowQueryLog.record("SELECT 1", "()", MILLIS);
+        slowQueryLog.stop();
+
+        List<SlowQueryLog.StatementStats> slowest = slowQueryLog.slowest(10);
+        assertThat(slowest).extracting(SlowQueryLog.StatementStats::getSql)
+                .containsExactly("SELECT * FROM books WHERE id = ?", "SELECT * FROM members");
+        SlowQueryLog.StatementStats worst = slowest.get(0);
+        assertThat(worst.getCount()).isEqualTo(2);
+        assertThat(worst.getMaxMillis()).isEqualTo(700.0);
+        assertThat(worst.getTotalMillis()).isEqualTo(1000.0);
+        assertThat(worst.getParameterShape()).isEqualTo("(null)");
+        assertThat(slowQueryLog.slowest(1)).hasSize(1);
+    }
+
+    @Test
+    void routingDataSourceIsWrappedOnceAndTimesStatementsOnEveryBranch() throws SQLException, InterruptedException {
+        StubDataSource main = new StubDataSource();
+        StubDataSource north = new StubDataSource();
+        BranchRoutingDataSource routing = new BranchRoutingDataSource();
+        routing.setTargetDataSources(Map.of("main", main, "north", north));
+        routing.setDefaultTargetDataSource(main);
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+
+        SlowQueryLog slowQueryLog = started(0, 0.0);
+        TimingDataSourcePostProcessor processor = new TimingDataSourcePostProcessor(
+                new StaticListableBeanFactory(Map.of("slowQueryLog", slowQueryLog)).getBeanProvider(SlowQueryLog.class));
+
+        Object wrapped = processor.postProcessAfterInitialization(routing, "branchRoutingDataSource");
+        assertThat(Proxy.isProxyClass(wrapped.getClass())).isTrue();
+        assertThat(processor.postProcessAfterInitialization(wrapped, "branchRoutingDataSource")).isSameAs(wrapped);
+        Object other = new Object();
+        assertThat(processor.postProcessAfterInitialization(other, "other")).isSameAs(other);
+
+        DataSource dataSource = (DataSource) wrapped;
+        assertThat(dataSource.isWrapperFor(BranchRoutingDataSource.class)).isTrue();
+        assertThat(dataSource.unwrap(BranchRoutingDataSource.class)).isSameAs(routing);
+
+        update(dataSource, "UPDATE books SET title = ? WHERE id = ?");
+        BranchContext.runIn("north", () -> {
+            try {
+                update(dataSource, "UPDATE members SET name = ? WHERE id = ?");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+        }
+        slowQueryLog.stop();
+
+        assertThat(main.executed).containsExactly("UPDATE books SET title = ? WHERE id = ?", "SELECT 1");
+        assertThat(north.executed).containsExactly("UPDATE members SET name = ? WHERE id = ?");
+        assertThat(slowQueryLog.slowest(10))
+                .extracting(SlowQueryLog.StatementStats::getSql, SlowQueryLog.StatementStats::getParameterShape)
+                .containsExactlyInAnyOrder(
+                        tuple("UPDATE books SET title = ? WHERE id = ?", "(String, null)"),
+                        tuple("UPDATE members SET name = ? WHERE id = ?", "(String, null)"),
+                        tuple("SELECT 1", "()"));
+    }
+
+    private static void update(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, "x");
+            statement.setNull(2, Types.BIGINT);
+            statement.executeUpdate();
+        }
+    }
+
+    // Records what it is offered, without the writer thread that would drain it
+    private static SlowQueryLog queueOnly(long thresholdMillis, double sampleRate, int bufferSize) {
+        SlowQueryLog slowQueryLog = configured(thresholdMillis, sampleRate);
+        ReflectionTestUtils.setField(slowQueryLog, "buffer", new ArrayBlockingQueue<>(bufferSize));
+        return slowQueryLog;
+    }
+
+    private SlowQueryLog started(long thresholdMillis, double sampleRate) {
+        SlowQueryLog slowQueryLog = configured(thresholdMillis, sampleRate);
+        ReflectionTestUtils.setField(slowQueryLog, "bufferSize", 64);
+        slowQueryLog.start();
+        running = slowQueryLog;
+        return slowQueryLog;
+    }
+
+    private static SlowQueryLog configured(long thresholdMillis, double sampleRate) {
+        SlowQueryLog slowQueryLog = new SlowQueryLog();
+        ReflectionTestUtils.setField(slowQueryLog, "enabled", true);
+        ReflectionTestUtils.setField(slowQueryLog, "thresholdMillis", thresholdMillis);
+        ReflectionTestUtils.setField(slowQueryLog, "sampleRate", sampleRate);
+        return slowQueryLog;
+    }
+
+    private static BlockingQueue<?> queued(SlowQueryLog slowQueryLog) {
+        return (BlockingQueue<?>) ReflectionTestUtils.getField(slowQueryLog, "buffer");
+    }
+
+    // Connections whose statements do nothing but note the SQL they ran
+    private static class StubDataSource extends AbstractDataSource {
+
+        private final List<String> executed = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection getConnection() {
+            return stub(Connection.class, (method, args) -> switch (method) {
+                case "prepareStatement" -> statement(PreparedStatement.class, (String) args[0]);
+                case "createStatement" -> statement(Statement.class, null);
+                default -> null;
+            });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        private <T extends Statement> T statement(Class<T> type, String preparedSql) {
+            return stub(type, (method, args) -> {
+                if (method.startsWith("execute")) {
+                    executed.add(preparedSql != null ? preparedSql : (String) args[0]);
+                }
+                return switch (method) {
+                    case "executeUpdate" -> 1;
+                    case "execute" -> false;
+                    default -> null;
+                };
+            });
+        }
+
+        private interface Answer {
+            Object answer(String method, Object[] args);
+        }
+
+        private static <T> T stub(Class<T> type, Answer answer) {
+            return type.cast(Proxy.newProxyInstance(SlowQueryLogTest.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "toString" -> "Stub" + type.getSimpleName();
+                        default -> answer.answer(method.getName(), args);
+                    }));
+        }
+    }
+}
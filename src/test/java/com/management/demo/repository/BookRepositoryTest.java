@@ -0,0 +1,83 @@
+package com.management.demo.repository;
+
+import com.management.demo.model.Book;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookRepositoryTest {
+
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:books_"
+                + UUID.randomUUID().toString().substring(0, 8) + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE books (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                isbn VARCHAR(20), title VARCHAR(255), author VARCHAR(255), category VARCHAR(100),
+                publication_year INT, total_copies INT, available_copies INT,
+                created_at TIMESTAMP, updated_at TIMESTAMP, branch VARCHAR(50) NOT NULL DEFAULT 'main',
+                version BIGINT NOT NULL DEFAULT 0
+            )
+            """);
+        bookRepository = new BookRepository();
+        ReflectionTestUtils.setField(bookRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(bookRepository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(bookRepository, "shardResolver", new ShardResolver(new ShardingProperties()));
+    }
+
+    @Test
+    void updateFromAStaleVersionIsRejected() {
+        Long id = bookRepository.save(book()).getId();
+        Book mine = bookRepository.findById(id).orElseThrow();
+        Book theirs = bookRepository.findById(id).orElseThrow();
+
+        theirs.setTitle("Effective Java, 3rd edition");
+        assertThat(bookRepository.save(theirs).getVersion()).isEqualTo(1L);
+
+        mine.setTitle("Effective Java (2nd)");
+        assertThatThrownBy(() -> bookRepository.save(mine))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessageContaining("version 0 is stale");
+
+        Book stored = bookRepository.findById(id).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Effective Java, 3rd edition");
+        assertThat(stored.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void copyCountChangesBumpTheVersion() {
+        Book book = bookRepository.save(book());
+
+        assertThat(bookRepository.decrementAvailableCopies(book.getId())).isTrue();
+        assertThat(bookRepository.decrementAvailableCopies(book.getId())).isFalse();
+
+        // An edit based on the copy count before the checkout no longer applies
+        assertThatThrownBy(() -> bookRepository.save(book)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(bookRepository.findById(book.getId())).map(Book::getAvailableCopies).contains(0);
+    }
+
+    private static Book book() {
+        Book book = new Book();
+        book.setIsbn("978-0134685991");
+        book.setTitle("Effective Java");
+        book.setAuthor("Joshua Bloch");
+        book.setCategory("Programming");
+        book.setPublicationYear(2018);
+        return book;
+    }
+}
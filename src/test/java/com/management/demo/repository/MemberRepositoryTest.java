@@ -0,0 +1,163 @@
+package com.management.demo.repository;
+
+import com.management.demo.PostgresTestDatabase;
+import com.management.demo.model.Member;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The lapsed-member sweep's set-based UPDATE (deactivateLapsed) and its dry run, on PostgreSQL
+@Testcontainers(disabledWithoutDocker = true)
+class MemberRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 30);
+    private static final LocalDate JOINED_BEFORE = TODAY.minusDays(365);
+    private static final LocalDate NO_LOANS_SINCE = TODAY.minusDays(365);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private MemberRepository memberRepository;
+    private long bookId;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        memberRepository = new MemberRepository();
+        ReflectionTestUtils.setField(memberRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(memberRepository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(memberRepository, "shardResolver", new ShardResolver(new ShardingProperties()));
+        bookId = jdbcTemplate.queryForObject("""
+            INSERT INTO books (isbn, title, author, total_copies, available_copies)
+            VALUES ('978-0134685991', 'Effective Java', 'Joshua Bloch', 5, 5) RETURNING id
+            """, Long.class);
+    }
+
+    @Test
+    void deactivatesOnlyMembersWithNoOpenOrRecentLoanAndNoOpenHold() {
+        long lapsed = member("M-1", "STANDARD", TODAY.minusYears(3), true);
+        long oldLoanReturned = member("M-2", "STANDARD", TODAY.minusYears(3), true);
+        loan(oldLoanReturned, TODAY.minusYears(2), "RETURNED");
+        long openLoan = member("M-3", "STANDARD", TODAY.minusYears(3), true);
+        loan(openLoan, TODAY.minusYears(2), "ISSUED");
+        long recentLoan = member("M-4", "STANDARD", TODAY.minusYears(3), true);
+        loan(recentLoan, TODAY.minusDays(30), "RETURNED");
+        long openHold = member("M-5", "STANDARD", TODAY.minusYears(3), true);
+        hold(openHold, "WAITING");
+        long closedHold = member("M-6", "STANDARD", TODAY.minusYears(3), true);
+        hold(closedHold, "EXPIRED");
+        long joinedRecently = member("M-7", "STANDARD", TODAY.minusDays(100), true);
+        member("M-8", "STANDARD", TODAY.minusYears(3), false);
+
+        List<Member> deactivated = deactivate(null, 0, memberRepository.maxId());
+
+        assertThat(deactivated).extracting(Member::getId).containsExactlyInAnyOrder(lapsed, oldLoanReturned, closedHold);
+        assertThat(deactivated).allSatisfy(member -> {
+            assertThat(member.getIsActive()).isFalse();
+            assertThat(member.getVersion()).isEqualTo(1L);
+        });
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM members WHERE is_active ORDER BY id", Long.class))
+                .containsExactly(openLoan, recentLoan, openHold, joinedRecently);
+        // Already inactive members are not touched again
+        assertThat(deactivate(null, 0, memberRepository.maxId())).isEmpty();
+    }
+
+    @Test
+    void tierAndIdRangeNarrowTheSweep() {
+        long student = member("S-1", "STUDENT", TODAY.minusYears(3), true);
+        long standard = member("M-1", "STANDARD", TODAY.minusYears(3), true);
+        long laterStudent = member("S-2", "STUDENT", TODAY.minusYears(3), true);
+
+        assertThat(deactivate("STUDENT", 0, standard)).extracting(Member::getId).containsExactly(student);
+        assertThat(deactivate("STUDENT", standard, laterStudent)).extracting(Member::getId).containsExactly(laterStudent);
+        assertThat(jdbcTemplate.queryForObject("SELECT is_active FROM members WHERE id = ?", Boolean.class, standard)).isTrue();
+    }
+
+    @Test
+    void dryRunFindsTheSameMembersWithoutChangingThem() {
+        long lapsed = member("M-1", "STANDARD", TODAY.minusYears(3), true);
+        loan(member("M-2", "STANDARD", TODAY.minusYears(3), true), TODAY.minusYears(2), "ISSUED");
+        long otherLapsed = member("M-3", "STANDARD", TODAY.minusYears(3), true);
+
+        List<Long> lapsedIds = memberRepository.findLapsedIds(JOINED_BEFORE, NO_LOANS_SINCE, null, 0, memberRepository.maxId());
+
+        assertThat(lapsedIds).containsExactly(lapsed, otherLapsed);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM members WHERE is_active", Integer.class)).isEqualTo(3);
+        assertThat(deactivate(null, 0, memberRepository.maxId())).extracting(Member::getId)
+                .containsExactlyInAnyOrderElementsOf(lapsedIds);
+    }
+
+    @Test
+    void memberInTheMiddleOfACheckoutIsSkipped() throws Exception {
+        long checkingOut = member("M-1", "STANDARD", TODAY.minusYears(3), true);
+        long lapsed = member("M-2", "STANDARD", TODAY.minusYears(3), true);
+
+        // A checkout holds its member's share lock until it commits
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch swept = new CountDownLatch(1);
+        CompletableFuture<Void> checkout = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            assertThat(memberRepository.findByIdForShare(checkingOut)).isPresent();
+            locked.countDown();
+            await(swept);
+        }));
+        await(locked);
+
+        List<Member> deactivated = deactivate(null, 0, memberRepository.maxId());
+        swept.countDown();
+        checkout.get(10, TimeUnit.SECONDS);
+
+        assertThat(deactivated).extracting(Member::getId).containsExactly(lapsed);
+        // Left for the next sweep
+        assertThat(deactivate(null, 0, memberRepository.maxId())).extracting(Member::getId).containsExactly(checkingOut);
+    }
+
+    private List<Member> deactivate(String tier, long afterId, long throughId) {
+        return memberRepository.deactivateLapsed(JOINED_BEFORE, NO_LOANS_SINCE, tier, afterId, throughId,
+                TODAY.atStartOfDay());
+    }
+
+    private long member(String memberId, String tier, LocalDate joined, boolean active) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO members (member_id, first_name, last_name, email, membership_date, is_active, tier)
+            VALUES (?, 'Asha', 'Rao', ?, ?, ?, ?) RETURNING id
+            """, Long.class, memberId, memberId.toLowerCase() + "@example.com", joined, active, tier);
+    }
+
+    private void loan(long memberId, LocalDate issued, String status) {
+        jdbcTemplate.update("""
+            INSERT INTO transactions (book_id, member_id, issue_date, due_date, return_date, status)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """, bookId, memberId, issued, issued.plusDays(14), "ISSUED".equals(status) ? null : issued.plusDays(7), status);
+    }
+
+    private void hold(long memberId, String status) {
+        jdbcTemplate.update("INSERT INTO holds (book_id, member_id, status) VALUES (?, ?, ?)", bookId, memberId, status);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
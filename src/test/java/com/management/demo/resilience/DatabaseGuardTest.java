@@ -0,0 +1,293 @@
+package com.management.demo.resilience;
+
+import com.management.demo.model.Book;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.sharding.BranchContext;
+import com.management.demo.sharding.BranchFilter;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// An H2 database behind a FaultInjectingDataSource stands in for PostgreSQL going down
+class DatabaseGuardTest {
+
+    private static final long OPEN_MS = 200;
+
+    private DriverManagerDataSource database;
+    private FaultInjectingDataSource dataSource;
+    private BookRepository bookRepository;
+    private ShardResolver shardResolver;
+    private DatabaseGuard guard;
+    private MockHttpServletResponse response;
+    private volatile boolean northDown;
+
+    @BeforeEach
+    void setUp() {
+        database = new DriverManagerDataSource("jdbc:h2:mem:guard_" + UUID.randomUUID().toString().substring(0, 8)
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(database).execute("""
+            CREATE TABLE books (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                isbn VARCHAR(20), title VARCHAR(255), author VARCHAR(255), category VARCHAR(100),
+                publication_year INT, total_copies INT, available_copies INT,
+                created_at TIMESTAMP, updated_at TIMESTAMP, branch VARCHAR(50) NOT NULL DEFAULT 'main',
+                version BIGINT NOT NULL DEFAULT 0
+            )
+            """);
+        dataSource = new FaultInjectingDataSource(database);
+
+        // Two branches on one database: the fault injection decides which of them sees an outage
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.getBranches().put("north", new ShardingProperties.Branch());
+        shardResolver = new ShardResolver(properties);
+        bookRepository = new BookRepository();
+        ReflectionTestUtils.setField(bookRepository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(bookRepository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(bookRepository, "shardResolver", shardResolver);
+
+        guard = new DatabaseGuard();
+        ReflectionTestUtils.setField(guard, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(guard, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(guard, "enabled", true);
+        ReflectionTestUtils.setField(guard, "windowSize", 4);
+        ReflectionTestUtils.setField(guard, "minCalls", 2);
+        ReflectionTestUtils.setField(guard, "failureRatePercent", 50);
+        ReflectionTestUtils.setField(guard, "slowCallMs", 100L);
+        ReflectionTestUtils.setField(guard, "slowCallRatePercent", 50);
+        ReflectionTestUtils.setField(guard, "openMs", OPEN_MS);
+        ReflectionTestUtils.setField(guard, "maxEntries", 100);
+        ReflectionTestUtils.setField(guard, "revalidateBatch", 10);
+        guard.start();
+
+        bookRepository.save(book("978-1", "The Left Hand of Darkness"));
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void outageServesLastKnownGoodMarkedStaleAndStopsCallingTheDatabase() {
+        assertThat(read("book/1", () -> bookRepository.findById(1L))).map(Book::getTitle).contains("The Left Hand of Darkness");
+        assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isNull();
+
+        dataSource.setDown(true);
+        for (int i = 0; i < 2; i++) {
+            assertThat(read("book/1", () -> bookRepository.findById(1L))).map(Book::getTitle).contains("The Left Hand of Darkness");
+            assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isEqualTo("true");
+            assertThat(response.getHeader("Age")).isNotNull();
+        }
+        assertThat(guard.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Open: answered without waiting on the database
+        int attempts = dataSource.getConnectionAttempts();
+        read("book/1", () -> bookRepository.findById(1L));
+        assertThat(dataSource.getConnectionAttempts()).isEqualTo(attempts);
+        assertThatThrownBy(() -> read("book/2", () -> bookRepository.findById(2L)))
+                .isInstanceOf(DatabaseUnavailableException.class);
+        assertThat(guard.acceptsWrites()).isFalse();
+    }
+
+    @Test
+    void slowDatabaseOpensTheBreaker() {
+        read("book/1", () -> bookRepository.findById(1L));
+        dataSource.setDelayMs(150);
+        read("book/1", () -> bookRepository.findById(1L));
+        read("book/1", () -> bookRepository.findById(1L));
+
+        assertThat(guard.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        long start = System.nanoTime();
+        assertThat(read("book/1", () -> bookRepository.findById(1L))).isPresent();
+        assertThat(System.nanoTime() - start).isLessThan(100_000_000L);
+        assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void backgroundRevalidationClosesTheBreakerOnceTheDatabaseIsBack() throws InterruptedException {
+        read("book/1", () -> bookRepository.findById(1L));
+        dataSource.setDown(true);
+        read("book/1", () -> bookRepository.findById(1L));
+        read("book/1", () -> bookRepository.findById(1L));
+        assertThat(guard.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Changed while this instance could not see the database
+        new JdbcTemplate(database).update("UPDATE books SET title = ? WHERE id = 1", "The Dispossessed");
+        dataSource.setDown(false);
+        int attempts = dataSource.getConnectionAttempts();
+        guard.revalidate();
+        assertThat(dataSource.getConnectionAttempts()).isEqualTo(attempts);
+
+        Thread.sleep(OPEN_MS + 50);
+        guard.revalidate();
+        assertThat(guard.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(guard.acceptsWrites()).isTrue();
+
+        // The stored answer was refreshed: the next outage serves the new title
+        dataSource.setDown(true);
+        assertThat(read("book/1", () -> bookRepository.findById(1L))).map(Book::getTitle).contains("The Dispossessed");
+    }
+
+    @Test
+    void writesAreRefusedWhileTheBreakerIsOpen() throws Exception {
+        read("book/1", () -> bookRepository.findById(1L));
+        dataSource.setDown(true);
+        read("book/1", () -> bookRepository.findById(1L));
+        read("book/1", () -> bookRepository.findById(1L));
+
+        WriteGateFilter filter = writeGate();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain writeChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/books"), rejected, writeChain);
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+        assertThat(writeChain.getRequest()).isNull();
+
+        MockFilterChain readChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), new MockHttpServletResponse(), readChain);
+        assertThat(readChain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void anOutageOnOneBranchLeavesTheOthersAlone() throws Exception {
+        BranchContext.runIn("north", () -> read("book/1", () -> bookRepository.findById(1L)));
+        dataSource.setDown(true);
+        BranchContext.runIn("north", () -> {
+            read("book/1", () -> bookRepository.findById(1L));
+            read("book/1", () -> bookRepository.findById(1L));
+        });
+        dataSource.setDown(false);
+
+        assertThat(guard.getState("north")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(guard.getState("main")).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(read("book/1", () -> bookRepository.findById(1L))).isPresent();
+        assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isNull();
+
+        WriteGateFilter filter = writeGate();
+        MockHttpServletRequest northWrite = new MockHttpServletRequest("POST", "/api/books");
+        northWrite.addHeader(BranchFilter.BRANCH_HEADER, "north");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(northWrite, rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        MockFilterChain mainChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/books"), new MockHttpServletResponse(), mainChain);
+        assertThat(mainChain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void crossBranchReadsChargeEachBranchItsOwnFailures() {
+        Supplier<List<String>> titles = () -> {
+            if (northDown && "north".equals(BranchContext.current())) {
+                throw new DataAccessResourceFailureException("north is unreachable");
+            }
+            return List.of(BranchContext.current() + ":The Lathe of Heaven");
+        };
+        assertThat(readEveryBranch(titles)).containsExactly("main:The Lathe of Heaven", "north:The Lathe of Heaven");
+
+        northDown = true;
+        for (int i = 0; i < 3; i++) {
+            assertThat(readEveryBranch(titles)).containsExactly("main:The Lathe of Heaven", "north:The Lathe of Heaven");
+            assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isEqualTo("true");
+        }
+        assertThat(guard.getState("north")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(guard.getState("main")).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(guard.acceptsWrites("main")).isTrue();
+
+        // A lookup that finds its answer on the healthy branch is not stale
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        assertThat(guard.readFirst("first", () -> Optional.of(BranchContext.current()))).contains("main");
+        assertThat(response.getHeader(DatabaseGuard.STALE_HEADER)).isNull();
+    }
+
+    @Test
+    void aBranchMissingTheFanOutDeadlineIsAnOutage() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setFanOutTimeoutMs(100);
+        properties.getBranches().put("north", new ShardingProperties.Branch());
+        ShardResolver impatient = new ShardResolver(properties);
+
+        assertThatThrownBy(() -> impatient.fanOut(branch -> {
+            sleepOn("north", 1_000);
+            return List.of(branch);
+        })).isInstanceOf(QueryTimeoutException.class).satisfies(e -> assertThat(DatabaseGuard.isOutage(e)).isTrue());
+
+        ReflectionTestUtils.setField(guard, "shardResolver", impatient);
+        assertThatThrownBy(() -> readEveryBranch(() -> {
+            sleepOn("north", 1_000);
+            return List.of(BranchContext.current());
+        })).isInstanceOf(DatabaseUnavailableException.class);
+        assertThat(guard.getState("main")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static void sleepOn(String branch, long millis) {
+        if (branch.equals(BranchContext.current())) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new QueryTimeoutException("Interrupted");
+            }
+        }
+    }
+
+    private List<String> readEveryBranch(Supplier<List<String>> loader) {
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        return guard.readEveryBranch("titles", loader);
+    }
+
+    private WriteGateFilter writeGate() {
+        WriteGateFilter filter = new WriteGateFilter();
+        ReflectionTestUtils.setField(filter, "databaseGuard", guard);
+        ReflectionTestUtils.setField(filter, "shardResolver", shardResolver);
+        return filter;
+    }
+
+    // One request's worth of read, with its own response to carry the stale headers
+    private <T> T read(String key, Supplier<T> loader) {
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        return guard.read(key, loader);
+    }
+
+    private static Book book(String isbn, String title) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setAuthor("Ursula K. Le Guin");
+        book.setCategory("Fiction");
+        book.setPublicationYear(1969);
+        book.setTotalCopies(2);
+        book.setAvailableCopies(2);
+        book.setCreatedAt(LocalDateTime.now());
+        book.setUpdatedAt(LocalDateTime.now());
+        return book;
+    }
+}
@@ -0,0 +1,50 @@
+package com.management.demo.resilience;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Wraps a working DataSource and, on demand, refuses connections (like a database that is
+// down or failing over) or hands them out late (like an overloaded one)
+class FaultInjectingDataSource extends DelegatingDataSource {
+
+    private final AtomicInteger connectionAttempts = new AtomicInteger();
+    private volatile boolean down;
+    private volatile long delayMs;
+
+    FaultInjectingDataSource(DataSource target) {
+        super(target);
+    }
+
+    void setDown(boolean down) {
+        this.down = down;
+    }
+
+    void setDelayMs(long delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    int getConnectionAttempts() {
+        return connectionAttempts.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        connectionAttempts.incrementAndGet();
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (down) {
+            throw new SQLTransientConnectionException("Injected outage: connection refused");
+        }
+        return super.getConnection();
+    }
+}
@@ -0,0 +1,212 @@
+package com.management.demo.service;
+
+import com.management.demo.PostgresTestDatabase;
+import com.management.demo.event.BookIssuedEvent;
+import com.management.demo.event.BookReturnedEvent;
+import com.management.demo.exception.InvalidInputException;
+import com.management.demo.model.CirculationRollup;
+import com.management.demo.repository.CirculationRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Live rollup upserts and the month-by-month backfill, on PostgreSQL
+@Testcontainers(disabledWithoutDocker = true)
+class CirculationReportServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final YearMonth THIS_MONTH = YearMonth.from(TODAY);
+    private static final YearMonth LAST_YEAR = THIS_MONTH.minusMonths(12);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CirculationRollupRepository rollupRepository;
+    private CirculationReportService reportService;
+    private long fiction;
+    private long science;
+    private long member2019;
+    private long member2023;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        rollupRepository = new CirculationRollupRepository();
+        ReflectionTestUtils.setField(rollupRepository, "jdbcTemplate", jdbcTemplate);
+        reportService = new CirculationReportService();
+        ReflectionTestUtils.setField(reportService, "rollupRepository", rollupRepository);
+        ReflectionTestUtils.setField(reportService, "transactionTemplate", transactionTemplate);
+
+        fiction = book("978-1", "Fiction");
+        science = book("978-2", "Science");
+        member2019 = member("M-1", LocalDate.of(2019, 3, 1));
+        member2023 = member("M-2", LocalDate.of(2023, 9, 1));
+    }
+
+    @Test
+    void issuesAndReturnsAddUpPerDayAndMonth() {
+        LocalDate day = THIS_MONTH.atDay(1);
+        reportService.onBookIssued(new BookIssuedEvent(1L, fiction, member2019, day));
+        reportService.onBookIssued(new BookIssuedEvent(2L, fiction, member2019, day.plusDays(1)));
+        reportService.onBookIssued(new BookIssuedEvent(3L, science, member2023, day));
+        reportService.onBookReturned(new BookReturnedEvent(1L, fiction, member2019, day.plusDays(1), true, new BigDecimal("15.00")));
+
+        List<CirculationRollup> days = reportService.getCirculation("DAY", day, day.plusDays(1), "Fiction");
+        assertThat(days).extracting(CirculationRollup::getPeriodStart, CirculationRollup::getIssues, CirculationRollup::getReturns)
+                .containsExactly(
+                        tuple(day, 1, 0),
+                        tuple(day.plusDays(1), 1, 1));
+
+        List<CirculationRollup> months = reportService.getCirculation("MONTH", day.plusDays(1), day.plusDays(1), null);
+        assertThat(months).hasSize(2);
+        CirculationRollup fictionMonth = months.get(0);
+        assertThat(fictionMonth.getPeriodStart()).isEqualTo(day);
+        assertThat(fictionMonth.getCategory()).isEqualTo("Fiction");
+        assertThat(fictionMonth.getCohort()).isEqualTo(2019);
+        assertThat(fictionMonth.getIssues()).isEqualTo(2);
+        assertThat(fictionMonth.getOverdueReturns()).isEqualTo(1);
+        assertThat(fictionMonth.getFines()).isEqualByComparingTo("15.00");
+        assertThat(months.get(1).getCohort()).isEqualTo(2023);
+    }
+
+    @Test
+    void backfillRebuildsEveryMonthFromTransactions() throws InterruptedException {
+        LocalDate old = LAST_YEAR.atDay(2);
+        loan(fiction, member2019, old, old.plusDays(14), old.plusDays(20), "12.00");
+        loan(science, member2023, old.plusDays(2), old.plusDays(16), null, "0");
+        loan(fiction, member2023, TODAY, TODAY.plusDays(14), null, "0");
+        // Rows that drifted, or that nothing backs any more
+        jdbcTemplate.update("""
+            INSERT INTO circulation_rollups (grain, period_start, category, cohort, issues)
+            VALUES ('MONTH', ?, 'Fiction', 2019, 99), ('DAY', ?, 'Gone', 0, 1)
+            """, LAST_YEAR.atDay(1), LAST_YEAR.plusMonths(3).atDay(5));
+
+        assertThat(reportService.startBackfill()).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (reportService.isBackfillRunning()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+
+        assertThat(reportService.getLastBackfilledMonth()).isEqualTo(THIS_MONTH);
+        List<CirculationRollup> months = reportService.getCirculation("MONTH", LAST_YEAR.atDay(1), TODAY, null);
+        assertThat(months).extracting(CirculationRollup::getPeriodStart, CirculationRollup::getCategory,
+                        CirculationRollup::getIssues, CirculationRollup::getReturns, CirculationRollup::getOverdueReturns)
+                .containsExactly(
+                        tuple(LAST_YEAR.atDay(1), "Fiction", 1, 1, 1),
+                        tuple(LAST_YEAR.atDay(1), "Science", 1, 0, 0),
+                        tuple(THIS_MONTH.atDay(1), "Fiction", 1, 0, 0));
+        assertThat(reportService.getCirculation("MONTH", LAST_YEAR.atDay(1), TODAY, "Gone")).isEmpty();
+    }
+
+    @Test
+    void dailyReportsAreLimitedToAQuarter() {
+        LocalDate from = TODAY.minusDays(CirculationReportService.MAX_DAY_RANGE_DAYS - 1);
+        assertThat(reportService.getCirculation("DAY", from, TODAY, null)).isEmpty();
+        assertThatThrownBy(() -> reportService.getCirculation("DAY", from.minusDays(1), TODAY, null))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessageContaining("grain=month");
+        assertThat(reportService.getCirculation("MONTH", LAST_YEAR.atDay(1), TODAY, null)).isEmpty();
+    }
+
+    @Test
+    void rebuildingAnOldMonthDoesNotHoldUpLiveActivity() throws Exception {
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> backfill = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.rebuildMonth(LAST_YEAR);
+            rebuilt.countDown();
+            await(release);
+        }));
+        await(rebuilt);
+
+        // Today's checkout goes through while last year's month is still being rewritten
+        transactionTemplate.executeWithoutResult(status ->
+                rollupRepository.addActivity(TODAY, fiction, member2019, 1, 0, 0, BigDecimal.ZERO));
+
+        release.countDown();
+        backfill.get(10, TimeUnit.SECONDS);
+        assertThat(reportService.getCirculation("DAY", TODAY, TODAY, null)).singleElement()
+                .extracting(CirculationRollup::getIssues).isEqualTo(1);
+    }
+
+    @Test
+    void liveActivityInTheMonthBeingRebuiltWaitsAndIsCountedOnce() throws Exception {
+        loan(fiction, member2019, TODAY, TODAY.plusDays(14), null, "0");
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> backfill = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.rebuildMonth(THIS_MONTH);
+            rebuilt.countDown();
+            await(release);
+        }));
+        await(rebuilt);
+
+        // A checkout this month: its loan is not visible to the rebuild, and its rollup update
+        // waits for the rebuild to commit instead of being wiped by it
+        CompletableFuture<Void> checkout = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            loan(science, member2023, TODAY, TODAY.plusDays(14), null, "0");
+            rollupRepository.addActivity(TODAY, science, member2023, 1, 0, 0, BigDecimal.ZERO);
+        }));
+        assertThatThrownBy(() -> checkout.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        release.countDown();
+        backfill.get(10, TimeUnit.SECONDS);
+        checkout.get(10, TimeUnit.SECONDS);
+        assertThat(reportService.getCirculation("MONTH", TODAY, TODAY, null))
+                .extracting(CirculationRollup::getCategory, CirculationRollup::getIssues)
+                .containsExactly(
+                        tuple("Fiction", 1),
+                        tuple("Science", 1));
+    }
+
+    private long book(String isbn, String category) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO books (isbn, title, author, category, total_copies, available_copies)
+            VALUES (?, 'Title', 'Author', ?, 10, 10) RETURNING id
+            """, Long.class, isbn, category);
+    }
+
+    private long member(String memberId, LocalDate joined) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO members (member_id, first_name, last_name, email, membership_date)
+            VALUES (?, 'Asha', 'Rao', ?, ?) RETURNING id
+            """, Long.class, memberId, memberId.toLowerCase() + "@example.com", joined);
+    }
+
+    private void loan(long bookId, long memberId, LocalDate issued, LocalDate due, LocalDate returned, String fine) {
+        jdbcTemplate.update("""
+            INSERT INTO transactions (book_id, member_id, issue_date, due_date, return_date, fine_amount, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """, bookId, memberId, issued, due, returned, new BigDecimal(fine),
+                returned == null ? "ISSUED" : returned.isAfter(due) ? "OVERDUE" : "RETURNED");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.management.demo.service;
+
+import com.management.demo.PostgresTestDatabase;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.fine.FinePolicy;
+import com.management.demo.fine.FinePolicyProperties;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.model.Hold;
+import com.management.demo.notification.Notification;
+import com.management.demo.notification.Notifier;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.HoldRepository;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.repository.TransactionRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The hold queue on PostgreSQL, in a small Spring context so that @Transactional and the
+// AFTER_COMMIT notification listener behave as in the application
+@Testcontainers(disabledWithoutDocker = true)
+class HoldServiceTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TransactionConfig {
+    }
+
+    private AnnotationConfigApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private HoldService holdService;
+    private TransactionService transactionService;
+    private final List<Notification> notifications = Collections.synchronizedList(new ArrayList<>());
+    private long bookId;
+    private int members;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.create();
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        context = new AnnotationConfigApplicationContext();
+        context.register(TransactionConfig.class);
+        context.registerBean(DataSourceTransactionManager.class, () -> transactionManager);
+        context.registerBean(TransactionTemplate.class, () -> new TransactionTemplate(transactionManager));
+        context.registerBean(JdbcTemplate.class, () -> new JdbcTemplate(dataSource));
+        context.registerBean(NamedParameterJdbcTemplate.class, () -> new NamedParameterJdbcTemplate(dataSource));
+        context.registerBean(ShardResolver.class, () -> new ShardResolver(new ShardingProperties()));
+        context.registerBean(Notifier.class, () -> notifications::add);
+        context.registerBean(BookRepository.class);
+        context.registerBean(MemberRepository.class);
+        context.registerBean(HoldRepository.class);
+        context.registerBean(TransactionRepository.class);
+        context.registerBean(HoldService.class);
+        context.registerBean(TransactionService.class);
+        // Disabled as in a default configuration; registered as is, without injection
+        context.getBeanFactory().registerSingleton("journal", new Journal());
+        context.getBeanFactory().registerSingleton("invalidationBus", new InvalidationBus());
+        context.getBeanFactory().registerSingleton("finePolicy", FinePolicy.compile(new FinePolicyProperties()));
+        context.refresh();
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        holdService = context.getBean(HoldService.class);
+        transactionService = context.getBean(TransactionService.class);
+        bookId = jdbcTemplate.queryForObject("""
+            INSERT INTO books (isbn, title, author, total_copies, available_copies)
+            VALUES ('978-0134685991', 'Effective Java', 'Joshua Bloch', 2, 0) RETURNING id
+            """, Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void returnedCopiesGoToTheQueueInOrderAndNotifyOnCommit() {
+        long firstLoan = loan(member());
+        long secondLoan = loan(member());
+        Hold first = holdService.placeHold(bookId, member());
+        Hold second = holdService.placeHold(bookId, member());
+        Hold third = holdService.placeHold(bookId, member());
+        assertThat(List.of(first, second, third)).extracting(Hold::getQueuePosition).containsExactly(1, 2, 3);
+        assertThatThrownBy(() -> holdService.placeHold(bookId, first.getMemberId()))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("already has a hold");
+
+        transactionService.returnBook(firstLoan);
+        transactionService.returnBook(secondLoan);
+
+        assertThat(statuses(first, second, third)).containsExactly("READY", "READY", "WAITING");
+        assertThat(availableCopies()).isZero();
+        assertThat(notifications).extracting(Notification::memberId)
+                .containsExactly(first.getMemberId(), second.getMemberId());
+        assertThat(notifications.get(0).type()).isEqualTo("HOLD_READY");
+    }
+
+    @Test
+    void notificationIsOnlySentOnceTheAllocationCommits() {
+        Hold hold = holdService.placeHold(bookId, member());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(holdService.allocateReturnedCopy(bookId)).isTrue();
+            assertThat(notifications).isEmpty();
+            status.setRollbackOnly();
+        });
+        assertThat(notifications).isEmpty();
+        assertThat(statuses(hold)).containsExactly("WAITING");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(holdService.allocateReturnedCopy(bookId)).isTrue();
+            assertThat(notifications).isEmpty();
+        });
+        assertThat(notifications).extracting(Notification::memberId).containsExactly(hold.getMemberId());
+    }
+
+    @Test
+    void holdBeingChangedElsewhereIsSkippedNotWaitedFor() throws Exception {
+        long loan = loan(member());
+        Hold first = holdService.placeHold(bookId, member());
+        Hold second = holdService.placeHold(bookId, member());
+
+        // The first member is cancelling, in a transaction that has not committed yet
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> cancel = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            holdService.cancelHold(first.getId());
+            locked.countDown();
+            await(release);
+        }));
+        await(locked);
+
+        transactionService.returnBook(loan);
+        release.countDown();
+        cancel.get(10, TimeUnit.SECONDS);
+
+        assertThat(statuses(first, second)).containsExactly("CANCELLED", "READY");
+    }
+
+    @Test
+    void copyReturnedWhileAHoldIsPlacedGoesToThatHold() throws Exception {
+        long loan = loan(member());
+        long waiting = member();
+
+        // The hold's transaction has found no copy on the shelf but not committed yet
+        CountDownLatch placed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Hold> hold = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Hold h = holdService.placeHold(bookId, waiting);
+            placed.countDown();
+            await(release);
+            return h;
+        }));
+        await(placed);
+
+        // The return waits for the hold instead of putting the copy back on the shelf
+        CompletableFuture<Void> returned = CompletableFuture.runAsync(() -> transactionService.returnBook(loan));
+        assertThatThrownBy(() -> returned.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        release.countDown();
+        returned.get(10, TimeUnit.SECONDS);
+
+        assertThat(statuses(hold.get(10, TimeUnit.SECONDS))).containsExactly("READY");
+        assertThat(availableCopies()).isZero();
+        assertThat(notifications).extracting(Notification::memberId).containsExactly(waiting);
+    }
+
+    @Test
+    void uncollectedHoldsExpireAndTheCopyMovesOn() {
+        Hold first = holdService.placeHold(bookId, member());
+        Hold second = holdService.placeHold(bookId, member());
+        transactionTemplate.executeWithoutResult(status -> holdService.allocateReturnedCopy(bookId));
+        pickupWindowPassed(first);
+
+        holdService.expireUncollectedHolds();
+
+        assertThat(statuses(first, second)).containsExactly("EXPIRED", "READY");
+        assertThat(context.getBean(HoldRepository.class).findById(second.getId()).orElseThrow().getExpiresAt())
+                .isAfter(LocalDateTime.now().plusDays(2));
+        assertThat(notifications).extracting(Notification::memberId).containsExactly(first.getMemberId(), second.getMemberId());
+
+        // Nobody left in the queue: the copy goes back on the shelf
+        pickupWindowPassed(second);
+        holdService.expireUncollectedHolds();
+        assertThat(statuses(second)).containsExactly("EXPIRED");
+        assertThat(availableCopies()).isEqualTo(1);
+    }
+
+    private long member() {
+        members++;
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO members (member_id, first_name, last_name, email) VALUES (?, 'Asha', 'Rao', ?) RETURNING id
+            """, Long.class, "M-" + members, "asha." + members + "@example.com");
+    }
+
+    // An open loan of one of the copies not on the shelf
+    private long loan(long memberId) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO transactions (book_id, member_id, issue_date, due_date) VALUES (?, ?, ?, ?) RETURNING id
+            """, Long.class, bookId, memberId, LocalDate.now(), LocalDate.now().plusDays(14));
+    }
+
+    private void pickupWindowPassed(Hold hold) {
+        jdbcTemplate.update("UPDATE holds SET expires_at = ? WHERE id = ?", LocalDateTime.now().minusMinutes(1), hold.getId());
+    }
+
+    private List<String> statuses(Hold... holds) {
+        List<String> statuses = new ArrayList<>();
+        for (Hold hold : holds) {
+            statuses.add(jdbcTemplate.queryForObject("SELECT status FROM holds WHERE id = ?", String.class, hold.getId()));
+        }
+        return statuses;
+    }
+
+    private int availableCopies() {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
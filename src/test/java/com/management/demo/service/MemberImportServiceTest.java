@@ -0,0 +1,230 @@
+package com.management.demo.service;
+
+import com.management.demo.exception.InvalidInputException;
+import com.management.demo.invalidation.EntityChange;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.journal.JournalOp;
+import com.management.demo.model.Member;
+import com.management.demo.model.MemberImportReport;
+import com.management.demo.model.MemberImportReport.RowResult;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// An H2 database in PostgreSQL mode; the import path uses no PostgreSQL-only SQL
+class MemberImportServiceTest {
+
+    private static final String HEADER = "memberId,firstName,lastName,email,phone,address,membershipDate";
+
+    private JdbcTemplate jdbcTemplate;
+    private RecordingMemberRepository memberRepository;
+    private final RecordingJournal journal = new RecordingJournal();
+    private final RecordingInvalidationBus invalidationBus = new RecordingInvalidationBus();
+    private MemberImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:import_"
+                + UUID.randomUUID().toString().substring(0, 8) + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE members (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                member_id VARCHAR(20) NOT NULL UNIQUE, first_name VARCHAR(100) NOT NULL,
+                last_name VARCHAR(100) NOT NULL, email VARCHAR(255) NOT NULL UNIQUE, phone VARCHAR(20),
+                address VARCHAR(255), membership_date DATE NOT NULL, is_active BOOLEAN NOT NULL DEFAULT TRUE,
+                tier VARCHAR(20) NOT NULL DEFAULT 'STANDARD', branch VARCHAR(50) NOT NULL DEFAULT 'main',
+                version BIGINT NOT NULL DEFAULT 0, created_at TIMESTAMP, updated_at TIMESTAMP
+            )
+            """);
+        jdbcTemplate.update("INSERT INTO members (member_id, first_name, last_name, email, membership_date) "
+                + "VALUES ('M0001', 'Ursula', 'Le Guin', 'ursula@example.org', DATE '2020-01-15')");
+
+        memberRepository = new RecordingMemberRepository();
+        ReflectionTestUtils.setField(memberRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(memberRepository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        ShardResolver shardResolver = new ShardResolver(new ShardingProperties());
+        ReflectionTestUtils.setField(memberRepository, "shardResolver", shardResolver);
+
+        importService = new MemberImportService();
+        ReflectionTestUtils.setField(importService, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(importService, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(importService, "journal", journal);
+        ReflectionTestUtils.setField(importService, "invalidationBus", invalidationBus);
+        ReflectionTestUtils.setField(importService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(importService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void newMembersAreImportedAndExistingOnesReportedAsDuplicates() throws IOException {
+        MemberImportReport report = importMembers(HEADER,
+                "M0002,Octavia,Butler,octavia@example.org,555-0100,\"12 Kindred Way, Pasadena\",2024-09-01",
+                "M0001,Someone,Else,someone@example.org,,,",
+                "M0003,Another,Ursula,ursula@example.org,,,",
+                "M0002,Octavia,Again,octavia2@example.org,,,",
+                "M0004,Same,Email,octavia@example.org,,,");
+
+        assertThat(report.getRows()).extracting(RowResult::getLine, RowResult::getStatus).containsExactly(
+                tuple(2, "IMPORTED"),
+                tuple(3, "DUPLICATE"),
+                tuple(4, "DUPLICATE"),
+                tuple(5, "DUPLICATE"),
+                tuple(6, "DUPLICATE"));
+        assertThat(report.getRows().get(1).getMessage()).isEqualTo("Member with ID M0001 already exists");
+        assertThat(report.getRows().get(2).getMessage()).isEqualTo("Member with email ursula@example.org already exists");
+        assertThat(report.getRows().get(3).getMessage()).isEqualTo("Member ID M0002 appears earlier in the file");
+        assertThat(report.getRows().get(4).getMessage()).isEqualTo("Email octavia@example.org appears earlier in the file");
+        assertThat(report.getTotalRows()).isEqualTo(5);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isEqualTo(4);
+        assertThat(report.getInvalid()).isZero();
+
+        // The quoted address kept its comma
+        assertThat(jdbcTemplate.queryForObject("SELECT address FROM members WHERE member_id = 'M0002'", String.class))
+                .isEqualTo("12 Kindred Way, Pasadena");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM members", Long.class)).isEqualTo(2);
+
+        // Only the new member is journalled, under its database ID
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM members WHERE member_id = 'M0002'", Long.class);
+        assertThat(journal.created).containsExactly(id);
+        assertThat(invalidationBus.published).containsExactly(id);
+    }
+
+    @Test
+    void aKeyRegisteredDuringTheImportIsADuplicate() throws IOException {
+        // Taken after the Bloom filters were built, so only the insert itself notices
+        memberRepository.beforeBatch = () -> jdbcTemplate.update("INSERT INTO members "
+                + "(member_id, first_name, last_name, email, membership_date) "
+                + "VALUES ('M0005', 'N', 'K', 'nk@example.org', CURRENT_DATE)");
+
+        MemberImportReport report = importMembers(HEADER,
+                "M0005,Nora,Jemisin,nora@example.org,,,",
+                "M0006,Ted,Chiang,ted@example.org,,,");
+
+        assertThat(report.getRows()).extracting(RowResult::getStatus).containsExactly("DUPLICATE", "IMPORTED");
+        assertThat(report.getRows().get(0).getMessage()).isEqualTo("Member ID or email was registered concurrently");
+        assertThat(journal.created).hasSize(1);
+    }
+
+    @Test
+    void malformedRowsAreInvalidAndTheRestStillImport() throws IOException {
+        MemberImportReport report = importMembers(HEADER,
+                "M0010,Iain,Banks,not-an-email,,,",
+                "M0011,,Banks,iain@example.org,,,",
+                "M0012,Iain,Banks,banks@example.org,,,15/03/2024",
+                "",
+                "M0013,Ann,Leckie,ann@example.org");
+
+        assertThat(report.getRows()).extracting(RowResult::getLine, RowResult::getStatus).containsExactly(
+                tuple(2, "INVALID"),
+                tuple(3, "INVALID"),
+                tuple(4, "INVALID"),
+                tuple(6, "IMPORTED"));
+        assertThat(report.getRows().get(0).getMessage()).isEqualTo("Email should be valid");
+        assertThat(report.getRows().get(1).getMessage()).isEqualTo("First name is required");
+        assertThat(report.getRows().get(2).getMessage()).isEqualTo("membershipDate must be an ISO date (yyyy-MM-dd)");
+        assertThat(report.getInvalid()).isEqualTo(3);
+        assertThat(report.getImported()).isEqualTo(1);
+    }
+
+    @Test
+    void unusableFilesAreRejectedOutright() {
+        assertThatThrownBy(() -> importMembers())
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("CSV file is empty");
+        assertThatThrownBy(() -> importMembers("memberId,firstName,lastName", "M0020,Kim,Robinson"))
+                .isInstanceOf(InvalidInputException.class)
+                .hasMessage("CSV header is missing column: email");
+        assertThat(memberRepository.batches).isEmpty();
+    }
+
+    @Test
+    void largeFilesAreInsertedInChunks() throws IOException {
+        List<String> lines = new ArrayList<>();
+        // snake_case headers are accepted too
+        lines.add("member_id,first_name,last_name,email");
+        for (int i = 0; i < 2_500; i++) {
+            lines.add("B%05d,Reader,%d,reader%d@example.org".formatted(i, i, i));
+        }
+        // A member ID first seen in an earlier chunk is caught against the database
+        lines.add("B00010,Reader,Again,again@example.org");
+
+        MemberImportReport report = importMembers(lines.toArray(String[]::new));
+
+        assertThat(memberRepository.batches).containsExactly(1_000, 1_000, 500);
+        assertThat(report.getImported()).isEqualTo(2_500);
+        assertThat(journal.created).hasSize(2_500).doesNotHaveDuplicates();
+        assertThat(invalidationBus.published).containsExactlyElementsOf(journal.created);
+        assertThat(report.getDuplicates()).isEqualTo(1);
+        assertThat(report.getRows().get(2_500).getMessage()).isEqualTo("Member with ID B00010 already exists");
+        assertThat(report.getProbableDuplicates()).isGreaterThanOrEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM members", Long.class)).isEqualTo(2_501);
+    }
+
+    private MemberImportReport importMembers(String... lines) throws IOException {
+        String csv = lines.length == 0 ? "" : String.join("\n", lines) + "\n";
+        return importService.importMembers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class RecordingJournal extends Journal {
+
+        private final List<Long> created = new ArrayList<>();
+
+        @Override
+        public void append(JournalOp op, long entityId, long bookId, long memberId, String detail) {
+            if (op == JournalOp.MEMBER_CREATED) {
+                created.add(entityId);
+            }
+        }
+    }
+
+    private static class RecordingInvalidationBus extends InvalidationBus {
+
+        private final List<Long> published = new ArrayList<>();
+
+        @Override
+        public void publish(EntityChange.Kind kind, Long id) {
+            if (kind == EntityChange.Kind.MEMBER) {
+                published.add(id);
+            }
+        }
+    }
+
+    // Notes the size of every insert batch, and can run something just before one
+    private static class RecordingMemberRepository extends MemberRepository {
+
+        private final List<Integer> batches = new ArrayList<>();
+        private Runnable beforeBatch = () -> {
+        };
+
+        @Override
+        public int[] batchInsert(List<Member> members) {
+            batches.add(members.size());
+            beforeBatch.run();
+            return super.batchInsert(members);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.management.demo.service;
+
+import com.management.demo.PostgresTestDatabase;
+import com.management.demo.notification.Notification;
+import com.management.demo.notification.Notifier;
+import com.management.demo.repository.ReminderRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reminder runs against PostgreSQL (claims are INSERT ... ON CONFLICT ... RETURNING)
+@Testcontainers(disabledWithoutDocker = true)
+class ReminderServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private JdbcTemplate jdbcTemplate;
+    private ReminderRepository reminderRepository;
+    private RecordingNotifier notifier;
+    private ReminderService reminderService;
+    private long bookId;
+    private int members;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        reminderRepository = new ReminderRepository();
+        ReflectionTestUtils.setField(reminderRepository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        notifier = new RecordingNotifier();
+
+        reminderService = new ReminderService();
+        ReflectionTestUtils.setField(reminderService, "reminderRepository", reminderRepository);
+        ReflectionTestUtils.setField(reminderService, "notifier", notifier);
+        ReflectionTestUtils.setField(reminderService, "shardResolver", new ShardResolver(new ShardingProperties()));
+        ReflectionTestUtils.setField(reminderService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reminderService, "enabled", true);
+        ReflectionTestUtils.setField(reminderService, "dueInDays", 2);
+        ReflectionTestUtils.setField(reminderService, "overdueLookbackDays", 30);
+        ReflectionTestUtils.setField(reminderService, "pageSize", 2);
+        ReflectionTestUtils.setField(reminderService, "maxInFlight", 4);
+        ReflectionTestUtils.setField(reminderService, "claimTimeoutMinutes", 15);
+
+        bookId = jdbcTemplate.queryForObject("""
+            INSERT INTO books (isbn, title, author, total_copies, available_copies)
+            VALUES ('978-0134685991', 'Effective Java', 'Joshua Bloch', 50, 50) RETURNING id
+            """, Long.class);
+    }
+
+    @Test
+    void pagesThroughEveryLoanOnceAcrossDueDateTies() {
+        // Five loans due on one day straddle the page boundaries of pageSize 2
+        List<Long> dueSoon = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dueSoon.add(loan(TODAY.plusDays(1)));
+        }
+        dueSoon.add(loan(TODAY));
+        long overdue = loan(TODAY.minusDays(3));
+        loan(TODAY.plusDays(10));
+        loan(TODAY.minusDays(60));
+
+        reminderService.run();
+
+        assertThat(notifier.members("DUE_SOON")).containsExactlyInAnyOrderElementsOf(dueSoon.stream().map(this::memberOf).toList());
+        assertThat(notifier.members("OVERDUE")).containsExactly(memberOf(overdue));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reminder_log WHERE status = 'SENT'", Integer.class))
+                .isEqualTo(7);
+
+        // Nothing left to send
+        notifier.sent.clear();
+        reminderService.run();
+        assertThat(notifier.sent).isEmpty();
+    }
+
+    @Test
+    void failedSendsAreReleasedAndRetriedOnTheNextRun() {
+        long failing = loan(TODAY.plusDays(1));
+        long fine = loan(TODAY.plusDays(1));
+        notifier.failFor = memberOf(failing);
+
+        reminderService.run();
+
+        assertThat(notifier.members("DUE_SOON")).containsExactly(memberOf(fine));
+        assertThat(jdbcTemplate.queryForList("SELECT transaction_id FROM reminder_log", Long.class)).containsExactly(fine);
+
+        notifier.failFor = null;
+        notifier.sent.clear();
+        reminderService.run();
+        assertThat(notifier.members("DUE_SOON")).containsExactly(memberOf(failing));
+    }
+
+    @Test
+    void claimsGoToOneDispatchUntilTheyGoStale() {
+        long loan = loan(TODAY.plusDays(1));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(reminderRepository.claim("DUE_SOON", List.of(loan), now, now.minusMinutes(15))).containsExactly(loan);
+        assertThat(reminderRepository.claim("DUE_SOON", List.of(loan), now, now.minusMinutes(15))).isEmpty();
+        // The same loan's overdue reminder is a separate claim
+        assertThat(reminderRepository.claim("OVERDUE", List.of(loan), now, now.minusMinutes(15))).containsExactly(loan);
+        // A claim older than the timeout is taken over; a sent reminder never is
+        LocalDateTime later = now.plusMinutes(20);
+        assertThat(reminderRepository.claim("DUE_SOON", List.of(loan), later, later.minusMinutes(15))).containsExactly(loan);
+        reminderRepository.markSent("DUE_SOON", List.of(loan), later);
+        LocalDateTime muchLater = now.plusHours(2);
+        assertThat(reminderRepository.claim("DUE_SOON", List.of(loan), muchLater, muchLater.minusMinutes(15))).isEmpty();
+    }
+
+    @Test
+    void interruptedRunResumesWithoutResending() {
+        long sent = loan(TODAY.plusDays(1));
+        long claimedElsewhere = loan(TODAY.plusDays(1));
+        long abandoned = loan(TODAY.plusDays(1));
+        long untouched = loan(TODAY.plusDays(1));
+        LocalDateTime now = LocalDateTime.now();
+        // What a run that died left behind, next to a claim a live run on another instance holds
+        jdbcTemplate.update("INSERT INTO reminder_log VALUES (?, 'DUE_SOON', 'SENT', ?, ?)", sent, now.minusHours(1), now.minusHours(1));
+        jdbcTemplate.update("INSERT INTO reminder_log VALUES (?, 'DUE_SOON', 'PENDING', ?, NULL)", claimedElsewhere, now.minusMinutes(1));
+        jdbcTemplate.update("INSERT INTO reminder_log VALUES (?, 'DUE_SOON', 'PENDING', ?, NULL)", abandoned, now.minusHours(1));
+
+        reminderService.run();
+
+        assertThat(notifier.members("DUE_SOON")).containsExactlyInAnyOrder(memberOf(abandoned), memberOf(untouched));
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM reminder_log WHERE transaction_id = ?", String.class,
+                claimedElsewhere)).isEqualTo("PENDING");
+    }
+
+    @Test
+    void scheduledTriggerHandsTheRunToItsOwnThread() throws InterruptedException {
+        long first = loan(TODAY.plusDays(1));
+        CountDownLatch release = new CountDownLatch(1);
+        notifier.blockOn = release;
+
+        // Returns while the run is still waiting on the notifier
+        reminderService.sendReminders();
+        assertThat(notifier.entered.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(notifier.sent).isEmpty();
+
+        // A trigger while that run is going is skipped rather than started alongside it,
+        // so a loan the running one has already paged past waits for the next run
+        loan(TODAY.plusDays(1));
+        reminderService.sendReminders();
+        release.countDown();
+        AtomicBoolean running = (AtomicBoolean) ReflectionTestUtils.getField(reminderService, "running");
+        waitUntil(() -> !running.get());
+        assertThat(notifier.members("DUE_SOON")).containsExactly(memberOf(first));
+    }
+
+    private long loan(LocalDate dueDate) {
+        members++;
+        long memberId = jdbcTemplate.queryForObject("""
+            INSERT INTO members (member_id, first_name, last_name, email) VALUES (?, 'Asha', 'Rao', ?) RETURNING id
+            """, Long.class, "M-" + members, "asha." + members + "@example.com");
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO transactions (book_id, member_id, issue_date, due_date) VALUES (?, ?, ?, ?) RETURNING id
+            """, Long.class, bookId, memberId, dueDate.minusDays(14), dueDate);
+    }
+
+    private long memberOf(long transactionId) {
+        return jdbcTemplate.queryForObject("SELECT member_id FROM transactions WHERE id = ?", Long.class, transactionId);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static class RecordingNotifier implements Notifier {
+
+        private final List<Notification> sent = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile Long failFor;
+        private volatile CountDownLatch blockOn;
+
+        @Override
+        public void send(Notification notification) {
+            entered.countDown();
+            CountDownLatch block = blockOn;
+            if (block != null) {
+                try {
+                    block.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (notification.memberId().equals(failFor)) {
+                throw new IllegalStateException("mailbox full");
+            }
+            sent.add(notification);
+        }
+
+        private List<Long> members(String type) {
+            synchronized (sent) {
+                return sent.stream().filter(n -> n.type().equals(type)).map(Notification::memberId).toList();
+            }
+        }
+    }
+}
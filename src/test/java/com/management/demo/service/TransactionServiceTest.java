@@ -0,0 +1,228 @@
+package com.management.demo.service;
+
+import com.management.demo.PostgresTestDatabase;
+import com.management.demo.exception.ConflictException;
+import com.management.demo.fine.FinePolicy;
+import com.management.demo.fine.FinePolicyProperties;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.model.Book;
+import com.management.demo.model.Transaction;
+import com.management.demo.notification.LoggingNotifier;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.HoldRepository;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.repository.TransactionRepository;
+import com.management.demo.sharding.ShardResolver;
+import com.management.demo.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checkouts and returns racing each other on PostgreSQL. The transaction boundaries that
+// @Transactional draws in the application are drawn here with a TransactionTemplate.
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TransactionRepository transactionRepository;
+    private TransactionService transactionService;
+
+    // When set, both racers read the book (checkout) or the loan (return) before either writes
+    private volatile CyclicBarrier race;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = PostgresTestDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        ShardResolver shardResolver = new ShardResolver(new ShardingProperties());
+
+        BookRepository bookRepository = repository(new BookRepository() {
+            @Override
+            public Optional<Book> findById(Long id) {
+                Optional<Book> book = super.findById(id);
+                awaitRace();
+                return book;
+            }
+        }, dataSource, shardResolver);
+        transactionRepository = repository(new TransactionRepository() {
+            @Override
+            public Optional<Transaction> findById(Long id) {
+                Optional<Transaction> transaction = super.findById(id);
+                awaitRace();
+                return transaction;
+            }
+        }, dataSource, shardResolver);
+        MemberRepository memberRepository = repository(new MemberRepository(), dataSource, shardResolver);
+
+        HoldService holdService = new HoldService();
+        ReflectionTestUtils.setField(holdService, "holdRepository", repository(new HoldRepository(), dataSource, shardResolver));
+        ReflectionTestUtils.setField(holdService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(holdService, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(holdService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(holdService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(holdService, "notifier", new LoggingNotifier());
+        ReflectionTestUtils.setField(holdService, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(holdService, "invalidationBus", new InvalidationBus());
+        ReflectionTestUtils.setField(holdService, "pickupDays", 3);
+
+        transactionService = new TransactionService();
+        ReflectionTestUtils.setField(transactionService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transactionService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(transactionService, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(transactionService, "holdService", holdService);
+        ReflectionTestUtils.setField(transactionService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(transactionService, "journal", new Journal());
+        ReflectionTestUtils.setField(transactionService, "finePolicy", FinePolicy.compile(new FinePolicyProperties()));
+        ReflectionTestUtils.setField(transactionService, "invalidationBus", new InvalidationBus());
+    }
+
+    @Test
+    void checkoutThatLosesTheRaceForTheLastCopyRollsBack() throws Exception {
+        long bookId = insertBook(1);
+        long first = insertMember("M-1");
+        long second = insertMember("M-2");
+
+        // Both see one copy on the shelf; only one takes it
+        List<Object> outcomes = race(
+                () -> transactionService.issueBook(bookId, first, 14),
+                () -> transactionService.issueBook(bookId, second, 14));
+
+        assertThat(outcomes).filteredOn(Transaction.class::isInstance).hasSize(1);
+        assertThat(outcomes).filteredOn(ConflictException.class::isInstance).singleElement()
+                .extracting(e -> ((ConflictException) e).getCode()).isEqualTo("no-copies-available");
+        // The loser's loan row went with its rollback
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transactions", Integer.class)).isEqualTo(1);
+        assertThat(availableCopies(bookId)).isZero();
+    }
+
+    @Test
+    void concurrentReturnsOfOneLoanShelveTheCopyOnce() throws Exception {
+        long bookId = insertBook(1);
+        long memberId = insertMember("M-1");
+        Transaction loan = inTransaction(() -> transactionService.issueBook(bookId, memberId, 14));
+        assertThat(availableCopies(bookId)).isZero();
+
+        // Both read the loan while it is still open
+        List<Object> outcomes = race(
+                () -> transactionService.returnBook(loan.getId()),
+                () -> transactionService.returnBook(loan.getId()));
+
+        assertThat(outcomes).filteredOn(Transaction.class::isInstance).singleElement()
+                .extracting(t -> ((Transaction) t).getStatus()).isEqualTo("RETURNED");
+        assertThat(outcomes).filteredOn(ConflictException.class::isInstance).singleElement()
+                .extracting(e -> ((ConflictException) e).getCode()).isEqualTo("already-returned");
+        assertThat(availableCopies(bookId)).isEqualTo(1);
+    }
+
+    @Test
+    void returnUpdateOnlyClosesAnOpenLoan() {
+        long bookId = insertBook(1);
+        long memberId = insertMember("M-1");
+        Transaction loan = inTransaction(() -> transactionService.issueBook(bookId, memberId, 14));
+        loan.setReturnDate(loan.getIssueDate());
+        loan.setStatus("RETURNED");
+
+        assertThat(transactionRepository.updateReturn(loan)).isTrue();
+        assertThat(transactionRepository.updateReturn(loan)).isFalse();
+        assertThatThrownBy(() -> inTransaction(() -> transactionService.returnBook(loan.getId())))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    // Runs both calls in their own transactions, released together; each outcome is the
+    // call's result or the exception it threw
+    private List<Object> race(Supplier<Object> a, Supplier<Object> b) throws Exception {
+        race = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Supplier<Object> call : List.of(a, b)) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return inTransaction(call);
+                    } catch (ConflictException e) {
+                        return e;
+                    }
+                }));
+            }
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            race = null;
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> call) {
+        return transactionTemplate.execute(status -> call.get());
+    }
+
+    private void awaitRace() {
+        CyclicBarrier barrier = race;
+        if (barrier == null) {
+            return;
+        }
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Racer did not arrive", e);
+        }
+    }
+
+    private long insertBook(int copies) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO books (isbn, title, author, category, publication_year, total_copies, available_copies)
+            VALUES ('978-0134685991', 'Effective Java', 'Joshua Bloch', 'Programming', 2018, ?, ?) RETURNING id
+            """, Long.class, copies, copies);
+    }
+
+    private long insertMember(String memberId) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO members (member_id, first_name, last_name, email) VALUES (?, 'Asha', 'Rao', ?) RETURNING id
+            """, Long.class, memberId, memberId.toLowerCase() + "@example.com");
+    }
+
+    private int availableCopies(long bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private static <T> T repository(T repository, DataSource dataSource, ShardResolver shardResolver) {
+        inject(repository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        inject(repository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        inject(repository, "shardResolver", shardResolver);
+        return repository;
+    }
+
+    // Not every repository has every collaborator
+    private static void inject(Object target, String field, Object value) {
+        if (ReflectionUtils.findField(target.getClass(), field) != null) {
+            ReflectionTestUtils.setField(target, field, value);
+        }
+    }
+}
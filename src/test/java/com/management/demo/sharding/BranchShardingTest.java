@@ -0,0 +1,249 @@
+package com.management.demo.sharding;
+
+import com.management.demo.exception.ConflictException;
+import com.management.demo.exception.PreconditionRequiredException;
+import com.management.demo.invalidation.InvalidationBus;
+import com.management.demo.journal.Journal;
+import com.management.demo.model.Book;
+import com.management.demo.model.Member;
+import com.management.demo.model.MemberImportReport;
+import com.management.demo.repository.BookRepository;
+import com.management.demo.repository.MemberRepository;
+import com.management.demo.service.MemberImportService;
+import com.management.demo.service.MemberService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Three in-memory H2 databases stand in for the branch shards behind one routing DataSource
+class BranchShardingTest {
+
+    private static final List<String> BRANCHES = List.of("main", "north", "south");
+
+    private ShardResolver shardResolver;
+    private JdbcTemplate jdbcTemplate;
+    private BookRepository bookRepository;
+    private MemberRepository memberRepository;
+
+    @BeforeEach
+    void setUp() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setDefaultBranch("main");
+        properties.getBranches().put("north", new ShardingProperties.Branch());
+        properties.getBranches().put("south", new ShardingProperties.Branch());
+        shardResolver = new ShardResolver(properties);
+
+        // Fresh databases per test
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Map<Object, Object> shards = new HashMap<>();
+        for (String branch : BRANCHES) {
+            shards.put(branch, new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + branch + "_" + run + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"));
+        }
+        BranchRoutingDataSource routing = new BranchRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get("main"));
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        bookRepository = repository(new BookRepository(), routing);
+        memberRepository = repository(new MemberRepository(), routing);
+
+        for (String branch : BRANCHES) {
+            BranchContext.runIn(branch, this::createTables);
+        }
+    }
+
+    @Test
+    void writesLandOnTheCurrentBranchOnly() {
+        BranchContext.runIn("north", () -> bookRepository.save(book("978-1", "Java Concurrency in Practice")));
+        BranchContext.runIn("south", () -> bookRepository.save(book("978-2", "Effective Java")));
+
+        List<Book> north = BranchContext.callIn("north", bookRepository::findAll);
+        assertThat(north).extracting(Book::getTitle).containsExactly("Java Concurrency in Practice");
+        assertThat(north).extracting(Book::getBranch).containsExactly("north");
+
+        // Each shard has its own ID sequence
+        assertThat(BranchContext.callIn("south", () -> bookRepository.findById(1L)))
+                .map(Book::getTitle).contains("Effective Java");
+        assertThat(bookRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void catalogSearchFansOutToEveryBranchInParallel() {
+        BranchContext.runIn("main", () -> bookRepository.save(book("978-1", "Java Generics")));
+        BranchContext.runIn("north", () -> bookRepository.save(book("978-2", "Modern Java in Action")));
+        BranchContext.runIn("south", () -> bookRepository.save(book("978-3", "Python Tricks")));
+
+        // Every branch waits for the others, so this only finishes if they run concurrently
+        CountDownLatch allStarted = new CountDownLatch(BRANCHES.size());
+        List<Book> found = shardResolver.fanOut(branch -> {
+            allStarted.countDown();
+            await(allStarted);
+            return bookRepository.searchBooks("java");
+        });
+
+        assertThat(found).extracting(Book::getBranch).containsExactlyInAnyOrder("main", "north");
+        assertThat(found).extracting(Book::getTitle).containsExactlyInAnyOrder("Java Generics", "Modern Java in Action");
+    }
+
+    @Test
+    void memberLookupFindsMembersOfOtherBranches() {
+        BranchContext.runIn("south", () -> jdbcTemplate.update(
+                "INSERT INTO members (member_id, first_name, last_name, email, is_active, branch) VALUES (?, ?, ?, ?, ?, ?)",
+                "M-200", "Asha", "Rao", "asha@example.com", true, "south"));
+
+        Optional<Member> member = shardResolver.findFirst(branch -> memberRepository.findByEmail("asha@example.com"));
+
+        assertThat(member).map(Member::getBranch).contains("south");
+        assertThat(shardResolver.findFirst(branch -> memberRepository.findByEmail("nobody@example.com"))).isEmpty();
+    }
+
+    @Test
+    void memberIdsAndEmailsAreUniqueAcrossBranches() {
+        BranchContext.runIn("south", () -> jdbcTemplate.update(
+                "INSERT INTO members (member_id, first_name, last_name, email, is_active, branch) VALUES (?, ?, ?, ?, ?, ?)",
+                "M-200", "Asha", "Rao", "asha@example.com", true, "south"));
+        BranchContext.runIn("north", () -> jdbcTemplate.update(
+                "INSERT INTO members (member_id, first_name, last_name, email, is_active, branch) VALUES (?, ?, ?, ?, ?, ?)",
+                "M-300", "Ravi", "Iyer", "ravi@example.com", true, "north"));
+        MemberService memberService = new MemberService();
+        ReflectionTestUtils.setField(memberService, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(memberService, "shardResolver", shardResolver);
+
+        Member sameMemberId = member("M-200", "other@example.com");
+        assertThatThrownBy(() -> BranchContext.callIn("north", () -> memberService.addMember(sameMemberId)))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("M-200");
+        Member sameEmail = member("M-201", "asha@example.com");
+        assertThatThrownBy(() -> BranchContext.callIn("north", () -> memberService.addMember(sameEmail)))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("asha@example.com");
+
+        // North's member 1 taking south member 1's email: same database ID, different member
+        Member edit = member("M-300", "asha@example.com");
+        assertThatThrownBy(() -> BranchContext.callIn("north", () -> memberService.updateMember(1L, edit, 0L)))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("asha@example.com");
+        // An edit that names no version is refused before anything is checked or written
+        assertThatThrownBy(() -> BranchContext.callIn("north", () -> memberService.updateMember(1L, edit, null)))
+                .isInstanceOf(PreconditionRequiredException.class);
+    }
+
+    @Test
+    void bulkImportChecksMemberIdsAndEmailsOnEveryBranch() throws Exception {
+        BranchContext.runIn("south", () -> jdbcTemplate.update(
+                "INSERT INTO members (member_id, first_name, last_name, email, is_active, branch) VALUES (?, ?, ?, ?, ?, ?)",
+                "M-200", "Asha", "Rao", "asha@example.com", true, "south"));
+        MemberImportService importService = new MemberImportService();
+        ReflectionTestUtils.setField(importService, "memberRepository", memberRepository);
+        ReflectionTestUtils.setField(importService, "shardResolver", shardResolver);
+        ReflectionTestUtils.setField(importService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())));
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "journal", new Journal());
+        ReflectionTestUtils.setField(importService, "invalidationBus", new InvalidationBus());
+
+        String csv = String.join("\n",
+                "memberId,firstName,lastName,email",
+                "M-200,Someone,Else,someone@example.com",
+                "M-201,Another,Asha,asha@example.com",
+                "M-202,Meera,Nair,meera@example.com") + "\n";
+        MemberImportReport report = BranchContext.callIn("north", () -> {
+            try {
+                return importService.importMembers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        assertThat(report.getRows()).extracting(MemberImportReport.RowResult::getStatus)
+                .containsExactly("DUPLICATE", "DUPLICATE", "IMPORTED");
+        assertThat(BranchContext.callIn("north", memberRepository::findAll)).extracting(Member::getMemberId)
+                .containsExactly("M-202");
+    }
+
+    @Test
+    void unknownBranchIsRejectedRatherThanRoutedToDefault() {
+        assertThatThrownBy(() -> BranchContext.callIn("west", bookRepository::findAll))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(shardResolver.isKnownBranch("west")).isFalse();
+    }
+
+    private <T> T repository(T repository, DataSource dataSource) {
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(repository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(repository, "shardResolver", shardResolver);
+        return repository;
+    }
+
+    private void createTables() {
+        jdbcTemplate.execute("""
+            CREATE TABLE books (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                isbn VARCHAR(20), title VARCHAR(255), author VARCHAR(255), category VARCHAR(100),
+                publication_year INT, total_copies INT, available_copies INT,
+                created_at TIMESTAMP, updated_at TIMESTAMP, branch VARCHAR(50) NOT NULL DEFAULT 'main',
+                version BIGINT NOT NULL DEFAULT 0
+            )
+            """);
+        jdbcTemplate.execute("""
+            CREATE TABLE members (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                member_id VARCHAR(20), first_name VARCHAR(100), last_name VARCHAR(100), email VARCHAR(255),
+                phone VARCHAR(20), address VARCHAR(255), membership_date DATE, is_active BOOLEAN,
+                tier VARCHAR(20) NOT NULL DEFAULT 'STANDARD',
+                created_at TIMESTAMP, updated_at TIMESTAMP, branch VARCHAR(50) NOT NULL DEFAULT 'main',
+                version BIGINT NOT NULL DEFAULT 0
+            )
+            """);
+    }
+
+    private static Book book(String isbn, String title) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setPublicationYear(2020);
+        return book;
+    }
+
+    private static Member member(String memberId, String email) {
+        Member member = new Member();
+        member.setMemberId(memberId);
+        member.setFirstName("Ravi");
+        member.setLastName("Iyer");
+        member.setEmail(email);
+        return member;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
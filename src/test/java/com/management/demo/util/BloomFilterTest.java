@@ -0,0 +1,48 @@
+package com.management.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+    private static final int PROBES = 100_000;
+
+    @Test
+    void falsePositiveRateIsWhatTheFilterWasSizedFor() {
+        assertFalsePositiveRate(0.01);
+        assertFalsePositiveRate(0.001);
+    }
+
+    @Test
+    void tinyFiltersStillHoldWhatWasPut() {
+        for (long expectedInsertions : new long[]{0, 1}) {
+            BloomFilter filter = BloomFilter.create(expectedInsertions, 0.01);
+            filter.put("M0001");
+
+            assertThat(filter.bitSize()).isGreaterThanOrEqualTo(64);
+            assertThat(filter.mightContain("M0001")).isTrue();
+        }
+    }
+
+    private static void assertFalsePositiveRate(double falsePositiveProbability) {
+        BloomFilter filter = BloomFilter.create(INSERTIONS, falsePositiveProbability);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("M" + i + "@example.org");
+        }
+
+        // No false negatives
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("M" + i + "@example.org")).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain("absent-" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / PROBES).isLessThanOrEqualTo(1.5 * falsePositiveProbability);
+    }
+}
@@ -0,0 +1,125 @@
+package com.management.demo.util;
+
+import com.management.demo.datagen.DataGenSettings;
+import com.management.demo.datagen.SyntheticLibrary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoOccurrenceMatrixTest {
+
+    @Test
+    void basketAndIncrementalUpdatesCountTheSamePairs() {
+        CoOccurrenceMatrix fromBaskets = new CoOccurrenceMatrix();
+        fromBaskets.addBasket(new long[]{1, 2, 3}, 3);
+        fromBaskets.addBasket(new long[]{1, 3}, 2);
+
+        // The same two histories replayed one loan at a time against earlier loans
+        CoOccurrenceMatrix incremental = new CoOccurrenceMatrix();
+        incremental.addPairs(2, new long[]{1}, 1);
+        incremental.addPairs(3, new long[]{1, 2}, 2);
+        incremental.addPairs(3, new long[]{1}, 1);
+
+        for (CoOccurrenceMatrix matrix : List.of(fromBaskets, incremental)) {
+            assertThat(matrix.count(1, 3)).isEqualTo(2);
+            assertThat(matrix.count(3, 1)).isEqualTo(2);
+            assertThat(matrix.count(1, 2)).isEqualTo(1);
+            assertThat(matrix.count(1, 1)).isZero();
+            assertThat(matrix.topK(1, 5)).containsExactly(
+                    new CoOccurrenceMatrix.Scored(3, 2),
+                    new CoOccurrenceMatrix.Scored(2, 1));
+        }
+    }
+
+    @Test
+    void topKBreaksTiesByLowerId() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix();
+        matrix.addPairs(10, new long[]{40, 20, 30}, 3);
+        matrix.addPairs(10, new long[]{30}, 1);
+
+        assertThat(matrix.topK(10, 2)).containsExactly(
+                new CoOccurrenceMatrix.Scored(30, 2),
+                new CoOccurrenceMatrix.Scored(20, 1));
+        assertThat(matrix.topK(99, 2)).isEmpty();
+    }
+
+    // Memory footprint and top-K latency at catalogue scale. Needs a large heap:
+    //   ./mvnw test -Dtest=CoOccurrenceMatrixTest -Dbenchmark=true -DargLine=-Xmx24g
+    //   (-Dbenchmark.books=1000000 -Dbenchmark.loans=50000000 -Dbenchmark.loans-per-member=25)
+    // Books are drawn with the synthetic data generator's Zipf popularity (a few titles borrowed
+    // far more than the rest), which is what makes popular rows dense and the long tail sparse.
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAtCatalogueScale() {
+        int books = Integer.getInteger("benchmark.books", 1_000_000);
+        long loans = Long.getLong("benchmark.loans", 50_000_000L);
+        int loansPerMember = Integer.getInteger("benchmark.loans-per-member", 25);
+        int queries = Integer.getInteger("benchmark.queries", 100_000);
+
+        SyntheticLibrary library = new SyntheticLibrary(DataGenSettings.fromSystemProperties().withScale(books, 1, 0, 42));
+        SplittableRandom random = new SplittableRandom(42);
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix();
+        long[] basket = new long[loansPerMember * 2];
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        long loaded = 0;
+        long members = 0;
+        while (loaded < loans) {
+            // Basket sizes vary around the mean; duplicates are removed like the DISTINCT scan does
+            int size = 1 + random.nextInt(loansPerMember * 2 - 1);
+            for (int i = 0; i < size; i++) {
+                basket[i] = library.popularBook(random) + 1;
+            }
+            Arrays.sort(basket, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || basket[distinct - 1] != basket[i]) {
+                    basket[distinct++] = basket[i];
+                }
+            }
+            matrix.addBasket(basket, distinct);
+            loaded += size;
+            members++;
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long heapAfter = usedHeap();
+
+        long[] latencies = new long[queries];
+        long checksum = 0;
+        for (int i = 0; i < queries; i++) {
+            long bookId = library.popularBook(random) + 1;
+            long queryStart = System.nanoTime();
+            checksum += matrix.topK(bookId, 10).size();
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Co-occurrence benchmark: %,d loans, %,d members, %,d books%n", loaded, members, books);
+        System.out.printf("  build: %,d ms, rows: %,d, cells: %,d%n", buildMillis, matrix.rowCount(), matrix.cellCount());
+        System.out.printf("  memory: estimated %,d MB, heap delta %,d MB (%.1f bytes/cell)%n",
+                matrix.estimatedBytes() >> 20, (heapAfter - heapBefore) >> 20,
+                (double) matrix.estimatedBytes() / Math.max(1, matrix.cellCount()));
+        System.out.printf("  top-10 latency (us): p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f (%d results)%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1000.0, checksum);
+
+        assertThat(matrix.cellCount()).isPositive();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1000.0;
+    }
+}
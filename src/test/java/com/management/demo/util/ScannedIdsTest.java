@@ -0,0 +1,33 @@
+package com.management.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScannedIdsTest {
+
+    @Test
+    void idsInGapsOrAboveTheMarkWereNotScanned() {
+        // Seen: 3, 4, 6, 10; 1-2, 5 and 7-9 were uncommitted or rolled back
+        ScannedIds scanned = new ScannedIds(10, List.of(new long[]{1, 2}, new long[]{5, 5}, new long[]{7, 9}));
+
+        assertThat(scanned.contains(1)).isFalse();
+        assertThat(scanned.contains(2)).isFalse();
+        assertThat(scanned.contains(3)).isTrue();
+        assertThat(scanned.contains(4)).isTrue();
+        assertThat(scanned.contains(5)).isFalse();
+        assertThat(scanned.contains(6)).isTrue();
+        assertThat(scanned.contains(8)).isFalse();
+        assertThat(scanned.contains(10)).isTrue();
+        assertThat(scanned.contains(11)).isFalse();
+        assertThat(scanned.gapCount()).isEqualTo(3);
+    }
+
+    @Test
+    void nothingScannedContainsNothing() {
+        assertThat(ScannedIds.NONE.contains(1)).isFalse();
+        assertThat(new ScannedIds(3, List.of()).contains(1)).isTrue();
+    }
+}
@@ -0,0 +1,115 @@
+package com.management.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private static final int BURST = 200;
+
+    @Test
+    void burstOfIdenticalLookupsRunsOneQuery() throws Exception {
+        SingleFlight<String, Optional<String>> singleFlight = new SingleFlight<>("test");
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Optional<String>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(BURST)) {
+            for (int i = 0; i < BURST; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("978-0134685991", () -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    return Optional.of("Effective Java");
+                })));
+            }
+
+            // Hold the query open until every caller has attached to it
+            while (singleFlight.getCalls() < BURST) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Optional<String>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).contains("Effective Java");
+            }
+        }
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(singleFlight.getExecutions()).isEqualTo(1);
+        assertThat(singleFlight.getCoalescingRatio()).isEqualTo(1.0 - 1.0 / BURST);
+    }
+
+    @Test
+    void nextBurstQueriesAgain() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger queries = new AtomicInteger();
+
+        singleFlight.execute(1L, () -> "first-" + queries.incrementAndGet());
+        String second = singleFlight.execute(1L, () -> "second-" + queries.incrementAndGet());
+
+        assertThat(second).isEqualTo("second-2");
+        assertThat(singleFlight.getExecutions()).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsSharedAndNotRemembered() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        List<Future<Throwable>> failures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                failures.add(executor.submit(() -> {
+                    try {
+                        singleFlight.execute(7L, () -> {
+                            queries.incrementAndGet();
+                            await(release);
+                            throw new IllegalStateException("database unavailable");
+                        });
+                        return null;
+                    } catch (IllegalStateException e) {
+                        return e;
+                    }
+                }));
+            }
+
+            while (singleFlight.getCalls() < callers) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Throwable first = failures.get(0).get(5, TimeUnit.SECONDS);
+            assertThat(first).isInstanceOf(IllegalStateException.class).hasMessage("database unavailable");
+            // The very same exception, unwrapped, for every caller
+            for (Future<Throwable> failure : failures) {
+                assertThat(failure.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        }
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(singleFlight.getExecutions()).isEqualTo(1);
+
+        assertThat(singleFlight.execute(7L, () -> "recovered")).isEqualTo("recovered");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
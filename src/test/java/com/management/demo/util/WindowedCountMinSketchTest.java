@@ -0,0 +1,104 @@
+package com.management.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowedCountMinSketchTest {
+
+    private static final long BUCKET = 1_000;
+
+    @Test
+    void windowSumsTheLatestBuckets() {
+        WindowedCountMinSketch sketch = new WindowedCountMinSketch(4, 1024, 3, BUCKET);
+        long now = 2 * BUCKET;
+        sketch.add(7, 0, now);
+        sketch.add(7, BUCKET, now);
+        sketch.add(7, BUCKET + 500, now);
+        sketch.add(7, now, now);
+        sketch.add(8, now, now);
+
+        assertThat(sketch.estimate(7, now, 1)).isEqualTo(1);
+        assertThat(sketch.estimate(7, now, 2)).isEqualTo(3);
+        assertThat(sketch.estimate(7, now, 3)).isEqualTo(4);
+        // A window longer than the ring is the whole ring
+        assertThat(sketch.estimate(7, now, 10)).isEqualTo(4);
+        assertThat(sketch.total(now, 3)).isEqualTo(5);
+        assertThat(sketch.estimate(9, now, 3)).isZero();
+    }
+
+    @Test
+    void bucketIsClearedWhenTheRingWrapsOntoIt() {
+        WindowedCountMinSketch sketch = new WindowedCountMinSketch(4, 1024, 3, BUCKET);
+        sketch.add(7, 0, 0);
+        sketch.add(7, 0, 0);
+        sketch.add(7, BUCKET, BUCKET);
+
+        // Slot 3 takes over bucket 0 from slot 0
+        long now = 3 * BUCKET;
+        sketch.add(7, now, now);
+
+        assertThat(sketch.estimate(7, now, 1)).isEqualTo(1);
+        assertThat(sketch.estimate(7, now, 3)).isEqualTo(2);
+        assertThat(sketch.total(now, 3)).isEqualTo(2);
+    }
+
+    @Test
+    void eventsOlderThanTheRingAreForgotten() {
+        WindowedCountMinSketch sketch = new WindowedCountMinSketch(4, 1024, 3, BUCKET);
+        sketch.add(7, 0, 0);
+        sketch.add(7, BUCKET, BUCKET);
+
+        // Nothing new arrived, but slot 0 has left the window and slot 1 leaves it next
+        assertThat(sketch.estimate(7, 3 * BUCKET, 3)).isEqualTo(1);
+        assertThat(sketch.estimate(7, 4 * BUCKET, 3)).isZero();
+        assertThat(sketch.total(4 * BUCKET, 3)).isZero();
+
+        // A late event for a slot already out of the ring is dropped
+        long now = 5 * BUCKET;
+        sketch.add(7, 2 * BUCKET, now);
+        assertThat(sketch.estimate(7, now, 3)).isZero();
+
+        // So is one whose bucket a newer slot has taken
+        sketch.add(8, now, now);
+        sketch.add(8, 2 * BUCKET + 1, 4 * BUCKET);
+        assertThat(sketch.estimate(8, now, 3)).isEqualTo(1);
+        assertThat(sketch.total(now, 3)).isEqualTo(1);
+    }
+
+    @Test
+    void estimatesOvercountByAtMostEpsilonTimesTotal() {
+        int buckets = 4;
+        WindowedCountMinSketch sketch = new WindowedCountMinSketch(4, 512, buckets, BUCKET);
+        long now = (buckets - 1) * BUCKET;
+        int items = 20_000;
+        int events = 200_000;
+        Map<Long, Long> truth = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < events; i++) {
+            // Skewed towards low IDs, like a few popular titles and a long tail
+            long item = (long) (items * Math.pow(random.nextDouble(), 3));
+            sketch.add(item, random.nextLong(now + 1), now);
+            truth.merge(item, 1L, Long::sum);
+        }
+
+        long total = sketch.total(now, buckets);
+        assertThat(total).isEqualTo(events);
+        long bound = (long) Math.ceil(sketch.epsilon() * total);
+        int overBound = 0;
+        for (long item = 0; item < items; item++) {
+            long actual = truth.getOrDefault(item, 0L);
+            long estimate = sketch.estimate(item, now, buckets);
+            assertThat(estimate).isGreaterThanOrEqualTo(actual);
+            if (estimate > actual + bound) {
+                overBound++;
+            }
+        }
+        // At most a delta share of items may exceed the bound; allow for sampling noise
+        assertThat((double) overBound / items).isLessThanOrEqualTo(2 * sketch.delta());
+    }
+}